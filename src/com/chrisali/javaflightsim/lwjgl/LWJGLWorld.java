@@ -23,7 +23,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -46,17 +45,18 @@ import com.chrisali.javaflightsim.lwjgl.interfaces.text.FontType;
 import com.chrisali.javaflightsim.lwjgl.interfaces.text.SimulationTexts;
 import com.chrisali.javaflightsim.lwjgl.interfaces.text.TextMaster;
 import com.chrisali.javaflightsim.lwjgl.interfaces.ui.InterfaceTexture;
+import com.chrisali.javaflightsim.lwjgl.loader.AssetPipeline;
 import com.chrisali.javaflightsim.lwjgl.loader.Loader;
-import com.chrisali.javaflightsim.lwjgl.loader.OBJLoader;
+import com.chrisali.javaflightsim.lwjgl.loader.LoadingProgress;
 import com.chrisali.javaflightsim.lwjgl.models.TexturedModel;
-import com.chrisali.javaflightsim.lwjgl.particles.Cloud;
+import com.chrisali.javaflightsim.lwjgl.particles.CloudLayer;
 import com.chrisali.javaflightsim.lwjgl.particles.ParticleMaster;
 import com.chrisali.javaflightsim.lwjgl.particles.ParticleTexture;
 import com.chrisali.javaflightsim.lwjgl.renderengine.DisplayManager;
 import com.chrisali.javaflightsim.lwjgl.renderengine.InterfaceRenderer;
 import com.chrisali.javaflightsim.lwjgl.renderengine.MasterRenderer;
+import com.chrisali.javaflightsim.lwjgl.terrain.Terrain;
 import com.chrisali.javaflightsim.lwjgl.terrain.TerrainCollection;
-import com.chrisali.javaflightsim.lwjgl.textures.ModelTexture;
 import com.chrisali.javaflightsim.lwjgl.utilities.OTWDirectories;
 import com.chrisali.javaflightsim.simulation.SimulationRunner;
 import com.chrisali.javaflightsim.simulation.datatransfer.EnvironmentData;
@@ -65,7 +65,9 @@ import com.chrisali.javaflightsim.simulation.datatransfer.FlightData;
 import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataListener;
 import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataType;
 import com.chrisali.javaflightsim.simulation.datatransfer.InputDataListener;
+import com.chrisali.javaflightsim.simulation.datatransfer.InputEventQueue;
 import com.chrisali.javaflightsim.simulation.datatransfer.SimulationEventListener;
+import com.chrisali.javaflightsim.simulation.diagnostics.LatencyTracer;
 import com.chrisali.javaflightsim.simulation.setup.CameraMode;
 import com.chrisali.javaflightsim.simulation.setup.KeyCommand;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
@@ -82,7 +84,22 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 	
 	private static final Logger logger = LogManager.getLogger(LWJGLWorld.class);
 	
+	// Time allowed to upload loaded assets to the GPU during startup between polling window events, and during each frame afterwards 
+	public static final long STARTUP_UPLOAD_BUDGET_NANOS = 16_000_000;
+	public static final long FRAME_UPLOAD_BUDGET_NANOS = 2_000_000;
+	
+	// Estimated memory that terrain tiles no longer around the ownship may occupy before being evicted
+	public static final long TERRAIN_MEMORY_BUDGET_BYTES = 32_000_000;
+	
+	// Clouds are generated from a fixed seed so that they are the same from one run to the next
+	public static final long CLOUD_SEED = 0x5EED;
+	public static final float CLOUD_ALTITUDE = 300;
+	public static final float CLOUD_COVERAGE = 0.5f;
+	public static final int CLOUD_NEAR_RADIUS = 1;
+	public static final int CLOUD_FAR_RADIUS = 6;
+	
 	private Loader loader;
+	private AssetPipeline assetPipeline;
 	private MasterRenderer masterRenderer;
 	
 	// Lighting
@@ -90,6 +107,7 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 	
 	// Collections for in-game objects
 	private TerrainCollection terrainCollection;
+	private CloudLayer cloudLayer;
 	private EntityCollections entities;
 	private SoundCollection soundCollection;
 	
@@ -106,6 +124,8 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 	// Fields that interface with the simulation
 	private SimulationConfiguration configuration;
 	private EnvironmentData environmentData;
+	private InputEventQueue inputEvents;
+	private LatencyTracer latencyTracer;
 	
 	// Event Listeners
 	private List<WindowClosedListener> windowClosedListeners = new ArrayList<>();
@@ -132,10 +152,17 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 	 */
 	@Override
 	public void step() {
+		long frameStartNanos = System.nanoTime();
+		
 		try {
+			assetPipeline.processUploads(FRAME_UPLOAD_BUDGET_NANOS);
+			
+			terrainCollection.update();
+			
+			cloudLayer.update(camera.getPosition().x, camera.getPosition().z);
 			ParticleMaster.update(camera);
 			
-			masterRenderer.renderWholeScene(entities, terrainCollection.getTerrainTree(), 
+			masterRenderer.renderWholeScene(entities, terrainCollection.getTerrainMap(), 
 											lights, camera, new Vector4f(0, 1, 0, 0));
 			
 			ParticleMaster.renderParticles(camera);
@@ -151,6 +178,9 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 			fireEnvironmentDataReceived();
 			
 			DisplayManager.updateDisplay();
+			
+			if (latencyTracer != null)
+				latencyTracer.onFrameDisplayed(frameStartNanos);
 		} catch (Exception e) {
 			logger.error("Error encountered while running LWJGL display!", e);
 		}
@@ -166,8 +196,12 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 	@Override
 	public void init() {
 		try { 
+			assetPipeline = new AssetPipeline();
+			
 			startUp(); 
-			loadAssets(); 
+			loadAssets();
+			
+			assetPipeline.logTimings();
 		} catch (Exception e) {
 			logger.fatal("Error encountered when setting up LWJGL display!", e);
 			cleanUp();
@@ -184,11 +218,15 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 		try {  
 			logger.info("Cleaning up and closing LWJGL display...");
 			
+			if (soundCollection != null)
+				soundCollection.cleanUp();
+			
 			AudioMaster.cleanUp();
 			ParticleMaster.cleanUp();
 			TextMaster.cleanUp();
 			masterRenderer.cleanUp();
 			interfaceRenderer.cleanUp();
+			assetPipeline.shutdown();
 			loader.cleanUp();			
 		}
 		catch (NullPointerException e) {
@@ -211,13 +249,13 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 		DisplayManager.setWidth(configuration.getDisplayConfiguration().getDisplayWidth());
 		DisplayManager.setAaSamples(configuration.getDisplayConfiguration().isUseAntiAliasing() ? 2 : 0);
 		DisplayManager.setUseFullScreen(configuration.getDisplayConfiguration().isUseFullScreen());
-		DisplayManager.createDisplay();
+		assetPipeline.runNow("Display", DisplayManager::createDisplay);
 		
 		loader = new Loader();
 		
 		logger.info("Generating fog and sky...");
 		
-		masterRenderer = new MasterRenderer();
+		assetPipeline.runNow("Shaders", () -> masterRenderer = new MasterRenderer(loader));
 		MasterRenderer.setSkyColor(new Vector3f(0.70f, 0.90f, 1.0f));
 		MasterRenderer.setFogDensity(0.0005f);
 		MasterRenderer.setFogGradient(3.5f);
@@ -225,24 +263,30 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 		
 		logger.info("Initializing audio...");
 		
-		AudioMaster.init();
-		AudioMaster.setListenerData(new Vector3f(0, 0, 0), new Vector3f(0, 0, 0));
+		assetPipeline.runNow("Audio", () -> {
+			AudioMaster.init();
+			AudioMaster.setListenerData(new Vector3f(0, 0, 0), new Vector3f(0, 0, 0));
+		});
 		
 		logger.info("Loading on-screen text and particles...");
 		
-		ParticleMaster.init(loader, masterRenderer.getProjectionMatrix());
-		TextMaster.init(loader);
+		assetPipeline.runNow("Shaders", () -> {
+			ParticleMaster.init(loader, masterRenderer.getProjectionMatrix());
+			TextMaster.init(loader);
+		});
 
 		logger.info("Initializing control inputs and environment data transfer...");
 		
-		InputMaster.init();
+		InputMaster.init(inputEvents);
 		environmentData = new EnvironmentData();
 		
-		interfaceRenderer = new InterfaceRenderer(loader);
+		assetPipeline.runNow("Shaders", () -> interfaceRenderer = new InterfaceRenderer(loader));
 	}
 	
 	/**
-	 * Initializes and generates all assets needed to render lights, entities, particles terrain and text
+	 * Initializes and generates all assets needed to render lights, entities, particles terrain and text. Textures, 
+	 * models and terrain are decoded by {@link AssetPipeline} worker threads while the remaining setup runs, and 
+	 * then uploaded to the GPU on this thread before returning
 	 */
 	private void loadAssets() {
 		
@@ -257,14 +301,13 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 		
 		logger.info("Generating collections of entities...");
 		
-		entities = new EntityCollections(lights, loader);
+		entities = new EntityCollections(lights, loader, assetPipeline);
 		
 		//================================= Ownship ===========================================================
 		
 		logger.info("Creating ownship...");
 		
-		TexturedModel airplane =  new TexturedModel(OBJLoader.loadObjModel("airplane", OTWDirectories.ENTITIES.toString(), loader), 
-			    								new ModelTexture(loader.loadTexture("airplane", OTWDirectories.ENTITIES.toString())));
+		TexturedModel airplane = assetPipeline.loadTexturedModel("Ownship", "airplane", "airplane", OTWDirectories.ENTITIES.toString(), loader);
 
 		ownship = new Ownship(airplane, configuration.getInitialConditions(), 1.25f);
 		ownship.setRender(configuration.getCameraConfiguration().getMode() == CameraMode.CHASE);
@@ -279,38 +322,60 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 		
 		logger.info("Generating terrain...");
 		
-		terrainCollection = new TerrainCollection(10, loader, ownship);
-		entities.setTerrainTree(terrainCollection.getTerrainTree());
+		terrainCollection = new TerrainCollection(getTerrainRadius(), TERRAIN_MEMORY_BUDGET_BYTES, loader, assetPipeline, ownship);
+		entities.setTerrainCollection(terrainCollection);
 		
 		//=============================== Particles ==========================================================
 		
 		logger.info("Generating clouds...");
 		
-		ParticleTexture clouds = new ParticleTexture(loader.loadTexture("clouds", OTWDirectories.PARTICLES.toString()), 4, true);
+		ParticleTexture clouds = new ParticleTexture(0, 4, true);
+		assetPipeline.loadTexture("Particles", "clouds", OTWDirectories.PARTICLES.toString(), loader).thenAccept(clouds::setTextureID);
 		
-		// Generates clouds at random positions along terrain map
-		Random random = new Random();
-		for (int i = -1000; i < 1000; i++)
-			new Cloud(clouds, new Vector3f(random.nextInt(800*10), 300, i*10), new Vector3f(0, 0, 0), 0, 200);
+		// Generates clouds procedurally in cells paged around the camera
+		cloudLayer = new CloudLayer(ParticleMaster.getPool(clouds), CLOUD_SEED, CLOUD_ALTITUDE, CLOUD_COVERAGE, 
+									CLOUD_NEAR_RADIUS, CLOUD_FAR_RADIUS);
 		
 		//=============================== Interface ==========================================================
 		
 		logger.info("Generating on-screen text and panel...");
 		
 		// On-screen text
-		simTexts = new SimulationTexts(new FontType(loader, "ubuntu"), configuration);
+		simTexts = new SimulationTexts(new FontType(loader, assetPipeline, "ubuntu"), configuration);
 		inputDataListeners.add(simTexts);
 		
 		// Instrument Panel and Gauges
 		interfaceTextures = new HashMap<String, List<InterfaceTexture>>();
 		panel = FileUtilities.readInstrumentPanelConfiguration(configuration.getSelectedAircraft());
-		interfaceTextures.put(InstrumentPanel.class.getSimpleName(), panel.loadAndGetTextures(loader, configuration.getSelectedAircraft()));
+		interfaceTextures.put(InstrumentPanel.class.getSimpleName(), panel.loadAndGetTextures(loader, assetPipeline, configuration.getSelectedAircraft()));
 
 		//==================================== Audio =========================================================
 		
 		logger.info("Generating sound collection...");
 		
-		soundCollection = new SoundCollection(configuration);
+		assetPipeline.runNow("Audio", () -> soundCollection = new SoundCollection(configuration));
+		soundCollection.start();
+		
+		//============================== GPU Uploads =========================================================
+		
+		logger.info("Waiting for assets to finish loading...");
+		
+		assetPipeline.awaitCompletion(STARTUP_UPLOAD_BUDGET_NANOS, () -> glfwPollEvents());
+	}
+	
+	/**
+	 * @return number of tiles around ownship's tile to keep loaded; every tile that could lie within the draw distance, 
+	 * plus one tile of margin
+	 */
+	public static int getTerrainRadius() {
+		return (int) Math.ceil(MasterRenderer.getDrawDistance() / Terrain.getSize()) + 1;
+	}
+	
+	/**
+	 * @return progress of the assets currently being loaded, or null if the display has not been initialized
+	 */
+	public LoadingProgress getLoadingProgress() {
+		return assetPipeline == null ? null : assetPipeline.getProgress();
 	}
 	
 	// =============================== Events =====================================
@@ -342,6 +407,23 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 		}
 	}
 
+	/**
+	 * Sets the queue that input events polled each frame are published to, which must be done before
+	 * {@link LWJGLWorld#init()} is called
+	 * 
+	 * @param inputEvents
+	 */
+	public void setInputEvents(InputEventQueue inputEvents) {
+		this.inputEvents = inputEvents;
+	}
+
+	/**
+	 * @param latencyTracer tracer notified when frames are displayed, or null to disable tracing
+	 */
+	public void setLatencyTracer(LatencyTracer latencyTracer) {
+		this.latencyTracer = latencyTracer;
+	}
+
 	public void addinputDataListener(InputDataListener listener) {
 		if (inputDataListeners != null) {
 			logger.info("Adding input data listener: " + listener.getClass());
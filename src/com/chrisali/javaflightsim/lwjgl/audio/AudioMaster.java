@@ -36,6 +36,7 @@ import org.lwjgl.openal.ALC;
 import org.lwjgl.openal.ALCCapabilities;
 import org.lwjgl.openal.ALCapabilities;
 import org.lwjgl.openal.EXTThreadLocalContext;
+import org.lwjgl.openal.SOFTDeferredUpdates;
 import org.lwjgl.util.WaveData;
 import org.lwjgl.util.vector.Vector3f;
 
@@ -60,6 +61,8 @@ public class AudioMaster {
 	private static long device;
 	private static long context;
 	
+	private static boolean threadLocalContext;
+	
 	public static void init() {
 		try {
 			device = alcOpenDevice((ByteBuffer) null);
@@ -73,8 +76,11 @@ public class AudioMaster {
 				throw new IllegalStateException("Failed to open the default device.");
 			
 			context = alcCreateContext(device, (IntBuffer) null);
-				
-			EXTThreadLocalContext.alcSetThreadContext(context);
+			
+			threadLocalContext = capabilities.ALC_EXT_thread_local_context;
+			
+			if (threadLocalContext)
+				EXTThreadLocalContext.alcSetThreadContext(context);
 			
 			alCapabilities = AL.createCapabilities(capabilities);
 		
@@ -87,6 +93,38 @@ public class AudioMaster {
 		}
 	}
 	
+	/**
+	 * Makes the OpenAL context and capabilities created in {@link AudioMaster#init()} current on the calling thread, 
+	 * so that sources can be updated from a thread other than the one that initialized OpenAL
+	 */
+	public static void makeContextCurrent() {
+		if (threadLocalContext)
+			EXTThreadLocalContext.alcSetThreadContext(context);
+		
+		AL.setCurrentThread(alCapabilities);
+	}
+	
+	/**
+	 * Defers changes made to sources until {@link AudioMaster#processUpdates()} is called, so that they are applied
+	 * by the mixer together rather than one at a time
+	 */
+	public static void deferUpdates() {
+		if (alCapabilities.AL_SOFT_deferred_updates)
+			SOFTDeferredUpdates.alDeferUpdatesSOFT();
+		else
+			alcSuspendContext(context);
+	}
+	
+	/**
+	 * Applies all changes to sources made since {@link AudioMaster#deferUpdates()} was called
+	 */
+	public static void processUpdates() {
+		if (alCapabilities.AL_SOFT_deferred_updates)
+			SOFTDeferredUpdates.alProcessUpdatesSOFT();
+		else
+			alcProcessContext(context);
+	}
+	
 	public static void setListenerData(Vector3f position, Vector3f  velocity) {
 		alListener3f(AL_POSITION, position.x, position.y, position.z);
 		alListener3f(AL_VELOCITY, velocity.x, velocity.y, velocity.z);
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.audio;
+
+/**
+ * Looping engine sounds that are blended together as a function of RPM; each layer fades in and out with a cosine 
+ * curve about the RPM at which it is loudest, and its pitch rises linearly over the RPM range in which it is heard. 
+ * No OpenAL calls are made, so the curves can be tested without an audio device
+ * 
+ * @author Christopher Ali
+ *
+ */
+public enum EngineSoundLayer {
+	LOW  ("engineLow",  300,  1800, 600,  500, 1, 0.75f, 1.5f),
+	MED  ("engineMed",  600,  2000, 1500, 400, 1, 0.75f, 1.5f),
+	HIGH ("engineHigh", 1500, 2500, 2000, 300, 1, 0.75f, 1.5f),
+	MAX  ("engineMax",  1900, 3000, 2600, 400, 2, 0.95f, 1.25f);
+	
+	private final String fileName;
+	private final double minRPM, maxRPM;
+	private final double peakRPM, fadeRPM;
+	private final double gainScale;
+	private final double minPitch, maxPitch;
+	
+	/**
+	 * @param fileName sound file in Resources/Audio
+	 * @param minRPM RPM above which the layer is heard
+	 * @param maxRPM RPM below which the layer is heard
+	 * @param peakRPM RPM at which the layer is loudest
+	 * @param fadeRPM RPM over which the layer's gain falls off by one radian of its cosine curve
+	 * @param gainScale gain of the layer at peakRPM
+	 * @param minPitch pitch at minRPM
+	 * @param maxPitch pitch at maxRPM
+	 */
+	private EngineSoundLayer(String fileName, double minRPM, double maxRPM, double peakRPM, double fadeRPM, 
+							 double gainScale, float minPitch, float maxPitch) {
+		this.fileName = fileName;
+		this.minRPM = minRPM;
+		this.maxRPM = maxRPM;
+		this.peakRPM = peakRPM;
+		this.fadeRPM = fadeRPM;
+		this.gainScale = gainScale;
+		this.minPitch = minPitch;
+		this.maxPitch = maxPitch;
+	}
+	
+	/**
+	 * @param rpm
+	 * @return whether this layer is heard at the RPM specified
+	 */
+	public boolean isAudible(double rpm) {
+		return rpm > minRPM && rpm < maxRPM;
+	}
+	
+	/**
+	 * @param rpm
+	 * @return gain of this layer at the RPM specified, before engine volume is applied
+	 */
+	public float getGain(double rpm) {
+		return (float) (isAudible(rpm) ? Math.cos((rpm - peakRPM) / fadeRPM) * gainScale : 0);
+	}
+	
+	/**
+	 * @param rpm
+	 * @return pitch of this layer at the RPM specified, or 0 if it is not heard
+	 */
+	public float getPitch(double rpm) {
+		return (float) (isAudible(rpm) ? ((maxPitch - minPitch) * (rpm - minRPM)) / (maxRPM - minRPM) + minPitch : 0);
+	}
+	
+	public String getFileName() {
+		return fileName;
+	}
+}
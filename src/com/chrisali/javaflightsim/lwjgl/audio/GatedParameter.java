@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.audio;
+
+/**
+ * A sound source property, such as gain or pitch, that is only passed on to OpenAL when its target differs from the
+ * value last applied by more than a threshold. A target of exactly 0 is always applied when the value last applied
+ * was not, so that sounds faded out are fully silenced
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class GatedParameter {
+	
+	private final float threshold;
+	private float applied = Float.NaN;
+	
+	/**
+	 * @param threshold smallest change in the target that is applied
+	 */
+	public GatedParameter(float threshold) {
+		this.threshold = threshold;
+	}
+	
+	/**
+	 * Records the target as applied if it has changed meaningfully from the value last applied, or if no value 
+	 * has been applied yet
+	 * 
+	 * @param target
+	 * @return whether the target should be applied
+	 */
+	public boolean update(float target) {
+		boolean changed = Float.isNaN(applied) 
+						  || Math.abs(target - applied) >= threshold 
+						  || (target == 0 && applied != 0);
+		
+		if (changed)
+			applied = target;
+		
+		return changed;
+	}
+	
+	/**
+	 * @return value last applied, or NaN if none has been
+	 */
+	public float getApplied() {
+		return applied;
+	}
+}
@@ -19,9 +19,13 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.lwjgl.audio;
 
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -39,7 +43,9 @@ import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
 
 /**
  * Class that contains a repository of sounds to be played by triggering certain events, such
- * as control surface deflections, engine properties or change in airspeed
+ * as control surface deflections, engine properties or change in airspeed. Flight data is recorded
+ * into a snapshot, which is read by an audio thread at a low rate to compute sound properties; sources 
+ * are only updated when their properties change meaningfully, and all updates in a step are applied together
  * 
  * @author Christopher Ali
  *
@@ -48,6 +54,26 @@ public class SoundCollection {
 	
 	//Logging
 	private static final Logger logger = LogManager.getLogger(SoundCollection.class);
+	
+	/**
+	 * Rate at which sound properties are updated by the audio thread
+	 */
+	private static final int UPDATE_RATE_HZ = 25;
+	
+	/**
+	 * Smallest changes in gain and pitch that are passed on to OpenAL
+	 */
+	private static final float GAIN_THRESHOLD = 0.01f;
+	private static final float PITCH_THRESHOLD = 0.005f;
+	
+	/**
+	 * Angle of attack (radians) above which the stall horn sounds, and the amount it must fall below this angle
+	 * for the stall horn to stop, so that it does not stutter about the threshold
+	 */
+	private static final double STALL_ALPHA = Math.PI/17;
+	private static final double STALL_HYSTERESIS = Math.toRadians(0.5);
+	
+	private static final EngineSoundLayer[] ENGINE_LAYERS = EngineSoundLayer.values();
 		
 	/**
 	 * Inner enums used to identify {@link SoundSource} objects in the soundSources
@@ -81,7 +107,7 @@ public class SoundCollection {
 	}
 	
 	/**
-	 * Inner Enum used with the soundValues EnumMap, which is used to store values from {@link FlightData}
+	 * Inner Enum used to index the sound value snapshots, which store values from {@link FlightData}
 	 * to be used with setting sound properties
 	 * 
 	 * @author Christopher Ali
@@ -108,13 +134,33 @@ public class SoundCollection {
 	private float environmentVolume;
 	
 	private Map<SoundEvent, SoundSource> soundSources; 
+	
+	/**
+	 * Values written by {@link SoundCollection#update(Map)} from the simulation's thread; guarded by itself
+	 */
+	private final double[] pendingValues = new double[SoundCategory.values().length];
 		
-	private Map<SoundCategory, Double> soundValues;
+	/**
+	 * Values read by the audio thread in its current step; NaN until flight data has been received
+	 */
+	private final double[] soundValues = new double[SoundCategory.values().length];
+	
+	//============================ Audio Thread State ===================================
+	
+	private int[] rpmCategories;
+	private SoundSource[][] engineSources;
+	private GatedParameter[][] engineGains;
+	private GatedParameter[][] enginePitches;
+	
+	private GatedParameter windGain = new GatedParameter(GAIN_THRESHOLD);
+	private boolean stallHornOn;
 	
 	/**
-	 * Used to record soundValues data to PREV_STEP_* enums to stop sounds looping if a control stops moving
+	 * Whether updates to sources in the current step are being deferred by {@link AudioMaster#deferUpdates()}
 	 */
-	private boolean recordToPreviousStep = true; 
+	private boolean batchOpen;
+	
+	private ScheduledExecutorService audioUpdater;
 	
 	/**
 	 *	Fills soundSources EnumMap with {@link SoundSource} objects, which are references to audio
@@ -135,7 +181,9 @@ public class SoundCollection {
 		environmentVolume = configuration.getAudioConfiguration().getEnvironmentVolume();
 		
 		soundSources = new EnumMap<>(SoundEvent.class);
-		soundValues = new EnumMap<>(SoundCategory.class);
+		
+		Arrays.fill(pendingValues, Double.NaN);
+		Arrays.fill(soundValues, Double.NaN);
 		
 		//================================ Engine =========================================
 		
@@ -143,40 +191,37 @@ public class SoundCollection {
 		int engineNumber;
 		double[] enginePosition;
 		Set<Engine> engineList = aircraft.getEngines();
+		
+		rpmCategories = new int[engineList.size()];
+		engineSources = new SoundSource[engineList.size()][ENGINE_LAYERS.length];
+		engineGains   = new GatedParameter[engineList.size()][ENGINE_LAYERS.length];
+		enginePitches = new GatedParameter[engineList.size()][ENGINE_LAYERS.length];
+		
+		int engineIndex = 0;
 				
 		for (Engine engine : engineList) {
 			engineNumber    = engine.getEngineNumber(); 
 			enginePosition  = engine.getEnginePosition();
 			enginePosVector = new Vector3f((float) enginePosition[0]/5, (float) enginePosition[1]/5, (float) enginePosition[2]/5);
 			
-			SoundEvent engLow  = Enum.valueOf(SoundEvent.class, "ENGINE_" + engineNumber + "_LOW");
-			SoundEvent engMed  = Enum.valueOf(SoundEvent.class, "ENGINE_" + engineNumber + "_MED");
-			SoundEvent engHigh = Enum.valueOf(SoundEvent.class, "ENGINE_" + engineNumber + "_HIGH");
-			SoundEvent engMax  = Enum.valueOf(SoundEvent.class, "ENGINE_" + engineNumber + "_MAX");
-			
-			soundSources.put(engLow, new SoundSource(OTWDirectories.AUDIO.toString(), "engineLow"));
-			soundSources.get(engLow).setVolume(0);
-			soundSources.get(engLow).setLooping(true);
-			soundSources.get(engLow).play();
-			soundSources.get(engLow).setPosition(enginePosVector);
+			rpmCategories[engineIndex] = Enum.valueOf(SoundCategory.class, "RPM_" + engineNumber).ordinal();
 			
-			soundSources.put(engMed, new SoundSource(OTWDirectories.AUDIO.toString(), "engineMed"));
-			soundSources.get(engMed).setVolume(0);
-			soundSources.get(engMed).setLooping(true);
-			soundSources.get(engMed).play();
-			soundSources.get(engMed).setPosition(enginePosVector);
-			
-			soundSources.put(engHigh, new SoundSource(OTWDirectories.AUDIO.toString(), "engineHigh"));
-			soundSources.get(engHigh).setVolume(0);
-			soundSources.get(engHigh).setLooping(true);
-			soundSources.get(engHigh).play();
-			soundSources.get(engHigh).setPosition(enginePosVector);
+			for (EngineSoundLayer layer : ENGINE_LAYERS) {
+				SoundEvent event = Enum.valueOf(SoundEvent.class, "ENGINE_" + engineNumber + "_" + layer.name());
+				SoundSource source = new SoundSource(OTWDirectories.AUDIO.toString(), layer.getFileName());
+				
+				source.setVolume(0);
+				source.setLooping(true);
+				source.play();
+				source.setPosition(enginePosVector);
+				
+				soundSources.put(event, source);
+				engineSources[engineIndex][layer.ordinal()] = source;
+				engineGains[engineIndex][layer.ordinal()]   = new GatedParameter(GAIN_THRESHOLD);
+				enginePitches[engineIndex][layer.ordinal()] = new GatedParameter(PITCH_THRESHOLD);
+			}
 			
-			soundSources.put(engMax, new SoundSource(OTWDirectories.AUDIO.toString(), "engineMax"));
-			soundSources.get(engMax).setVolume(0);
-			soundSources.get(engMax).setLooping(true);
-			soundSources.get(engMax).play();
-			soundSources.get(engMax).setPosition(enginePosVector);
+			engineIndex++;
 		}
 					
 		//================================ Systems =========================================
@@ -205,134 +250,183 @@ public class SoundCollection {
 	}
 	
 	/**
-	 * Wrapper method to call setRPM(), setControl(), setWind() and setStallHorn() at once;
-	 * uses an EnumMap of {@link SoundCategory} enums to set the double values retrieved by 
-	 * {@link FlightDataListener} in {@link LWJGLWorld}.
+	 * Starts the audio thread, which makes the OpenAL context current and then updates sound properties from the
+	 * latest snapshot of flight data at {@link SoundCollection#UPDATE_RATE_HZ}
+	 */
+	public void start() {
+		audioUpdater = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Audio Updater");
+			thread.setDaemon(true);
+			return thread;
+		});
+		
+		audioUpdater.execute(AudioMaster::makeContextCurrent);
+		audioUpdater.scheduleAtFixedRate(this::step, 0, 1_000_000 / UPDATE_RATE_HZ, TimeUnit.MICROSECONDS);
+	}
+	
+	/**
+	 * Records the flight data used to set sound properties into a snapshot read by the audio thread, 
+	 * using values retrieved by {@link FlightDataListener} in {@link LWJGLWorld}. No OpenAL calls are
+	 * made by this method
 	 * 
-	 * @param soundValues
+	 * @param flightData
 	 */
 	public void update(Map<FlightDataType, Double> flightData) {
-		// Set values for each sound in the simulation that depends on flight data
-		soundValues.put(SoundCategory.RPM_1, flightData.get(FlightDataType.RPM_1));
-		soundValues.put(SoundCategory.RPM_2, flightData.get(FlightDataType.RPM_2));
-		soundValues.put(SoundCategory.RPM_3, flightData.get(FlightDataType.RPM_3));
-		soundValues.put(SoundCategory.RPM_4, flightData.get(FlightDataType.RPM_4));
-		soundValues.put(SoundCategory.WIND, flightData.get(FlightDataType.TAS));
-		soundValues.put(SoundCategory.FLAPS, flightData.get(FlightDataType.FLAPS));
-		soundValues.put(SoundCategory.GEAR, flightData.get(FlightDataType.GEAR));
-		soundValues.put(SoundCategory.STALL_HORN, flightData.get(FlightDataType.AOA));
-					
-		// Record value every other step to ensure a difference between previous and current values; used to 
-		// trigger flaps and gear sounds
-		if (recordToPreviousStep) { 
-			soundValues.put(SoundCategory.PREV_STEP_FLAPS, flightData.get(FlightDataType.FLAPS));
-			soundValues.put(SoundCategory.PREV_STEP_GEAR, flightData.get(FlightDataType.GEAR));
-		} recordToPreviousStep ^= true; 
-
-		// Update gain/pitch of each sound
-		setRPM();
-		setControl(SoundEvent.FLAPS);
-		setControl(SoundEvent.GEAR);
-		setWind();
-		setStallHorn(Math.PI/17);
+		synchronized (pendingValues) {
+			record(flightData, FlightDataType.RPM_1, SoundCategory.RPM_1);
+			record(flightData, FlightDataType.RPM_2, SoundCategory.RPM_2);
+			record(flightData, FlightDataType.RPM_3, SoundCategory.RPM_3);
+			record(flightData, FlightDataType.RPM_4, SoundCategory.RPM_4);
+			record(flightData, FlightDataType.TAS, SoundCategory.WIND);
+			record(flightData, FlightDataType.FLAPS, SoundCategory.FLAPS);
+			record(flightData, FlightDataType.GEAR, SoundCategory.GEAR);
+			record(flightData, FlightDataType.AOA, SoundCategory.STALL_HORN);
+		}
 	}
 	
+	private void record(Map<FlightDataType, Double> flightData, FlightDataType type, SoundCategory category) {
+		Double value = flightData.get(type);
+		
+		if (value != null)
+			pendingValues[category.ordinal()] = value;
+	}
+	
+	//============================ Audio Thread ========================================
+	
 	/**
-	 * Sounds the stall warning if angle of attack (radians) passes a specified threshold (radians)
-	 * 
-	 * @param alpha
-	 * @param threshold
+	 * Copies the latest flight data snapshot and updates the gain/pitch of each sound from it on the 
+	 * audio thread. The previous step's flaps and gear values are kept to trigger their sounds while they move
 	 */
-	public void setStallHorn(double threshold) {
-		double alpha = soundValues.get(SoundCategory.STALL_HORN);
+	private void step() {
+		try {
+			double flaps = soundValues[SoundCategory.FLAPS.ordinal()];
+			double gear  = soundValues[SoundCategory.GEAR.ordinal()];
+			
+			synchronized (pendingValues) {
+				System.arraycopy(pendingValues, 0, soundValues, 0, soundValues.length);
+			}
+			
+			soundValues[SoundCategory.PREV_STEP_FLAPS.ordinal()] = flaps;
+			soundValues[SoundCategory.PREV_STEP_GEAR.ordinal()]  = gear;
+			
+			setRPM();
+			setControl(SoundEvent.FLAPS, SoundCategory.FLAPS, SoundCategory.PREV_STEP_FLAPS);
+			setControl(SoundEvent.GEAR, SoundCategory.GEAR, SoundCategory.PREV_STEP_GEAR);
+			setWind();
+			setStallHorn();
+			
+			if (batchOpen) {
+				AudioMaster.processUpdates();
+				batchOpen = false;
+			}
+		} catch (RuntimeException e) {
+			logger.error("Error encountered when updating sounds; sounds will no longer be updated!", e);
+			throw e;
+		}
+	}
+	
+	/**
+	 * Defers updates to sources until the end of the current step, if not already done
+	 */
+	private void beginBatch() {
+		if (!batchOpen) {
+			AudioMaster.deferUpdates();
+			batchOpen = true;
+		}
+	}
+	
+	/**
+	 * Sounds the stall warning if angle of attack (radians) passes {@link SoundCollection#STALL_ALPHA}
+	 */
+	private void setStallHorn() {
+		boolean sounding = isStallHornOn(stallHornOn, soundValues[SoundCategory.STALL_HORN.ordinal()]);
+		
+		if (sounding == stallHornOn)
+			return;
 		
-		if ((alpha > threshold) && !(soundSources.get(SoundEvent.STALL).isPlaying()))
+		beginBatch();
+		
+		if (sounding)
 			soundSources.get(SoundEvent.STALL).play();
-		else if ((alpha < threshold) && (soundSources.get(SoundEvent.STALL).isPlaying()))
+		else
 			soundSources.get(SoundEvent.STALL).stop();
+		
+		stallHornOn = sounding;
 	}
 	
 	/**
-	 * Plays sound for a specified control deflection if the difference between the received value
-	 * and the PREV_STEP_* value is greater than 0, indicating a change in deflection over the integration step
+	 * Plays sound for a specified control deflection if the difference between the current and previous step's
+	 * values is greater than 0, indicating a change in deflection since the last audio step
 	 * 
 	 * @param event
+	 * @param current
+	 * @param previous
 	 */
-	public void setControl(SoundEvent event) {
-		double currentControlValue = 0.0, previousControlValue = 0.0;
+	private void setControl(SoundEvent event, SoundCategory current, SoundCategory previous) {
+		boolean dXdt = (Math.abs(soundValues[current.ordinal()] - soundValues[previous.ordinal()]) > 0);
 		
-		switch(event) {
-		case FLAPS:
-			currentControlValue = soundValues.get(SoundCategory.FLAPS);
-			previousControlValue = soundValues.get(SoundCategory.PREV_STEP_FLAPS);
-			break;
-		case GEAR:
-			currentControlValue = soundValues.get(SoundCategory.GEAR);
-			previousControlValue = soundValues.get(SoundCategory.PREV_STEP_GEAR);
-			break;
-		default:
-			break;
-		}
-		
-		boolean dXdt = (Math.abs(currentControlValue-previousControlValue) > 0);
-		
-		if (dXdt && !soundSources.get(event).isPlaying())
+		if (dXdt && !soundSources.get(event).isPlaying()) {
+			beginBatch();
 			soundSources.get(event).play();
+		}
 	}
 	
 	/**
 	 * Sets volume of wind as a function of true airspeed (kts)
 	 */
-	public void setWind() {
-		double trueAirspeed = soundValues.get(SoundCategory.WIND);
-		
-		float gainWind = (float) ((trueAirspeed >  50 && trueAirspeed < 300) ? ((2.0-0.5)*(trueAirspeed-50))/(300-50) + 0.5 : 0);
-		soundSources.get(SoundEvent.WIND).setVolume(gainWind*=environmentVolume);
+	private void setWind() {
+		if (windGain.update(getWindGain(soundValues[SoundCategory.WIND.ordinal()]) * environmentVolume)) {
+			beginBatch();
+			soundSources.get(SoundEvent.WIND).setVolume(windGain.getApplied());
+		}
 	}
 	
 	/**
 	 * Uses sound blending with cosine and linear functions with volume and pitch properties, respectively 
-	 * to mesh together engine sounds as a function of RPM
+	 * to mesh together engine sounds as a function of RPM (see {@link EngineSoundLayer}). The pitch of a layer
+	 * that cannot be heard is left as is, as OpenAL does not accept a pitch of 0
 	 */
-	public void setRPM() {
-		float gainLow, pitchLow, gainMed, pitchMed, gainHi, pitchHi, gainMax, pitchMax;
-		double RPM;
-		int engineNumber;
-		Set<Engine> engineList = aircraft.getEngines();
-				
-		for (Engine engine : engineList) {
-			engineNumber = engine.getEngineNumber(); 
-		
-			SoundEvent engLow  = Enum.valueOf(SoundEvent.class, "ENGINE_" + engineNumber + "_LOW");
-			SoundEvent engMed  = Enum.valueOf(SoundEvent.class, "ENGINE_" + engineNumber + "_MED");
-			SoundEvent engHigh = Enum.valueOf(SoundEvent.class, "ENGINE_" + engineNumber + "_HIGH");
-			SoundEvent engMax  = Enum.valueOf(SoundEvent.class, "ENGINE_" + engineNumber + "_MAX");
+	private void setRPM() {
+		for (int engine = 0; engine < engineSources.length; engine++) {
+			double rpm = soundValues[rpmCategories[engine]];
 			
-			SoundCategory rpmEnum = Enum.valueOf(SoundCategory.class, "RPM_" + engineNumber);
-			
-			RPM = soundValues.get(rpmEnum);
-			
-			gainLow  = (float) ((RPM >  300 && RPM < 1800) ? Math.cos((RPM-600)/500) : 0);
-			pitchLow = (float) ((RPM >  300 && RPM < 1800) ? ((1.5-0.75)*(RPM-300))/(1800-300) + 0.75 : 0);
-			soundSources.get(engLow).setVolume(gainLow*=engineVolume);
-			soundSources.get(engLow).setPitch(pitchLow);
-			
-			gainMed  = (float) ((RPM > 600 && RPM < 2000) ? Math.cos((RPM-1500)/400) : 0);
-			pitchMed = (float) ((RPM > 600 && RPM < 2000) ? ((1.5-0.75)*(RPM-600))/(2000-600) + 0.75 : 0);
-			soundSources.get(engMed).setVolume(gainMed*=engineVolume);
-			soundSources.get(engMed).setPitch(pitchMed);
-			
-			gainHi   = (float) ((RPM > 1500 && RPM < 2500) ? Math.cos((RPM-2000)/300) : 0);
-			pitchHi  = (float) ((RPM > 1500 && RPM < 2500) ? ((1.5-0.75)*(RPM-1500))/(2500-1500) + 0.75 : 0);
-			soundSources.get(engHigh).setVolume(gainHi*=engineVolume);		
-			soundSources.get(engHigh).setPitch(pitchHi);
-			
-			gainMax  = (float) ((RPM > 1900 && RPM < 3000) ? Math.cos((RPM-2600)/400)*2 : 0);
-			pitchMax = (float) ((RPM > 1900 && RPM < 3000) ? ((1.25-0.95)*(RPM-1900))/(3000-1900) + 0.95 : 0);
-			soundSources.get(engMax).setVolume(gainMax*=engineVolume);
-			soundSources.get(engMax).setPitch(pitchMax);
+			for (EngineSoundLayer layer : ENGINE_LAYERS) {
+				int i = layer.ordinal();
+				
+				if (engineGains[engine][i].update(layer.getGain(rpm) * engineVolume)) {
+					beginBatch();
+					engineSources[engine][i].setVolume(engineGains[engine][i].getApplied());
+				}
+				
+				if (layer.isAudible(rpm) && enginePitches[engine][i].update(layer.getPitch(rpm))) {
+					beginBatch();
+					engineSources[engine][i].setPitch(enginePitches[engine][i].getApplied());
+				}
+			}
 		}
 	}
+	
+	//============================ Sound Curves ========================================
+	
+	/**
+	 * @param trueAirspeed (kts)
+	 * @return gain of the wind sound, before environment volume is applied
+	 */
+	static float getWindGain(double trueAirspeed) {
+		return (float) ((trueAirspeed >  50 && trueAirspeed < 300) ? ((2.0-0.5)*(trueAirspeed-50))/(300-50) + 0.5 : 0);
+	}
+	
+	/**
+	 * The stall horn starts sounding when angle of attack exceeds {@link SoundCollection#STALL_ALPHA}, and 
+	 * only stops once it falls {@link SoundCollection#STALL_HYSTERESIS} below it
+	 * 
+	 * @param sounding whether the stall horn is currently sounding
+	 * @param alpha angle of attack (radians)
+	 * @return whether the stall horn should be sounding
+	 */
+	static boolean isStallHornOn(boolean sounding, double alpha) {
+		return alpha > (sounding ? STALL_ALPHA - STALL_HYSTERESIS : STALL_ALPHA);
+	}
 
 	public void play(SoundEvent event) {
 		soundSources.get(event).play();
@@ -358,7 +452,20 @@ public class SoundCollection {
 		soundSources.get(event).setVelocity(velocity);
 	}
 	
+	/**
+	 * Stops the audio thread and deletes all sound sources
+	 */
 	public void cleanUp() {
+		if (audioUpdater != null) {
+			audioUpdater.shutdownNow();
+			
+			try {
+				audioUpdater.awaitTermination(1, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
 		for (Map.Entry<SoundEvent, SoundSource> entry : soundSources.entrySet())
 			entry.getValue().delete();
 	}
@@ -21,6 +21,8 @@ package com.chrisali.javaflightsim.lwjgl.entities;
 
 import org.lwjgl.util.vector.Vector3f;
 
+import com.chrisali.javaflightsim.lwjgl.models.BoundingSphere;
+import com.chrisali.javaflightsim.lwjgl.models.RawModel;
 import com.chrisali.javaflightsim.lwjgl.models.TexturedModel;
 
 public class Entity {
@@ -59,6 +61,17 @@ public class Entity {
 		this.rotZ += dz;
 	}
 	
+	/**
+	 * @return radius of a sphere centered on this entity's position that encloses its model however it is rotated, 
+	 * or -1 if its model has not been loaded yet
+	 */
+	public float getBoundingRadius() {
+		RawModel rawModel = (model == null) ? null : model.getRawModel();
+		BoundingSphere boundingSphere = (rawModel == null) ? null : rawModel.getBoundingSphere();
+		
+		return (boundingSphere == null) ? -1 : boundingSphere.getRadiusFromOrigin() * scale;
+	}
+	
 	public float getTextureXOffset() {
 		int column = textureIndex % model.getTexture().getNumberOfAtlasRows();
 		return (float) column / (float) model.getTexture().getNumberOfAtlasRows();
@@ -69,6 +82,10 @@ public class Entity {
 		return (float) row / (float) model.getTexture().getNumberOfAtlasRows();
 	}
 
+	public int getTextureIndex() {
+		return textureIndex;
+	}
+
 	public TexturedModel getModel() {
 		return model;
 	}
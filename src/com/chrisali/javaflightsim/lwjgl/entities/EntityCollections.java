@@ -19,28 +19,24 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.lwjgl.entities;
 
-import java.awt.Color;
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Random;
-import java.util.TreeMap;
-
-import javax.imageio.ImageIO;
+import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.lwjgl.util.vector.Vector3f;
 
+import com.chrisali.javaflightsim.lwjgl.loader.AssetPipeline;
+import com.chrisali.javaflightsim.lwjgl.loader.AssetRegistry;
 import com.chrisali.javaflightsim.lwjgl.loader.Loader;
-import com.chrisali.javaflightsim.lwjgl.loader.OBJLoader;
 import com.chrisali.javaflightsim.lwjgl.models.TexturedModel;
+import com.chrisali.javaflightsim.lwjgl.terrain.AutogenMask;
 import com.chrisali.javaflightsim.lwjgl.terrain.Terrain;
+import com.chrisali.javaflightsim.lwjgl.terrain.TerrainCollection;
 import com.chrisali.javaflightsim.lwjgl.textures.ModelTexture;
 import com.chrisali.javaflightsim.lwjgl.utilities.OTWDirectories;
-import com.chrisali.javaflightsim.lwjgl.utilities.OTWFiles;
 
 /**
  * Contains methods to create {@link Entity} objects to world, which are rendered by OpenGL; these objects are
@@ -60,8 +56,16 @@ public class EntityCollections {
 	private List<Entity> miscLitEntities = new ArrayList<>();
 	private List<Light> lights;
 	
-	private TreeMap<String, Terrain> terrainTree;
+	private TerrainCollection terrainCollection;
 	private Loader loader;
+	private AssetRegistry assets;
+	
+	// Shared model and light of each misc entity, released or removed along with the entity
+	private Map<Entity, AssetRegistry.Handle<TexturedModel>> entityModels = new IdentityHashMap<>();
+	private Map<Entity, Light> entityLights = new IdentityHashMap<>();
+	
+	// Seed of the hash that autogen trees are generated from
+	private static final long AUTOGEN_SEED = 0x4A5346L;
 	
 	//==================== Models =======================
 	// Static
@@ -74,37 +78,52 @@ public class EntityCollections {
 	
 	/**
 	 * Creates {@link EntityCollections} object with list of lights, loader to load entities, and
-	 * call to initialize all {@link Entity} objects
+	 * call to initialize all {@link Entity} objects. Models are loaded by the {@link AssetPipeline}, and are 
+	 * not ready to render until it has completed 
 	 * 
 	 * @param lights
 	 * @param loader
+	 * @param pipeline
 	 */
-	public EntityCollections(List<Light> lights, Loader loader) {
+	public EntityCollections(List<Light> lights, Loader loader, AssetPipeline pipeline) {
 		this.loader = loader;
 		this.lights = lights;
+		this.assets = new AssetRegistry(loader);
 		
-		initializeEntities();
+		initializeEntities(pipeline);
 	}
 	
-	public void setTerrainTree(TreeMap<String, Terrain> terrainTree) {
-		this.terrainTree = terrainTree;
+	public void setTerrainCollection(TerrainCollection terrainCollection) {
+		this.terrainCollection = terrainCollection;
 	}
 
 	/**
 	 * Initializes all {@link TexturedModel} objects for in methods, which create entities
+	 * 
+	 * @param pipeline
 	 */
-	private void initializeEntities() {
+	private void initializeEntities(AssetPipeline pipeline) {
 		// Create models
-		// Static
-		planatusForest = new TexturedModel(OBJLoader.loadObjModel("grassModel", OTWDirectories.ENTITIES.toString(), loader), 
-											new ModelTexture(loader.loadTexture("platanusforest", OTWDirectories.ENTITIES.toString())));
-		pineForest = new TexturedModel(OBJLoader.loadObjModel("grassModel", OTWDirectories.ENTITIES.toString(), loader), 
-											new ModelTexture(loader.loadTexture("pineforest", OTWDirectories.ENTITIES.toString())));
-		oakForest = new TexturedModel(OBJLoader.loadObjModel("grassModel", OTWDirectories.ENTITIES.toString(), loader), 
-											new ModelTexture(loader.loadTexture("oakforest", OTWDirectories.ENTITIES.toString())));
+		// Static; all forests share one grass model
+		planatusForest = new TexturedModel(null, new ModelTexture(0));
+		pineForest = new TexturedModel(null, new ModelTexture(0));
+		oakForest = new TexturedModel(null, new ModelTexture(0));
+		
+		pipeline.loadModel("Entities", "grassModel", OTWDirectories.ENTITIES.toString(), loader).thenAccept(grassModel -> {
+			planatusForest.setRawModel(grassModel);
+			pineForest.setRawModel(grassModel);
+			oakForest.setRawModel(grassModel);
+		});
+		pipeline.loadTexture("Entities", "platanusforest", OTWDirectories.ENTITIES.toString(), loader)
+				.thenAccept(planatusForest.getTexture()::setTextureID);
+		pipeline.loadTexture("Entities", "pineforest", OTWDirectories.ENTITIES.toString(), loader)
+				.thenAccept(pineForest.getTexture()::setTextureID);
+		pipeline.loadTexture("Entities", "oakforest", OTWDirectories.ENTITIES.toString(), loader)
+				.thenAccept(oakForest.getTexture()::setTextureID);
+		
 		// Lit
-		lamp =  new TexturedModel(OBJLoader.loadObjModel("lamp", OTWDirectories.ENTITIES.toString(), loader), 
-			      							new ModelTexture(loader.loadTexture("lamp", OTWDirectories.ENTITIES.toString())));
+		lamp = pipeline.loadTexturedModel("Entities", "lamp", "lamp", OTWDirectories.ENTITIES.toString(), loader);
+		
 		// Model settings
 		// Static
 		planatusForest.getTexture().setHasTransparency(true);
@@ -119,92 +138,24 @@ public class EntityCollections {
 	}
 	
 	/**
-	 * Creates static {@link Entity} objects from an autogen image file that maps specifically what type of entity should
-	 * be generated at a given location. The image file should be filled in black with the exception of 
-	 * red, green or blue pixels, which each determine buildings, trees and airports, respectively.
-	 * 
-	 * <p>The {@link Terrain} argument specifies to which terrain the autogen objects should be "bound" to, which
-	 * involves adding the objects to a List in the terrain object. This list is then iterated through to render
-	 * each entity 
+	 * Creates the autogen trees of a {@link Terrain} tile from an {@link AutogenMask}, which maps specifically what type
+	 * of object should be generated at a given location. The trees are stored in a packed {@link Forest} rather than as
+	 * individual entities, and are generated from a hash of the tile's grid coordinates, so a tile that is paged out and
+	 * back in receives the same trees
 	 * 
-	 * <p>Each pixel adds a new object, so they should be added to the autogen image (autogen.png) judiciously
-	 * 
-	 * @param terrain
-	 * @param fileName
-	 * @param directory
-	 */
-	public static void createAutogenImageEntities(Terrain terrain, String fileName, String directory) {
-		
-		BufferedImage image = null;
-		
-		try {image = ImageIO.read(new File(OTWDirectories.RESOURCES.toString() + File.separator + directory + File.separator + fileName + OTWFiles.TEXTURE_EXT.toString()));} 
-		catch (IOException e) {logger.error("Could not load autogen file: " + fileName + OTWFiles.TEXTURE_EXT.toString() + "!", e);}
-		
-		float imageScale = Terrain.getSize()/image.getHeight();
-		float scaledX, scaledZ;
-		Color readColor;
-		
-		for (int x = 0; x < image.getWidth(); x+=6) {
-			for (int z = 0; z < image.getHeight(); z+=6) {
-				readColor = new Color(image.getRGB(x, z));
-				scaledX = x * imageScale;
-				scaledZ = z * imageScale;
-				
-				if(readColor.getRed() > 250) {
-					// Create buildings here
-				} else if(readColor.getGreen() > 250) {
-					createRandomTrees(terrain, scaledX, scaledZ);
-				} else if(readColor.getBlue() > 250) {
-					// Create airport here
-				}
-			}
-		}
-	}
-	
-	/**
-	 * Creates a random group of trees at the specified x and z position. Uses {@link Terrain} object to get
-	 * the absolute world position of the "origin" of this terrain object, which is used to determine the 
-	 * relative position to add a tree. Then it adds this entity to a list of static {@link Entity} objects
-	 * contained in terrain object.
+	 * <p>The forest is only published to the terrain once complete, so terrain can be populated on a worker thread while
+	 * it is being rendered. The terrain's heights must already be known</p>
 	 * 
 	 * @param terrain
-	 * @param x
-	 * @param z
+	 * @param mask
 	 */
-	private static void createRandomTrees(Terrain terrain, float x, float z) {
-		
-		Random random = new Random();
-		
-		float y = terrain.getTerrainHeight(x, z);
-		// (absolute world position of terrain's origin) + (position relative to origin) 
-		x += terrain.getX();
-		z += terrain.getZ();
-		
-		Entity staticEntity;
-		
-		if (random.nextInt(100) % 3 == 0) {
-			staticEntity = new Entity(pineForest, new Vector3f(x, y-2, z), 
-									  0, random.nextFloat()*360, 0, 
-									  random.nextFloat() + 6);
-			
-			terrain.getStaticEntities().add(staticEntity);
-		} else if (random.nextInt(100) % 9 == 0) {
-			staticEntity = new Entity(oakForest, new Vector3f(x, y-2, z), 
-									  0, random.nextFloat()*360, 0, 
-									  random.nextFloat() + 6);
-			
-			terrain.getStaticEntities().add(staticEntity);
-		} else if (random.nextInt(100) % 10 == 0) {
-			staticEntity = new Entity(planatusForest, new Vector3f(x, y-2, z), 
-									  0, random.nextFloat()*360, 0, 
-									  random.nextFloat() + 6);
-			
-			terrain.getStaticEntities().add(staticEntity);
-		}
+	public static void createAutogenForest(Terrain terrain, AutogenMask mask) {
+		terrain.setForest(Forest.generate(mask, terrain, AUTOGEN_SEED, pineForest, oakForest, planatusForest));
 	}
 	
 	/**
-	 * Creates a single static entity based on the position vector specified
+	 * Creates a single static entity based on the position vector specified. Its model and texture are shared with 
+	 * all other entities of the same name
 	 * 
 	 * @param entityName
 	 * @param position
@@ -216,10 +167,11 @@ public class EntityCollections {
 	public void createStaticEntity(String entityName, Vector3f position, float xRot, float yRot, float zRot, float scale) {
 		logger.info("Generating a(n)" + entityName + " at: (" + position.x + ", " + position.y + ", " + position.z + ")...");
 		
-		TexturedModel staticEntity =  new TexturedModel(OBJLoader.loadObjModel(entityName, OTWDirectories.ENTITIES.toString(), loader), 
-														new ModelTexture(loader.loadTexture(entityName, OTWDirectories.ENTITIES.toString())));
+		AssetRegistry.Handle<TexturedModel> staticModel = assets.acquireTexturedModel(entityName, entityName, OTWDirectories.ENTITIES.toString());
+		Entity staticEntity = new Entity(staticModel.get(), position, xRot, yRot, zRot, scale);
 		
-		miscStaticEntities.add(new Entity(staticEntity, position, xRot, yRot, zRot, scale));
+		entityModels.put(staticEntity, staticModel);
+		miscStaticEntities.add(staticEntity);
 	}
 	
 	/**
@@ -233,7 +185,7 @@ public class EntityCollections {
 	 * @param scale
 	 */
 	public void createStaticEntity(String entityName, float xPos, float zPos, float yRot, float scale) {
-		float yPos = Terrain.getCurrentTerrain(terrainTree, xPos, zPos).getTerrainHeight(xPos, zPos);
+		float yPos = terrainCollection.getTerrainHeight(xPos, zPos);
 		
 		createStaticEntity(entityName, new Vector3f(xPos, yPos, zPos), 0, yRot, 0, scale);
 	}
@@ -250,7 +202,8 @@ public class EntityCollections {
 	}
 	
 	/**
-	 * <p>Creates a single lit entity based on the position vector specified. 
+	 * <p>Creates a single lit entity based on the position vector specified. Its model and texture are shared with 
+	 * all other entities of the same name
 	 * <p>lightPosOffset refers to the position offset from the entity's position that the light is centered at 
 	 * (e.g. a lamp post whose light is far above the post's position) </p>
 	 * 
@@ -268,12 +221,14 @@ public class EntityCollections {
 								 Vector3f color, Vector3f attenuation, Vector3f lightPosOffset) {
 		logger.info("Generating a(n)" + entityName + " at: (" + position.x + ", " + position.y + ", " + position.z + ")...");
 		
-		TexturedModel litEntity =  new TexturedModel(OBJLoader.loadObjModel(entityName, OTWDirectories.ENTITIES.toString(), loader), 
-													 new ModelTexture(loader.loadTexture(entityName, OTWDirectories.ENTITIES.toString())));
+		AssetRegistry.Handle<TexturedModel> litModel = assets.acquireTexturedModel(entityName, entityName, OTWDirectories.ENTITIES.toString());
+		Entity litEntity = new Entity(litModel.get(), position, xRot, yRot, zRot, scale);
 		
-		miscLitEntities.add(new Entity(litEntity, position, xRot, yRot, zRot, scale));
+		entityModels.put(litEntity, litModel);
+		miscLitEntities.add(litEntity);
 		
 		Light light = new Light(Vector3f.add(position, lightPosOffset, position), color, attenuation);
+		entityLights.put(litEntity, light);
 		lights.add(light);
 	}
 	
@@ -295,7 +250,7 @@ public class EntityCollections {
 	 */
 	public void createLitEntity(String entityName, float xPos, float zPos, float yRot, float scale, 
 								 Vector3f color, Vector3f attenuation, Vector3f lightPosOffset) {
-		float yPos = Terrain.getCurrentTerrain(terrainTree, xPos, zPos).getTerrainHeight(xPos, zPos);
+		float yPos = terrainCollection.getTerrainHeight(xPos, zPos);
 		
 		createLitEntity(entityName, new Vector3f(xPos, yPos, zPos), 0, yRot, 0, scale, color, attenuation, lightPosOffset);
 	}
@@ -323,6 +278,32 @@ public class EntityCollections {
 		miscStaticEntities.add(entity);
 	}
 	
+	/**
+	 * Removes a static or lit entity, along with its light; its model and texture are deleted once no other entity 
+	 * created by this object uses them
+	 * 
+	 * @param entity
+	 */
+	public void removeEntity(Entity entity) {
+		miscStaticEntities.remove(entity);
+		miscLitEntities.remove(entity);
+		
+		Light light = entityLights.remove(entity);
+		if (light != null)
+			lights.remove(light);
+		
+		AssetRegistry.Handle<TexturedModel> model = entityModels.remove(entity);
+		if (model != null)
+			model.release();
+	}
+	
+	/**
+	 * @return registry sharing the models and textures of entities created by this object
+	 */
+	public AssetRegistry getAssetRegistry() {
+		return assets;
+	}
+	
 	public List<Entity> getLitEntities() {
 		return miscLitEntities;
 	}
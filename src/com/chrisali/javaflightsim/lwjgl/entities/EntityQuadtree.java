@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.entities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.lwjgl.util.vector.Vector3f;
+
+import com.chrisali.javaflightsim.lwjgl.renderengine.Frustum;
+import com.chrisali.javaflightsim.lwjgl.renderengine.InstanceBatch;
+
+/**
+ * Quadtree over the horizontal positions of stationary {@link Entity} objects, used to cull those outside of a 
+ * {@link Frustum} hierarchically. Each node holds the box bounding the spheres of all entities beneath it; nodes outside
+ * the frustum are skipped entirely, nodes inside it have all of their entities submitted without further tests, and
+ * only entities in leaves straddling the frustum are tested individually
+ * 
+ * <p>Entities are assumed not to move once indexed. Entities whose models have not been loaded yet have no bounds, and
+ * are always submitted; {@link EntityQuadtree#hasNewBounds()} reports when the tree should be rebuilt to include them.
+ * Because entities do not move, the instance data each is drawn with is also computed once when the tree is built</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class EntityQuadtree {
+	
+	private static final int MAX_ENTITIES_PER_LEAF = 16;
+	private static final int MAX_DEPTH = 8;
+	
+	// Entities ordered so that those beneath each node are contiguous, and their bounding spheres (x, y, z, radius)
+	private final Entity[] entities;
+	private final float[] spheres;
+	
+	// Entities without bounds, which are never culled
+	private final List<Entity> unbounded = new ArrayList<>();
+	
+	private final Node root;
+	
+	// Instance data of entities followed by that of unbounded, INSTANCE_DATA_LENGTH floats each 
+	private final float[] instanceData;
+	
+	/**
+	 * Receives each visible entity along with the location of its instance data, in the layout written by
+	 * {@link InstanceBatch#storeInstanceData(Entity, float[], int)}
+	 */
+	public interface InstanceConsumer {
+		void accept(Entity entity, float[] instanceData, int offset);
+	}
+	
+	private static class Node {
+		private float minX, minY, minZ, maxX, maxY, maxZ;
+		private int start, end;
+		private Node[] children;
+	}
+	
+	/**
+	 * Builds a quadtree over the entities specified
+	 * 
+	 * @param entityList
+	 */
+	public EntityQuadtree(List<Entity> entityList) {
+		List<Entity> bounded = new ArrayList<>(entityList.size());
+		
+		for (Entity entity : entityList) {
+			if (entity.getBoundingRadius() < 0)
+				unbounded.add(entity);
+			else
+				bounded.add(entity);
+		}
+		
+		int count = bounded.size();
+		entities = bounded.toArray(new Entity[count]);
+		spheres = new float[count * 4];
+		
+		float minX = Float.MAX_VALUE, minZ = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+		
+		for (int i = 0; i < count; i++) {
+			Vector3f position = entities[i].getPosition();
+			
+			spheres[i*4]   = position.x;
+			spheres[i*4+1] = position.y;
+			spheres[i*4+2] = position.z;
+			spheres[i*4+3] = entities[i].getBoundingRadius();
+			
+			minX = Math.min(minX, position.x);
+			minZ = Math.min(minZ, position.z);
+			maxX = Math.max(maxX, position.x);
+			maxZ = Math.max(maxZ, position.z);
+		}
+		
+		root = (count == 0) ? null : build(0, count, 0, minX, minZ, Math.max(maxX - minX, maxZ - minZ));
+		
+		instanceData = new float[(count + unbounded.size()) * InstanceBatch.INSTANCE_DATA_LENGTH];
+		
+		for (int i = 0; i < count; i++)
+			InstanceBatch.storeInstanceData(entities[i], instanceData, i * InstanceBatch.INSTANCE_DATA_LENGTH);
+		
+		for (int i = 0; i < unbounded.size(); i++)
+			InstanceBatch.storeInstanceData(unbounded.get(i), instanceData, (count + i) * InstanceBatch.INSTANCE_DATA_LENGTH);
+	}
+	
+	/**
+	 * Builds the node for entities [start, end), whose positions lie within a square, splitting the entities between
+	 * the square's four quadrants if there are too many for one leaf
+	 */
+	private Node build(int start, int end, int depth, float squareX, float squareZ, float squareSize) {
+		Node node = new Node();
+		node.start = start;
+		node.end = end;
+		
+		calculateBounds(node);
+		
+		if (end - start <= MAX_ENTITIES_PER_LEAF || depth >= MAX_DEPTH || squareSize <= 0)
+			return node;
+		
+		float half = squareSize / 2;
+		float middleX = squareX + half, middleZ = squareZ + half;
+		
+		// Sort the node's entities by quadrant; 0 = (-x, -z), 1 = (+x, -z), 2 = (-x, +z), 3 = (+x, +z)
+		int[] quadrantEnds = new int[4];
+		Entity[] sortedEntities = new Entity[end - start];
+		float[] sortedSpheres = new float[(end - start) * 4];
+		
+		for (int i = start; i < end; i++)
+			quadrantEnds[getQuadrant(i, middleX, middleZ)]++;
+		
+		int[] next = new int[4];
+		for (int q = 1; q < 4; q++)
+			next[q] = next[q-1] + quadrantEnds[q-1];
+		
+		for (int i = start; i < end; i++) {
+			int slot = next[getQuadrant(i, middleX, middleZ)]++;
+			sortedEntities[slot] = entities[i];
+			System.arraycopy(spheres, i * 4, sortedSpheres, slot * 4, 4);
+		}
+		
+		System.arraycopy(sortedEntities, 0, entities, start, end - start);
+		System.arraycopy(sortedSpheres, 0, spheres, start * 4, (end - start) * 4);
+		
+		List<Node> children = new ArrayList<>(4);
+		int childStart = start;
+		
+		for (int q = 0; q < 4; q++) {
+			int childEnd = childStart + quadrantEnds[q];
+			
+			if (childEnd > childStart)
+				children.add(build(childStart, childEnd, depth + 1, (q % 2 == 0) ? squareX : middleX, (q < 2) ? squareZ : middleZ, half));
+			
+			childStart = childEnd;
+		}
+		
+		node.children = children.toArray(new Node[children.size()]);
+		
+		return node;
+	}
+	
+	private int getQuadrant(int entity, float middleX, float middleZ) {
+		return (spheres[entity*4] < middleX ? 0 : 1) + (spheres[entity*4+2] < middleZ ? 0 : 2);
+	}
+	
+	private void calculateBounds(Node node) {
+		node.minX = node.minY = node.minZ = Float.MAX_VALUE;
+		node.maxX = node.maxY = node.maxZ = -Float.MAX_VALUE;
+		
+		for (int i = node.start; i < node.end; i++) {
+			float radius = spheres[i*4+3];
+			
+			node.minX = Math.min(node.minX, spheres[i*4]   - radius);
+			node.minY = Math.min(node.minY, spheres[i*4+1] - radius);
+			node.minZ = Math.min(node.minZ, spheres[i*4+2] - radius);
+			node.maxX = Math.max(node.maxX, spheres[i*4]   + radius);
+			node.maxY = Math.max(node.maxY, spheres[i*4+1] + radius);
+			node.maxZ = Math.max(node.maxZ, spheres[i*4+2] + radius);
+		}
+	}
+	
+	/**
+	 * Passes every entity that may be visible within the frustum to the consumer specified
+	 * 
+	 * @param frustum
+	 * @param visible
+	 * @return number of entities passed to the consumer
+	 */
+	public int cull(Frustum frustum, Consumer<Entity> visible) {
+		return cull(frustum, (entity, data, offset) -> visible.accept(entity));
+	}
+	
+	/**
+	 * Passes every entity that may be visible within the frustum, along with its precomputed instance data, to the 
+	 * consumer specified
+	 * 
+	 * @param frustum
+	 * @param visible
+	 * @return number of entities passed to the consumer
+	 */
+	public int cull(Frustum frustum, InstanceConsumer visible) {
+		for (int i = 0; i < unbounded.size(); i++)
+			visible.accept(unbounded.get(i), instanceData, (entities.length + i) * InstanceBatch.INSTANCE_DATA_LENGTH);
+		
+		return unbounded.size() + ((root == null) ? 0 : cull(root, frustum, visible));
+	}
+	
+	private int cull(Node node, Frustum frustum, InstanceConsumer visible) {
+		int result = frustum.classifyBox(node.minX, node.minY, node.minZ, node.maxX, node.maxY, node.maxZ);
+		
+		if (result == Frustum.OUTSIDE)
+			return 0;
+		
+		if (result == Frustum.INSIDE) {
+			for (int i = node.start; i < node.end; i++)
+				visible.accept(entities[i], instanceData, i * InstanceBatch.INSTANCE_DATA_LENGTH);
+			
+			return node.end - node.start;
+		}
+		
+		int submitted = 0;
+		
+		if (node.children != null) {
+			for (Node child : node.children)
+				submitted += cull(child, frustum, visible);
+		} else {
+			for (int i = node.start; i < node.end; i++) {
+				if (frustum.intersectsSphere(spheres[i*4], spheres[i*4+1], spheres[i*4+2], spheres[i*4+3])) {
+					visible.accept(entities[i], instanceData, i * InstanceBatch.INSTANCE_DATA_LENGTH);
+					submitted++;
+				}
+			}
+		}
+		
+		return submitted;
+	}
+	
+	/**
+	 * @return if any entity that had no bounds when this tree was built now has them, in which case it should be rebuilt
+	 */
+	public boolean hasNewBounds() {
+		for (Entity entity : unbounded) {
+			if (entity.getBoundingRadius() >= 0)
+				return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * @return number of entities in this tree, including those without bounds
+	 */
+	public int size() {
+		return entities.length + unbounded.size();
+	}
+}
@@ -0,0 +1,353 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.entities;
+
+import org.lwjgl.util.vector.Vector3f;
+
+import com.chrisali.javaflightsim.lwjgl.models.BoundingSphere;
+import com.chrisali.javaflightsim.lwjgl.models.RawModel;
+import com.chrisali.javaflightsim.lwjgl.models.TexturedModel;
+import com.chrisali.javaflightsim.lwjgl.renderengine.Frustum;
+import com.chrisali.javaflightsim.lwjgl.renderengine.InstanceBatch;
+import com.chrisali.javaflightsim.lwjgl.terrain.AutogenMask;
+import com.chrisali.javaflightsim.lwjgl.terrain.Terrain;
+
+/**
+ * Autogen tree groups of one {@link Terrain} tile, stored in packed arrays rather than as one {@link Entity} per tree. 
+ * Each tree's species, rotation and scale come from a hash of a seed, the tile's grid coordinates and the tree's cell in 
+ * the {@link AutogenMask}, so a tile that is evicted and paged in again is regenerated with exactly the same trees
+ * 
+ * <p>Trees are grouped by blocks of cells, whose bounds are tested against a {@link Frustum} before the trees within 
+ * them. Trees do not move, so the instance data each is drawn with is computed once when the forest is generated</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class Forest {
+	
+	// Each species is tried in order, and chosen if a hash value in [0, 100) is a multiple of its odds
+	private static final int[] SPECIES_ODDS = {3, 9, 10};
+	
+	// Cells along each side of the blocks trees are culled by
+	private static final int BLOCK_CELLS = 4;
+	
+	// Trees are sunk into the ground so that their bases are not seen on slopes
+	private static final float SINK_DEPTH = 2;
+	
+	// Rough heap size of each tree; its position, rotation, scale, species and instance data
+	private static final long TREE_BYTES = (3 + 1 + 1 + InstanceBatch.INSTANCE_DATA_LENGTH) * 4 + 1;
+	
+	private final TexturedModel[] species;
+	
+	// Trees ordered so that those in each block are contiguous
+	private final int count;
+	private final float[] positions;
+	private final float[] rotations;
+	private final float[] scales;
+	private final byte[] speciesIndices;
+	
+	// Instance data of each tree, INSTANCE_DATA_LENGTH floats each
+	private final float[] instanceData;
+	
+	// Trees [blockStarts[b], blockStarts[b+1]) lie in block b, whose tree positions are bounded by 
+	// (minX, minY, minZ, maxX, maxY, maxZ) and whose largest tree scale is blockScales[b]
+	private final int[] blockStarts;
+	private final float[] blockBounds;
+	private final float[] blockScales;
+	
+	// Bounding radius of each species' model at unit scale, refreshed each time the forest is culled
+	private final float[] speciesRadii;
+	
+	/**
+	 * Receives each visible tree's model along with the location of its instance data, in the layout written by
+	 * {@link InstanceBatch#storeInstanceData(Vector3f, float, float, float, float, int, float[], int)}
+	 */
+	public interface InstanceConsumer {
+		void accept(TexturedModel model, float[] instanceData, int offset);
+	}
+	
+	private Forest(TexturedModel[] species, int count, float[] positions, float[] rotations, float[] scales, 
+				   byte[] speciesIndices, int[] blockStarts) {
+		this.species = species;
+		this.count = count;
+		this.positions = positions;
+		this.rotations = rotations;
+		this.scales = scales;
+		this.speciesIndices = speciesIndices;
+		this.blockStarts = blockStarts;
+		
+		speciesRadii = new float[species.length];
+		instanceData = new float[count * InstanceBatch.INSTANCE_DATA_LENGTH];
+		
+		Vector3f position = new Vector3f();
+		for (int i = 0; i < count; i++) {
+			position.set(positions[i*3], positions[i*3+1], positions[i*3+2]);
+			InstanceBatch.storeInstanceData(position, 0, rotations[i], 0, scales[i], 0, instanceData, i * InstanceBatch.INSTANCE_DATA_LENGTH);
+		}
+		
+		int blockCount = blockStarts.length - 1;
+		blockBounds = new float[blockCount * 6];
+		blockScales = new float[blockCount];
+		
+		for (int b = 0; b < blockCount; b++) {
+			float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+			float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+			
+			for (int i = blockStarts[b]; i < blockStarts[b+1]; i++) {
+				minX = Math.min(minX, positions[i*3]);
+				minY = Math.min(minY, positions[i*3+1]);
+				minZ = Math.min(minZ, positions[i*3+2]);
+				maxX = Math.max(maxX, positions[i*3]);
+				maxY = Math.max(maxY, positions[i*3+1]);
+				maxZ = Math.max(maxZ, positions[i*3+2]);
+				blockScales[b] = Math.max(blockScales[b], scales[i]);
+			}
+			
+			blockBounds[b*6]   = minX;
+			blockBounds[b*6+1] = minY;
+			blockBounds[b*6+2] = minZ;
+			blockBounds[b*6+3] = maxX;
+			blockBounds[b*6+4] = maxY;
+			blockBounds[b*6+5] = maxZ;
+		}
+	}
+	
+	/**
+	 * Generates the trees marked by an autogen mask on a terrain tile, whose heights must already be known. No OpenGL 
+	 * calls are made, so this can be called from any thread
+	 * 
+	 * @param mask
+	 * @param terrain
+	 * @param seed
+	 * @param species models of each species of tree, in the order they are tried
+	 * @return trees of the tile
+	 */
+	public static Forest generate(AutogenMask mask, Terrain terrain, long seed, TexturedModel... species) {
+		int cellCount = mask.getTreeCount();
+		float imageScale = mask.getImageScale();
+		
+		int blockSize = AutogenMask.SPACING * BLOCK_CELLS;
+		int blocksX = (mask.getWidth() + blockSize - 1) / blockSize;
+		int blocksZ = (mask.getHeight() + blockSize - 1) / blockSize;
+		
+		// Trees in the order of the mask's cells, before being sorted into blocks
+		float[] treeX = new float[cellCount];
+		float[] treeZ = new float[cellCount];
+		float[] treeRotations = new float[cellCount];
+		float[] treeScales = new float[cellCount];
+		byte[] treeSpecies = new byte[cellCount];
+		int[] treeBlocks = new int[cellCount];
+		int[] blockStarts = new int[blocksX * blocksZ + 1];
+		int count = 0;
+		
+		for (int cell = 0; cell < cellCount; cell++) {
+			int cellX = mask.getTreeX(cell), cellZ = mask.getTreeZ(cell);
+			long hash = hash(seed, terrain.getGridX(), terrain.getGridZ(), cellX, cellZ);
+			
+			int chosen = -1;
+			for (int s = 0; s < Math.min(species.length, SPECIES_ODDS.length) && chosen < 0; s++) {
+				hash = mix(hash);
+				if ((int) ((hash >>> 1) % 100) % SPECIES_ODDS[s] == 0)
+					chosen = s;
+			}
+			
+			if (chosen < 0)
+				continue;
+			
+			// (absolute world position of terrain's origin) + (position relative to origin) 
+			treeX[count] = terrain.getX() + cellX * imageScale;
+			treeZ[count] = terrain.getZ() + cellZ * imageScale;
+			
+			hash = mix(hash);
+			treeRotations[count] = toUnitFloat(hash) * 360;
+			hash = mix(hash);
+			treeScales[count] = toUnitFloat(hash) + 6;
+			
+			treeSpecies[count] = (byte) chosen;
+			treeBlocks[count] = (cellX / blockSize) + (cellZ / blockSize) * blocksX;
+			blockStarts[treeBlocks[count] + 1]++;
+			count++;
+		}
+		
+		float[] treeY = new float[count];
+		terrain.getTerrainHeights(treeX, treeZ, treeY, count);
+		
+		for (int b = 1; b < blockStarts.length; b++)
+			blockStarts[b] += blockStarts[b-1];
+		
+		float[] positions = new float[count * 3];
+		float[] rotations = new float[count];
+		float[] scales = new float[count];
+		byte[] speciesIndices = new byte[count];
+		int[] next = blockStarts.clone();
+		
+		for (int i = 0; i < count; i++) {
+			int slot = next[treeBlocks[i]]++;
+			
+			positions[slot*3]   = treeX[i];
+			positions[slot*3+1] = treeY[i] - SINK_DEPTH;
+			positions[slot*3+2] = treeZ[i];
+			rotations[slot] = treeRotations[i];
+			scales[slot] = treeScales[i];
+			speciesIndices[slot] = treeSpecies[i];
+		}
+		
+		return new Forest(species.clone(), count, positions, rotations, scales, speciesIndices, blockStarts);
+	}
+	
+	/**
+	 * Hashes a seed, a tile's grid coordinates and a cell's coordinates within the tile into 64 well mixed bits
+	 * 
+	 * @param seed
+	 * @param gridX
+	 * @param gridZ
+	 * @param cellX
+	 * @param cellZ
+	 * @return hash
+	 */
+	static long hash(long seed, int gridX, int gridZ, int cellX, int cellZ) {
+		long hash = mix(seed ^ (((long) gridX << 32) | (gridZ & 0xFFFFFFFFL)));
+		
+		return mix(hash ^ (((long) cellX << 32) | (cellZ & 0xFFFFFFFFL)));
+	}
+	
+	/**
+	 * SplitMix64 step; each call on the previous result gives a new, independent looking value
+	 * 
+	 * @param value
+	 * @return mixed value
+	 */
+	private static long mix(long value) {
+		long z = value + 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		
+		return z ^ (z >>> 31);
+	}
+	
+	/**
+	 * @param hash
+	 * @return top 24 bits of a hash as a float in [0, 1)
+	 */
+	private static float toUnitFloat(long hash) {
+		return (hash >>> 40) / (float) (1 << 24);
+	}
+	
+	/**
+	 * Passes every tree that may be visible within the frustum, along with its precomputed instance data, to the 
+	 * consumer specified. Trees whose models have not been loaded yet have no bounds, and are always submitted
+	 * 
+	 * @param frustum
+	 * @param visible
+	 * @return number of trees passed to the consumer
+	 */
+	public int cull(Frustum frustum, InstanceConsumer visible) {
+		float maxRadius = 0;
+		
+		for (int s = 0; s < species.length; s++) {
+			RawModel rawModel = (species[s] == null) ? null : species[s].getRawModel();
+			BoundingSphere boundingSphere = (rawModel == null) ? null : rawModel.getBoundingSphere();
+			
+			speciesRadii[s] = (boundingSphere == null) ? -1 : boundingSphere.getRadiusFromOrigin();
+			maxRadius = (speciesRadii[s] < 0 || maxRadius < 0) ? -1 : Math.max(maxRadius, speciesRadii[s]);
+		}
+		
+		if (maxRadius < 0) {
+			submit(0, count, visible);
+			return count;
+		}
+		
+		int submitted = 0;
+		
+		for (int b = 0; b < blockScales.length; b++) {
+			int start = blockStarts[b], end = blockStarts[b+1];
+			if (start == end)
+				continue;
+			
+			float expand = maxRadius * blockScales[b];
+			int result = frustum.classifyBox(blockBounds[b*6]   - expand, blockBounds[b*6+1] - expand, blockBounds[b*6+2] - expand, 
+											 blockBounds[b*6+3] + expand, blockBounds[b*6+4] + expand, blockBounds[b*6+5] + expand);
+			
+			if (result == Frustum.OUTSIDE)
+				continue;
+			
+			if (result == Frustum.INSIDE) {
+				submit(start, end, visible);
+				submitted += end - start;
+				continue;
+			}
+			
+			for (int i = start; i < end; i++) {
+				if (frustum.intersectsSphere(positions[i*3], positions[i*3+1], positions[i*3+2], speciesRadii[speciesIndices[i]] * scales[i])) {
+					visible.accept(species[speciesIndices[i]], instanceData, i * InstanceBatch.INSTANCE_DATA_LENGTH);
+					submitted++;
+				}
+			}
+		}
+		
+		return submitted;
+	}
+	
+	private void submit(int start, int end, InstanceConsumer visible) {
+		for (int i = start; i < end; i++)
+			visible.accept(species[speciesIndices[i]], instanceData, i * InstanceBatch.INSTANCE_DATA_LENGTH);
+	}
+	
+	/**
+	 * @return number of trees in this forest
+	 */
+	public int size() {
+		return count;
+	}
+	
+	/**
+	 * @param tree
+	 * @return model of a tree's species
+	 */
+	public TexturedModel getModel(int tree) {
+		return species[speciesIndices[tree]];
+	}
+	
+	/**
+	 * @param tree
+	 * @param destination vector the tree's position is written to
+	 * @return destination
+	 */
+	public Vector3f getPosition(int tree, Vector3f destination) {
+		destination.set(positions[tree*3], positions[tree*3+1], positions[tree*3+2]);
+		
+		return destination;
+	}
+	
+	public float getRotation(int tree) {
+		return rotations[tree];
+	}
+	
+	public float getScale(int tree) {
+		return scales[tree];
+	}
+	
+	/**
+	 * @return rough memory occupied by this forest [bytes]
+	 */
+	public long getEstimatedBytes() {
+		return count * TREE_BYTES + blockStarts.length * 4 + blockScales.length * 7 * 4;
+	}
+}
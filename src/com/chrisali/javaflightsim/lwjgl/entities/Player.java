@@ -19,14 +19,13 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.lwjgl.entities;
 
-import java.util.TreeMap;
-
 import org.lwjgl.input.Keyboard;
 import org.lwjgl.util.vector.Vector3f;
 
 import com.chrisali.javaflightsim.lwjgl.models.TexturedModel;
 import com.chrisali.javaflightsim.lwjgl.renderengine.DisplayManager;
 import com.chrisali.javaflightsim.lwjgl.terrain.Terrain;
+import com.chrisali.javaflightsim.lwjgl.terrain.TerrainMap;
 
 /**
  * An {@link Entity} that the user can move around the world with the keyboard
@@ -56,7 +55,7 @@ public class Player extends Entity {
 	 * 
 	 * @param terrainMap
 	 */
-	public void move(TreeMap<String, Terrain> terrainMap) {
+	public void move(TerrainMap terrainMap) {
 		checkInputs();
 		
 		super.increaseRotation(0, currentTurnSpeed * DisplayManager.getFrameTimeSeconds(), 0);
@@ -21,11 +21,14 @@ package com.chrisali.javaflightsim.lwjgl.input;
 
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
+import java.util.List;
 import java.util.Map;
 
 import com.chrisali.javaflightsim.lwjgl.renderengine.DisplayManager;
 import com.chrisali.javaflightsim.simulation.datatransfer.FlightData;
 import com.chrisali.javaflightsim.simulation.datatransfer.InputData;
+import com.chrisali.javaflightsim.simulation.datatransfer.InputEventQueue;
+import com.chrisali.javaflightsim.simulation.flightcontrols.ControlParameter;
 import com.chrisali.javaflightsim.simulation.setup.ControlsConfiguration;
 import com.chrisali.javaflightsim.simulation.setup.JoystickAxis;
 import com.chrisali.javaflightsim.simulation.setup.KeyCommand;
@@ -49,14 +52,19 @@ import static org.lwjgl.glfw.GLFW.*;
 public class InputMaster {
     private static InputData inputData;
     private static ControlsConfiguration controlsConfig;
+    private static InputEventQueue inputEvents;
     
     private static final Logger logger = LogManager.getLogger(InputMaster.class);
     
     /**
      * Reads controls configuration and initializes all event callbacks for mouse and keyboard
+     * 
+     * @param events queue that flight control commands and axes are published to when polled, or null if 
+     * they are not used by the simulation
      */
-    public static void init() {
+    public static void init(InputEventQueue events) {
         inputData = new InputData();
+        inputEvents = events;
         controlsConfig = FileUtilities.readControlsConfiguration();
 
         logger.info("Setting up GLFW Mouse and Keyboard callbacks...");
@@ -100,13 +108,39 @@ public class InputMaster {
 
     /**
      * Polls controllers for new data, and then translates these values into commands and axis 
-     * deflections for {@link FlightData}
+     * deflections for {@link FlightData}. Key commands held and axis values are published to the input event 
+     * queue, timestamped with the time they were polled
      */
     public static void update() {
-        updateJoysticks();
+        long timestamp = System.nanoTime();
+        
+        updateJoysticks(timestamp);
+        publishKeyCommands(timestamp);
     }
 
-    private static void updateJoysticks() {
+    /**
+     * Publishes all key commands currently held, so that they are actuated each step until released
+     * 
+     * @param timestamp
+     */
+    private static void publishKeyCommands(long timestamp) {
+        List<KeyCommand> keyCommands = inputData.getKeyCommands();
+        
+        synchronized (keyCommands) {
+            for (int i = 0; i < keyCommands.size(); i++)
+                publish(timestamp, keyCommands.get(i), 1.0f);
+        }
+    }
+
+    private static void publish(long timestamp, ControlParameter parameter, float value) {
+        if (inputEvents == null || inputEvents.offer(timestamp, parameter, value))
+            return;
+        
+        if (inputEvents.getDroppedEvents() == 1)
+            logger.warn("Input event queue is full; input events are being dropped!");
+    }
+
+    private static void updateJoysticks(long timestamp) {
         Map<String, JoystickAssignments> allJoystickAssignments = controlsConfig.getJoystickAssignments();
 
         // Loop through all conntected controllers
@@ -133,8 +167,10 @@ public class InputMaster {
                 JoystickAxis axis = axisAssignments.get(axisIndex);
 
                 // If controls configuration has an assignment for this axis, use it
-                if (axis != null)
+                if (axis != null) {
                     inputData.updateJoystickInputs(axis.getAxisAssignment(), glfwAxes.get(axisIndex));
+                    publish(timestamp, axis.getAxisAssignment(), glfwAxes.get(axisIndex));
+                }
             }
 
             // Loop through buttons on connected controller
@@ -22,14 +22,15 @@ package com.chrisali.javaflightsim.lwjgl.interfaces.gauges;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.lwjgl.util.vector.Vector2f;
 
+import com.chrisali.javaflightsim.lwjgl.interfaces.ui.AtlasRegion;
 import com.chrisali.javaflightsim.lwjgl.interfaces.ui.InterfaceTexture;
-import com.chrisali.javaflightsim.lwjgl.loader.Loader;
-import com.chrisali.javaflightsim.lwjgl.utilities.OTWDirectories;
+import com.chrisali.javaflightsim.lwjgl.interfaces.ui.TextureAtlas;
 import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataType;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
@@ -69,7 +70,7 @@ public abstract class AbstractGauge {
 		
 	/**
 	 * Constructor that keeps a heiarchy of all texture names part of this object but does not load them into memory; 
-	 * call {@link AbstractGauge#loadTextures(Loader)} afterwards; texture files should be of PNG type 
+	 * call {@link AbstractGauge#setAtlas(TextureAtlas, int)} afterwards; texture files should be of PNG type 
 	 * 
 	 * @param position - center of the gauge; (-1.0, 1.0) is the top left of the screen, (1.0, -1.0) is the bottom right
 	 * @param scale
@@ -88,25 +89,37 @@ public abstract class AbstractGauge {
 	public abstract void setGaugeValue(Map<FlightDataType, Double> flightData);
 	
 	/**
-	 * After the gauge has been deserialized, call this method to load all textures in to memory
-	 * in the textureNames list
+	 * After the {@link TextureAtlas} containing this gauge's textures has been packed and uploaded, call this method 
+	 * to draw each texture from its region of the atlas. Textures missing from the atlas are left unloaded
 	 * 
-	 * @param loader
+	 * @param atlas
+	 * @param atlasTexture OpenGL ID of the uploaded atlas
 	 */
-	public void loadTextures(Loader loader) {
+	public void setAtlas(TextureAtlas atlas, int atlasTexture) {
 		if (gaugeTextures == null || gaugeTextures.size() == 0) {
 			logger.error("No texture information stored in class!");
 			return;
 		}
 		
-		logger.info("Loading "+ getClass().getSimpleName() +"'s associated textures...");
-
 		for (Map.Entry<String, InterfaceTexture> entry : gaugeTextures.entrySet()) {
-			int texture = loader.loadAndGetTexture(entry.getKey(), OTWDirectories.GAUGES.toString()); 
-			entry.getValue().setTexture(texture);
+			AtlasRegion region = atlas.getRegion(entry.getKey());
+			
+			if (region == null) {
+				logger.error("Texture " + entry.getKey() + " used by " + getClass().getSimpleName() + " was not found in the atlas!");
+				continue;
+			}
+			
+			entry.getValue().setTexture(atlasTexture);
+			entry.getValue().setRegion(region);
 		}
 	}
 	
+	/**
+	 * @return names of the PNG files in Resources/Gauges used by this gauge's textures
+	 */
+	@JsonIgnore
+	public Set<String> getTextureNames() { return gaugeTextures.keySet(); }
+	
 	/**
 	 * Gets a collection of textures from gaugeTextures LinkedHashMap; order is important, as textures at the end 
 	 * of this list are rendered last and display on top of all preceeding items
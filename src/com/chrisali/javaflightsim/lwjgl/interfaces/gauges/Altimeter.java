@@ -24,7 +24,7 @@ import java.util.Map;
 import org.lwjgl.util.vector.Vector2f;
 
 import com.chrisali.javaflightsim.lwjgl.interfaces.ui.InterfaceTexture;
-import com.chrisali.javaflightsim.lwjgl.loader.Loader;
+import com.chrisali.javaflightsim.lwjgl.interfaces.ui.TextureAtlas;
 import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataType;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -45,7 +45,7 @@ public class Altimeter extends AbstractGauge {
 
 	/**
 	 * Constructor that keeps a heiarchy of all texture names part of this object but does not load them into memory; 
-	 * call {@link AbstractGauge#loadTextures(Loader)} afterwards. These files should be PNG in Resources/Gauges
+	 * call {@link AbstractGauge#setAtlas(TextureAtlas, int)} afterwards. These files should be PNG in Resources/Gauges
 	 * 
 	 * @param position - center of the gauge; (-1.0, 1.0) is the top left of the screen, (1.0, -1.0) is the bottom right
 	 * @param scale
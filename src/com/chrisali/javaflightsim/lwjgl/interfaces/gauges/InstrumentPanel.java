@@ -20,6 +20,7 @@
 package com.chrisali.javaflightsim.lwjgl.interfaces.gauges;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -27,8 +28,13 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.lwjgl.util.vector.Vector2f;
 
+import com.chrisali.javaflightsim.lwjgl.interfaces.ui.AtlasRegion;
 import com.chrisali.javaflightsim.lwjgl.interfaces.ui.InterfaceTexture;
+import com.chrisali.javaflightsim.lwjgl.interfaces.ui.TextureAtlas;
+import com.chrisali.javaflightsim.lwjgl.loader.AssetPipeline;
 import com.chrisali.javaflightsim.lwjgl.loader.Loader;
+import com.chrisali.javaflightsim.lwjgl.loader.TextureData;
+import com.chrisali.javaflightsim.lwjgl.utilities.OTWDirectories;
 import com.chrisali.javaflightsim.simulation.datatransfer.FlightData;
 import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataType;
 import com.chrisali.javaflightsim.simulation.utilities.SimDirectories;
@@ -46,6 +52,9 @@ public class InstrumentPanel {
 	@JsonIgnore
 	protected static final Logger logger = LogManager.getLogger(InstrumentPanel.class);
 
+	// Name of each aircraft's panel image, which is stored alongside its InstrumentPanel.json
+	private static final String PANEL_TEXTURE = InstrumentPanel.class.getSimpleName();
+
 	private List<AbstractGauge> gauges;
 	
 	private Vector2f panelPosition;
@@ -53,40 +62,79 @@ public class InstrumentPanel {
 	private Vector2f panelScale;
 	
 	/**
-	 * Generic constructor; call {@link InstrumentPanel#loadAndGetTextures(Loader)} after initializing to load
+	 * Generic constructor; call {@link InstrumentPanel#loadAndGetTextures(Loader, AssetPipeline, String)} after initializing to load
 	 * all {@link InterfaceTexture} objects into memory
 	 */
 	public InstrumentPanel() { }
 	
 	/**
 	 * Loads all {@link InterfaceTexture} objects associated with each {@link AbstractGauge} in this class to be
-	 * rendered. Call this method after initializing this object
+	 * rendered. Call this method after initializing this object. The panel and gauge images are decoded and packed 
+	 * into a single {@link TextureAtlas} on a worker thread of the {@link AssetPipeline}, and are not ready to render 
+	 * until the atlas has been uploaded
 	 * 
 	 * @param loader
+	 * @param pipeline
+	 * @param aircraftName
 	 * @return List of {@link InterfaceTexture} objects
 	 */
-	public List<InterfaceTexture> loadAndGetTextures(Loader loader, String aircraftName) {
+	public List<InterfaceTexture> loadAndGetTextures(Loader loader, AssetPipeline pipeline, String aircraftName) {
 		List<InterfaceTexture> interfaceTextures = new ArrayList<>();
 		
 		logger.info("Initializing instrument panel...");
 		
-		InterfaceTexture panelBase = new InterfaceTexture(loader.loadTexture(SimDirectories.AIRCRAFT.toString(), getClass().getSimpleName(), aircraftName), 
-														  panelPosition, 
-														  0.0f, 
-														  panelScale);
-		
+		InterfaceTexture panelBase = new InterfaceTexture(0, panelPosition, 0.0f, panelScale);
 		interfaceTextures.add(panelBase);
 		
-		for (AbstractGauge gauge : gauges) {
-			gauge.loadTextures(loader);
+		for (AbstractGauge gauge : gauges)
 			interfaceTextures.addAll(gauge.getTextures());
-		}
+		
+		pipeline.load("Interface", () -> packAtlas(aircraftName), atlas -> {
+			int atlasTexture = loader.loadTexture(atlas.getTextureData());
+			
+			AtlasRegion panelRegion = atlas.getRegion(PANEL_TEXTURE);
+			if (panelRegion != null) {
+				panelBase.setTexture(atlasTexture);
+				panelBase.setRegion(panelRegion);
+			}
+			
+			for (AbstractGauge gauge : gauges)
+				gauge.setAtlas(atlas, atlasTexture);
+			
+			return atlasTexture;
+		});
 		
 		logger.info("...done!");
 		
 		return interfaceTextures;
 	}
 	
+	/**
+	 * Decodes the panel image of the aircraft and each image used by its gauges, and packs them into a {@link TextureAtlas}; 
+	 * makes no OpenGL calls
+	 * 
+	 * @param aircraftName
+	 * @return atlas containing the panel and gauge images
+	 */
+	private TextureAtlas packAtlas(String aircraftName) {
+		Map<String, TextureData> images = new LinkedHashMap<>();
+		
+		images.put(PANEL_TEXTURE, Loader.decodeTexture(SimDirectories.AIRCRAFT.toString(), PANEL_TEXTURE, aircraftName));
+		
+		for (AbstractGauge gauge : gauges) {
+			for (String textureName : gauge.getTextureNames()) {
+				if (!images.containsKey(textureName))
+					images.put(textureName, Loader.decodeTexture(OTWDirectories.RESOURCES.toString(), textureName, 
+																 OTWDirectories.GAUGES.toString()));
+			}
+		}
+		
+		TextureAtlas atlas = TextureAtlas.pack(images, TextureAtlas.DEFAULT_PADDING);
+		logger.info("Packed " + images.size() + " instrument panel images into a " + atlas.getWidth() + "x" + atlas.getHeight() + " atlas");
+		
+		return atlas;
+	}
+	
 	/**
 	 * Updates each gauge in this instrument panel with {@link FlightData} received from the simulation 
 	 * 
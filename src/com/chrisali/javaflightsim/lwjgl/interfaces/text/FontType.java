@@ -21,6 +21,7 @@ package com.chrisali.javaflightsim.lwjgl.interfaces.text;
 
 import java.io.File;
 
+import com.chrisali.javaflightsim.lwjgl.loader.AssetPipeline;
 import com.chrisali.javaflightsim.lwjgl.loader.Loader;
 import com.chrisali.javaflightsim.lwjgl.utilities.OTWDirectories;
 import com.chrisali.javaflightsim.lwjgl.utilities.OTWFiles;
@@ -49,13 +50,44 @@ public class FontType {
 	 */
 	public FontType(Loader loader, String fontName) {
 		this.textureAtlas = loader.loadTexture(fontName, OTWDirectories.FONTS.toString());
-		
-		File fontFile = new File(OTWDirectories.RESOURCES.toString() + File.separator + OTWDirectories.FONTS.toString() + 
-								File.separator + fontName + OTWFiles.FONT_EXT.toString()); 
-		
+		this.loader = new TextMeshCreator(getFontFile(fontName));
+	}
+	
+	/**
+	 * Creates a new font and loads up the data about each character from the
+	 * font file. The font texture atlas is loaded by an {@link AssetPipeline}, 
+	 * and text using this font will not render until the pipeline has completed.
+	 * 
+	 * @param loader
+	 *            - Resource Loader that generates the ID of the font atlas texture.
+	 * @param pipeline
+	 *            - Pipeline that decodes the font atlas texture.
+	 * @param fontName
+	 *            - the font file's name in the Resources/Fonts folder, which contains 
+	 *            information about each character in the texture atlas.
+	 */
+	public FontType(Loader loader, AssetPipeline pipeline, String fontName) {
+		pipeline.loadTexture("Interface", fontName, OTWDirectories.FONTS.toString(), loader)
+				.thenAccept(textureAtlas -> this.textureAtlas = textureAtlas);
+		this.loader = new TextMeshCreator(getFontFile(fontName));
+	}
+	
+	/**
+	 * Creates a new font from a font file without loading its texture atlas, so that text can be laid out
+	 * without an OpenGL context.
+	 *
+	 * @param fontFile
+	 *            - the font file, which contains information about each character in the texture atlas.
+	 */
+	FontType(File fontFile) {
 		this.loader = new TextMeshCreator(fontFile);
 	}
 
+	private static File getFontFile(String fontName) {
+		return new File(OTWDirectories.RESOURCES.toString() + File.separator + OTWDirectories.FONTS.toString() + 
+						File.separator + fontName + OTWFiles.FONT_EXT.toString());
+	}
+
 	/**
 	 * @return The font texture atlas.
 	 */
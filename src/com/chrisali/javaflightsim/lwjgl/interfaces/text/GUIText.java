@@ -19,6 +19,8 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.lwjgl.interfaces.text;
 
+import java.util.Objects;
+
 import org.lwjgl.util.vector.Vector2f;
 import org.lwjgl.util.vector.Vector3f;
 
@@ -31,10 +33,14 @@ import org.lwjgl.util.vector.Vector3f;
 public class GUIText {
 
 	private String textString;
+	private char[] textChars;
+	private int textLength;
 	private float fontSize;
 
 	private int textMeshVao;
 	private int vertexCount;
+	private int[] meshBuffers;
+	private boolean meshStale = true;
 	private Vector3f color = new Vector3f(0f, 0f, 0f);
 
 	private Vector2f position;
@@ -75,12 +81,15 @@ public class GUIText {
 	 */
 	public GUIText(String text, float fontSize, FontType font, Vector2f position, float maxLineLength,
 			boolean centered, boolean visible) {
-		this.textString = text;
+		this.textString = (text == null) ? "" : text;
+		this.textChars = textString.toCharArray();
+		this.textLength = textChars.length;
 		this.fontSize = fontSize;
 		this.font = font;
 		this.position = position;
 		this.lineMaxSize = maxLineLength;
 		this.centerText = centered;
+		this.visible = visible;
 	}
 	
 	/**
@@ -236,16 +245,92 @@ public class GUIText {
 	 * @return The string of text.
 	 */
 	protected String getTextString() {
+		if (textString == null)
+			textString = new String(textChars, 0, textLength);
+		
 		return textString;
 	}
 	
 	/**
-	 * Sets the text displayed
+	 * @return The characters of the text, of which the first {@link GUIText#getTextLength()} are used.
+	 */
+	protected char[] getTextChars() {
+		return textChars;
+	}
+	
+	/**
+	 * @return The number of characters in the text.
+	 */
+	protected int getTextLength() {
+		return textLength;
+	}
+	
+	/**
+	 * Sets the text displayed. The text's quads are only laid out again if the string differs from the one 
+	 * currently displayed
 	 * 
-	 * @param text
+	 * @param text text to display; null clears the text
 	 */
 	public void setTextString(String text) {
+		if (text == null)
+			text = "";
+		
+		if (Objects.equals(textString, text))
+			return;
+		
 		this.textString = text;
+		this.textChars = text.toCharArray();
+		this.textLength = textChars.length;
+		this.meshStale = true;
+	}
+	
+	/**
+	 * Sets the text displayed from the first length characters of an array, which is used directly rather than 
+	 * copied, so that text such as {@link HudText} can be updated without creating a new String. The text's quads 
+	 * are laid out again the next time it is rendered
+	 * 
+	 * @param chars
+	 * @param length
+	 */
+	public void setTextChars(char[] chars, int length) {
+		this.textString = null;
+		this.textChars = chars;
+		this.textLength = length;
+		this.meshStale = true;
+	}
+	
+	/**
+	 * @return {@code true} if the text's string has changed since its quads were last laid out
+	 */
+	protected boolean isMeshStale() {
+		return meshStale;
+	}
+	
+	/**
+	 * Sets whether the text's quads need to be laid out again (method used only in loading).
+	 * 
+	 * @param meshStale
+	 */
+	protected void setMeshStale(boolean meshStale) {
+		this.meshStale = meshStale;
+	}
+	
+	/**
+	 * @return IDs of the VAO and the position and texture coordinate VBOs that hold this text's quads, or null if
+	 *         they have not been created yet
+	 */
+	protected int[] getMeshBuffers() {
+		return meshBuffers;
+	}
+	
+	/**
+	 * Sets the IDs of the VAO and VBOs that hold this text's quads, which are reused whenever the text changes
+	 * (method used only in loading).
+	 * 
+	 * @param meshBuffers
+	 */
+	protected void setMeshBuffers(int[] meshBuffers) {
+		this.meshBuffers = meshBuffers;
 	}
 
 	/**
@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.interfaces.text;
+
+import java.util.Arrays;
+
+/**
+ * Fixed layout text made up of constant labels and numeric fields, held in a reusable char array. Each field has a 
+ * fixed width and number of decimal places, and numbers are written into it in place with a fixed-point formatter, 
+ * so that a line of HUD text can be updated every frame without creating any garbage. Only characters whose values 
+ * differ are written, and a {@link GUIText} is only given the characters again when at least one of them has changed
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class HudText {
+	
+	private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L};
+	
+	private static final char OVERFLOW = '#';
+	
+	private static final char EMPTY = '-';
+
+	private char[] chars = new char[64];
+	private int length = 0;
+	
+	private int[] fieldOffsets = new int[8];
+	private int[] fieldWidths = new int[8];
+	private int[] fieldDecimals = new int[8];
+	private int fieldCount = 0;
+	
+	// Right aligned scratch space that a field is formatted into before being compared to the text
+	private char[] scratch = new char[0];
+	
+	private boolean changed = true;
+	
+	/**
+	 * Appends a constant label to the end of the text
+	 * 
+	 * @param label
+	 * @return this HudText
+	 */
+	public HudText append(String label) {
+		ensureCapacity(length + label.length());
+		label.getChars(0, label.length(), chars, length);
+		length += label.length();
+		changed = true;
+		
+		return this;
+	}
+	
+	/**
+	 * Appends a numeric field to the end of the text, which is empty until a value is set with 
+	 * {@link HudText#setValue(int, double)}
+	 * 
+	 * @param width number of characters in the field, including any sign and decimal point
+	 * @param decimals number of digits after the decimal point
+	 * @return index of the field
+	 */
+	public int appendField(int width, int decimals) {
+		if (decimals < 0 || decimals >= POWERS_OF_TEN.length || width < (decimals > 0 ? decimals + 2 : 1))
+			throw new IllegalArgumentException("Field of width " + width + " cannot hold " + decimals + " decimal places");
+		
+		if (fieldCount == fieldOffsets.length) {
+			fieldOffsets = Arrays.copyOf(fieldOffsets, fieldCount * 2);
+			fieldWidths = Arrays.copyOf(fieldWidths, fieldCount * 2);
+			fieldDecimals = Arrays.copyOf(fieldDecimals, fieldCount * 2);
+		}
+		
+		ensureCapacity(length + width);
+		fieldOffsets[fieldCount] = length;
+		fieldWidths[fieldCount] = width;
+		fieldDecimals[fieldCount] = decimals;
+		
+		if (scratch.length < width)
+			scratch = new char[width];
+		
+		length += width;
+		clearValue(fieldCount);
+		changed = true;
+		
+		return fieldCount++;
+	}
+	
+	private void ensureCapacity(int capacity) {
+		if (capacity > chars.length)
+			chars = Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+	}
+	
+	/**
+	 * Writes a number into a field, rounded to the field's decimal places and right aligned. If the number does not fit
+	 * in the field, the field is filled with {@value #OVERFLOW} characters; if it is NaN the field is cleared
+	 * 
+	 * @param field
+	 * @param value
+	 */
+	public void setValue(int field, double value) {
+		if (Double.isNaN(value)) {
+			clearValue(field);
+			return;
+		}
+		
+		int width = fieldWidths[field];
+		int decimals = fieldDecimals[field];
+		
+		long scaled = Math.round(Math.abs(value) * POWERS_OF_TEN[decimals]);
+		boolean negative = value < 0 && scaled != 0;
+		int position = width;
+		
+		for (int i = 0; i < decimals; i++) {
+			scratch[--position] = (char) ('0' + scaled % 10);
+			scaled /= 10;
+		}
+		
+		if (decimals > 0)
+			scratch[--position] = '.';
+		
+		do {
+			if (position == 0) {
+				fill(field, OVERFLOW);
+				return;
+			}
+			
+			scratch[--position] = (char) ('0' + scaled % 10);
+			scaled /= 10;
+		} while (scaled > 0);
+		
+		if (negative) {
+			if (position == 0) {
+				fill(field, OVERFLOW);
+				return;
+			}
+			
+			scratch[--position] = '-';
+		}
+		
+		while (position > 0)
+			scratch[--position] = ' ';
+		
+		copyScratch(field);
+	}
+	
+	/**
+	 * Clears a field to show that it has no value, keeping its decimal point in place
+	 * 
+	 * @param field
+	 */
+	public void clearValue(int field) {
+		int width = fieldWidths[field];
+		int decimals = fieldDecimals[field];
+		
+		Arrays.fill(scratch, 0, width, EMPTY);
+		if (decimals > 0)
+			scratch[width - decimals - 1] = '.';
+		
+		copyScratch(field);
+	}
+	
+	private void fill(int field, char c) {
+		Arrays.fill(scratch, 0, fieldWidths[field], c);
+		copyScratch(field);
+	}
+	
+	/**
+	 * Copies a formatted field from the scratch space into the text, writing only the characters that differ
+	 * 
+	 * @param field
+	 */
+	private void copyScratch(int field) {
+		int offset = fieldOffsets[field];
+		
+		for (int i = 0; i < fieldWidths[field]; i++) {
+			if (chars[offset + i] != scratch[i]) {
+				chars[offset + i] = scratch[i];
+				changed = true;
+			}
+		}
+	}
+	
+	/**
+	 * Gives a {@link GUIText} this text's characters if any of them have changed since they were last given to it, 
+	 * so that its quads are laid out again
+	 * 
+	 * @param text
+	 * @return true if the characters had changed
+	 */
+	public boolean applyTo(GUIText text) {
+		if (!changed)
+			return false;
+		
+		text.setTextChars(chars, length);
+		changed = false;
+		
+		return true;
+	}
+	
+	/**
+	 * @return true if any characters have changed since they were last given to a {@link GUIText}
+	 */
+	public boolean isChanged() {
+		return changed;
+	}
+	
+	/**
+	 * @return number of characters in the text
+	 */
+	public int length() {
+		return length;
+	}
+	
+	/**
+	 * @return the characters of the text, of which the first {@link HudText#length()} are used
+	 */
+	public char[] getChars() {
+		return chars;
+	}
+	
+	@Override
+	public String toString() {
+		return new String(chars, 0, length);
+	}
+}
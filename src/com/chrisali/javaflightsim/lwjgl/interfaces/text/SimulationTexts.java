@@ -19,7 +19,6 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.lwjgl.interfaces.text;
 
-import java.text.DecimalFormat;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
@@ -47,10 +46,20 @@ import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
 public class SimulationTexts implements InputDataListener {
 
 	private Map<String, GUIText> texts = new HashMap<>();
+	
+	// Fields of camera and entity position texts, in the order they are appended
+	private static final int POS_ROLL = 0, POS_PITCH = 1, POS_YAW = 2, POS_X = 3, POS_Y = 4, POS_Z = 5;
+	
+	// Scales OTW world units to feet
+	private static final float FEET_PER_UNIT = 15;
 
-	private DecimalFormat df4 = new DecimalFormat("0.0000");
-	private DecimalFormat df2 = new DecimalFormat("0.00");
-	private DecimalFormat df0 = new DecimalFormat("0");
+	private HudText telemetry = new HudText();
+	private int ias, roll, pitch, heading, altitude, latitude, longitude, gForce;
+	
+	private HudText cameraPosition = createPositionText("CAMERA");
+	
+	private HudText entityPosition;
+	private Class<?> entityClass;
 
 	private SimulationConfiguration configuration;
 
@@ -61,21 +70,52 @@ public class SimulationTexts implements InputDataListener {
 		texts.put("Paused", new GUIText("PAUSED", 1.15f, font, new Vector2f(0.5f, 0.5f), 1f, false, new Vector3f(1, 0, 0), false));
 		texts.put("Reset", new GUIText("RESET", 1.15f, font, new Vector2f(0.5f, 0.55f), 1f, false, new Vector3f(1, 0, 0), false));
 
+		telemetry.append("AIRSPEED: ");
+		ias = telemetry.appendField(4, 0);
+		telemetry.append(" KIAS | ROLL: ");
+		roll = telemetry.appendField(9, 4);
+		telemetry.append(" DEG | PITCH: ");
+		pitch = telemetry.appendField(8, 4);
+		telemetry.append(" DEG | HEADING: ");
+		heading = telemetry.appendField(3, 0);
+		telemetry.append(" DEG | ALTITUDE: ");
+		altitude = telemetry.appendField(6, 0);
+		telemetry.append(" FT | LATITUDE: ");
+		latitude = telemetry.appendField(8, 4);
+		telemetry.append(" DEG | LONGITUDE: ");
+		longitude = telemetry.appendField(9, 4);
+		telemetry.append(" DEG | G-FORCE: ");
+		gForce = telemetry.appendField(5, 2);
+		telemetry.append(" G | ");
+		
 		this.configuration = configuration;
 	}
 
 	/**
 	 * Updates each GUIText in this object based on received flight data and
-	 * selected options
+	 * selected options. Numbers are written in place into each text's {@link HudText},
+	 * and a GUIText is only laid out again if any of its characters have changed
 	 * 
 	 * @param flightData
 	 * @param camera
 	 * @param entity
 	 */
 	public void update(Map<FlightDataType, Double> flightData, Camera camera, Entity entity) {
-		texts.get("FlightData").setTextString(setTelemetryText(flightData));
-		texts.get("Camera").setTextString(setCameraPosText(camera));
-		texts.get("Entity").setTextString(setEntityPosText(entity));
+		updateTelemetryText(flightData);
+		telemetry.applyTo(texts.get("FlightData"));
+		
+		updatePositionText(cameraPosition, camera);
+		cameraPosition.applyTo(texts.get("Camera"));
+		
+		if (entity != null && entity.getClass() != entityClass) {
+			entityClass = entity.getClass();
+			entityPosition = createPositionText(entityClass.getSimpleName().toUpperCase());
+		}
+		
+		if (entityPosition != null) {
+			updatePositionText(entityPosition, entity);
+			entityPosition.applyTo(texts.get("Entity"));
+		}
 	}
 	
 	@Override
@@ -95,81 +135,111 @@ public class SimulationTexts implements InputDataListener {
 	}
 
 	/**
-	 * Prepares a string of flight data from the flightData Map output using the
-	 * {@link GUIText} object
+	 * Writes flight data from the flightData Map output into the telemetry {@link HudText}; 
+	 * any values missing from flightData are shown as dashes
 	 * 
 	 * @param flightData
-	 * @return string displaying flight data output
 	 */
-	private String setTelemetryText(Map<FlightDataType, Double> flightData) {
-		StringBuilder sb = new StringBuilder();
+	private void updateTelemetryText(Map<FlightDataType, Double> flightData) {
+		setValue(telemetry, ias, flightData, FlightDataType.IAS);
+		setValue(telemetry, roll, flightData, FlightDataType.ROLL);
+		setValue(telemetry, pitch, flightData, FlightDataType.PITCH);
+		setValue(telemetry, heading, flightData, FlightDataType.HEADING);
+		setValue(telemetry, altitude, flightData, FlightDataType.ALTITUDE);
+		setValue(telemetry, latitude, flightData, FlightDataType.LATITUDE);
+		setValue(telemetry, longitude, flightData, FlightDataType.LONGITUDE);
+		setValue(telemetry, gForce, flightData, FlightDataType.GFORCE);
+	}
+	
+	private static void setValue(HudText text, int field, Map<FlightDataType, Double> flightData, FlightDataType type) {
+		Double value = (flightData == null) ? null : flightData.get(type);
+		
+		if (value == null)
+			text.clearValue(field);
+		else
+			text.setValue(field, value);
+	}
 
-		try {
-			sb.append("AIRSPEED: ").append(df0.format(flightData.get(FlightDataType.IAS))).append(" KIAS | ")
-					.append("ROLL: ").append(df4.format(flightData.get(FlightDataType.ROLL))).append(" DEG | ")
-					.append("PITCH: ").append(df4.format(flightData.get(FlightDataType.PITCH))).append(" DEG | ")
-					.append("HEADING: ").append(df0.format(flightData.get(FlightDataType.HEADING))).append(" DEG | ")
-					.append("ALTITUDE: ").append(df0.format(flightData.get(FlightDataType.ALTITUDE))).append(" FT | ")
-					.append("LATITUDE: ").append(df4.format(flightData.get(FlightDataType.LATITUDE))).append(" DEG | ")
-					.append("LONGITUDE: ").append(df4.format(flightData.get(FlightDataType.LONGITUDE)))
-					.append(" DEG | ").append("G-FORCE: ").append(df2.format(flightData.get(FlightDataType.GFORCE)))
-					.append(" G | ");
-		} catch (Exception e) {
-			sb.append("AIRSPEED: ").append("---").append(" KIAS | ").append("ROLL: ").append("--.----")
-					.append(" DEG | ").append("PITCH: ").append("--.----").append(" DEG | ").append("HEADING: ")
-					.append("---").append(" DEG | ").append("ALTITUDE: ").append("---").append(" FT | ")
-					.append("LATITUDE: ").append("--.----").append(" DEG | ").append("LONGITUDE: ").append("--.----")
-					.append(" DEG | ").append("G-FORCE: ").append("-.--").append(" G | ");
+	/**
+	 * Creates a {@link HudText} laid out to display the orientation and position of a {@link Camera} or {@link Entity}
+	 * 
+	 * @param header
+	 * @return position text
+	 */
+	private static HudText createPositionText(String header) {
+		HudText text = new HudText();
+		
+		text.append(header).append(":\n").append("ROLL: ");
+		text.appendField(4, 0);
+		text.append(" DEG | PITCH: ");
+		text.appendField(4, 0);
+		text.append(" DEG | YAW: ");
+		text.appendField(4, 0);
+		text.append(" DEG | \nX POS: ");
+		text.appendField(12, 4);
+		text.append(" FT | Y POS: ");
+		text.appendField(12, 4);
+		text.append(" FT | Z POS: ");
+		text.appendField(10, 2);
+		text.append(" FT ");
+		
+		return text;
+	}
+	
+	/**
+	 * Writes {@link Camera} position data into a position {@link HudText}
+	 * 
+	 * @param text
+	 * @param camera
+	 */
+	private static void updatePositionText(HudText text, Camera camera) {
+		if (camera == null) {
+			clearPositionText(text);
+			return;
 		}
-
-		return sb.toString();
+		
+		text.setValue(POS_ROLL, wrapDegrees(camera.getRoll()));
+		text.setValue(POS_PITCH, wrapDegrees(camera.getPitch()));
+		text.setValue(POS_YAW, wrapDegrees(camera.getYaw()));
+		text.setValue(POS_X, camera.getPosition().x * FEET_PER_UNIT);
+		text.setValue(POS_Y, camera.getPosition().y * FEET_PER_UNIT);
+		text.setValue(POS_Z, camera.getPosition().z * FEET_PER_UNIT);
 	}
-
+	
 	/**
-	 * Prepares a string of {@link Camera} position data using the {@link GUIText}
-	 * object
+	 * Writes {@link Entity} position data into a position {@link HudText}
 	 * 
-	 * @param flightData
-	 * @return string displaying camera data output
+	 * @param text
+	 * @param entity
 	 */
-	private String setCameraPosText(Camera camera) {
-		StringBuffer sb = new StringBuffer();
-
-		if (camera == null)
-			return sb.toString();
-
-		sb.append("CAMERA:\n").append("ROLL: ").append(df0.format(camera.getRoll())).append(" DEG | ").append("PITCH: ")
-				.append(df0.format(camera.getPitch())).append(" DEG | ").append("YAW: ")
-				.append(df0.format(camera.getYaw())).append(" DEG | ").append("\n").append("X POS: ")
-				.append(df4.format(camera.getPosition().x * 15)).append(" FT | ").append("Y POS: ")
-				.append(df4.format(camera.getPosition().y * 15)).append(" FT | ").append("Z POS: ")
-				.append(df2.format(camera.getPosition().z * 15)).append(" FT ");
-
-		return sb.toString();
+	private static void updatePositionText(HudText text, Entity entity) {
+		if (entity == null) {
+			clearPositionText(text);
+			return;
+		}
+		
+		text.setValue(POS_ROLL, wrapDegrees(entity.getRotX()));
+		text.setValue(POS_PITCH, wrapDegrees(entity.getRotZ()));
+		text.setValue(POS_YAW, wrapDegrees(entity.getRotY()));
+		text.setValue(POS_X, entity.getPosition().x * FEET_PER_UNIT);
+		text.setValue(POS_Y, entity.getPosition().y * FEET_PER_UNIT);
+		text.setValue(POS_Z, entity.getPosition().z * FEET_PER_UNIT);
 	}
-
+	
 	/**
-	 * Prepares a string of {@link Entity} position data using the {@link GUIText}
-	 * object
+	 * Camera and entity rotations accumulate without being wrapped, so they are wrapped to within +/- 180 degrees to 
+	 * fit in the four character angle fields of a position text
 	 * 
-	 * @param flightData
-	 * @return string displaying entity data output
+	 * @param angle [deg]
+	 * @return equivalent angle between -180 and 180 [deg]
 	 */
-	private String setEntityPosText(Entity entity) {
-		StringBuffer sb = new StringBuffer();
-
-		if (entity == null)
-			return sb.toString();
-
-		sb.append(entity.getClass().getSimpleName().toUpperCase()).append(":\n").append("ROLL: ")
-				.append(df0.format(entity.getRotX())).append(" DEG | ").append("PITCH: ")
-				.append(df0.format(entity.getRotZ())).append(" DEG | ").append("YAW: ")
-				.append(df0.format(entity.getRotY())).append(" DEG | ").append("\n").append("X POS: ")
-				.append(df4.format(entity.getPosition().x * 15)).append(" FT | ").append("Y POS: ")
-				.append(df4.format(entity.getPosition().y * 15)).append(" FT | ").append("Z POS: ")
-				.append(df2.format(entity.getPosition().z * 15)).append(" FT ");
-
-		return sb.toString();
+	private static double wrapDegrees(double angle) {
+		return Math.IEEEremainder(angle, 360);
+	}
+	
+	private static void clearPositionText(HudText text) {
+		for (int field = POS_ROLL; field <= POS_Z; field++)
+			text.clearValue(field);
 	}
 
 	public Map<String, GUIText> getTexts() {
@@ -19,22 +19,53 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.lwjgl.interfaces.text;
 
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.lwjgl.BufferUtils;
+
 import com.chrisali.javaflightsim.lwjgl.loader.Loader;
 import com.chrisali.javaflightsim.lwjgl.renderengine.FontRenderer;
 
+/**
+ * Renders all visible {@link GUIText} objects, batched by {@link FontType}. Each text keeps its own VAO and VBOs,
+ * which are created the first time it is rendered; its quads are laid out and uploaded again only when its string 
+ * changes, reusing the same buffers
+ * 
+ * @author Christopher Ali
+ *
+ */
 public class TextMaster {
 	private static Loader loader;
 	private static Map<FontType, List<GUIText>> texts = new HashMap<>();
 	private static FontRenderer renderer;
+	private static MeshStore meshStore = TextMaster::storeMesh;
+	private static FloatBuffer meshBuffer;
+	
+	/**
+	 * Stores the vertex data of a {@link GUIText} that has been laid out
+	 */
+	interface MeshStore {
+		void store(GUIText text, TextMeshData data);
+	}
 	
 	public static void init(Loader loaderObj) {
 		renderer = new FontRenderer();
+		initLayout(loaderObj);
+	}
+	
+	/**
+	 * Sets the loader that laid out text is stored with, without creating a renderer, so that text can be prepared 
+	 * by {@link TextMaster#prepare(Map)} without an OpenGL context
+	 * 
+	 * @param loaderObj
+	 */
+	public static void initLayout(Loader loaderObj) {
 		loader = loaderObj;
+		meshStore = TextMaster::storeMesh;
 		
 		// Need to clear out previous text from map when reinitializing otherwise will receive fatal error
 		if(!texts.isEmpty()) 
@@ -42,29 +73,45 @@ public class TextMaster {
 	}
 	
 	public static void render(Map<String, GUIText> textMap) {
-		for (Map.Entry<String, GUIText> entry : textMap.entrySet()) {
-			if(!entry.getValue().isVisible())
+		prepare(textMap);
+		
+		renderer.render(texts);
+	}
+	
+	/**
+	 * Batches each visible {@link GUIText} by font, laying out and storing the quads of any text whose string has 
+	 * changed since it was last rendered
+	 * 
+	 * @param textMap
+	 */
+	public static void prepare(Map<String, GUIText> textMap) {
+		for (List<GUIText> textBatch : texts.values())
+			textBatch.clear();
+		
+		for (GUIText text : textMap.values()) {
+			if(!text.isVisible())
 				continue;
 				
-			TextMaster.loadText(entry.getValue());
-			
-			renderer.render(texts);
-			
-			TextMaster.removeText(entry.getValue());
+			loadText(text);
 		}
+		
+		texts.values().removeIf(List::isEmpty);
 	}
 	
 	/**
-	 * Loads {@link GUIText} object into VAO and texts HashMap to be rendered
+	 * Adds {@link GUIText} object to texts HashMap to be rendered, laying out its quads and loading them into its VAO
+	 * if its string has changed
 	 * 
 	 * @param text
 	 */
 	public static void loadText(GUIText text) {
 		FontType font = text.getFont();
-		TextMeshData data = font.loadText(text);
-		int vao = loader.loadToVAO(data.getVertexPositions(), data.getTextureCoords());
 		
-		text.setMeshInfo(vao, data.getVertexCount());
+		if (text.isMeshStale()) {
+			meshStore.store(text, font.loadText(text));
+			text.setMeshStale(false);
+		}
+		
 		List<GUIText> textBatch = texts.get(font);
 		
 		if(textBatch == null) {
@@ -76,12 +123,53 @@ public class TextMaster {
 	}
 	
 	/**
-	 * Removes {@link GUIText} object from texts HashMap after it has been rendered
+	 * Loads the vertex data of a {@link GUIText} into its VBOs, creating its VAO and VBOs if this is the first time it 
+	 * has been laid out
+	 * 
+	 * @param text
+	 * @param data
+	 */
+	private static void storeMesh(GUIText text, TextMeshData data) {
+		int[] meshBuffers = text.getMeshBuffers();
+		
+		if (meshBuffers == null) {
+			meshBuffers = loader.loadToDynamicVAO(2, 2);
+			text.setMeshBuffers(meshBuffers);
+		}
+		
+		float[] positions = data.getVertexPositions();
+		float[] textureCoords = data.getTextureCoords();
+		
+		// Grow the transfer buffer in powers of two so that texts of similar length are uploaded without reallocating
+		if (meshBuffer == null || meshBuffer.capacity() < positions.length)
+			meshBuffer = BufferUtils.createFloatBuffer(Math.max(64, Integer.highestOneBit(positions.length) << 1));
+		
+		loader.updateVBO(meshBuffers[1], positions, meshBuffer);
+		loader.updateVBO(meshBuffers[2], textureCoords, meshBuffer);
+		
+		text.setMeshInfo(meshBuffers[0], data.getVertexCount());
+	}
+	
+	/**
+	 * Sets how the vertex data of laid out texts is stored, so that text can be prepared without an OpenGL context
+	 * 
+	 * @param store
+	 */
+	static void setMeshStore(MeshStore store) {
+		meshStore = store;
+	}
+	
+	/**
+	 * Removes {@link GUIText} object from texts HashMap so that it is no longer rendered
 	 * 
 	 * @param text
 	 */
 	public static void removeText(GUIText text) {
 		List<GUIText> textBatch = texts.get(text.getFont());
+		
+		if (textBatch == null)
+			return;
+		
 		textBatch.remove(text);
 
 		if(textBatch.isEmpty())
@@ -41,12 +41,12 @@ public class TextMeshCreator {
 	}
 
 	private List<Line> createStructure(GUIText text) {
-		char[] chars = text.getTextString().toCharArray();
+		char[] chars = text.getTextChars();
 		List<Line> lines = new ArrayList<Line>();
 		Line currentLine = new Line(metaData.getSpaceWidth(), text.getFontSize(), text.getMaxLineSize());
 		Word currentWord = new Word(text.getFontSize());
-		for (char c : chars) {
-			int ascii = (int) c;
+		for (int i = 0; i < text.getTextLength(); i++) {
+			int ascii = (int) chars[i];
 			if (ascii == SPACE_ASCII) {
 				boolean added = currentLine.attemptToAddWord(currentWord);
 				if (!added) {
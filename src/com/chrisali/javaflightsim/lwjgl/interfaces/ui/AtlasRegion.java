@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.interfaces.ui;
+
+/**
+ * Rectangle of a texture, in normalized texture coordinates, that an {@link InterfaceTexture} is drawn from. 
+ * (u0, v0) is the top left corner of the image and (u1, v1) the bottom right
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class AtlasRegion {
+	
+	/**
+	 * Region covering an entire texture
+	 */
+	public static final AtlasRegion FULL = new AtlasRegion(0, 0, 1, 1);
+	
+	private final float u0;
+	private final float v0;
+	private final float u1;
+	private final float v1;
+	
+	public AtlasRegion(float u0, float v0, float u1, float v1) {
+		this.u0 = u0;
+		this.v0 = v0;
+		this.u1 = u1;
+		this.v1 = v1;
+	}
+
+	public float getU0() { return u0; }
+
+	public float getV0() { return v0; }
+
+	public float getU1() { return u1; }
+
+	public float getV1() { return v1; }
+}
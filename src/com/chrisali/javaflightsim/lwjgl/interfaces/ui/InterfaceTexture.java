@@ -21,6 +21,8 @@ package com.chrisali.javaflightsim.lwjgl.interfaces.ui;
 
 import org.lwjgl.util.vector.Vector2f;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 /**
  * Texture that is rendered directly on a quad flush with the display to show GUI information
  * 
@@ -33,6 +35,7 @@ public class InterfaceTexture {
 	private Vector2f position;
 	private Vector2f scale;
 	private float rotation;
+	private AtlasRegion region = AtlasRegion.FULL;
 	
 	public InterfaceTexture() {}
 	
@@ -58,4 +61,13 @@ public class InterfaceTexture {
 	public void setScale(Vector2f scale) { this.scale = scale; }
 
 	public Vector2f getScale() { return scale; }
+	
+	/**
+	 * @return region of this item's texture that it is drawn from; the entire texture unless it is part of a {@link TextureAtlas}
+	 */
+	@JsonIgnore
+	public AtlasRegion getRegion() { return region; }
+	
+	@JsonIgnore
+	public void setRegion(AtlasRegion region) { this.region = region; }
 }
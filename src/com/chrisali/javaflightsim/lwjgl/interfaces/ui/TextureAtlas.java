@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.interfaces.ui;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.chrisali.javaflightsim.lwjgl.loader.TextureData;
+
+/**
+ * Packs several decoded images into a single RGBA texture so that interface items using any of them can be drawn 
+ * with one texture bound. Images are placed on shelves in order of decreasing height, separated by transparent 
+ * padding so that linear filtering does not sample neighboring images. No OpenGL calls are made, so atlases can be 
+ * packed on any thread; upload the result with {@link com.chrisali.javaflightsim.lwjgl.loader.Loader#loadTexture(TextureData)}
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TextureAtlas {
+	
+	public static final int DEFAULT_PADDING = 2;
+	
+	private static final int BYTES_PER_PIXEL = 4;
+	
+	private final int width;
+	private final int height;
+	private final TextureData textureData;
+	private final Map<String, AtlasRegion> regions = new HashMap<>();
+	
+	private TextureAtlas(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.textureData = new TextureData(width, height, ByteBuffer.allocateDirect(width * height * BYTES_PER_PIXEL));
+	}
+	
+	/**
+	 * Packs images into a new atlas whose dimensions are the smallest powers of two that fit them all 
+	 * 
+	 * @param images map of image names and their decoded pixels; null images are skipped
+	 * @param padding number of transparent pixels between images
+	 * @return packed atlas
+	 */
+	public static TextureAtlas pack(Map<String, TextureData> images, int padding) {
+		List<String> names = new ArrayList<>();
+		long area = 0;
+		int maxWidth = 1;
+		
+		for (Map.Entry<String, TextureData> entry : images.entrySet()) {
+			TextureData image = entry.getValue();
+			
+			if (image == null)
+				continue;
+			
+			names.add(entry.getKey());
+			area += (long) (image.getWidth() + padding) * (image.getHeight() + padding);
+			maxWidth = Math.max(maxWidth, image.getWidth() + padding);
+		}
+		
+		// Tallest first, so that each shelf wastes as little height as possible
+		Collections.sort(names, (a, b) -> {
+			int compare = Integer.compare(images.get(b).getHeight(), images.get(a).getHeight());
+			return compare != 0 ? compare : a.compareTo(b);
+		});
+		
+		int width = nextPowerOfTwo(Math.max(maxWidth, (int) Math.ceil(Math.sqrt(area))));
+		int[] positions = new int[names.size() * 2];
+		int height = nextPowerOfTwo(placeOnShelves(names, images, width, padding, positions));
+		
+		TextureAtlas atlas = new TextureAtlas(width, height);
+		
+		for (int i = 0; i < names.size(); i++)
+			atlas.copyImage(names.get(i), images.get(names.get(i)), positions[i * 2], positions[i * 2 + 1]);
+		
+		return atlas;
+	}
+	
+	/**
+	 * Places images left to right on shelves as tall as the first image on each shelf
+	 * 
+	 * @param names image names, sorted by decreasing height
+	 * @param images
+	 * @param width width of the atlas
+	 * @param padding
+	 * @param positions array to write the x and y pixel position of each image into
+	 * @return height used by all shelves
+	 */
+	private static int placeOnShelves(List<String> names, Map<String, TextureData> images, int width, int padding, 
+									  int[] positions) {
+		int x = 0, shelfY = 0, shelfHeight = 0;
+		
+		for (int i = 0; i < names.size(); i++) {
+			TextureData image = images.get(names.get(i));
+			
+			if (x + image.getWidth() > width) {
+				x = 0;
+				shelfY += shelfHeight;
+				shelfHeight = 0;
+			}
+			
+			positions[i * 2] = x;
+			positions[i * 2 + 1] = shelfY;
+			
+			x += image.getWidth() + padding;
+			shelfHeight = Math.max(shelfHeight, image.getHeight() + padding);
+		}
+		
+		return Math.max(1, shelfY + shelfHeight);
+	}
+	
+	private static int nextPowerOfTwo(int value) {
+		return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+	}
+	
+	private void copyImage(String name, TextureData image, int x, int y) {
+		ByteBuffer source = image.getPixels().duplicate();
+		ByteBuffer destination = textureData.getPixels();
+		int rowBytes = image.getWidth() * BYTES_PER_PIXEL;
+		
+		for (int row = 0; row < image.getHeight(); row++) {
+			source.limit(source.position() + rowBytes);
+			destination.position(((y + row) * width + x) * BYTES_PER_PIXEL);
+			destination.put(source);
+		}
+		
+		destination.clear();
+		
+		regions.put(name, new AtlasRegion((float) x / width, (float) y / height, 
+										  (float) (x + image.getWidth()) / width, (float) (y + image.getHeight()) / height));
+	}
+	
+	/**
+	 * @param name
+	 * @return region of the atlas containing the image of this name, or null if it was not packed
+	 */
+	public AtlasRegion getRegion(String name) { return regions.get(name); }
+	
+	/**
+	 * @return RGBA pixels of the atlas
+	 */
+	public TextureData getTextureData() { return textureData; }
+
+	public int getWidth() { return width; }
+
+	public int getHeight() { return height; }
+}
@@ -0,0 +1,451 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.loader;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.lwjgl.models.RawModel;
+import com.chrisali.javaflightsim.lwjgl.models.TexturedModel;
+import com.chrisali.javaflightsim.lwjgl.textures.ModelTexture;
+import com.chrisali.javaflightsim.lwjgl.utilities.OTWDirectories;
+
+/**
+ * Loads assets in two stages: work that does not touch OpenGL (decoding textures, parsing models, building terrain 
+ * meshes) runs on a pool of worker threads, and the resulting buffers are queued to be uploaded by the OpenGL thread,
+ * which drains the queue within a time budget each frame using {@link AssetPipeline#processUploads(long)}. 
+ * 
+ * <p>Each task is assigned to a named phase (e.g. "Terrain", "Entities") whose worker time, OpenGL time and wall clock
+ * time are recorded and can be logged with {@link AssetPipeline#logTimings()}. Overall progress and an estimated time 
+ * remaining are available from {@link AssetPipeline#getProgress()} on any thread</p>
+ * 
+ * <p>A task submitted from within another task or upload is waited on by {@link AssetPipeline#awaitCompletion(long, Runnable)}, 
+ * but a task submitted by a callback chained onto a task's future may not be</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class AssetPipeline {
+	
+	private static final Logger logger = LogManager.getLogger(AssetPipeline.class);
+	
+	// Time to wait for a worker to queue an upload when none are queued
+	private static final long POLL_MILLIS = 5;
+	
+	// How often awaitCompletion logs progress 
+	private static final long LOG_INTERVAL_NANOS = 1_000_000_000L;
+	
+	private final ExecutorService workers;
+	
+	private final BlockingQueue<Runnable> uploadQueue = new LinkedBlockingQueue<>();
+	
+	private final AtomicInteger totalTasks = new AtomicInteger();
+	private final AtomicInteger completedTasks = new AtomicInteger();
+	
+	private volatile long startNanos;
+	private volatile long endNanos;
+	
+	private final Map<String, PhaseTiming> phases = new ConcurrentHashMap<>();
+	
+	/**
+	 * Creates a pipeline with one worker thread fewer than the number of available processors, leaving one for the 
+	 * OpenGL thread
+	 */
+	public AssetPipeline() {
+		this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+	}
+	
+	/**
+	 * Creates a pipeline with the specified number of worker threads
+	 * 
+	 * @param workerThreads
+	 */
+	public AssetPipeline(int workerThreads) {
+		AtomicInteger threadNumber = new AtomicInteger(1);
+		
+		workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+			Thread thread = new Thread(runnable, "Asset Loader " + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * Wall clock, worker and OpenGL thread time spent on all tasks in a phase 
+	 */
+	private static class PhaseTiming {
+		private final String name;
+		private int tasks;
+		private long workerNanos;
+		private long uploadNanos;
+		private long firstStartNanos = Long.MAX_VALUE;
+		private long lastEndNanos;
+		
+		private PhaseTiming(String name) {
+			this.name = name;
+		}
+		
+		private synchronized void record(long start, long end, boolean upload) {
+			tasks++;
+			
+			if (upload)
+				uploadNanos += end - start;
+			else
+				workerNanos += end - start;
+			
+			firstStartNanos = Math.min(firstStartNanos, start);
+			lastEndNanos = Math.max(lastEndNanos, end);
+		}
+	}
+	
+	//============================== Submitting Tasks ==============================
+	
+	/**
+	 * Runs a task on a worker thread. If the task throws an exception it is logged, and the future completes with null
+	 * 
+	 * @param phase
+	 * @param task
+	 * @return future completed with the task's result on the worker thread 
+	 */
+	public <T> CompletableFuture<T> submit(String phase, Callable<T> task) {
+		reserveTasks(1);
+		
+		return runOnWorker(phase, task);
+	}
+	
+	/**
+	 * Queues a task that must run on the OpenGL thread, such as uploading a buffer to the GPU. If the task throws an 
+	 * exception it is logged, and the future completes with null
+	 * 
+	 * @param phase
+	 * @param task
+	 * @return future completed with the task's result on the OpenGL thread
+	 */
+	public <T> CompletableFuture<T> upload(String phase, Supplier<T> task) {
+		reserveTasks(1);
+		
+		return queueUpload(phase, task);
+	}
+	
+	/**
+	 * Runs decode on a worker thread, and then queues upload to run on the OpenGL thread with decode's result. 
+	 * If decode returns null or fails, upload is skipped and the future completes with null 
+	 * 
+	 * @param phase
+	 * @param decode
+	 * @param upload
+	 * @return future completed with upload's result on the OpenGL thread
+	 */
+	public <T, R> CompletableFuture<R> load(String phase, Callable<T> decode, Function<T, R> upload) {
+		reserveTasks(2);
+		
+		CompletableFuture<R> future = new CompletableFuture<>();
+		
+		runOnWorker(phase, () -> {
+			T decoded = null;
+			
+			try {
+				decoded = decode.call();
+			} finally {
+				// Queue the upload before this task is counted as complete so that the pipeline is never briefly idle
+				if (decoded != null) {
+					T result = decoded;
+					queueUpload(phase, () -> upload.apply(result)).thenAccept(future::complete);
+				} else {
+					future.complete(null);
+					completeTask();
+				}
+			}
+			
+			return decoded;
+		});
+		
+		return future;
+	}
+	
+	/**
+	 * Decodes a texture in the Resources directory on a worker thread and uploads it on the OpenGL thread 
+	 * 
+	 * @param phase
+	 * @param fileName
+	 * @param directory
+	 * @param loader
+	 * @return future completed with the texture's OpenGL ID, or 0 if it could not be loaded
+	 */
+	public CompletableFuture<Integer> loadTexture(String phase, String fileName, String directory, Loader loader) {
+		return loadTexture(phase, OTWDirectories.RESOURCES.toString(), fileName, directory, loader);
+	}
+	
+	/**
+	 * Decodes a texture on a worker thread and uploads it on the OpenGL thread 
+	 * 
+	 * @param phase
+	 * @param rootDirectory
+	 * @param fileName
+	 * @param directory
+	 * @param loader
+	 * @return future completed with the texture's OpenGL ID, or 0 if it could not be loaded
+	 */
+	public CompletableFuture<Integer> loadTexture(String phase, String rootDirectory, String fileName, String directory, Loader loader) {
+		return load(phase, () -> Loader.decodeTexture(rootDirectory, fileName, directory), loader::loadTexture)
+				.thenApply(textureID -> textureID == null ? 0 : textureID);
+	}
+	
+	/**
+	 * Parses an OBJ model in the Resources directory on a worker thread and uploads it on the OpenGL thread 
+	 * 
+	 * @param phase
+	 * @param fileName
+	 * @param directory
+	 * @param loader
+	 * @return future completed with the model, or null if it could not be loaded
+	 */
+	public CompletableFuture<RawModel> loadModel(String phase, String fileName, String directory, Loader loader) {
+		return load(phase, () -> OBJLoader.loadMeshData(OBJLoader.getObjPath(fileName, directory)), loader::loadToVAO);
+	}
+	
+	/**
+	 * Creates a {@link TexturedModel} whose {@link RawModel} and {@link ModelTexture} are filled in once they have 
+	 * been loaded by this pipeline; until then, the model is null and the texture ID is 0
+	 * 
+	 * @param phase
+	 * @param modelName OBJ model in the Resources directory
+	 * @param textureName texture in the Resources directory
+	 * @param directory
+	 * @param loader
+	 * @return {@link TexturedModel} to be completed by this pipeline
+	 */
+	public TexturedModel loadTexturedModel(String phase, String modelName, String textureName, String directory, Loader loader) {
+		TexturedModel texturedModel = new TexturedModel(null, new ModelTexture(0));
+		
+		loadModel(phase, modelName, directory, loader).thenAccept(texturedModel::setRawModel);
+		loadTexture(phase, textureName, directory, loader).thenAccept(texturedModel.getTexture()::setTextureID);
+		
+		return texturedModel;
+	}
+	
+	/**
+	 * Runs a task immediately on the calling thread, recording its time under the specified phase. Use this to include
+	 * work that cannot be split between threads in {@link AssetPipeline#logTimings()}
+	 * 
+	 * @param phase
+	 * @param task
+	 */
+	public void runNow(String phase, Runnable task) {
+		long start = System.nanoTime();
+		
+		try {
+			task.run();
+		} finally {
+			getPhase(phase).record(start, System.nanoTime(), true);
+		}
+	}
+	
+	private void reserveTasks(int tasks) {
+		if (totalTasks.getAndAdd(tasks) == completedTasks.get()) {
+			startNanos = System.nanoTime();
+		}
+	}
+	
+	private void completeTask() {
+		if (completedTasks.incrementAndGet() == totalTasks.get())
+			endNanos = System.nanoTime();
+	}
+	
+	private <T> CompletableFuture<T> runOnWorker(String phase, Callable<T> task) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		
+		workers.execute(() -> {
+			long start = System.nanoTime();
+			T result = null;
+			
+			try {
+				result = task.call();
+			} catch (Exception e) {
+				logger.error("Error encountered while loading " + phase + " assets!", e);
+			} finally {
+				getPhase(phase).record(start, System.nanoTime(), false);
+			}
+			
+			future.complete(result);
+			completeTask();
+		});
+		
+		return future;
+	}
+	
+	private <T> CompletableFuture<T> queueUpload(String phase, Supplier<T> task) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		
+		uploadQueue.add(() -> {
+			long start = System.nanoTime();
+			T result = null;
+			
+			try {
+				result = task.get();
+			} catch (Exception e) {
+				logger.error("Error encountered while uploading " + phase + " assets!", e);
+			} finally {
+				getPhase(phase).record(start, System.nanoTime(), true);
+			}
+			
+			future.complete(result);
+			completeTask();
+		});
+		
+		return future;
+	}
+	
+	private PhaseTiming getPhase(String phase) {
+		return phases.computeIfAbsent(phase, PhaseTiming::new);
+	}
+	
+	//============================== OpenGL Thread ==============================
+	
+	/**
+	 * Runs queued uploads until the queue is empty or the time budget is used up. At least one upload is run if any
+	 * are queued, so that an upload longer than the budget cannot stall the queue. Must be called from the OpenGL thread
+	 * 
+	 * @param budgetNanos time budget for this frame [ns]
+	 * @return number of uploads run
+	 */
+	public int processUploads(long budgetNanos) {
+		long deadline = System.nanoTime() + budgetNanos;
+		int processed = 0;
+		
+		Runnable upload;
+		while ((upload = uploadQueue.poll()) != null) {
+			upload.run();
+			processed++;
+			
+			if (System.nanoTime() >= deadline)
+				break;
+		}
+		
+		return processed;
+	}
+	
+	/**
+	 * Processes uploads one frame budget at a time until every submitted task has completed, logging progress along 
+	 * the way. Must be called from the OpenGL thread
+	 * 
+	 * @param frameBudgetNanos time budget for uploads between calls of betweenFrames [ns]
+	 * @param betweenFrames called after each frame's uploads (e.g. to poll window events); may be null
+	 */
+	public void awaitCompletion(long frameBudgetNanos, Runnable betweenFrames) {
+		long lastLogNanos = System.nanoTime();
+		
+		while (!isComplete()) {
+			processUploads(frameBudgetNanos);
+			
+			if (betweenFrames != null)
+				betweenFrames.run();
+			
+			if (System.nanoTime() - lastLogNanos > LOG_INTERVAL_NANOS) {
+				logger.info("Loading assets: " + getProgress());
+				lastLogNanos = System.nanoTime();
+			}
+			
+			// Wait for workers rather than spin if nothing is ready to upload
+			if (uploadQueue.isEmpty() && !isComplete()) {
+				try {
+					Runnable upload = uploadQueue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+					if (upload != null)
+						upload.run();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+	
+	//============================== Progress and Timings ==============================
+	
+	/**
+	 * @return if every task submitted so far has completed
+	 */
+	public boolean isComplete() {
+		return completedTasks.get() >= totalTasks.get();
+	}
+	
+	/**
+	 * @return snapshot of the progress of all tasks submitted since the pipeline was last idle
+	 */
+	public LoadingProgress getProgress() {
+		int completed = completedTasks.get();
+		int total = totalTasks.get();
+		long elapsed = (completed >= total ? endNanos : System.nanoTime()) - startNanos;
+		
+		return new LoadingProgress(completed, total, Math.max(0, elapsed));
+	}
+	
+	/**
+	 * Logs the number of tasks, wall clock time, worker time and OpenGL thread time spent on each phase since the 
+	 * pipeline was created
+	 */
+	public void logTimings() {
+		List<PhaseTiming> sorted = new ArrayList<>(phases.values());
+		sorted.sort(Comparator.comparingLong(phase -> phase.firstStartNanos));
+		
+		StringBuilder sb = new StringBuilder("Asset loading timings:");
+		sb.append(String.format("%n%-12s %6s %12s %12s %12s", "Phase", "Tasks", "Wall [ms]", "Worker [ms]", "OpenGL [ms]"));
+		
+		long firstStart = Long.MAX_VALUE, lastEnd = 0;
+		
+		for (PhaseTiming phase : sorted) {
+			synchronized (phase) {
+				sb.append(String.format("%n%-12s %6d %12.1f %12.1f %12.1f", phase.name, phase.tasks,
+						(phase.lastEndNanos - phase.firstStartNanos) / 1e6, phase.workerNanos / 1e6, phase.uploadNanos / 1e6));
+				
+				firstStart = Math.min(firstStart, phase.firstStartNanos);
+				lastEnd = Math.max(lastEnd, phase.lastEndNanos);
+			}
+		}
+		
+		if (!sorted.isEmpty())
+			sb.append(String.format("%nTotal: %.1f ms", (lastEnd - firstStart) / 1e6));
+		
+		logger.info(sb.toString());
+	}
+	
+	/**
+	 * Stops the worker threads; tasks already queued are still run
+	 */
+	public void shutdown() {
+		workers.shutdown();
+	}
+}
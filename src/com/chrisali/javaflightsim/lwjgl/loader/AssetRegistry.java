@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.loader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.lwjgl.models.RawModel;
+import com.chrisali.javaflightsim.lwjgl.models.TexturedModel;
+import com.chrisali.javaflightsim.lwjgl.textures.ModelTexture;
+import com.chrisali.javaflightsim.lwjgl.utilities.OTWDirectories;
+import com.chrisali.javaflightsim.lwjgl.utilities.OTWFiles;
+
+/**
+ * Shares {@link RawModel}s, textures and {@link TexturedModel}s loaded by a {@link Loader} between all of their users. 
+ * Each asset is keyed by the canonical path of its file, so it is only read and uploaded the first time it is acquired; 
+ * every acquisition returns a {@link Handle} that counts as one reference to the asset. When the last handle to an asset 
+ * is released, its VAO or texture is deleted. Must be used on the OpenGL thread, as {@link Loader} is
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class AssetRegistry {
+	
+	private static final Logger logger = LogManager.getLogger(AssetRegistry.class);
+	
+	private final Loader loader;
+	
+	private final Map<String, Entry<?>> entries = new HashMap<>();
+	
+	/**
+	 * Asset shared by all handles with the same key, along with the number of handles not yet released
+	 */
+	private static class Entry<T> {
+		private final String key;
+		private final T asset;
+		private final Consumer<T> deleter;
+		private int referenceCount = 0;
+		
+		private Entry(String key, T asset, Consumer<T> deleter) {
+			this.key = key;
+			this.asset = asset;
+			this.deleter = deleter;
+		}
+	}
+	
+	/**
+	 * Reference to an asset in an {@link AssetRegistry}; call {@link Handle#release()} once the asset is no longer used
+	 */
+	public class Handle<T> {
+		private final Entry<T> entry;
+		private boolean released = false;
+		
+		private Handle(Entry<T> entry) {
+			this.entry = entry;
+			entry.referenceCount++;
+		}
+		
+		/**
+		 * @return the shared asset, or null if it could not be loaded
+		 */
+		public T get() { return entry.asset; }
+		
+		/**
+		 * Releases this handle's reference to the asset, deleting the asset if no references remain; releasing a 
+		 * handle more than once has no effect
+		 */
+		public void release() {
+			if (released)
+				return;
+			
+			released = true;
+			
+			if (--entry.referenceCount == 0) {
+				entries.remove(entry.key);
+				
+				if (entry.asset != null)
+					entry.deleter.accept(entry.asset);
+				
+				logger.debug("Released " + entry.key);
+			}
+		}
+	}
+	
+	public AssetRegistry(Loader loader) {
+		this.loader = loader;
+	}
+	
+	/**
+	 * Acquires a handle to an OBJ model in the Resources directory, loading it if it is not already loaded
+	 * 
+	 * @param fileName
+	 * @param directory
+	 * @return handle to the model, whose value is null if it could not be read
+	 */
+	public Handle<RawModel> acquireModel(String fileName, String directory) {
+		return acquire(canonicalPath(fileName + OTWFiles.MODEL_EXT.toString(), directory), 
+					   () -> loader.loadObjModel(fileName, directory), 
+					   model -> loader.deleteVAO(model.getVaoID()));
+	}
+	
+	/**
+	 * Acquires a handle to a PNG texture in the Resources directory, loading it if it is not already loaded
+	 * 
+	 * @param fileName
+	 * @param directory
+	 * @return handle to the texture's OpenGL ID, which is 0 if it could not be read
+	 */
+	public Handle<Integer> acquireTexture(String fileName, String directory) {
+		return acquire(canonicalPath(fileName + OTWFiles.TEXTURE_EXT.toString(), directory), 
+					   () -> loader.loadTexture(fileName, directory), 
+					   loader::deleteTexture);
+	}
+	
+	/**
+	 * Acquires a handle to a {@link TexturedModel} combining an OBJ model and PNG texture in the same Resources directory. 
+	 * The model and texture are acquired separately, so they are also shared with any other users of them, and are 
+	 * released once the last handle to the textured model is released. All users of the textured model share its 
+	 * {@link ModelTexture} settings
+	 * 
+	 * @param modelName
+	 * @param textureName
+	 * @param directory
+	 * @return handle to the textured model
+	 */
+	public Handle<TexturedModel> acquireTexturedModel(String modelName, String textureName, String directory) {
+		String key = canonicalPath(modelName + OTWFiles.MODEL_EXT.toString(), directory) + File.pathSeparator 
+				   + canonicalPath(textureName + OTWFiles.TEXTURE_EXT.toString(), directory);
+		
+		// Keep the model and texture's handles with the textured model so that they are released along with it
+		Map<TexturedModel, Runnable> releasers = new HashMap<>(1);
+		
+		return acquire(key, () -> {
+			Handle<RawModel> model = acquireModel(modelName, directory);
+			Handle<Integer> texture = acquireTexture(textureName, directory);
+			
+			TexturedModel texturedModel = new TexturedModel(model.get(), new ModelTexture(texture.get()));
+			releasers.put(texturedModel, () -> {
+				model.release();
+				texture.release();
+			});
+			
+			return texturedModel;
+		}, texturedModel -> releasers.remove(texturedModel).run());
+	}
+	
+	@SuppressWarnings("unchecked")
+	private <T> Handle<T> acquire(String key, Supplier<T> load, Consumer<T> deleter) {
+		Entry<T> entry = (Entry<T>) entries.get(key);
+		
+		if (entry == null) {
+			logger.debug("Loading " + key);
+			
+			entry = new Entry<>(key, load.get(), deleter);
+			entries.put(key, entry);
+		}
+		
+		return new Handle<>(entry);
+	}
+	
+	/**
+	 * @param key canonical path of an asset, as returned by {@link AssetRegistry#canonicalPath(String, String)}
+	 * @return number of unreleased handles to the asset, or 0 if it is not loaded
+	 */
+	public int getReferenceCount(String key) {
+		Entry<?> entry = entries.get(key);
+		
+		return entry == null ? 0 : entry.referenceCount;
+	}
+	
+	/**
+	 * @return number of assets currently loaded
+	 */
+	public int size() {
+		return entries.size();
+	}
+	
+	/**
+	 * @param fileName file name, including its extension
+	 * @param directory directory in the Resources directory
+	 * @return canonical path of the file, used as the key of its asset
+	 */
+	public static String canonicalPath(String fileName, String directory) {
+		File file = new File(OTWDirectories.RESOURCES.toString() + File.separator + directory + File.separator + fileName);
+		
+		try {
+			return file.getCanonicalPath();
+		} catch (IOException e) {
+			return file.getAbsolutePath();
+		}
+	}
+}
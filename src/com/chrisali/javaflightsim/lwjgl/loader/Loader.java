@@ -25,8 +25,12 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -43,6 +47,8 @@ import static org.lwjgl.opengl.GL33.*;
 import de.matthiasmann.twl.utils.PNGDecoder;
 import de.matthiasmann.twl.utils.PNGDecoder.Format;
 
+import com.chrisali.javaflightsim.lwjgl.models.BoundingSphere;
+import com.chrisali.javaflightsim.lwjgl.models.MeshData;
 import com.chrisali.javaflightsim.lwjgl.models.RawModel;
 import com.chrisali.javaflightsim.lwjgl.renderengine.DisplayManager;
 import com.chrisali.javaflightsim.lwjgl.utilities.OTWDirectories;
@@ -60,9 +66,13 @@ public class Loader {
 	
 	private static boolean useAnisotropicFiltering;
 
-	private List<Integer> vaoList = new LinkedList<>();
-	private List<Integer> vboList = new LinkedList<>();
-	private List<Integer> textureList = new LinkedList<>();
+	// VBOs created while each VAO was bound, so that they can be deleted along with it
+	private Map<Integer, List<Integer>> vaoBuffers = new HashMap<>();
+	private List<Integer> boundVaoBuffers;
+	
+	// VBOs not belonging to any VAO
+	private Set<Integer> vboSet = new HashSet<>();
+	private Set<Integer> textureSet = new HashSet<>();
 
 	//=============================== VAO Loaders for Various Entity Types =====================================
 	
@@ -74,7 +84,11 @@ public class Loader {
 		storeDataInAttributeList(2, 3, normals);
 		unbindVAO();
 
-		return new RawModel(vaoID, indices.length);
+		return new RawModel(vaoID, indices.length, BoundingSphere.fromPositions(positions));
+	}
+	
+	public RawModel loadToVAO(MeshData mesh) {
+		return loadToVAO(mesh.getPositions(), mesh.getTextureCoords(), mesh.getNormals(), mesh.getIndices());
 	}
 	
 	public RawModel loadToVAO(float[] positions, int dimensions) {
@@ -102,22 +116,75 @@ public class Loader {
 		return vaoID;
 	}
 	
+	/**
+	 * Creates a VAO whose attributes each read from their own empty VBO, for vertex data that changes over time and is
+	 * replaced using {@link Loader#updateVBO(int, float[], int, FloatBuffer)}
+	 *
+	 * @param coordinateSizes size of each attribute, in attribute order
+	 * @return ID of the VAO followed by the ID of each attribute's VBO
+	 */
+	public int[] loadToDynamicVAO(int... coordinateSizes) {
+		int[] ids = new int[coordinateSizes.length + 1];
+		ids[0] = createVAO();
+
+		for (int i = 0; i < coordinateSizes.length; i++) {
+			ids[i + 1] = glGenBuffers();
+			boundVaoBuffers.add(ids[i + 1]);
+			glBindBuffer(GL_ARRAY_BUFFER, ids[i + 1]);
+			glVertexAttribPointer(i, coordinateSizes[i], GL_FLOAT, false, 0, 0);
+		}
+
+		glBindBuffer(GL_ARRAY_BUFFER, 0);
+		unbindVAO();
+
+		return ids;
+	}
+
 	private int createVAO() {
 		int vaoID = glGenVertexArrays();
-		vaoList.add(vaoID);
+		boundVaoBuffers = new ArrayList<>();
+		vaoBuffers.put(vaoID, boundVaoBuffers);
 		glBindVertexArray(vaoID);
 		return vaoID;
 	}
 	
 	private void unbindVAO() {
 		glBindVertexArray(0);
+		boundVaoBuffers = null;
+	}
+	
+	/**
+	 * Deletes a VAO created by this loader along with all of its VBOs
+	 * 
+	 * @param vao
+	 */
+	public void deleteVAO(int vao) {
+		List<Integer> buffers = vaoBuffers.remove(vao);
+		
+		if (buffers == null)
+			return;
+		
+		for (int vbo : buffers)
+			glDeleteBuffers(vbo);
+		glDeleteVertexArrays(vao);
+	}
+	
+	/**
+	 * Parses an OBJ model in the Resources directory and loads it into a VAO 
+	 * 
+	 * @param fileName
+	 * @param directory
+	 * @return RawModel object, or null if the model could not be read
+	 */
+	public RawModel loadObjModel(String fileName, String directory) {
+		return OBJLoader.loadObjModel(fileName, directory, this);
 	}
 
 	//================================== VBO Methods =============================================
 
 	public int createEmptyVBO(int floatCount) {
 		int vbo = glGenBuffers();
-		vboList.add(vbo);
+		vboSet.add(vbo);
 		glBindBuffer(GL_ARRAY_BUFFER, vbo);
 		glBufferData(GL_ARRAY_BUFFER, floatCount * 4, GL_STREAM_DRAW);
 		glBindBuffer(GL_ARRAY_BUFFER, 0);
@@ -126,9 +193,33 @@ public class Loader {
 	}
 	
 	public void updateVBO(int vbo, float[] data, FloatBuffer buffer) {
+		updateVBO(vbo, data, data.length, buffer);
+	}
+	
+	/**
+	 * Replaces the contents of a VBO with the first length floats of data, using buffer to transfer them
+	 * 
+	 * @param vbo
+	 * @param data
+	 * @param length
+	 * @param buffer
+	 */
+	public void updateVBO(int vbo, float[] data, int length, FloatBuffer buffer) {
 		buffer.clear();
-		buffer.put(data);
+		buffer.put(data, 0, length);
 		buffer.flip();
+		updateVBO(vbo, buffer);
+	}
+	
+	/**
+	 * Replaces the contents of a VBO with the remaining floats of a buffer. The VBO is first orphaned by re-specifying
+	 * its storage at the buffer's full capacity, so that the driver need not wait for draw calls still reading the
+	 * previous contents
+	 * 
+	 * @param vbo
+	 * @param buffer
+	 */
+	public void updateVBO(int vbo, FloatBuffer buffer) {
 		glBindBuffer(GL_ARRAY_BUFFER, vbo);
 		glBufferData(GL_ARRAY_BUFFER, buffer.capacity() * 4, GL_STREAM_DRAW);
 		glBufferSubData(GL_ARRAY_BUFFER, 0, buffer);
@@ -170,7 +261,8 @@ public class Loader {
 	 */
 	public int loadTexture(String rootDirectory,String fileName, String directory) {
 		int textureID = loadAndGetTextureID(rootDirectory, fileName, directory);
-		textureList.add(textureID);
+		if (textureID != 0)
+			textureSet.add(textureID);
 
 		return textureID;
 	}
@@ -199,45 +291,81 @@ public class Loader {
 	 * @return OpenGL texture ID
 	 */
 	public int loadAndGetTextureID(String rootDirectory, String fileName, String directory) {
-		try {
-			PNGDecoder decoder = new PNGDecoder(new FileInputStream(rootDirectory + File.separator + directory 
-												+ File.separator + fileName + OTWFiles.TEXTURE_EXT.toString()));
+		TextureData textureData = decodeTexture(rootDirectory, fileName, directory);
+		
+		return textureData == null ? 0 : createTexture(textureData);
+	}
+	
+	/**
+	 * Uploads a texture decoded by {@link Loader#decodeTexture(String, String, String)} to OpenGL. Sets anisotropic 
+	 * filtering for textures as well in this method
+	 * 
+	 * @param textureData
+	 * @return OpenGL texture ID, or 0 if textureData is null
+	 */
+	public int loadTexture(TextureData textureData) {
+		if (textureData == null)
+			return 0;
+		
+		int textureID = createTexture(textureData);
+		textureSet.add(textureID);
+		
+		return textureID;
+	}
+	
+	/**
+	 * Decodes a PNG texture with PNGDecoder using a specific directory stemming from the rootDirectory argument. 
+	 * No OpenGL calls are made, so this can be called from any thread
+	 * 
+	 * @param rootDirectory
+	 * @param fileName
+	 * @param directory
+	 * @return {@link TextureData} containing the texture's RGBA pixels, or null if the texture could not be read
+	 */
+	public static TextureData decodeTexture(String rootDirectory, String fileName, String directory) {
+		try (FileInputStream fis = new FileInputStream(rootDirectory + File.separator + directory 
+														+ File.separator + fileName + OTWFiles.TEXTURE_EXT.toString())) {
+			PNGDecoder decoder = new PNGDecoder(fis);
 
 			ByteBuffer buf = ByteBuffer.allocateDirect(4 * decoder.getWidth() * decoder.getHeight());
 			decoder.decode(buf, decoder.getWidth() * 4, Format.RGBA);
 			buf.flip();
-
-			// Create a new OpenGL texture 
-			int textureId = glGenTextures();
-
-			// Bind the texture
-			glBindTexture(GL_TEXTURE_2D, textureId);
-			glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
-
-			glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, decoder.getWidth(), decoder.getHeight(), 
-						0, GL_RGBA, GL_UNSIGNED_BYTE, buf);
-
-			glGenerateMipmap(GL_TEXTURE_2D);
-			glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_LINEAR);
 			
-			// Set Anisotropic Filtering
-			if (DisplayManager.getGlCapabilities().GL_EXT_texture_filter_anisotropic && useAnisotropicFiltering) {
-				float value = Math.min(4f, glGetFloat(EXTTextureFilterAnisotropic.GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT));
-				glTexParameterf(GL_TEXTURE_2D, EXTTextureFilterAnisotropic.GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT, value);
-			}
-			
-			glTexParameterf(GL_TEXTURE_2D, GL_TEXTURE_LOD_BIAS, -0.4f);
-			glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
-			glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
-			glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_REPEAT);
-			glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_REPEAT);
-				
-			return textureId;
+			return new TextureData(decoder.getWidth(), decoder.getHeight(), buf);
 		} catch (IOException e) {
 			logger.error("Could not load texture: " + fileName + OTWFiles.TEXTURE_EXT.toString(), e);
 		}
 		
-		return 0;
+		return null;
+	}
+	
+	private int createTexture(TextureData textureData) {
+		// Create a new OpenGL texture 
+		int textureId = glGenTextures();
+
+		// Bind the texture
+		glBindTexture(GL_TEXTURE_2D, textureId);
+		glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+
+		glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, textureData.getWidth(), textureData.getHeight(), 
+					0, GL_RGBA, GL_UNSIGNED_BYTE, textureData.getPixels());
+
+		glGenerateMipmap(GL_TEXTURE_2D);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_LINEAR);
+		
+		// Set Anisotropic Filtering
+		if (DisplayManager.getGlCapabilities().GL_EXT_texture_filter_anisotropic && useAnisotropicFiltering) {
+			float value = Math.min(4f, glGetFloat(EXTTextureFilterAnisotropic.GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT));
+			glTexParameterf(GL_TEXTURE_2D, EXTTextureFilterAnisotropic.GL_MAX_TEXTURE_MAX_ANISOTROPY_EXT, value);
+		}
+		
+		glTexParameterf(GL_TEXTURE_2D, GL_TEXTURE_LOD_BIAS, -0.4f);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_REPEAT);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_REPEAT);
+			
+		return textureId;
 	}
 		
 	public static void setUseAnisotropicFiltering(boolean useAnisotropicFiltering) {
@@ -248,7 +376,7 @@ public class Loader {
 	
 	private void storeDataInAttributeList(int attributeNumber, int coordinateSize, float[] data) {
 		int vboID = glGenBuffers();
-		vboList.add(vboID);
+		boundVaoBuffers.add(vboID);
 		glBindBuffer(GL_ARRAY_BUFFER, vboID);
 		FloatBuffer buffer = storeDataInFloatBuffer(data);
 		glBufferData(GL_ARRAY_BUFFER, buffer, GL_STATIC_DRAW);
@@ -258,7 +386,7 @@ public class Loader {
 
 	private void bindIndicesBuffer(int[] indices) {
 		int vboId = glGenBuffers();
-		vboList.add(vboId);
+		boundVaoBuffers.add(vboId);
 		glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, vboId);
 		IntBuffer buffer = storeDataInIntBuffer(indices);
 		glBufferData(GL_ELEMENT_ARRAY_BUFFER, buffer, GL_STATIC_DRAW);
@@ -278,16 +406,29 @@ public class Loader {
 		return buffer;
 	}
 	
+	/**
+	 * Deletes a texture loaded by this loader
+	 * 
+	 * @param textureID
+	 */
+	public void deleteTexture(int textureID) {
+		if (textureSet.remove(textureID))
+			glDeleteTextures(textureID);
+	}
+	
 	public void cleanUp() {
-		for (int vao : vaoList)
-			glDeleteVertexArrays(vao);
-		for (int vbo : vboList)
+		for (Map.Entry<Integer, List<Integer>> entry : vaoBuffers.entrySet()) {
+			for (int vbo : entry.getValue())
+				glDeleteBuffers(vbo);
+			glDeleteVertexArrays(entry.getKey());
+		}
+		for (int vbo : vboSet)
 			glDeleteBuffers(vbo);
-		for (int texture : textureList)
+		for (int texture : textureSet)
 			glDeleteTextures(texture);
 		
-		vaoList.clear();
-		vboList.clear();
-		textureList.clear();
+		vaoBuffers.clear();
+		vboSet.clear();
+		textureSet.clear();
 	}
 }
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.loader;
+
+/**
+ * Snapshot of the progress of an {@link AssetPipeline}, safe to pass to other threads such as the menus to display a 
+ * progress bar. Progress is measured in tasks (decoding, mesh building and GPU uploads), and the time remaining is 
+ * estimated from the average rate that tasks have completed so far
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class LoadingProgress {
+	private final int completedTasks;
+	private final int totalTasks;
+	private final long elapsedNanos;
+	
+	public LoadingProgress(int completedTasks, int totalTasks, long elapsedNanos) {
+		this.completedTasks = completedTasks;
+		this.totalTasks = totalTasks;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	public int getCompletedTasks() {
+		return completedTasks;
+	}
+
+	public int getTotalTasks() {
+		return totalTasks;
+	}
+	
+	/**
+	 * @return fraction of tasks completed, from 0 to 1 
+	 */
+	public double getFraction() {
+		return totalTasks == 0 ? 1.0 : (double) completedTasks / totalTasks;
+	}
+	
+	/**
+	 * @return time since the first task was submitted [sec]
+	 */
+	public double getElapsedSeconds() {
+		return elapsedNanos / 1e9;
+	}
+	
+	/**
+	 * @return estimated time until all tasks submitted so far are completed [sec], or NaN if no task has completed yet 
+	 */
+	public double getEstimatedSecondsRemaining() {
+		if (completedTasks == 0)
+			return totalTasks == 0 ? 0 : Double.NaN;
+		
+		return getElapsedSeconds() * (totalTasks - completedTasks) / completedTasks;
+	}
+	
+	public boolean isComplete() {
+		return completedTasks >= totalTasks;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%d/%d tasks (%.0f%%), %.1f s elapsed, %.1f s remaining", completedTasks, totalTasks, 
+							 getFraction() * 100, getElapsedSeconds(), getEstimatedSecondsRemaining());
+	}
+}
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.loader;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.lwjgl.models.MeshData;
+import com.chrisali.javaflightsim.lwjgl.utilities.OTWFiles;
+
+/**
+ * Reads and writes binary .mesh files containing the parsed {@link MeshData} of an OBJ file, stored next to the OBJ file
+ * with the same name. A .mesh file is only used while the size and last modified time of its OBJ file match those 
+ * recorded when it was written; it is memory mapped and its arrays copied out in bulk, skipping parsing entirely
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class MeshCache {
+	
+	private static final Logger logger = LogManager.getLogger(MeshCache.class);
+	
+	// "JFSM" 
+	private static final int MAGIC = 0x4A46534D;
+	
+	// Increment whenever the layout of the file or the output of OBJLoader changes 
+	private static final int FORMAT_VERSION = 1;
+	
+	private static final int HEADER_BYTES = 32;
+	
+	private MeshCache() {}
+	
+	/**
+	 * @param objPath
+	 * @return path to the .mesh file of the specified OBJ file
+	 */
+	public static Path getCachePath(Path objPath) {
+		String objName = objPath.getFileName().toString();
+		String meshName = objName.endsWith(OTWFiles.MODEL_EXT.toString()) 
+				? objName.substring(0, objName.length() - OTWFiles.MODEL_EXT.toString().length()) : objName;
+		
+		return objPath.resolveSibling(meshName + OTWFiles.MESH_EXT.toString());
+	}
+	
+	/**
+	 * Reads the .mesh file of an OBJ file if it exists and is up to date with the OBJ file
+	 * 
+	 * @param objPath
+	 * @return {@link MeshData} read from the .mesh file, or null if it is missing, stale or unreadable
+	 */
+	public static MeshData load(Path objPath) {
+		Path cachePath = getCachePath(objPath);
+		
+		if (!Files.exists(cachePath))
+			return null;
+		
+		try (FileChannel channel = FileChannel.open(cachePath, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			
+			if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION)
+				return null;
+			
+			BasicFileAttributes attributes = Files.readAttributes(objPath, BasicFileAttributes.class);
+			if (buffer.getLong() != attributes.size() || buffer.getLong() != attributes.lastModifiedTime().toMillis()) {
+				logger.debug(cachePath + " is out of date with its OBJ file");
+				return null;
+			}
+			
+			int vertexCount = buffer.getInt();
+			int indexCount = buffer.getInt();
+			
+			float[] positions = new float[vertexCount * 3];
+			float[] textureCoords = new float[vertexCount * 2];
+			float[] normals = new float[vertexCount * 3];
+			int[] indices = new int[indexCount];
+			
+			readFloats(buffer, positions);
+			readFloats(buffer, textureCoords);
+			readFloats(buffer, normals);
+			buffer.asIntBuffer().get(indices);
+			
+			logger.debug("Read cached mesh: " + cachePath);
+			
+			return new MeshData(positions, textureCoords, normals, indices);
+		} catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+			logger.warn("Unable to read " + cachePath + "; parsing OBJ file instead", e);
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Writes the .mesh file of an OBJ file. Failures are logged, as the cache is only an optimization 
+	 * 
+	 * @param objPath
+	 * @param mesh parsed contents of the OBJ file
+	 */
+	public static void write(Path objPath, MeshData mesh) {
+		Path cachePath = getCachePath(objPath);
+		
+		// Write to a temporary file first so that a partially written mesh is never read
+		Path tempPath = cachePath.resolveSibling(cachePath.getFileName() + ".tmp");
+		
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(objPath, BasicFileAttributes.class);
+			
+			int floatCount = mesh.getPositions().length + mesh.getTextureCoords().length + mesh.getNormals().length;
+			ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + (floatCount + mesh.getIndices().length) * 4)
+										  .order(ByteOrder.LITTLE_ENDIAN);
+			
+			buffer.putInt(MAGIC);
+			buffer.putInt(FORMAT_VERSION);
+			buffer.putLong(attributes.size());
+			buffer.putLong(attributes.lastModifiedTime().toMillis());
+			buffer.putInt(mesh.getVertexCount());
+			buffer.putInt(mesh.getIndices().length);
+			
+			writeFloats(buffer, mesh.getPositions());
+			writeFloats(buffer, mesh.getTextureCoords());
+			writeFloats(buffer, mesh.getNormals());
+			buffer.asIntBuffer().put(mesh.getIndices());
+			
+			buffer.rewind();
+			
+			try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, 
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				while (buffer.hasRemaining())
+					channel.write(buffer);
+			}
+			
+			Files.move(tempPath, cachePath, StandardCopyOption.REPLACE_EXISTING);
+			
+			logger.debug("Wrote cached mesh: " + cachePath);
+		} catch (IOException e) {
+			logger.warn("Unable to write " + cachePath, e);
+			
+			try {
+				Files.deleteIfExists(tempPath);
+			} catch (IOException ignored) {}
+		}
+	}
+	
+	/**
+	 * Bulk reads floats from the buffer's position, advancing the position past them
+	 */
+	private static void readFloats(ByteBuffer buffer, float[] floats) {
+		buffer.asFloatBuffer().get(floats);
+		buffer.position(buffer.position() + floats.length * 4);
+	}
+	
+	/**
+	 * Bulk writes floats at the buffer's position, advancing the position past them
+	 */
+	private static void writeFloats(ByteBuffer buffer, float[] floats) {
+		buffer.asFloatBuffer().put(floats);
+		buffer.position(buffer.position() + floats.length * 4);
+	}
+}
@@ -19,25 +19,29 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.lwjgl.loader;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.lwjgl.util.vector.Vector2f;
-import org.lwjgl.util.vector.Vector3f;
 
+import com.chrisali.javaflightsim.lwjgl.models.MeshData;
 import com.chrisali.javaflightsim.lwjgl.models.RawModel;
 import com.chrisali.javaflightsim.lwjgl.utilities.OTWDirectories;
 import com.chrisali.javaflightsim.lwjgl.utilities.OTWFiles;
 
 /**
  * Contains static methods to load a {@link RawModel} into memory by reading and processing all vertices, textures and
- * normals associated with the model 
+ * normals associated with the model. 
+ * 
+ * <p>OBJ files are tokenized byte by byte straight into primitive arrays. Each unique combination of position, texture 
+ * coordinate and normal indices referenced by a face becomes one vertex, so that vertices sharing a position but with 
+ * different texture coordinates or normals (UV seams, hard edges) are kept. Parsed meshes are written to a binary 
+ * {@link MeshCache} next to the OBJ file, which is read in place of the OBJ file on later loads</p>
  * 
  * @author Christopher Ali
  *
@@ -52,103 +56,422 @@ public class OBJLoader {
 	 * @param fileName
 	 * @param directory
 	 * @param loader
-	 * @return RawModwl object
+	 * @return RawModel object, or null if the model could not be read
 	 */
 	public static RawModel loadObjModel(String fileName, String directory, Loader loader) {
- 		FileReader fr = null;
-		
-		try {fr = new FileReader(new File(OTWDirectories.RESOURCES.toString() + File.separator + directory + File.separator + fileName + OTWFiles.MODEL_EXT.toString()));} 
-		catch (FileNotFoundException e) {logger.error("Could not load model: " + fileName + OTWFiles.MODEL_EXT.toString() + "!", e);}
+		MeshData mesh = loadMeshData(getObjPath(fileName, directory));
 		
-		BufferedReader reader = new BufferedReader(fr);
-		String line;
+		if (mesh == null)
+			return null;
 		
-		List<Vector3f> vertices = new ArrayList<>();
-		List<Vector2f> textures = new ArrayList<>();
-		List<Vector3f> normals = new ArrayList<>();
-		List<Integer> indices = new ArrayList<>();
+		return loader.loadToVAO(mesh);
+	}
+	
+	/**
+	 * @param fileName
+	 * @param directory
+	 * @return path to the OBJ file of the specified model
+	 */
+	public static Path getObjPath(String fileName, String directory) {
+		return Paths.get(OTWDirectories.RESOURCES.toString() + File.separator + directory + File.separator + fileName + OTWFiles.MODEL_EXT.toString());
+	}
+	
+	/**
+	 * Reads the vertex data of an OBJ file without uploading it to the GPU, using its {@link MeshCache} if it is up
+	 * to date; otherwise, the OBJ file is parsed and the cache is rewritten
+	 * 
+	 * @param objPath
+	 * @return {@link MeshData} of the model, or null if the model could not be read
+	 */
+	public static MeshData loadMeshData(Path objPath) {
+		MeshData mesh = MeshCache.load(objPath);
 		
-		float[] verticesArray = null;
-		float[] texturesArray = null;
-		float[] normalsArray = null;
-		int[] indicesArray = null;
+		if (mesh != null)
+			return mesh;
 		
 		try {
-			while(true) {
-				line = reader.readLine();
-				String[] currentLine = line.split("\\s+");
-				if(line.startsWith("v ")) {
-					Vector3f vertex = new Vector3f(Float.parseFloat(currentLine[1]),
-												   Float.parseFloat(currentLine[2]),
-												   Float.parseFloat(currentLine[3]));
-					vertices.add(vertex);
-				} else if (line.startsWith("vt ")) {
-					Vector2f texture = new Vector2f(Float.parseFloat(currentLine[1]),
-							   						Float.parseFloat(currentLine[2]));
-					textures.add(texture);
-				} else if (line.startsWith("vn ")) {
-					Vector3f normal = new Vector3f(Float.parseFloat(currentLine[1]),
-												   Float.parseFloat(currentLine[2]),
-												   Float.parseFloat(currentLine[3]));
-					normals.add(normal);
-				} else if (line.startsWith("f ")) {
-					texturesArray = new float[vertices.size()*2];
-					normalsArray  = new float[vertices.size()*3];
+			mesh = parse(Files.readAllBytes(objPath));
+		} catch (IOException e) {
+			logger.error("Could not load model: " + objPath + "!", e);
+			return null;
+		} catch (IllegalArgumentException e) {
+			logger.error("An error occurred while reading the model: " + objPath, e);
+			return null;
+		}
+		
+		MeshCache.write(objPath, mesh);
+		
+		return mesh;
+	}
+	
+	/**
+	 * Parses the contents of an OBJ file. Faces with more than three vertices are triangulated as fans, texture 
+	 * coordinates are flipped vertically to match OpenGL's convention and vertices missing texture coordinates or 
+	 * normals are given zeros in their place 
+	 * 
+	 * @param obj contents of an OBJ file
+	 * @return {@link MeshData} of the model
+	 * @throws IllegalArgumentException if the file contains a malformed number or a face references a missing vertex
+	 */
+	public static MeshData parse(byte[] obj) {
+		return new Parser(obj).parse();
+	}
+	
+	/**
+	 * Single use tokenizer and vertex deduplicator for the contents of one OBJ file
+	 */
+	private static class Parser {
+		
+		private static final double[] POWERS_OF_TEN = new double[23];
+		
+		static {
+			POWERS_OF_TEN[0] = 1;
+			for (int i = 1; i < POWERS_OF_TEN.length; i++)
+				POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+		
+		// Largest mantissa that can take another digit without overflowing
+		private static final long MAX_MANTISSA = (Long.MAX_VALUE - 9) / 10;
+		
+		private final byte[] buf;
+		private int pos = 0;
+		private int lineNumber = 1;
+		
+		// Attributes as they appear in the file
+		private float[] filePositions = new float[3 * 1024];
+		private float[] fileTextures  = new float[2 * 1024];
+		private float[] fileNormals   = new float[3 * 1024];
+		private int positionCount, textureCount, normalCount;
+		
+		// Unique vertices and the (position, texture, normal) index triple of each
+		private float[] positions     = new float[3 * 1024];
+		private float[] textureCoords = new float[2 * 1024];
+		private float[] normals       = new float[3 * 1024];
+		private int[] vertexKeys      = new int[3 * 1024];
+		private int vertexCount;
+		
+		// Open addressing hash table of vertex index + 1 (0 is empty) keyed by index triple  
+		private int[] table = new int[2048];
+		
+		private int[] indices = new int[3 * 1024];
+		private int indexCount;
+		
+		private Parser(byte[] buf) {
+			this.buf = buf;
+		}
+		
+		private MeshData parse() {
+			while (pos < buf.length) {
+				skipWhitespace();
+				
+				if (pos >= buf.length)
 					break;
+				
+				byte first = buf[pos];
+				byte second = pos + 1 < buf.length ? buf[pos + 1] : (byte) '\n';
+				
+				if (first == 'v' && isBlank(second)) {
+					pos += 1;
+					readPosition();
+				} else if (first == 'v' && second == 't') {
+					pos += 2;
+					readTexture();
+				} else if (first == 'v' && second == 'n') {
+					pos += 2;
+					readNormal();
+				} else if (first == 'f' && isBlank(second)) {
+					pos += 1;
+					readFace();
 				}
+				
+				skipLine();
 			}
 			
-			while(line!=null) {
-				if (!line.startsWith("f ")) {
-					line = reader.readLine();
-					continue;
+			return new MeshData(Arrays.copyOf(positions, vertexCount * 3),
+								Arrays.copyOf(textureCoords, vertexCount * 2),
+								Arrays.copyOf(normals, vertexCount * 3),
+								Arrays.copyOf(indices, indexCount));
+		}
+		
+		//=========================== Attributes ===========================
+		
+		private void readPosition() {
+			if ((positionCount + 1) * 3 > filePositions.length)
+				filePositions = Arrays.copyOf(filePositions, filePositions.length * 2);
+			
+			int offset = positionCount++ * 3;
+			filePositions[offset]     = readFloat();
+			filePositions[offset + 1] = readFloat();
+			filePositions[offset + 2] = readFloat();
+		}
+		
+		private void readTexture() {
+			if ((textureCount + 1) * 2 > fileTextures.length)
+				fileTextures = Arrays.copyOf(fileTextures, fileTextures.length * 2);
+			
+			int offset = textureCount++ * 2;
+			fileTextures[offset]     = readFloat();
+			fileTextures[offset + 1] = 1 - (isLineEnd() ? 0 : readFloat());
+		}
+		
+		private void readNormal() {
+			if ((normalCount + 1) * 3 > fileNormals.length)
+				fileNormals = Arrays.copyOf(fileNormals, fileNormals.length * 2);
+			
+			int offset = normalCount++ * 3;
+			fileNormals[offset]     = readFloat();
+			fileNormals[offset + 1] = readFloat();
+			fileNormals[offset + 2] = readFloat();
+		}
+		
+		//============================= Faces ==============================
+		
+		/**
+		 * Reads every vertex of a face, adding one triangle for each vertex after the second to form a fan
+		 */
+		private void readFace() {
+			int first = -1, previous = -1, corners = 0;
+			
+			while (true) {
+				skipBlanks();
+				
+				if (pos >= buf.length || !isNumberStart(buf[pos]))
+					break;
+				
+				int position = resolveIndex(readInt(), positionCount, "position");
+				int texture = -1, normal = -1;
+				
+				if (pos < buf.length && buf[pos] == '/') {
+					pos++;
+					if (pos < buf.length && buf[pos] != '/')
+						texture = resolveIndex(readInt(), textureCount, "texture coordinate");
+					
+					if (pos < buf.length && buf[pos] == '/') {
+						pos++;
+						normal = resolveIndex(readInt(), normalCount, "normal");
+					}
 				}
-				String[] currentLine = line.split("\\s+");
-				String[] vertex1 = currentLine[1].split("/");
-				String[] vertex2 = currentLine[2].split("/");
-				String[] vertex3 = currentLine[3].split("/");
 				
-				processVertex(vertex1, indices, textures, vertices, normals, texturesArray, normalsArray);
-				processVertex(vertex2, indices, textures, vertices, normals, texturesArray, normalsArray);
-				processVertex(vertex3, indices, textures, vertices, normals, texturesArray, normalsArray);
+				int vertex = getOrAddVertex(position, texture, normal);
 				
-				line = reader.readLine();
+				if (corners == 0) {
+					first = vertex;
+				} else if (corners >= 2) {
+					if (indexCount + 3 > indices.length)
+						indices = Arrays.copyOf(indices, indices.length * 2);
+					
+					indices[indexCount++] = first;
+					indices[indexCount++] = previous;
+					indices[indexCount++] = vertex;
+				}
+				
+				previous = vertex;
+				corners++;
 			}
 			
-			reader.close();
+			if (corners < 3)
+				throw new IllegalArgumentException("Face with fewer than three vertices on line " + lineNumber);
+		}
+		
+		/**
+		 * Converts a one-based or negative (relative to the end) OBJ index into a zero-based index
+		 */
+		private int resolveIndex(int index, int count, String attribute) {
+			int resolved = index < 0 ? count + index : index - 1;
 			
-		} catch (Exception e) {
-			logger.error("An error occurred while reading the model: " + fileName, e);
+			if (resolved < 0 || resolved >= count)
+				throw new IllegalArgumentException("Face references missing " + attribute + " " + index + " on line " + lineNumber);
+			
+			return resolved;
 		}
 		
-		verticesArray= new float[vertices.size()*3];
-		indicesArray= new int[indices.size()];
+		/**
+		 * Finds the vertex made of the specified position, texture and normal indices, creating it if it has not been
+		 * referenced before
+		 * 
+		 * @return index of the vertex
+		 */
+		private int getOrAddVertex(int position, int texture, int normal) {
+			int mask = table.length - 1;
+			int slot = hash(position, texture, normal) & mask;
+			
+			for (int entry; (entry = table[slot]) != 0; slot = (slot + 1) & mask) {
+				int key = (entry - 1) * 3;
+				if (vertexKeys[key] == position && vertexKeys[key + 1] == texture && vertexKeys[key + 2] == normal)
+					return entry - 1;
+			}
+			
+			int vertex = vertexCount++;
+			
+			if (vertexCount * 3 > positions.length) {
+				positions     = Arrays.copyOf(positions, positions.length * 2);
+				textureCoords = Arrays.copyOf(textureCoords, textureCoords.length * 2);
+				normals       = Arrays.copyOf(normals, normals.length * 2);
+				vertexKeys    = Arrays.copyOf(vertexKeys, vertexKeys.length * 2);
+			}
+			
+			vertexKeys[vertex * 3]     = position;
+			vertexKeys[vertex * 3 + 1] = texture;
+			vertexKeys[vertex * 3 + 2] = normal;
+			
+			System.arraycopy(filePositions, position * 3, positions, vertex * 3, 3);
+			if (texture >= 0)
+				System.arraycopy(fileTextures, texture * 2, textureCoords, vertex * 2, 2);
+			if (normal >= 0)
+				System.arraycopy(fileNormals, normal * 3, normals, vertex * 3, 3);
+			
+			table[slot] = vertex + 1;
+			
+			// Keep the table at most half full
+			if (vertexCount * 2 > table.length)
+				rehash();
+			
+			return vertex;
+		}
 		
-		int vertexPointer = 0;
-		for(Vector3f vertex : vertices) {
-			verticesArray[vertexPointer++] = vertex.x;
-			verticesArray[vertexPointer++] = vertex.y;
-			verticesArray[vertexPointer++] = vertex.z;
+		private void rehash() {
+			table = new int[table.length * 2];
+			int mask = table.length - 1;
+			
+			for (int vertex = 0; vertex < vertexCount; vertex++) {
+				int key = vertex * 3;
+				int slot = hash(vertexKeys[key], vertexKeys[key + 1], vertexKeys[key + 2]) & mask;
+				
+				while (table[slot] != 0)
+					slot = (slot + 1) & mask;
+				
+				table[slot] = vertex + 1;
+			}
 		}
 		
-		for(int i=0; i<indices.size(); i++)
-			indicesArray[i] = indices.get(i);
+		private static int hash(int position, int texture, int normal) {
+			int h = position * 0x9E3779B1;
+			h = (h ^ texture) * 0x85EBCA77;
+			h = (h ^ normal) * 0xC2B2AE3D;
+			
+			return h ^ (h >>> 16);
+		}
 		
-		return loader.loadToVAO(verticesArray, texturesArray, normalsArray, indicesArray);
-	}
-	
-	private static void processVertex(String[] vertexData, List<Integer> indices, List<Vector2f> textures, 
-								List<Vector3f> vertices, List<Vector3f> normals, float[] texturesArray, float[] normalsArray) {
-		int currentVertexPointer = Integer.parseInt(vertexData[0])-1;
-		indices.add(currentVertexPointer);
-		
-		Vector2f currentTex = textures.get(Integer.parseInt(vertexData[1])-1);
-		texturesArray[currentVertexPointer*2]   =     currentTex.x;
-		texturesArray[currentVertexPointer*2+1] = 1 - currentTex.y;
-		
-		Vector3f currentNorm = normals.get(Integer.parseInt(vertexData[2])-1);
-		normalsArray[currentVertexPointer*3]   = currentNorm.x;
-		normalsArray[currentVertexPointer*3+1] = currentNorm.y;
-		normalsArray[currentVertexPointer*3+2] = currentNorm.z;
+		//=========================== Tokenizing ===========================
+		
+		private float readFloat() {
+			skipBlanks();
+			
+			int start = pos;
+			boolean negative = false;
+			
+			if (pos < buf.length && (buf[pos] == '-' || buf[pos] == '+'))
+				negative = buf[pos++] == '-';
+			
+			long mantissa = 0;
+			int exponent = 0;
+			boolean hasDigits = false;
+			
+			for (; pos < buf.length && isDigit(buf[pos]); pos++, hasDigits = true) {
+				if (mantissa < MAX_MANTISSA)
+					mantissa = mantissa * 10 + (buf[pos] - '0');
+				else
+					exponent++;
+			}
+			
+			if (pos < buf.length && buf[pos] == '.') {
+				for (pos++; pos < buf.length && isDigit(buf[pos]); pos++, hasDigits = true) {
+					if (mantissa < MAX_MANTISSA) {
+						mantissa = mantissa * 10 + (buf[pos] - '0');
+						exponent--;
+					}
+				}
+			}
+			
+			if (!hasDigits)
+				throw new IllegalArgumentException("Malformed number '" + token(start) + "' on line " + lineNumber);
+			
+			if (pos < buf.length && (buf[pos] == 'e' || buf[pos] == 'E')) {
+				pos++;
+				exponent += readInt();
+			}
+			
+			double value = mantissa;
+			if (exponent < 0)
+				value = -exponent < POWERS_OF_TEN.length ? value / POWERS_OF_TEN[-exponent] : value * Math.pow(10, exponent);
+			else if (exponent > 0)
+				value = exponent < POWERS_OF_TEN.length ? value * POWERS_OF_TEN[exponent] : value * Math.pow(10, exponent);
+			
+			return (float) (negative ? -value : value);
+		}
+		
+		private int readInt() {
+			int start = pos;
+			boolean negative = false;
+			
+			if (pos < buf.length && (buf[pos] == '-' || buf[pos] == '+'))
+				negative = buf[pos++] == '-';
+			
+			if (pos >= buf.length || !isDigit(buf[pos]))
+				throw new IllegalArgumentException("Malformed index '" + token(start) + "' on line " + lineNumber);
+			
+			int value = 0;
+			for (; pos < buf.length && isDigit(buf[pos]); pos++)
+				value = value * 10 + (buf[pos] - '0');
+			
+			return negative ? -value : value;
+		}
+		
+		private String token(int start) {
+			int end = start;
+			while (end < buf.length && !isBlank(buf[end]))
+				end++;
+			
+			return new String(buf, start, end - start);
+		}
+		
+		/**
+		 * Skips blank lines and whitespace at the start of a line
+		 */
+		private void skipWhitespace() {
+			for (; pos < buf.length && isBlank(buf[pos]); pos++) {
+				if (buf[pos] == '\n')
+					lineNumber++;
+			}
+		}
+		
+		/**
+		 * Skips spaces and tabs within a line
+		 */
+		private void skipBlanks() {
+			while (pos < buf.length && (buf[pos] == ' ' || buf[pos] == '\t'))
+				pos++;
+		}
+		
+		/**
+		 * Skips past the end of the current line, ignoring any comments or unsupported statements 
+		 */
+		private void skipLine() {
+			while (pos < buf.length && buf[pos] != '\n')
+				pos++;
+			
+			if (pos < buf.length) {
+				pos++;
+				lineNumber++;
+			}
+		}
+		
+		private boolean isLineEnd() {
+			skipBlanks();
+			
+			return pos >= buf.length || buf[pos] == '\r' || buf[pos] == '\n' || buf[pos] == '#';
+		}
+		
+		private static boolean isBlank(byte b) {
+			return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+		}
+		
+		private static boolean isDigit(byte b) {
+			return b >= '0' && b <= '9';
+		}
+		
+		private static boolean isNumberStart(byte b) {
+			return isDigit(b) || b == '-' || b == '+';
+		}
 	}
 }
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.loader;
+
+import java.nio.ByteBuffer;
+
+/**
+ * RGBA pixels of a PNG texture decoded by {@link Loader#decodeTexture(String, String, String)}, ready to be uploaded
+ * to OpenGL by {@link Loader#loadTexture(TextureData)}
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TextureData {
+	private int width;
+	private int height;
+	private ByteBuffer pixels;
+	
+	public TextureData(int width, int height, ByteBuffer pixels) {
+		this.width = width;
+		this.height = height;
+		this.pixels = pixels;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public ByteBuffer getPixels() {
+		return pixels;
+	}
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.models;
+
+/**
+ * Sphere in a model's local coordinates enclosing all of its vertices, used to cull entities that are outside of the 
+ * camera's view 
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class BoundingSphere {
+	private final float centerX, centerY, centerZ;
+	private final float radius;
+	
+	public BoundingSphere(float centerX, float centerY, float centerZ, float radius) {
+		this.centerX = centerX;
+		this.centerY = centerY;
+		this.centerZ = centerZ;
+		this.radius = radius;
+	}
+	
+	/**
+	 * Creates a sphere centered on the middle of the box bounding all positions, with a radius reaching the farthest
+	 * position from that center
+	 * 
+	 * @param positions (x, y, z) of each vertex
+	 * @return bounding sphere of the positions
+	 */
+	public static BoundingSphere fromPositions(float[] positions) {
+		if (positions.length < 3)
+			return new BoundingSphere(0, 0, 0, 0);
+		
+		float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+		
+		for (int i = 0; i + 2 < positions.length; i += 3) {
+			minX = Math.min(minX, positions[i]);
+			minY = Math.min(minY, positions[i+1]);
+			minZ = Math.min(minZ, positions[i+2]);
+			maxX = Math.max(maxX, positions[i]);
+			maxY = Math.max(maxY, positions[i+1]);
+			maxZ = Math.max(maxZ, positions[i+2]);
+		}
+		
+		float centerX = (minX + maxX) / 2, centerY = (minY + maxY) / 2, centerZ = (minZ + maxZ) / 2;
+		float radiusSquared = 0;
+		
+		for (int i = 0; i + 2 < positions.length; i += 3) {
+			float dx = positions[i] - centerX, dy = positions[i+1] - centerY, dz = positions[i+2] - centerZ;
+			radiusSquared = Math.max(radiusSquared, dx * dx + dy * dy + dz * dz);
+		}
+		
+		return new BoundingSphere(centerX, centerY, centerZ, (float) Math.sqrt(radiusSquared));
+	}
+	
+	/**
+	 * @return radius of a sphere centered on the model's origin that encloses this sphere, regardless of how the model 
+	 * is rotated about its origin
+	 */
+	public float getRadiusFromOrigin() {
+		return (float) Math.sqrt(centerX * centerX + centerY * centerY + centerZ * centerZ) + radius;
+	}
+
+	public float getCenterX() {
+		return centerX;
+	}
+
+	public float getCenterY() {
+		return centerY;
+	}
+
+	public float getCenterZ() {
+		return centerZ;
+	}
+
+	public float getRadius() {
+		return radius;
+	}
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.models;
+
+/**
+ * Vertex data of a model held in primitive arrays, ready to be loaded into a VAO by the Loader. Each vertex has a
+ * position (x, y, z), texture coordinate (u, v) and normal (x, y, z) at the same index, and every three indices make
+ * up one triangle
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class MeshData {
+	private float[] positions;
+	private float[] textureCoords;
+	private float[] normals;
+	private int[] indices;
+	
+	public MeshData(float[] positions, float[] textureCoords, float[] normals, int[] indices) {
+		this.positions = positions;
+		this.textureCoords = textureCoords;
+		this.normals = normals;
+		this.indices = indices;
+	}
+
+	public float[] getPositions() {
+		return positions;
+	}
+
+	public float[] getTextureCoords() {
+		return textureCoords;
+	}
+
+	public float[] getNormals() {
+		return normals;
+	}
+
+	public int[] getIndices() {
+		return indices;
+	}
+	
+	/**
+	 * @return number of unique vertices in the mesh
+	 */
+	public int getVertexCount() {
+		return positions.length / 3;
+	}
+	
+	/**
+	 * @return number of triangles in the mesh
+	 */
+	public int getTriangleCount() {
+		return indices.length / 3;
+	}
+}
@@ -22,11 +22,17 @@ package com.chrisali.javaflightsim.lwjgl.models;
 public class RawModel {
 	private int vaoID;
 	private int vertexCount;
+	private BoundingSphere boundingSphere;
 
 	public RawModel(int vaoID, int vertexCount) {
 		this.vaoID = vaoID;
 		this.vertexCount = vertexCount;
 	}
+	
+	public RawModel(int vaoID, int vertexCount, BoundingSphere boundingSphere) {
+		this(vaoID, vertexCount);
+		this.boundingSphere = boundingSphere;
+	}
 
 	public int getVaoID() {
 		return vaoID;
@@ -35,4 +41,11 @@ public class RawModel {
 	public int getVertexCount() {
 		return vertexCount;
 	}
+	
+	/**
+	 * @return sphere enclosing the model's vertices, or null if the model was not loaded with 3D positions
+	 */
+	public BoundingSphere getBoundingSphere() {
+		return boundingSphere;
+	}
 }
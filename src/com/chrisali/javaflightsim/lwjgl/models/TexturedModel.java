@@ -43,4 +43,8 @@ public class TexturedModel {
 	public ModelTexture getTexture() {
 		return texture;
 	}
+	
+	public void setRawModel(RawModel rawModel) {
+		this.rawModel = rawModel;
+	}
 }
@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.particles;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Layer of clouds generated procedurally around the camera. The world is divided into square cells, and the clusters of
+ * clouds in each cell are generated deterministically from the layer's seed and the cell's coordinates, so a cell always
+ * looks the same however often it is paged in and out. Cells within the near radius of the camera's cell are drawn as 
+ * the individual puffs making up each cluster, while cells beyond it, out to the far radius, collapse each cluster into 
+ * one large impostor quad, so that clouds can reach the horizon at a cost that depends only on the two radii
+ * 
+ * <p>All clouds are kept in one {@link ParticlePool}, which is refilled only when the camera moves into another cell</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class CloudLayer {
+	
+	private static final float CELL_SIZE = 1000;
+	
+	// Clusters that may be generated in each cell; coverage decides how many of these are
+	private static final int CLUSTER_SLOTS_PER_CELL = 4;
+	
+	private static final int MIN_PUFFS = 6;
+	private static final int MAX_PUFFS = 16;
+	private static final float PUFF_SCALE = 200;
+	private static final float CLUSTER_RADIUS = 250;
+	private static final float ALTITUDE_VARIATION = 60;
+	
+	// Values stored for each puff or impostor: x, y, z, scale, texture index
+	private static final int CLOUD_DATA_LENGTH = 5;
+	
+	private final ParticlePool pool;
+	private final long seed;
+	private final float altitude;
+	private final float coverage;
+	private final int nearRadius;
+	private final int farRadius;
+	private final int stageCount;
+	
+	private final Map<Long, CloudCell> cells = new HashMap<>();
+	
+	private int centerX;
+	private int centerZ;
+	private boolean paged = false;
+	
+	/**
+	 * Puffs and impostors of one cell's clusters
+	 */
+	private static class CloudCell {
+		private final float[] puffs;
+		private final float[] impostors;
+		
+		private CloudCell(float[] puffs, float[] impostors) {
+			this.puffs = puffs;
+			this.impostors = impostors;
+		}
+	}
+	
+	/**
+	 * @param pool pool that the layer's clouds are added to; any other particles in it are removed
+	 * @param seed
+	 * @param altitude average height of the cloud layer 
+	 * @param coverage fraction between 0 and 1 of the possible clusters in each cell that are generated
+	 * @param nearRadius cells around the camera's cell whose clusters are drawn as individual puffs
+	 * @param farRadius cells around the camera's cell whose clusters are drawn at all
+	 */
+	public CloudLayer(ParticlePool pool, long seed, float altitude, float coverage, int nearRadius, int farRadius) {
+		this.pool = pool;
+		this.seed = seed;
+		this.altitude = altitude;
+		this.coverage = coverage;
+		this.nearRadius = nearRadius;
+		this.farRadius = Math.max(nearRadius, farRadius);
+		this.stageCount = pool.getNumberOfAtlasRows() * pool.getNumberOfAtlasRows();
+	}
+	
+	/**
+	 * Pages cells in and out around the camera if it has moved into another cell since the last update
+	 * 
+	 * @param cameraX
+	 * @param cameraZ
+	 * @return if the layer's clouds were paged
+	 */
+	public boolean update(float cameraX, float cameraZ) {
+		int cellX = (int) Math.floor(cameraX / CELL_SIZE);
+		int cellZ = (int) Math.floor(cameraZ / CELL_SIZE);
+		
+		if (paged && cellX == centerX && cellZ == centerZ)
+			return false;
+		
+		centerX = cellX;
+		centerZ = cellZ;
+		paged = true;
+		
+		// Forget cells that have left the far radius
+		for (Iterator<Long> it = cells.keySet().iterator(); it.hasNext();) {
+			long key = it.next();
+			
+			if (Math.abs((int) (key >> 32) - centerX) > farRadius || Math.abs((int) key - centerZ) > farRadius)
+				it.remove();
+		}
+		
+		pool.clear();
+		
+		for (int z = centerZ - farRadius; z <= centerZ + farRadius; z++) {
+			for (int x = centerX - farRadius; x <= centerX + farRadius; x++) {
+				long key = ((long) x << 32) | (z & 0xFFFFFFFFL);
+				CloudCell cell = cells.get(key);
+				
+				if (cell == null) {
+					cell = generateCell(x, z);
+					cells.put(key, cell);
+				}
+				
+				boolean near = Math.abs(x - centerX) <= nearRadius && Math.abs(z - centerZ) <= nearRadius;
+				addClouds(near ? cell.puffs : cell.impostors);
+			}
+		}
+		
+		return true;
+	}
+	
+	private void addClouds(float[] clouds) {
+		for (int i = 0; i < clouds.length; i += CLOUD_DATA_LENGTH) {
+			pool.add(clouds[i], clouds[i+1], clouds[i+2], 0, 0, 0, 0, Float.POSITIVE_INFINITY, 0, clouds[i+3], 
+					 (int) clouds[i+4]);
+		}
+	}
+	
+	/**
+	 * Generates the puffs of each cluster in a cell, along with the single impostor replacing each cluster at a distance,
+	 * using a random number generator seeded from the layer's seed and the cell's coordinates
+	 * 
+	 * @param cellX
+	 * @param cellZ
+	 * @return cell's clouds
+	 */
+	private CloudCell generateCell(int cellX, int cellZ) {
+		Random random = new Random(hash(seed, cellX, cellZ));
+		
+		float[] puffs = new float[CLUSTER_SLOTS_PER_CELL * MAX_PUFFS * CLOUD_DATA_LENGTH];
+		float[] impostors = new float[CLUSTER_SLOTS_PER_CELL * CLOUD_DATA_LENGTH];
+		int puffLength = 0, impostorLength = 0;
+		
+		for (int slot = 0; slot < CLUSTER_SLOTS_PER_CELL; slot++) {
+			// Draw every value for a slot whether or not it is used, so that coverage does not change other slots' clusters
+			boolean used = random.nextFloat() < coverage;
+			float clusterX = (cellX + random.nextFloat()) * CELL_SIZE;
+			float clusterY = altitude + (random.nextFloat() - 0.5f) * ALTITUDE_VARIATION;
+			float clusterZ = (cellZ + random.nextFloat()) * CELL_SIZE;
+			int puffCount = MIN_PUFFS + random.nextInt(MAX_PUFFS - MIN_PUFFS + 1);
+			int stage = random.nextInt(Math.max(1, stageCount - 1));
+			long clusterSeed = random.nextLong();
+			
+			if (!used)
+				continue;
+			
+			Random clusterRandom = new Random(clusterSeed);
+			float minX = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, minZ = Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+			float sumY = 0;
+			
+			for (int puff = 0; puff < puffCount; puff++) {
+				float x = clusterX + (clusterRandom.nextFloat() - 0.5f) * 2 * CLUSTER_RADIUS;
+				float y = clusterY + (clusterRandom.nextFloat() - 0.5f) * ALTITUDE_VARIATION / 2;
+				float z = clusterZ + (clusterRandom.nextFloat() - 0.5f) * 2 * CLUSTER_RADIUS;
+				
+				puffs[puffLength++] = x;
+				puffs[puffLength++] = y;
+				puffs[puffLength++] = z;
+				puffs[puffLength++] = PUFF_SCALE * (0.75f + clusterRandom.nextFloat() * 0.5f);
+				puffs[puffLength++] = (stage + clusterRandom.nextInt(2)) % Math.max(1, stageCount - 1);
+				
+				minX = Math.min(minX, x);
+				maxX = Math.max(maxX, x);
+				minZ = Math.min(minZ, z);
+				maxZ = Math.max(maxZ, z);
+				sumY += y;
+			}
+			
+			// Impostor centered on, and covering, the cluster's puffs
+			impostors[impostorLength++] = (minX + maxX) / 2;
+			impostors[impostorLength++] = sumY / puffCount;
+			impostors[impostorLength++] = (minZ + maxZ) / 2;
+			impostors[impostorLength++] = Math.max(maxX - minX, maxZ - minZ) + PUFF_SCALE;
+			impostors[impostorLength++] = stage;
+		}
+		
+		return new CloudCell(Arrays.copyOf(puffs, puffLength), Arrays.copyOf(impostors, impostorLength));
+	}
+	
+	private static long hash(long seed, int cellX, int cellZ) {
+		long h = seed ^ (((long) cellX << 32) | (cellZ & 0xFFFFFFFFL));
+		h *= 0x9E3779B97F4A7C15L;
+		
+		return h ^ (h >>> 31);
+	}
+	
+	/**
+	 * @return number of cells currently paged in
+	 */
+	public int getCellCount() {
+		return cells.size();
+	}
+	
+	/**
+	 * @return number of puffs and impostors currently in the layer's pool
+	 */
+	public int getCloudCount() {
+		return pool.getCount();
+	}
+	
+	public static float getCellSize() {
+		return CELL_SIZE;
+	}
+}
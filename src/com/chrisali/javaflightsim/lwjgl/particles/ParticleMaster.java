@@ -19,22 +19,20 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.lwjgl.particles;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import org.lwjgl.util.vector.Matrix4f;
+import org.lwjgl.util.vector.Vector3f;
 
 import com.chrisali.javaflightsim.lwjgl.entities.Camera;
 import com.chrisali.javaflightsim.lwjgl.loader.Loader;
+import com.chrisali.javaflightsim.lwjgl.renderengine.DisplayManager;
 import com.chrisali.javaflightsim.lwjgl.renderengine.ParticleRenderer;
 
 public class ParticleMaster {
 	
-	private static Map<ParticleTexture, List<Particle>> particles = new HashMap<>();
+	private static Map<ParticleTexture, ParticlePool> particles = new HashMap<>();
 	private static ParticleRenderer renderer;
 	
 	public static void init(Loader loader, Matrix4f projectionMatrix) {
@@ -42,30 +40,54 @@ public class ParticleMaster {
 		renderer = new ParticleRenderer(loader, projectionMatrix);
 	}
 	
+	/**
+	 * Advances all particles by the last frame's time, removes those that have died, and sorts those not using additive
+	 * blending so that the particles farthest from the camera are drawn first
+	 * 
+	 * @param camera
+	 */
 	public static void update(Camera camera) {
-		Iterator<Entry<ParticleTexture, List<Particle>>> mapIterator = particles.entrySet().iterator();
+		update(camera, DisplayManager.getFrameTimeSeconds());
+	}
+	
+	/**
+	 * Advances all particles by a time step, removes those that have died, and sorts those not using additive
+	 * blending so that the particles farthest from the camera are drawn first
+	 * 
+	 * @param camera
+	 * @param delta time step [sec]
+	 */
+	public static void update(Camera camera, float delta) {
+		Vector3f cameraPosition = camera.getPosition();
 		
-		while(mapIterator.hasNext()) {
-			Entry<ParticleTexture, List<Particle>> entry = mapIterator.next();
-			List<Particle> list = entry.getValue();
+		for (Map.Entry<ParticleTexture, ParticlePool> entry : particles.entrySet()) {
+			ParticlePool pool = entry.getValue();
 			
-			Iterator<Particle> listIterator = list.iterator();
-		
-			while(listIterator.hasNext()) {
-				Particle particle = listIterator.next();
-				boolean alive = particle.update(camera);
-				
-				if(!alive) {
-					listIterator.remove();
-					
-					if(list.isEmpty())
-						mapIterator.remove();
-				}
-			}
+			if (pool.isEmpty())
+				continue;
+			
+			pool.update(delta, cameraPosition.x, cameraPosition.y, cameraPosition.z);
 			
 			if(!entry.getKey().usesAdditiveBlending())
-				particleInsertionSort(list);
+				pool.sortBackToFront();
+		}
+	}
+	
+	/**
+	 * Gets the pool holding all particles using a texture, creating it if needed
+	 * 
+	 * @param texture
+	 * @return pool of the texture's particles
+	 */
+	public static ParticlePool getPool(ParticleTexture texture) {
+		ParticlePool pool = particles.get(texture);
+		
+		if (pool == null) {
+			pool = new ParticlePool(texture.getNumberOfAtlasRows());
+			particles.put(texture, pool);
 		}
+		
+		return pool;
 	}
 	
 	public static void renderParticles(Camera camera) {
@@ -76,38 +98,37 @@ public class ParticleMaster {
 		renderer.cleanUp();
 	}
 	
-	public static void addParticle(Particle particle) {
-		List<Particle> list = particles.get(particle.getTexture());
-		
-		if (list == null) {
-			list = new ArrayList<>();
-			particles.put(particle.getTexture(), list);
-		}
-		
-		list.add(particle);
+	/**
+	 * Adds a particle that advances through its texture's atlas over its life
+	 * 
+	 * @param texture
+	 * @param position
+	 * @param velocity
+	 * @param gravityEffect fraction of gravity that affects the particle
+	 * @param lifeLength time the particle lives for [sec]
+	 * @param rotation [deg]
+	 * @param scale
+	 */
+	public static void addParticle(ParticleTexture texture, Vector3f position, Vector3f velocity, float gravityEffect, 
+								   float lifeLength, float rotation, float scale) {
+		addParticle(texture, position, velocity, gravityEffect, lifeLength, rotation, scale, -1);
 	}
 	
 	/**
-     * Sorts a list of particles so that the particles with the highest distance
-     * from the camera are first, and the particles with the shortest distance
-     * are last.
-     * 
-     * @param list
-     *            - the list of particles needing sorting.
-     */
-    public static void particleInsertionSort(List<Particle> list) {
-        for (int i = 1; i < list.size(); i++) {
-            Particle item = list.get(i);
-            
-            if (item.getDistaceFromCamera() > list.get(i - 1).getDistaceFromCamera()) {
-                int attemptPos = i - 1;
-                
-                while (attemptPos != 0 && list.get(attemptPos - 1).getDistaceFromCamera() < item.getDistaceFromCamera())
-                    attemptPos--;
-
-                list.remove(i);
-                list.add(attemptPos, item);
-            }
-        }
-    }
+	 * Adds a particle that always uses one stage of its texture's atlas, blended with the stage following it
+	 * 
+	 * @param texture
+	 * @param position
+	 * @param velocity
+	 * @param gravityEffect fraction of gravity that affects the particle
+	 * @param lifeLength time the particle lives for [sec]
+	 * @param rotation [deg]
+	 * @param scale
+	 * @param textureIndex atlas stage to use, or -1 to advance through the atlas over the particle's life
+	 */
+	public static void addParticle(ParticleTexture texture, Vector3f position, Vector3f velocity, float gravityEffect, 
+								   float lifeLength, float rotation, float scale, int textureIndex) {
+		getPool(texture).add(position.x, position.y, position.z, velocity.x, velocity.y, velocity.z, 
+				 gravityEffect, lifeLength, rotation, scale, textureIndex);
+	}
 }
@@ -0,0 +1,371 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.particles;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Storage for all particles sharing a {@link ParticleTexture}, kept as parallel arrays of primitives (a structure of
+ * arrays) rather than as individual objects. Arrays grow as needed and are reused as particles die, with dead particles
+ * replaced by the last live particle. Large pools are updated in parallel on the common {@link ForkJoinPool}, and pools 
+ * are depth sorted with a radix sort of their squared distances from the camera into a separate draw order, so that 
+ * the particle data itself is never moved by sorting. No OpenGL calls are made, so pools can be used without an 
+ * OpenGL context 
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class ParticlePool {
+	
+	private static final float GRAVITY = -50;
+	
+	private static final int INITIAL_CAPACITY = 256;
+	
+	// Number of particles below which a task updates its particles itself rather than splitting them further
+	private static final int PARTICLES_PER_TASK = 8192;
+	
+	// Low mantissa bits of each squared distance dropped from its sort key, leaving a 24 bit key that distinguishes 
+	// distances differing by more than about one part in 65,000; the key is sorted 12 bits per pass of the radix sort
+	private static final int DROPPED_KEY_BITS = 7;
+	private static final int KEY_BITS = 24;
+	private static final int RADIX_BITS = 12;
+	private static final int RADIX_BUCKETS = 1 << RADIX_BITS;
+	
+	private final int numberOfAtlasRows;
+	private final int stageCount;
+	
+	private int count = 0;
+	private int capacity = INITIAL_CAPACITY;
+	
+	private float[] positionX = new float[INITIAL_CAPACITY];
+	private float[] positionY = new float[INITIAL_CAPACITY];
+	private float[] positionZ = new float[INITIAL_CAPACITY];
+	private float[] velocityX = new float[INITIAL_CAPACITY];
+	private float[] velocityY = new float[INITIAL_CAPACITY];
+	private float[] velocityZ = new float[INITIAL_CAPACITY];
+	private float[] gravityEffect = new float[INITIAL_CAPACITY];
+	private float[] lifeLength = new float[INITIAL_CAPACITY];
+	private float[] elapsedTime = new float[INITIAL_CAPACITY];
+	private float[] rotation = new float[INITIAL_CAPACITY];
+	private float[] scale = new float[INITIAL_CAPACITY];
+	private float[] distanceFromCamera = new float[INITIAL_CAPACITY];
+	private float[] textureBlend = new float[INITIAL_CAPACITY];
+	
+	// Atlas stage the particle is fixed at, or -1 if it advances through the atlas over its life
+	private int[] fixedTextureIndex = new int[INITIAL_CAPACITY];
+	private int[] textureIndex1 = new int[INITIAL_CAPACITY];
+	private int[] textureIndex2 = new int[INITIAL_CAPACITY];
+	
+	// Indices of particles farthest from the camera first, along with scratch arrays used to sort them
+	private int[] drawOrder = new int[INITIAL_CAPACITY];
+	private int[] sortScratch = new int[INITIAL_CAPACITY];
+	private int[] sortKeys = new int[INITIAL_CAPACITY];
+	private int[] sortKeysScratch = new int[INITIAL_CAPACITY];
+	private final int[] bucketCounts = new int[RADIX_BUCKETS];
+	private boolean sorted = false;
+	
+	/**
+	 * @param numberOfAtlasRows rows (and columns) of the texture atlas that particles in this pool use
+	 */
+	public ParticlePool(int numberOfAtlasRows) {
+		this.numberOfAtlasRows = numberOfAtlasRows;
+		this.stageCount = numberOfAtlasRows * numberOfAtlasRows;
+	}
+	
+	/**
+	 * Adds a particle to the pool
+	 * 
+	 * @param x
+	 * @param y
+	 * @param z
+	 * @param vx
+	 * @param vy
+	 * @param vz
+	 * @param gravity fraction of gravity that affects the particle
+	 * @param life time the particle lives for [sec]
+	 * @param particleRotation [deg]
+	 * @param particleScale
+	 * @param textureIndex atlas stage to always use, or -1 to advance through the atlas over the particle's life
+	 */
+	public void add(float x, float y, float z, float vx, float vy, float vz, float gravity, float life, 
+					float particleRotation, float particleScale, int textureIndex) {
+		if (count == capacity)
+			grow();
+		
+		int i = count++;
+		
+		positionX[i] = x;
+		positionY[i] = y;
+		positionZ[i] = z;
+		velocityX[i] = vx;
+		velocityY[i] = vy;
+		velocityZ[i] = vz;
+		gravityEffect[i] = gravity;
+		lifeLength[i] = life;
+		elapsedTime[i] = 0;
+		rotation[i] = particleRotation;
+		scale[i] = particleScale;
+		distanceFromCamera[i] = 0;
+		fixedTextureIndex[i] = textureIndex;
+		
+		updateTextureCoordinateInfo(i);
+		sorted = false;
+	}
+	
+	private void grow() {
+		capacity *= 2;
+		
+		positionX = Arrays.copyOf(positionX, capacity);
+		positionY = Arrays.copyOf(positionY, capacity);
+		positionZ = Arrays.copyOf(positionZ, capacity);
+		velocityX = Arrays.copyOf(velocityX, capacity);
+		velocityY = Arrays.copyOf(velocityY, capacity);
+		velocityZ = Arrays.copyOf(velocityZ, capacity);
+		gravityEffect = Arrays.copyOf(gravityEffect, capacity);
+		lifeLength = Arrays.copyOf(lifeLength, capacity);
+		elapsedTime = Arrays.copyOf(elapsedTime, capacity);
+		rotation = Arrays.copyOf(rotation, capacity);
+		scale = Arrays.copyOf(scale, capacity);
+		distanceFromCamera = Arrays.copyOf(distanceFromCamera, capacity);
+		textureBlend = Arrays.copyOf(textureBlend, capacity);
+		fixedTextureIndex = Arrays.copyOf(fixedTextureIndex, capacity);
+		textureIndex1 = Arrays.copyOf(textureIndex1, capacity);
+		textureIndex2 = Arrays.copyOf(textureIndex2, capacity);
+		
+		drawOrder = new int[capacity];
+		sortScratch = new int[capacity];
+		sortKeys = new int[capacity];
+		sortKeysScratch = new int[capacity];
+	}
+	
+	/**
+	 * Advances every particle by a time step, then removes particles that have outlived their life length
+	 * 
+	 * @param delta time step [sec]
+	 * @param cameraX
+	 * @param cameraY
+	 * @param cameraZ
+	 */
+	public void update(float delta, float cameraX, float cameraY, float cameraZ) {
+		if (count > PARTICLES_PER_TASK && ForkJoinPool.getCommonPoolParallelism() > 1)
+			ForkJoinPool.commonPool().invoke(new UpdateTask(0, count, delta, cameraX, cameraY, cameraZ));
+		else
+			update(0, count, delta, cameraX, cameraY, cameraZ);
+		
+		removeDead();
+		sorted = false;
+	}
+	
+	/**
+	 * Updates particles [from, to); each particle only writes to its own index, so ranges can be updated in parallel
+	 */
+	private void update(int from, int to, float delta, float cameraX, float cameraY, float cameraZ) {
+		for (int i = from; i < to; i++) {
+			velocityY[i] += GRAVITY * gravityEffect[i] * delta;
+			
+			positionX[i] += velocityX[i] * delta;
+			positionY[i] += velocityY[i] * delta;
+			positionZ[i] += velocityZ[i] * delta;
+			
+			float dx = cameraX - positionX[i];
+			float dy = cameraY - positionY[i];
+			float dz = cameraZ - positionZ[i];
+			distanceFromCamera[i] = dx * dx + dy * dy + dz * dz;
+			
+			updateTextureCoordinateInfo(i);
+			elapsedTime[i] += delta;
+		}
+	}
+	
+	private void updateTextureCoordinateInfo(int i) {
+		int fixedIndex = fixedTextureIndex[i];
+		
+		if (fixedIndex >= 0) {
+			textureIndex1[i] = fixedIndex;
+			textureIndex2[i] = fixedIndex < stageCount - 1 ? fixedIndex + 1 : fixedIndex;
+			textureBlend[i] = 1.0f;
+		} else {
+			float atlasProgression = (elapsedTime[i] / lifeLength[i]) * stageCount;
+			int index1 = (int) atlasProgression;
+			
+			textureIndex1[i] = index1;
+			textureIndex2[i] = index1 < stageCount - 1 ? index1 + 1 : index1;
+			textureBlend[i] = atlasProgression - index1;
+		}
+	}
+	
+	/**
+	 * Removes dead particles by moving the last live particle into each one's place
+	 */
+	private void removeDead() {
+		int i = 0;
+		
+		while (i < count) {
+			if (elapsedTime[i] < lifeLength[i]) {
+				i++;
+				continue;
+			}
+			
+			int last = --count;
+			
+			positionX[i] = positionX[last];
+			positionY[i] = positionY[last];
+			positionZ[i] = positionZ[last];
+			velocityX[i] = velocityX[last];
+			velocityY[i] = velocityY[last];
+			velocityZ[i] = velocityZ[last];
+			gravityEffect[i] = gravityEffect[last];
+			lifeLength[i] = lifeLength[last];
+			elapsedTime[i] = elapsedTime[last];
+			rotation[i] = rotation[last];
+			scale[i] = scale[last];
+			distanceFromCamera[i] = distanceFromCamera[last];
+			textureBlend[i] = textureBlend[last];
+			fixedTextureIndex[i] = fixedTextureIndex[last];
+			textureIndex1[i] = textureIndex1[last];
+			textureIndex2[i] = textureIndex2[last];
+		}
+	}
+	
+	/**
+	 * Sorts the draw order of the particles so that those farthest from the camera are drawn first. Squared distances are
+	 * never negative, so the bits of each one's float representation sort in the same order as the distances themselves, 
+	 * and can be sorted with a least significant digit radix sort in linear time. Distances too close to be distinguished
+	 * by the sort key keep their storage order
+	 */
+	public void sortBackToFront() {
+		for (int i = 0; i < count; i++) {
+			// Inverting the bits sorts farthest first
+			sortKeys[i] = (~Float.floatToRawIntBits(distanceFromCamera[i]) & Integer.MAX_VALUE) >>> DROPPED_KEY_BITS;
+			drawOrder[i] = i;
+		}
+		
+		int[] keys = sortKeys, keysScratch = sortKeysScratch;
+		int[] order = drawOrder, orderScratch = sortScratch;
+		
+		for (int shift = 0; shift < KEY_BITS; shift += RADIX_BITS) {
+			Arrays.fill(bucketCounts, 0);
+			
+			for (int i = 0; i < count; i++)
+				bucketCounts[(keys[i] >>> shift) & (RADIX_BUCKETS - 1)]++;
+			
+			// Skip passes in which every key falls in the same bucket
+			if (bucketCounts[(keys[0] >>> shift) & (RADIX_BUCKETS - 1)] == count)
+				continue;
+			
+			for (int bucket = 0, total = 0; bucket < RADIX_BUCKETS; bucket++) {
+				int bucketCount = bucketCounts[bucket];
+				bucketCounts[bucket] = total;
+				total += bucketCount;
+			}
+			
+			for (int i = 0; i < count; i++) {
+				int slot = bucketCounts[(keys[i] >>> shift) & (RADIX_BUCKETS - 1)]++;
+				keysScratch[slot] = keys[i];
+				orderScratch[slot] = order[i];
+			}
+			
+			int[] swap = keys; keys = keysScratch; keysScratch = swap;
+			swap = order; order = orderScratch; orderScratch = swap;
+		}
+		
+		sortKeys = keys;
+		sortKeysScratch = keysScratch;
+		drawOrder = order;
+		sortScratch = orderScratch;
+		sorted = true;
+	}
+	
+	/**
+	 * @param position position in the order particles are to be drawn
+	 * @return index of the particle to draw at that position; farthest from the camera first if the pool has been 
+	 * sorted since it last changed, otherwise in storage order
+	 */
+	public int getDrawIndex(int position) {
+		return sorted ? drawOrder[position] : position;
+	}
+	
+	/**
+	 * Removes all particles from the pool, keeping its arrays for reuse
+	 */
+	public void clear() {
+		count = 0;
+		sorted = false;
+	}
+	
+	public int getCount() { return count; }
+	
+	public boolean isEmpty() { return count == 0; }
+	
+	public int getNumberOfAtlasRows() { return numberOfAtlasRows; }
+	
+	public float getPositionX(int i) { return positionX[i]; }
+	
+	public float getPositionY(int i) { return positionY[i]; }
+	
+	public float getPositionZ(int i) { return positionZ[i]; }
+	
+	public float getRotation(int i) { return rotation[i]; }
+	
+	public float getScale(int i) { return scale[i]; }
+	
+	public float getDistanceFromCamera(int i) { return distanceFromCamera[i]; }
+	
+	public float getTextureBlend(int i) { return textureBlend[i]; }
+	
+	public int getTextureIndex1(int i) { return textureIndex1[i]; }
+	
+	public int getTextureIndex2(int i) { return textureIndex2[i]; }
+	
+	/**
+	 * Updates a range of particles, splitting it in half between the threads of the common {@link ForkJoinPool} until
+	 * each range is small enough
+	 */
+	private class UpdateTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final int from, to;
+		private final float delta, cameraX, cameraY, cameraZ;
+		
+		private UpdateTask(int from, int to, float delta, float cameraX, float cameraY, float cameraZ) {
+			this.from = from;
+			this.to = to;
+			this.delta = delta;
+			this.cameraX = cameraX;
+			this.cameraY = cameraY;
+			this.cameraZ = cameraZ;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > PARTICLES_PER_TASK) {
+				int middle = (from + to) >>> 1;
+				
+				invokeAll(new UpdateTask(from, middle, delta, cameraX, cameraY, cameraZ),
+						  new UpdateTask(middle, to, delta, cameraX, cameraY, cameraZ));
+			} else {
+				update(from, to, delta, cameraX, cameraY, cameraZ);
+			}
+		}
+	}
+}
@@ -38,6 +38,10 @@ public class ParticleTexture {
 		return textureID;
 	}
 	
+	public void setTextureID(int textureID) {
+		this.textureID = textureID;
+	}
+	
 	public int getNumberOfAtlasRows() {
 		return numberOfAtlasRows;
 	}
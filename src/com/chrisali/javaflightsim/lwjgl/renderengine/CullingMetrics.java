@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.renderengine;
+
+/**
+ * Counts of the entities and terrains submitted for rendering and culled by {@link ScenePreparer} during the last frame,
+ * along with the time spent culling and submitting them
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class CullingMetrics {
+	private int entitiesSubmitted;
+	private int entitiesCulled;
+	private int terrainsSubmitted;
+	private int terrainsCulled;
+	private long cullingNanos;
+	
+	void reset() {
+		entitiesSubmitted = 0;
+		entitiesCulled = 0;
+		terrainsSubmitted = 0;
+		terrainsCulled = 0;
+		cullingNanos = 0;
+	}
+	
+	void addEntities(int submitted, int culled) {
+		entitiesSubmitted += submitted;
+		entitiesCulled += culled;
+	}
+	
+	void addTerrain(boolean submitted) {
+		if (submitted)
+			terrainsSubmitted++;
+		else
+			terrainsCulled++;
+	}
+	
+	void setCullingNanos(long cullingNanos) {
+		this.cullingNanos = cullingNanos;
+	}
+
+	public int getEntitiesSubmitted() {
+		return entitiesSubmitted;
+	}
+
+	public int getEntitiesCulled() {
+		return entitiesCulled;
+	}
+
+	public int getTerrainsSubmitted() {
+		return terrainsSubmitted;
+	}
+
+	public int getTerrainsCulled() {
+		return terrainsCulled;
+	}
+
+	/**
+	 * @return time spent culling entities and terrains, and submitting the visible ones for rendering [ns]
+	 */
+	public long getCullingNanos() {
+		return cullingNanos;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("Entities: %d submitted, %d culled; Terrains: %d submitted, %d culled; Culling time: %.3f ms", 
+							 entitiesSubmitted, entitiesCulled, terrainsSubmitted, terrainsCulled, cullingNanos / 1e6);
+	}
+}
@@ -19,50 +19,152 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.lwjgl.renderengine;
 
+import java.nio.FloatBuffer;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import org.lwjgl.BufferUtils;
 import org.lwjgl.util.vector.Matrix4f;
 
 import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL15.*;
 import static org.lwjgl.opengl.GL20.*;
 import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL31.*;
 
 import com.chrisali.javaflightsim.lwjgl.entities.Entity;
+import com.chrisali.javaflightsim.lwjgl.loader.Loader;
 import com.chrisali.javaflightsim.lwjgl.models.RawModel;
 import com.chrisali.javaflightsim.lwjgl.models.TexturedModel;
+import com.chrisali.javaflightsim.lwjgl.shaders.InstancedStaticShader;
 import com.chrisali.javaflightsim.lwjgl.shaders.StaticShader;
 import com.chrisali.javaflightsim.lwjgl.textures.ModelTexture;
 import com.chrisali.javaflightsim.lwjgl.utilities.RenderingUtilities;
 
 public class EntityRenderer {
 	
+	private static final int INITIAL_INSTANCES = 1024;
+	
 	private StaticShader shader;
+	private InstancedStaticShader instancedShader;
+	
+	private Loader loader;
+	private int instanceVbo;
+	private FloatBuffer instanceBuffer = BufferUtils.createFloatBuffer(INITIAL_INSTANCES * InstanceBatch.INSTANCE_DATA_LENGTH);
 	
-	public EntityRenderer(StaticShader shader, Matrix4f projectionMatrix) {
+	// VAOs of models whose per-instance attributes have been pointed at instanceVbo
+	private Set<Integer> instancedVaos = new HashSet<>();
+	
+	public EntityRenderer(StaticShader shader, InstancedStaticShader instancedShader, Loader loader, Matrix4f projectionMatrix) {
 		this.shader = shader;
+		this.instancedShader = instancedShader;
+		this.loader = loader;
+		this.instanceVbo = loader.createEmptyVBO(INITIAL_INSTANCES * InstanceBatch.INSTANCE_DATA_LENGTH);
 		
 		shader.start();
 		shader.loadProjectionMatrix(projectionMatrix);
 		shader.stop();
+		
+		instancedShader.start();
+		instancedShader.loadProjectionMatrix(projectionMatrix);
+		instancedShader.stop();
 	}
 	
+	/**
+	 * Renders entities one at a time, calculating each one's transformation matrix from its current position, rotation 
+	 * and scale. Entities whose models have not been loaded yet, or failed to load, are skipped
+	 * 
+	 * @param entities
+	 */
 	public void render(Map<TexturedModel, List<Entity>> entities) {
-		for (TexturedModel model : entities.keySet()) {
-			prepareTexturedModel(model);
-			List<Entity> batch = entities.get(model);
+		for (Map.Entry<TexturedModel, List<Entity>> entry : entities.entrySet()) {
+			TexturedModel model = entry.getKey();
+			RawModel rawModel = model.getRawModel();
 			
-			for (Entity entity : batch) {
+			if (rawModel == null)
+				continue;
+			
+			prepareTexturedModel(shader, model);
+			
+			for (Entity entity : entry.getValue()) {
 				prepareInstance(entity);
-				glDrawElements(GL_TRIANGLES, model.getRawModel().getVertexCount(), GL_UNSIGNED_INT, 0);
+				glDrawElements(GL_TRIANGLES, rawModel.getVertexCount(), GL_UNSIGNED_INT, 0);
 			}
 			
 			unbindTexturedModel();
 		}
 	}
 	
-	private void prepareTexturedModel(TexturedModel model) {
+	/**
+	 * Renders all instances in each batch with a single instanced draw call, using the instance data precomputed 
+	 * in each {@link InstanceBatch}. Batches whose models have not been loaded yet are skipped
+	 * 
+	 * @param batches
+	 */
+	public void renderInstanced(Map<TexturedModel, InstanceBatch> batches) {
+		for (Map.Entry<TexturedModel, InstanceBatch> entry : batches.entrySet()) {
+			TexturedModel model = entry.getKey();
+			InstanceBatch batch = entry.getValue();
+			RawModel rawModel = model.getRawModel();
+			
+			if (batch.getInstanceCount() == 0 || rawModel == null)
+				continue;
+			
+			instanceBuffer = uploadInstances(loader, instanceVbo, batch, instanceBuffer);
+			
+			if (instancedVaos.add(rawModel.getVaoID()))
+				addInstancedAttributes(rawModel.getVaoID());
+			
+			prepareTexturedModel(instancedShader, model);
+			enableInstancedAttributes(true);
+			
+			glDrawElementsInstanced(GL_TRIANGLES, rawModel.getVertexCount(), GL_UNSIGNED_INT, 0, batch.getInstanceCount());
+			
+			enableInstancedAttributes(false);
+			unbindTexturedModel();
+		}
+	}
+	
+	/**
+	 * Uploads a batch's instance data to an instance VBO through the buffer specified, which is replaced first by a 
+	 * larger one if the batch does not fit in it. No OpenGL calls are made other than through the {@link Loader}
+	 * 
+	 * @param loader
+	 * @param instanceVbo
+	 * @param batch
+	 * @param instanceBuffer
+	 * @return buffer to upload the next batch through
+	 */
+	public static FloatBuffer uploadInstances(Loader loader, int instanceVbo, InstanceBatch batch, FloatBuffer instanceBuffer) {
+		if (instanceBuffer.capacity() < batch.getFloatCount())
+			instanceBuffer = BufferUtils.createFloatBuffer(Math.max(batch.getFloatCount(), instanceBuffer.capacity() * 2));
+		
+		loader.updateVBO(instanceVbo, batch.getData(), batch.getFloatCount(), instanceBuffer);
+		
+		return instanceBuffer;
+	}
+	
+	private void addInstancedAttributes(int vao) {
+		for (int column = 0; column < 4; column++)
+			loader.addInstancedAttribute(vao, instanceVbo, InstancedStaticShader.TRANSFORMATION_ATTRIBUTE + column, 4, 
+										 InstanceBatch.INSTANCE_DATA_LENGTH, column * 4);
+		
+		loader.addInstancedAttribute(vao, instanceVbo, InstancedStaticShader.TEXTURE_INDEX_ATTRIBUTE, 1, 
+									 InstanceBatch.INSTANCE_DATA_LENGTH, 16);
+	}
+	
+	private void enableInstancedAttributes(boolean enable) {
+		for (int attribute = InstancedStaticShader.TRANSFORMATION_ATTRIBUTE; attribute <= InstancedStaticShader.TEXTURE_INDEX_ATTRIBUTE; attribute++) {
+			if (enable)
+				glEnableVertexAttribArray(attribute);
+			else
+				glDisableVertexAttribArray(attribute);
+		}
+	}
+	
+	private void prepareTexturedModel(StaticShader shader, TexturedModel model) {
 		RawModel rawModel = model.getRawModel();
 		
 		glBindVertexArray(rawModel.getVaoID());
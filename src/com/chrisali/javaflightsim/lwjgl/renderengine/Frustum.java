@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.renderengine;
+
+import org.lwjgl.util.vector.Matrix4f;
+
+/**
+ * The six planes bounding the volume visible to the camera, extracted from the combined projection and view matrices,
+ * used to test whether spheres and boxes in world coordinates can be seen. No OpenGL calls are made, so culling can be
+ * tested without an OpenGL context
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class Frustum {
+	
+	public static final int OUTSIDE = 0;
+	public static final int INTERSECTING = 1;
+	public static final int INSIDE = 2;
+	
+	private static final int PLANES = 6;
+	
+	// (a, b, c, d) of each plane, normalized and facing into the frustum; a point is inside a plane if ax + by + cz + d >= 0
+	private final float[] planes = new float[PLANES * 4];
+	
+	private final Matrix4f clipMatrix = new Matrix4f();
+	
+	/**
+	 * Extracts the frustum's planes from the rows of the product of the projection and view matrices
+	 * 
+	 * @param projectionMatrix
+	 * @param viewMatrix
+	 */
+	public void update(Matrix4f projectionMatrix, Matrix4f viewMatrix) {
+		Matrix4f m = Matrix4f.mul(projectionMatrix, viewMatrix, clipMatrix);
+		
+		setPlane(0, m.m03 + m.m00, m.m13 + m.m10, m.m23 + m.m20, m.m33 + m.m30); // Left
+		setPlane(1, m.m03 - m.m00, m.m13 - m.m10, m.m23 - m.m20, m.m33 - m.m30); // Right
+		setPlane(2, m.m03 + m.m01, m.m13 + m.m11, m.m23 + m.m21, m.m33 + m.m31); // Bottom
+		setPlane(3, m.m03 - m.m01, m.m13 - m.m11, m.m23 - m.m21, m.m33 - m.m31); // Top
+		setPlane(4, m.m03 + m.m02, m.m13 + m.m12, m.m23 + m.m22, m.m33 + m.m32); // Near
+		setPlane(5, m.m03 - m.m02, m.m13 - m.m12, m.m23 - m.m22, m.m33 - m.m32); // Far
+	}
+	
+	private void setPlane(int plane, float a, float b, float c, float d) {
+		float length = (float) Math.sqrt(a * a + b * b + c * c);
+		
+		planes[plane * 4]     = a / length;
+		planes[plane * 4 + 1] = b / length;
+		planes[plane * 4 + 2] = c / length;
+		planes[plane * 4 + 3] = d / length;
+	}
+	
+	/**
+	 * @param x
+	 * @param y
+	 * @param z
+	 * @param radius
+	 * @return if any part of the sphere may be inside of the frustum
+	 */
+	public boolean intersectsSphere(float x, float y, float z, float radius) {
+		for (int i = 0; i < PLANES * 4; i += 4) {
+			if (planes[i] * x + planes[i+1] * y + planes[i+2] * z + planes[i+3] < -radius)
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Classifies an axis aligned box by testing, for each plane, the corner farthest along the plane's normal (if it is
+	 * outside, the whole box is) and the corner farthest against it (if it is outside, the box straddles the plane)
+	 * 
+	 * @param minX
+	 * @param minY
+	 * @param minZ
+	 * @param maxX
+	 * @param maxY
+	 * @param maxZ
+	 * @return {@link Frustum#OUTSIDE}, {@link Frustum#INTERSECTING} or {@link Frustum#INSIDE}
+	 */
+	public int classifyBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+		int result = INSIDE;
+		
+		for (int i = 0; i < PLANES * 4; i += 4) {
+			float a = planes[i], b = planes[i+1], c = planes[i+2], d = planes[i+3];
+			
+			float farthest = a * (a >= 0 ? maxX : minX) + b * (b >= 0 ? maxY : minY) + c * (c >= 0 ? maxZ : minZ) + d;
+			if (farthest < 0)
+				return OUTSIDE;
+			
+			float nearest = a * (a >= 0 ? minX : maxX) + b * (b >= 0 ? minY : maxY) + c * (c >= 0 ? minZ : maxZ) + d;
+			if (nearest < 0)
+				result = INTERSECTING;
+		}
+		
+		return result;
+	}
+}
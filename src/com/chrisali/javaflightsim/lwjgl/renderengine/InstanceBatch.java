@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.renderengine;
+
+import java.util.Arrays;
+
+import org.lwjgl.util.vector.Matrix4f;
+import org.lwjgl.util.vector.Vector3f;
+
+import com.chrisali.javaflightsim.lwjgl.entities.Entity;
+import com.chrisali.javaflightsim.lwjgl.utilities.RenderingUtilities;
+
+/**
+ * Packed per-instance data (transformation matrix in column major order followed by texture atlas index) of all 
+ * entities sharing a {@link com.chrisali.javaflightsim.lwjgl.models.TexturedModel} that are to be drawn with a single 
+ * instanced draw call. Its array grows as needed and is reused from frame to frame. No OpenGL calls are made, so batches
+ * can be built without an OpenGL context
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class InstanceBatch {
+	
+	public static final int INSTANCE_DATA_LENGTH = 17;
+	
+	private static final int INITIAL_INSTANCES = 64;
+	
+	private float[] data = new float[INITIAL_INSTANCES * INSTANCE_DATA_LENGTH];
+	private int instanceCount = 0;
+	
+	/**
+	 * Writes an entity's transformation matrix and texture atlas index into an array, in the order expected by 
+	 * the instanced entity shader
+	 * 
+	 * @param entity
+	 * @param destination
+	 * @param offset index in destination to write the first float to
+	 */
+	public static void storeInstanceData(Entity entity, float[] destination, int offset) {
+		storeInstanceData(entity.getPosition(), entity.getRotX(), entity.getRotY(), entity.getRotZ(), entity.getScale(), 
+						  entity.getTextureIndex(), destination, offset);
+	}
+	
+	/**
+	 * Writes the transformation matrix and texture atlas index of an instance that is not backed by an {@link Entity} 
+	 * into an array, in the order expected by the instanced entity shader
+	 * 
+	 * @param position
+	 * @param rotX
+	 * @param rotY
+	 * @param rotZ
+	 * @param scale
+	 * @param textureIndex
+	 * @param destination
+	 * @param offset index in destination to write the first float to
+	 */
+	public static void storeInstanceData(Vector3f position, float rotX, float rotY, float rotZ, float scale, int textureIndex,
+										 float[] destination, int offset) {
+		Matrix4f matrix = RenderingUtilities.createTransformationMatrix(position, rotX, rotY, rotZ, scale);
+		destination[offset]      = matrix.m00;
+		destination[offset + 1]  = matrix.m01;
+		destination[offset + 2]  = matrix.m02;
+		destination[offset + 3]  = matrix.m03;
+		destination[offset + 4]  = matrix.m10;
+		destination[offset + 5]  = matrix.m11;
+		destination[offset + 6]  = matrix.m12;
+		destination[offset + 7]  = matrix.m13;
+		destination[offset + 8]  = matrix.m20;
+		destination[offset + 9]  = matrix.m21;
+		destination[offset + 10] = matrix.m22;
+		destination[offset + 11] = matrix.m23;
+		destination[offset + 12] = matrix.m30;
+		destination[offset + 13] = matrix.m31;
+		destination[offset + 14] = matrix.m32;
+		destination[offset + 15] = matrix.m33;
+		destination[offset + 16] = textureIndex;
+	}
+	
+	/**
+	 * Appends one instance's data, previously written by {@link InstanceBatch#storeInstanceData(Entity, float[], int)}, 
+	 * to this batch 
+	 * 
+	 * @param source
+	 * @param offset index in source of the instance's first float
+	 */
+	public void add(float[] source, int offset) {
+		int end = (instanceCount + 1) * INSTANCE_DATA_LENGTH;
+		
+		if (end > data.length)
+			data = Arrays.copyOf(data, Math.max(end, data.length * 2));
+		
+		System.arraycopy(source, offset, data, end - INSTANCE_DATA_LENGTH, INSTANCE_DATA_LENGTH);
+		instanceCount++;
+	}
+	
+	/**
+	 * Removes all instances from this batch, keeping its array for reuse
+	 */
+	public void clear() {
+		instanceCount = 0;
+	}
+	
+	/**
+	 * @return packed instance data; only the first {@link InstanceBatch#getFloatCount()} floats are valid
+	 */
+	public float[] getData() {
+		return data;
+	}
+	
+	public int getInstanceCount() {
+		return instanceCount;
+	}
+	
+	public int getFloatCount() {
+		return instanceCount * INSTANCE_DATA_LENGTH;
+	}
+}
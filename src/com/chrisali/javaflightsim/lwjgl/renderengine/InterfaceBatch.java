@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.renderengine;
+
+import java.util.Arrays;
+
+import org.lwjgl.util.vector.Vector2f;
+
+import com.chrisali.javaflightsim.lwjgl.interfaces.ui.AtlasRegion;
+import com.chrisali.javaflightsim.lwjgl.interfaces.ui.InterfaceTexture;
+
+/**
+ * Screen space vertices of {@link InterfaceTexture} quads that are drawn together as two triangles each. Each quad's 
+ * translation, scale and rotation are applied on the CPU, so that any number of quads drawn from the same texture 
+ * (usually a {@link com.chrisali.javaflightsim.lwjgl.interfaces.ui.TextureAtlas}) need only one draw call. Arrays 
+ * grow as needed and are reused from frame to frame. No OpenGL calls are made, so batches can be built without an 
+ * OpenGL context
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class InterfaceBatch {
+	
+	public static final int VERTICES_PER_QUAD = 6;
+	
+	public static final int FLOATS_PER_QUAD = VERTICES_PER_QUAD * 2;
+	
+	private static final int INITIAL_QUADS = 32;
+	
+	// Corners of the unit quad in the order of its two triangles; matches the quad previously drawn as a triangle strip
+	private static final float[] CORNERS_X = {-1, -1,  1,  1, -1,  1};
+	private static final float[] CORNERS_Y = { 1, -1,  1,  1, -1, -1};
+	
+	private float[] positions = new float[INITIAL_QUADS * FLOATS_PER_QUAD];
+	private float[] textureCoords = new float[INITIAL_QUADS * FLOATS_PER_QUAD];
+	private int[] textures = new int[INITIAL_QUADS];
+	private int quadCount = 0;
+	
+	/**
+	 * Appends a quad for an {@link InterfaceTexture} to this batch, transformed the same way as by 
+	 * {@link com.chrisali.javaflightsim.lwjgl.utilities.RenderingUtilities#createTransformationMatrix(Vector2f, float, Vector2f)}
+	 * 
+	 * @param interfaceTexture
+	 * @param aspectRatio aspect ratio of the display
+	 */
+	public void add(InterfaceTexture interfaceTexture, float aspectRatio) {
+		if (quadCount == textures.length) {
+			positions = Arrays.copyOf(positions, positions.length * 2);
+			textureCoords = Arrays.copyOf(textureCoords, textureCoords.length * 2);
+			textures = Arrays.copyOf(textures, textures.length * 2);
+		}
+		
+		Vector2f position = interfaceTexture.getPosition();
+		Vector2f scale = interfaceTexture.getScale();
+		AtlasRegion region = interfaceTexture.getRegion();
+		
+		double radians = Math.toRadians(interfaceTexture.getRotation());
+		float cos = (float) Math.cos(radians);
+		float sin = (float) Math.sin(radians);
+		float scaleX = scale.x;
+		float scaleY = scale.y * aspectRatio;
+		
+		int offset = quadCount * FLOATS_PER_QUAD;
+		
+		for (int i = 0; i < VERTICES_PER_QUAD; i++) {
+			float x = CORNERS_X[i], y = CORNERS_Y[i];
+			
+			positions[offset]     = position.x + scaleX * (x * cos - y * sin);
+			positions[offset + 1] = position.y + scaleY * (x * sin + y * cos);
+			
+			// Top left of the quad samples the top left of the region
+			textureCoords[offset]     = (x < 0) ? region.getU0() : region.getU1();
+			textureCoords[offset + 1] = (y > 0) ? region.getV0() : region.getV1();
+			
+			offset += 2;
+		}
+		
+		textures[quadCount++] = interfaceTexture.getTexture();
+	}
+	
+	/**
+	 * Empties this batch without releasing its arrays
+	 */
+	public void clear() {
+		quadCount = 0;
+	}
+	
+	/**
+	 * @return screen space x and y position of each vertex in the batch
+	 */
+	public float[] getPositions() { return positions; }
+	
+	/**
+	 * @return texture coordinates of each vertex in the batch
+	 */
+	public float[] getTextureCoords() { return textureCoords; }
+	
+	/**
+	 * @param quad
+	 * @return OpenGL ID of the texture that a quad is drawn from
+	 */
+	public int getTexture(int quad) { return textures[quad]; }
+	
+	public int getQuadCount() { return quadCount; }
+	
+	/**
+	 * @return number of floats of position or texture coordinate data in the batch
+	 */
+	public int getFloatCount() { return quadCount * FLOATS_PER_QUAD; }
+}
@@ -19,10 +19,11 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.lwjgl.renderengine;
 
+import java.nio.FloatBuffer;
 import java.util.List;
 import java.util.Map;
 
-import org.lwjgl.util.vector.Matrix4f;
+import org.lwjgl.BufferUtils;
 
 import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL15.*;
@@ -32,56 +33,124 @@ import static org.lwjgl.opengl.GL30.*;
 import com.chrisali.javaflightsim.lwjgl.interfaces.gauges.InstrumentPanel;
 import com.chrisali.javaflightsim.lwjgl.interfaces.ui.InterfaceTexture;
 import com.chrisali.javaflightsim.lwjgl.loader.Loader;
-import com.chrisali.javaflightsim.lwjgl.models.RawModel;
 import com.chrisali.javaflightsim.lwjgl.shaders.InterfaceShader;
-import com.chrisali.javaflightsim.lwjgl.utilities.RenderingUtilities;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
 
+/**
+ * Renders {@link InterfaceTexture} objects such as the instrument panel and its gauges. All quads are transformed on the
+ * CPU into a single {@link InterfaceBatch} that is uploaded once per frame, and consecutive quads sharing a texture 
+ * are drawn together; textures packed into one {@link com.chrisali.javaflightsim.lwjgl.interfaces.ui.TextureAtlas} 
+ * are therefore drawn with a single texture bind and draw call
+ * 
+ * @author Christopher Ali
+ *
+ */
 public class InterfaceRenderer {
 	
-	private final RawModel quad;
+	private final Loader loader;
+	private final int vao;
+	private final int positionsVbo;
+	private final int textureCoordsVbo;
 	private InterfaceShader shader;
 	
+	private InterfaceBatch batch = new InterfaceBatch();
+	private FloatBuffer buffer;
+	
 	public InterfaceRenderer(Loader loader) {
-		float[] positions = {-1, 1, -1, -1, 1, 1, 1, -1};
-		quad = loader.loadToVAO(positions);
+		this.loader = loader;
+		
+		int[] ids = loader.loadToDynamicVAO(2, 2);
+		vao = ids[0];
+		positionsVbo = ids[1];
+		textureCoordsVbo = ids[2];
+		
 		shader = new InterfaceShader();
 	}
 	
 	public void render(SimulationConfiguration configuration, Map<String, List<InterfaceTexture>> interfaceTextures) {
+		batchTextures(batch, configuration, interfaceTextures);
+		
+		if (batch.getQuadCount() == 0)
+			return;
+		
+		buffer = uploadBatch(loader, batch, positionsVbo, textureCoordsVbo, buffer);
+		
 		shader.start();
 		
-		glBindVertexArray(quad.getVaoID());
+		glBindVertexArray(vao);
 		glEnableVertexAttribArray(0);
+		glEnableVertexAttribArray(1);
 		glEnable(GL_BLEND);
 		glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
 		glDisable(GL_DEPTH_TEST);
+		glActiveTexture(GL_TEXTURE0);
 		
-		for (Map.Entry<String, List<InterfaceTexture>> entry : interfaceTextures.entrySet()) {
-			if (!configuration.getCameraConfiguration().isShowPanel() && entry.getKey().matches(InstrumentPanel.class.getSimpleName()))
+		int first = 0;
+		for (int quad = 1; quad <= batch.getQuadCount(); quad++) {
+			if (quad < batch.getQuadCount() && batch.getTexture(quad) == batch.getTexture(first))
 				continue;
 			
-			for (InterfaceTexture interfaceTexture : entry.getValue()) {
-				glActiveTexture(GL_TEXTURE0);
-				glBindTexture(GL_TEXTURE_2D, interfaceTexture.getTexture());
-				
-				Matrix4f matrix = RenderingUtilities.createTransformationMatrix(interfaceTexture.getPosition(),
-						interfaceTexture.getRotation(),
-						interfaceTexture.getScale());
-				shader.loadTransformation(matrix);
-				
-				glDrawArrays(GL_TRIANGLE_STRIP, 0, quad.getVertexCount());
-			}		
+			glBindTexture(GL_TEXTURE_2D, batch.getTexture(first));
+			glDrawArrays(GL_TRIANGLES, first * InterfaceBatch.VERTICES_PER_QUAD, (quad - first) * InterfaceBatch.VERTICES_PER_QUAD);
+			
+			first = quad;
 		}
 		
 		glEnable(GL_DEPTH_TEST);
 		glDisable(GL_BLEND);
 		glDisableVertexAttribArray(0);
+		glDisableVertexAttribArray(1);
 		glBindVertexArray(0);
 		
 		shader.stop();
 	}
 	
+	/**
+	 * Clears the batch and adds to it a quad for each interface texture to be drawn, skipping the instrument panel if 
+	 * it is hidden
+	 * 
+	 * @param batch
+	 * @param configuration
+	 * @param interfaceTextures
+	 */
+	public static void batchTextures(InterfaceBatch batch, SimulationConfiguration configuration, Map<String, List<InterfaceTexture>> interfaceTextures) {
+		batch.clear();
+		float aspectRatio = DisplayManager.getAspectRatio();
+		
+		for (Map.Entry<String, List<InterfaceTexture>> entry : interfaceTextures.entrySet()) {
+			if (!configuration.getCameraConfiguration().isShowPanel() && entry.getKey().matches(InstrumentPanel.class.getSimpleName()))
+				continue;
+			
+			// Textures not yet loaded have no image to draw
+			for (InterfaceTexture interfaceTexture : entry.getValue()) {
+				if (interfaceTexture.getTexture() != 0)
+					batch.add(interfaceTexture, aspectRatio);
+			}
+		}
+	}
+	
+	/**
+	 * Uploads the positions and texture coordinates of a batch's quads through the buffer specified, which is replaced
+	 * first by a larger one if it is null or the batch does not fit in it. No OpenGL calls are made other than through 
+	 * the {@link Loader}
+	 * 
+	 * @param loader
+	 * @param batch
+	 * @param positionsVbo
+	 * @param textureCoordsVbo
+	 * @param buffer
+	 * @return buffer to upload the next batch through
+	 */
+	public static FloatBuffer uploadBatch(Loader loader, InterfaceBatch batch, int positionsVbo, int textureCoordsVbo, FloatBuffer buffer) {
+		if (buffer == null || buffer.capacity() < batch.getFloatCount())
+			buffer = BufferUtils.createFloatBuffer(batch.getPositions().length);
+		
+		loader.updateVBO(positionsVbo, batch.getPositions(), batch.getFloatCount(), buffer);
+		loader.updateVBO(textureCoordsVbo, batch.getTextureCoords(), batch.getFloatCount(), buffer);
+		
+		return buffer;
+	}
+	
 	public void cleanUp() {
 		shader.cleanUp();
 	}
@@ -19,12 +19,7 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.lwjgl.renderengine;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
-import java.util.TreeSet;
 
 import org.lwjgl.util.vector.Matrix4f;
 import org.lwjgl.util.vector.Vector3f;
@@ -33,13 +28,14 @@ import org.lwjgl.util.vector.Vector4f;
 import static org.lwjgl.opengl.GL15.*;
 
 import com.chrisali.javaflightsim.lwjgl.entities.Camera;
-import com.chrisali.javaflightsim.lwjgl.entities.Entity;
 import com.chrisali.javaflightsim.lwjgl.entities.EntityCollections;
 import com.chrisali.javaflightsim.lwjgl.entities.Light;
-import com.chrisali.javaflightsim.lwjgl.models.TexturedModel;
+import com.chrisali.javaflightsim.lwjgl.loader.Loader;
+import com.chrisali.javaflightsim.lwjgl.shaders.InstancedStaticShader;
 import com.chrisali.javaflightsim.lwjgl.shaders.StaticShader;
 import com.chrisali.javaflightsim.lwjgl.shaders.TerrainShader;
-import com.chrisali.javaflightsim.lwjgl.terrain.Terrain;
+import com.chrisali.javaflightsim.lwjgl.terrain.TerrainMap;
+import com.chrisali.javaflightsim.lwjgl.utilities.RenderingUtilities;
 
 public class MasterRenderer {
 	private static float fov = 85;
@@ -55,23 +51,29 @@ public class MasterRenderer {
 	
 	private static float drawDistance = 4800;
 	
+	// Largest screen space error allowed when selecting the level of detail of each terrain [pixels]
+	private static float terrainPixelError = 2;
+	
 	private StaticShader staticShader = new StaticShader();
+	private InstancedStaticShader instancedShader = new InstancedStaticShader();
 	private TerrainShader terrainShader = new TerrainShader();
 	
 	private EntityRenderer entityRenderer;
-	private Map<TexturedModel, List<Entity>> entityMap = new HashMap<>();
-	
 	private TerrainRenderer terrainRenderer;
-	private TreeSet<Terrain> terrainTree = new TreeSet<>();
+	private TerrainMap terrainMap;
 	
 	private Matrix4f projectionMatrix;
 	
-	public MasterRenderer() {
+	// Culls and batches the scene without making any OpenGL calls
+	private ScenePreparer scenePreparer;
+	
+	public MasterRenderer(Loader loader) {
 		enableCulling();
-		createProjectionMatrix();
+		projectionMatrix = createProjectionMatrix();
 		
-		entityRenderer = new EntityRenderer(staticShader, projectionMatrix);
+		entityRenderer = new EntityRenderer(staticShader, instancedShader, loader, projectionMatrix);
 		terrainRenderer = new TerrainRenderer(terrainShader, projectionMatrix);
+		scenePreparer = new ScenePreparer(projectionMatrix);
 	}
 	
 	public static void enableCulling() {
@@ -85,46 +87,24 @@ public class MasterRenderer {
 	
 	/**
 	 * Takes all entities and terrains, and adds them (if necessary) to entity/terrain maps, and then renders the scene with
-	 * the given lights, camera and clipping plane  
+	 * the given lights, camera and clipping plane. Terrains and entities outside of the camera's view frustum are culled by a
+	 * {@link ScenePreparer} before being submitted for rendering; counts and timing of this are available from 
+	 * {@link MasterRenderer#getCullingMetrics()}
 	 * 
 	 * @param entityCollection
-	 * @param terrainTreeMap
+	 * @param terrainMap
 	 * @param lights
 	 * @param camera
 	 * @param clippingPlane
 	 */
-	public void renderWholeScene(EntityCollections entityCollection, TreeMap<String, Terrain> terrainTreeMap, List<Light> lights, Camera camera, Vector4f clippingPlane) {
-		// Process miscellaneous entities from entityCollention only if they are set to be rendered
-		for(Entity entity : entityCollection.getStaticEntities()) {
-			if (!entity.isRender())
-				continue;
-			
-			processEntity(entity);
-		}
+	public void renderWholeScene(EntityCollections entityCollection, TerrainMap terrainMap, List<Light> lights, Camera camera, Vector4f clippingPlane) {
+		this.terrainMap = terrainMap;
 		
-		for(Entity entity : entityCollection.getLitEntities()) { 
-			if (!entity.isRender())
-				continue;
-			
-			processEntity(entity);
-		}
-		
-		this.terrainTree = new TreeSet<>(terrainTreeMap.values());
-		
-		// Process entities tied to each terrain only if they are part of a terrain within the draw distance
-		for (Terrain terrain : terrainTree) {
-			if (terrain.getDistanceFromOwnship() < drawDistance) {
-				for (Entity entity : terrain.getStaticEntities())
-					processEntity(entity);
-				
-				for (Entity entity : terrain.getLitEntities())
-					processEntity(entity);
-			}
-		}
+		scenePreparer.prepare(entityCollection, terrainMap, camera);
 		
 		render(lights, camera, clippingPlane);
 	}
-
+	
 	private void render(List<Light> lights, Camera camera, Vector4f clippingPlane) {
 		glEnable(GL_DEPTH_TEST);
 		glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
@@ -136,58 +116,53 @@ public class MasterRenderer {
 		staticShader.loadFog(fogDensity, fogGradient);
 		staticShader.loadLights(lights);
 		staticShader.loadViewMatrix(camera);
-		entityRenderer.render(entityMap);
+		entityRenderer.render(scenePreparer.getRenderQueue().getEntityGroups());
 		staticShader.stop();
 		
+		instancedShader.start();
+		instancedShader.loadClippingPlane(clippingPlane);
+		instancedShader.loadSkyColor(skyRed, skyGreen, skyBlue);
+		instancedShader.loadFog(fogDensity, fogGradient);
+		instancedShader.loadLights(lights);
+		instancedShader.loadViewMatrix(camera);
+		entityRenderer.renderInstanced(scenePreparer.getInstanceBatches());
+		instancedShader.stop();
+		
 		terrainShader.start();
 		terrainShader.loadClippingPlane(clippingPlane);
 		terrainShader.loadSkyColor(skyRed, skyGreen, skyBlue);
 		terrainShader.loadFog(fogDensity, fogGradient);
 		terrainShader.loadLights(lights);
 		terrainShader.loadViewMatrix(camera);
-		terrainRenderer.render(terrainTree);
+		terrainRenderer.render(scenePreparer.getRenderQueue().getTerrains(), terrainMap);
 		terrainShader.stop();
 		
-		entityMap.clear();
-		terrainTree.clear();
-	}
-	
-	private void createProjectionMatrix() {
-		float aspectRatio = DisplayManager.getAspectRatio();
-        float y_scale = (float) ((1f / Math.tan(Math.toRadians(fov/2f))) * aspectRatio);
-        float x_scale = y_scale / aspectRatio;
-        float frustum_length = farPlane - nearPlane;
-        
-        projectionMatrix = new Matrix4f();
-        projectionMatrix.m00 = x_scale;
-        projectionMatrix.m11 = y_scale;
-        projectionMatrix.m22 = -((farPlane + nearPlane) / frustum_length);
-        projectionMatrix.m23 = -1;
-        projectionMatrix.m32 = -((2 * nearPlane * farPlane) / frustum_length);
-        projectionMatrix.m33 = 0;
+		scenePreparer.clearBatches();
 	}
-
-	private void processEntity(Entity entity) {
-		TexturedModel entityModel = entity.getModel();
-		List<Entity> batch = entityMap.get(entityModel);
-		
-		if(batch!=null) {
-			batch.add(entity);
-		} else {
-			List<Entity> newBatch = new ArrayList<>();
-			newBatch.add(entity);
-			entityMap.put(entityModel, newBatch);
-		}
+	
+	/**
+	 * @return projection matrix of the current field of view, display aspect ratio and near and far planes
+	 */
+	public static Matrix4f createProjectionMatrix() {
+		return RenderingUtilities.createProjectionMatrix(fov, DisplayManager.getAspectRatio(), nearPlane, farPlane);
 	}
 
 	public void cleanUp() {
 		staticShader.cleanUp();
+		instancedShader.cleanUp();
 		terrainShader.cleanUp();
 	}
 	
 	public Matrix4f getProjectionMatrix() {
 		return projectionMatrix;
 	}
+	
+	/**
+	 * @return counts of entities and terrains culled and submitted during the last call to renderWholeScene
+	 */
+	public CullingMetrics getCullingMetrics() {
+		return scenePreparer.getCullingMetrics();
+	}
 
 	public static Vector3f getSkyColor() {
 		return new Vector3f(skyRed, skyGreen, skyBlue);
@@ -227,6 +202,14 @@ public class MasterRenderer {
 		return fov;
 	}
 
+	public static float getTerrainPixelError() {
+		return terrainPixelError;
+	}
+
+	public static void setTerrainPixelError(float terrainPixelError) {
+		MasterRenderer.terrainPixelError = terrainPixelError;
+	}
+
 	public static float getDrawDistance() {
 		return drawDistance;
 	}
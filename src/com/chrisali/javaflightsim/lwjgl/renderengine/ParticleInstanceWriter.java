@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.renderengine;
+
+import java.nio.FloatBuffer;
+
+import org.lwjgl.util.vector.Matrix4f;
+
+import com.chrisali.javaflightsim.lwjgl.particles.ParticlePool;
+
+/**
+ * Writes the per-instance data of particles (model view matrix, texture atlas offsets and blend factor) that 
+ * {@link ParticleRenderer} draws directly into a {@link FloatBuffer}, without creating any objects. No OpenGL calls are
+ * made, so the writer can be benchmarked without an OpenGL context
+ * 
+ * <p>Each particle's model matrix cancels out the rotation of the view matrix so that the particle always faces the 
+ * camera; as the view matrix's rotation is orthonormal, the upper left 3x3 of the product of the two is simply the 
+ * particle's own rotation about the view axis and scale, and only the translation needs to be transformed by the view 
+ * matrix</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class ParticleInstanceWriter {
+	
+	public static final int INSTANCE_DATA_LENGTH = 21;
+	
+	private ParticleInstanceWriter() {}
+	
+	/**
+	 * Writes the instance data of a pool's particles, in draw order, into a buffer starting at its current position, 
+	 * stopping once maxInstances have been written or the buffer is full
+	 * 
+	 * @param pool
+	 * @param viewMatrix
+	 * @param cameraRoll roll of the camera subtracted from each particle's rotation so that particles do not roll with the camera [deg]
+	 * @param buffer
+	 * @param maxInstances
+	 * @return number of particles written
+	 */
+	public static int write(ParticlePool pool, Matrix4f viewMatrix, float cameraRoll, FloatBuffer buffer, int maxInstances) {
+		int count = Math.min(Math.min(pool.getCount(), maxInstances), buffer.remaining() / INSTANCE_DATA_LENGTH);
+		
+		int rows = pool.getNumberOfAtlasRows();
+		float inverseRows = 1f / rows;
+		
+		for (int i = 0; i < count; i++) {
+			int particle = pool.getDrawIndex(i);
+			
+			float x = pool.getPositionX(particle);
+			float y = pool.getPositionY(particle);
+			float z = pool.getPositionZ(particle);
+			float scale = pool.getScale(particle);
+			
+			double angle = Math.toRadians(pool.getRotation(particle) - cameraRoll);
+			float cos = (float) Math.cos(angle) * scale;
+			float sin = (float) Math.sin(angle) * scale;
+			
+			// Model view matrix, column by column
+			buffer.put(cos).put(sin).put(0).put(0);
+			buffer.put(-sin).put(cos).put(0).put(0);
+			buffer.put(0).put(0).put(scale).put(0);
+			buffer.put(viewMatrix.m00 * x + viewMatrix.m10 * y + viewMatrix.m20 * z + viewMatrix.m30)
+				  .put(viewMatrix.m01 * x + viewMatrix.m11 * y + viewMatrix.m21 * z + viewMatrix.m31)
+				  .put(viewMatrix.m02 * x + viewMatrix.m12 * y + viewMatrix.m22 * z + viewMatrix.m32)
+				  .put(1);
+			
+			int index1 = pool.getTextureIndex1(particle);
+			int index2 = pool.getTextureIndex2(particle);
+			
+			buffer.put((index1 % rows) * inverseRows).put((index1 / rows) * inverseRows);
+			buffer.put((index2 % rows) * inverseRows).put((index2 / rows) * inverseRows);
+			buffer.put(pool.getTextureBlend(particle));
+		}
+		
+		return count;
+	}
+}
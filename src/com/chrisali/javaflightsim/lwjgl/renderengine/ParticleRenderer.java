@@ -20,12 +20,10 @@
 package com.chrisali.javaflightsim.lwjgl.renderengine;
 
 import java.nio.FloatBuffer;
-import java.util.List;
 import java.util.Map;
 
 import org.lwjgl.BufferUtils;
 import org.lwjgl.util.vector.Matrix4f;
-import org.lwjgl.util.vector.Vector3f;
 
 import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL15.*;
@@ -36,7 +34,7 @@ import static org.lwjgl.opengl.GL31.*;
 import com.chrisali.javaflightsim.lwjgl.entities.Camera;
 import com.chrisali.javaflightsim.lwjgl.loader.Loader;
 import com.chrisali.javaflightsim.lwjgl.models.RawModel;
-import com.chrisali.javaflightsim.lwjgl.particles.Particle;
+import com.chrisali.javaflightsim.lwjgl.particles.ParticlePool;
 import com.chrisali.javaflightsim.lwjgl.particles.ParticleTexture;
 import com.chrisali.javaflightsim.lwjgl.shaders.ParticleShader;
 import com.chrisali.javaflightsim.lwjgl.utilities.RenderingUtilities;
@@ -45,16 +43,15 @@ public class ParticleRenderer {
 
 	private static final float[] VERTICES = { -0.5f, 0.5f, -0.5f, -0.5f, 0.5f, 0.5f, 0.5f, -0.5f };
 	private static final int MAX_INSTANCES = 10000;
-	private static final int INSTANCE_DATA_LENGTH = 21;
+	private static final int INSTANCE_DATA_LENGTH = ParticleInstanceWriter.INSTANCE_DATA_LENGTH;
 
-	private static final FloatBuffer buffer = BufferUtils.createFloatBuffer(MAX_INSTANCES * INSTANCE_DATA_LENGTH);
+	private static final FloatBuffer buffer = createInstanceBuffer();
 
 	private RawModel quad;
 	private ParticleShader shader;
 
 	private Loader loader;
 	private int vbo;
-	private int pointer = 0;
 
 	public ParticleRenderer(Loader loader, Matrix4f projectionMatrix) {
 		this.loader = loader;
@@ -74,7 +71,7 @@ public class ParticleRenderer {
 		shader.stop();
 	}
 
-	public void render(Map<ParticleTexture, List<Particle>> particles, Camera camera) {
+	public void render(Map<ParticleTexture, ParticlePool> particles, Camera camera) {
 		Matrix4f viewMatrix = RenderingUtilities.createViewMatrix(camera);
 		prepare();
 		
@@ -85,73 +82,47 @@ public class ParticleRenderer {
 			   		   MasterRenderer.getFogGradient());
 
 		for (ParticleTexture texture : particles.keySet()) {
+			ParticlePool pool = particles.get(texture);
+			
+			if (pool.isEmpty())
+				continue;
+			
 			bindTexture(texture);
-
-			List<Particle> particleList = particles.get(texture);
-			pointer = 0;
-
-			float[] vboData = new float[particleList.size() * INSTANCE_DATA_LENGTH];
-			for (Particle particle : particles.get(texture)) {
-				// Subtracts out the camera roll to prevent clouds/particles rolling with the camera
-				updateModelViewMatrix(particle.getPosition(), particle.getRotation()-camera.getRoll(), particle.getScale(), viewMatrix,
-						vboData);
-				updateTextureCoordinateInfo(particle, vboData);
-			}
-			loader.updateVBO(vbo, vboData, buffer);
-			glDrawArraysInstanced(GL_TRIANGLE_STRIP, 0, quad.getVertexCount(), particleList.size());
+			
+			int count = uploadInstances(loader, vbo, pool, viewMatrix, camera.getRoll(), buffer);
+			glDrawArraysInstanced(GL_TRIANGLE_STRIP, 0, quad.getVertexCount(), count);
 		}
 
 		finishRendering();
 	}
-	
-	private void updateTextureCoordinateInfo(Particle particle, float[] data) {
-		data[pointer++] = particle.getTextureOffset1().x;
-		data[pointer++] = particle.getTextureOffset1().y;
-		data[pointer++] = particle.getTextureOffset2().x;
-		data[pointer++] = particle.getTextureOffset2().y;
-		data[pointer++] = particle.getTextureBlend();
-	}
 
-	private void updateModelViewMatrix(Vector3f position, float rotation, float scale, Matrix4f viewMatrix,
-			float[] vboData) {
-		Matrix4f modelMatrix = new Matrix4f();
-		Matrix4f.translate(position, modelMatrix, modelMatrix);
-
-		// Calculate transpose of upper left 3x3 matrix
-		modelMatrix.m00 = viewMatrix.m00;
-		modelMatrix.m01 = viewMatrix.m10;
-		modelMatrix.m02 = viewMatrix.m20;
-		modelMatrix.m10 = viewMatrix.m01;
-		modelMatrix.m11 = viewMatrix.m11;
-		modelMatrix.m12 = viewMatrix.m21;
-		modelMatrix.m20 = viewMatrix.m02;
-		modelMatrix.m21 = viewMatrix.m12;
-		modelMatrix.m22 = viewMatrix.m22;
-
-		Matrix4f.rotate((float) Math.toRadians(rotation), new Vector3f(0, 0, 1), modelMatrix, modelMatrix);
-		Matrix4f.scale(new Vector3f(scale, scale, scale), modelMatrix, modelMatrix);
-
-		Matrix4f modelViewMatrix = Matrix4f.mul(viewMatrix, modelMatrix, null);
-		storeMatrixData(modelViewMatrix, vboData);
+	/**
+	 * @return buffer large enough to upload the instance data of the most particles drawn in one call
+	 */
+	public static FloatBuffer createInstanceBuffer() {
+		return BufferUtils.createFloatBuffer(MAX_INSTANCES * INSTANCE_DATA_LENGTH);
 	}
-
-	private void storeMatrixData(Matrix4f matrix, float[] vboData) {
-		vboData[pointer++] = matrix.m00;
-		vboData[pointer++] = matrix.m01;
-		vboData[pointer++] = matrix.m02;
-		vboData[pointer++] = matrix.m03;
-		vboData[pointer++] = matrix.m10;
-		vboData[pointer++] = matrix.m11;
-		vboData[pointer++] = matrix.m12;
-		vboData[pointer++] = matrix.m13;
-		vboData[pointer++] = matrix.m20;
-		vboData[pointer++] = matrix.m21;
-		vboData[pointer++] = matrix.m22;
-		vboData[pointer++] = matrix.m23;
-		vboData[pointer++] = matrix.m30;
-		vboData[pointer++] = matrix.m31;
-		vboData[pointer++] = matrix.m32;
-		vboData[pointer++] = matrix.m33;
+	
+	/**
+	 * Writes the instance data of a pool's particles straight into the upload buffer, then orphans and refills the 
+	 * instance VBO with it. No OpenGL calls are made other than through the {@link Loader}
+	 * 
+	 * @param loader
+	 * @param vbo
+	 * @param pool
+	 * @param viewMatrix
+	 * @param roll
+	 * @param buffer buffer created by {@link ParticleRenderer#createInstanceBuffer()}
+	 * @return number of particle instances uploaded
+	 */
+	public static int uploadInstances(Loader loader, int vbo, ParticlePool pool, Matrix4f viewMatrix, float roll, FloatBuffer buffer) {
+		buffer.clear();
+		int count = ParticleInstanceWriter.write(pool, viewMatrix, roll, buffer, MAX_INSTANCES);
+		buffer.flip();
+		
+		loader.updateVBO(vbo, buffer);
+		
+		return count;
 	}
 
 	private void bindTexture(ParticleTexture texture) {
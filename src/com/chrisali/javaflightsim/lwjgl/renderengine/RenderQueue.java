@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.renderengine;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.chrisali.javaflightsim.lwjgl.entities.Entity;
+import com.chrisali.javaflightsim.lwjgl.models.TexturedModel;
+import com.chrisali.javaflightsim.lwjgl.terrain.Terrain;
+
+/**
+ * Entities grouped by {@link TexturedModel} and terrains sorted nearest first that are to be rendered, kept between 
+ * frames rather than rebuilt every frame. Each frame, {@link ScenePreparer} reports the visibility of every candidate 
+ * between {@link RenderQueue#beginFrame()} and {@link RenderQueue#endFrame()}; groups are only modified when an entity 
+ * or terrain is added, removed, or changes visibility, and terrains, already nearly sorted from the last frame, are
+ * re-sorted by insertion sort. No OpenGL calls are made, so the queue can be tested without an OpenGL context
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class RenderQueue {
+	
+	private static class EntitySlot {
+		private int frame;
+		private int index;
+		private List<Entity> group;
+	}
+	
+	private static class TerrainSlot {
+		private int frame;
+		private float distance;
+		private final Terrain terrain;
+		
+		private TerrainSlot(Terrain terrain) {
+			this.terrain = terrain;
+		}
+	}
+	
+	private final Map<TexturedModel, List<Entity>> entityGroups = new HashMap<>();
+	private final Map<Entity, EntitySlot> entitySlots = new IdentityHashMap<>();
+	
+	private final Map<Terrain, TerrainSlot> terrainSlots = new IdentityHashMap<>();
+	private final List<TerrainSlot> sortedTerrains = new ArrayList<>();
+	private final List<Terrain> terrains = new AbstractList<Terrain>() {
+		@Override
+		public Terrain get(int index) { return sortedTerrains.get(index).terrain; }
+
+		@Override
+		public int size() { return sortedTerrains.size(); }
+	};
+	
+	private int frame = 0;
+	private int entitiesUpdated = 0;
+	private int terrainsUpdated = 0;
+	private int changes = 0;
+	
+	/**
+	 * Starts a new frame; every entity and terrain not reported as visible before {@link RenderQueue#endFrame()} is 
+	 * removed from the queue
+	 */
+	public void beginFrame() {
+		frame++;
+		entitiesUpdated = 0;
+		terrainsUpdated = 0;
+		changes = 0;
+	}
+	
+	/**
+	 * Reports whether an entity is to be rendered this frame, adding it to or removing it from its model's group if 
+	 * its visibility has changed since the last frame
+	 * 
+	 * @param entity
+	 * @param visible
+	 */
+	public void updateEntity(Entity entity, boolean visible) {
+		EntitySlot slot = entitySlots.get(entity);
+		
+		if (!visible) {
+			if (slot != null)
+				removeEntity(entity, slot);
+			
+			return;
+		}
+		
+		if (slot == null) {
+			List<Entity> group = entityGroups.get(entity.getModel());
+			
+			if (group == null) {
+				group = new ArrayList<>();
+				entityGroups.put(entity.getModel(), group);
+			}
+			
+			slot = new EntitySlot();
+			slot.group = group;
+			slot.index = group.size();
+			group.add(entity);
+			
+			entitySlots.put(entity, slot);
+			changes++;
+		}
+		
+		slot.frame = frame;
+		entitiesUpdated++;
+	}
+	
+	/**
+	 * Removes an entity from its group by moving the group's last entity into its place
+	 */
+	private void removeEntity(Entity entity, EntitySlot slot) {
+		List<Entity> group = slot.group;
+		Entity last = group.remove(group.size() - 1);
+		
+		if (last != entity) {
+			group.set(slot.index, last);
+			entitySlots.get(last).index = slot.index;
+		}
+		
+		if (group.isEmpty())
+			entityGroups.remove(entity.getModel());
+		
+		entitySlots.remove(entity);
+		changes++;
+	}
+	
+	/**
+	 * Reports whether a terrain is to be rendered this frame, along with its current distance from the viewer, which
+	 * is used to sort terrains nearest first
+	 * 
+	 * @param terrain
+	 * @param distance
+	 * @param visible
+	 */
+	public void updateTerrain(Terrain terrain, float distance, boolean visible) {
+		if (!visible)
+			return;
+		
+		TerrainSlot slot = terrainSlots.get(terrain);
+		
+		if (slot == null) {
+			slot = new TerrainSlot(terrain);
+			terrainSlots.put(terrain, slot);
+			sortedTerrains.add(slot);
+			changes++;
+		}
+		
+		slot.frame = frame;
+		slot.distance = distance;
+		terrainsUpdated++;
+	}
+	
+	/**
+	 * Removes entities and terrains that were not reported as visible this frame, and restores the nearest first 
+	 * order of the terrains
+	 */
+	public void endFrame() {
+		if (entitiesUpdated != entitySlots.size()) {
+			List<Entity> stale = new ArrayList<>();
+			
+			for (Map.Entry<Entity, EntitySlot> entry : entitySlots.entrySet()) {
+				if (entry.getValue().frame != frame)
+					stale.add(entry.getKey());
+			}
+			
+			for (Entity entity : stale)
+				removeEntity(entity, entitySlots.get(entity));
+		}
+		
+		if (terrainsUpdated != sortedTerrains.size()) {
+			int size = sortedTerrains.size();
+			sortedTerrains.removeIf(slot -> slot.frame != frame && terrainSlots.remove(slot.terrain) != null);
+			changes += size - sortedTerrains.size();
+		}
+		
+		// Insertion sort, which runs in linear time when the order has changed little since the last frame
+		for (int i = 1; i < sortedTerrains.size(); i++) {
+			TerrainSlot slot = sortedTerrains.get(i);
+			int j = i - 1;
+			
+			for (; j >= 0 && sortedTerrains.get(j).distance > slot.distance; j--)
+				sortedTerrains.set(j + 1, sortedTerrains.get(j));
+			
+			sortedTerrains.set(j + 1, slot);
+		}
+	}
+	
+	/**
+	 * @return visible entities grouped by model; the map and its lists are modified by the queue and must not be 
+	 * modified elsewhere
+	 */
+	public Map<TexturedModel, List<Entity>> getEntityGroups() {
+		return entityGroups;
+	}
+	
+	/**
+	 * @return read-only view of the visible terrains, nearest first
+	 */
+	public List<Terrain> getTerrains() {
+		return terrains;
+	}
+	
+	/**
+	 * @return number of entities and terrains added to or removed from the queue during the last frame
+	 */
+	public int getChanges() {
+		return changes;
+	}
+}
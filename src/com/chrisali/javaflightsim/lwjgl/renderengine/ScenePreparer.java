@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.renderengine;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.lwjgl.util.vector.Matrix4f;
+import org.lwjgl.util.vector.Vector3f;
+
+import com.chrisali.javaflightsim.lwjgl.entities.Camera;
+import com.chrisali.javaflightsim.lwjgl.entities.Entity;
+import com.chrisali.javaflightsim.lwjgl.entities.EntityCollections;
+import com.chrisali.javaflightsim.lwjgl.entities.EntityQuadtree;
+import com.chrisali.javaflightsim.lwjgl.entities.Forest;
+import com.chrisali.javaflightsim.lwjgl.models.TexturedModel;
+import com.chrisali.javaflightsim.lwjgl.terrain.Terrain;
+import com.chrisali.javaflightsim.lwjgl.terrain.TerrainLODSelector;
+import com.chrisali.javaflightsim.lwjgl.terrain.TerrainMap;
+import com.chrisali.javaflightsim.lwjgl.utilities.RenderingUtilities;
+
+/**
+ * Prepares the scene drawn by {@link MasterRenderer} each frame: culls entities and terrains outside of the camera's
+ * view frustum, selects the level of detail of each terrain, and gathers stationary entities into an 
+ * {@link InstanceBatch} per model. No OpenGL calls are made, so the CPU cost of a frame can be measured without an 
+ * OpenGL context
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class ScenePreparer {
+	
+	// Stationary entities tied to terrains, drawn with one instanced draw call per model; batches are reused between frames
+	private Map<TexturedModel, InstanceBatch> instancedEntityMap = new HashMap<>();
+	
+	// Miscellaneous entities and terrains to render, kept between frames and updated only as their visibility changes
+	private RenderQueue renderQueue = new RenderQueue();
+	
+	private TerrainLODSelector terrainLODSelector = new TerrainLODSelector(MasterRenderer.getTerrainPixelError());
+	
+	private final Matrix4f projectionMatrix;
+	
+	private Frustum frustum = new Frustum();
+	private CullingMetrics cullingMetrics = new CullingMetrics();
+	private EntityQuadtree.InstanceConsumer instanceProcessor = (entity, data, offset) -> processInstance(entity.getModel(), data, offset);
+	private Forest.InstanceConsumer treeProcessor = this::processInstance;
+	
+	/**
+	 * @param projectionMatrix projection matrix the scene is drawn with
+	 */
+	public ScenePreparer(Matrix4f projectionMatrix) {
+		this.projectionMatrix = projectionMatrix;
+	}
+	
+	/**
+	 * Takes all entities and terrains, and adds them (if necessary) to the render queue and instance batches. Terrains 
+	 * and entities outside of the camera's view frustum are culled; counts and timing of this are available from 
+	 * {@link ScenePreparer#getCullingMetrics()}. Batches filled by the previous call should have been drawn and emptied
+	 * with {@link ScenePreparer#clearBatches()} first
+	 * 
+	 * @param entityCollection
+	 * @param terrainMap
+	 * @param camera
+	 */
+	public void prepare(EntityCollections entityCollection, TerrainMap terrainMap, Camera camera) {
+		long cullingStart = System.nanoTime();
+		
+		cullingMetrics.reset();
+		frustum.update(projectionMatrix, RenderingUtilities.createViewMatrix(camera));
+		renderQueue.beginFrame();
+		
+		// Process miscellaneous entities from entityCollention only if they are set to be rendered
+		for(Entity entity : entityCollection.getStaticEntities())
+			processIfVisible(entity);
+		
+		for(Entity entity : entityCollection.getLitEntities())
+			processIfVisible(entity);
+		
+		terrainLODSelector.setMaxPixelError(MasterRenderer.getTerrainPixelError());
+		terrainLODSelector.selectLevels(terrainMap.values(), camera.getPosition(), projectionMatrix.m11 * DisplayManager.getHeight() / 2);
+		
+		// Process terrains and the entities tied to them only if they are within the draw distance and the view frustum
+		for (Terrain terrain : terrainMap.values()) {
+			float distance = terrain.getDistanceFromOwnship();
+			if (distance >= MasterRenderer.getDrawDistance())
+				continue;
+			
+			boolean visible = frustum.classifyBox(terrain.getX(), -Terrain.getMaxHeight(), terrain.getZ(), 
+												  terrain.getX() + Terrain.getSize(), Terrain.getMaxHeight(), terrain.getZ() + Terrain.getSize()) != Frustum.OUTSIDE;
+			cullingMetrics.addTerrain(visible);
+			renderQueue.updateTerrain(terrain, distance, visible);
+			
+			if (!visible)
+				continue;
+			
+			EntityQuadtree entityIndex = terrain.getEntityIndex();
+			int submitted = entityIndex.cull(frustum, instanceProcessor);
+			cullingMetrics.addEntities(submitted, entityIndex.size() - submitted);
+			
+			Forest forest = terrain.getForest();
+			if (forest != null) {
+				submitted = forest.cull(frustum, treeProcessor);
+				cullingMetrics.addEntities(submitted, forest.size() - submitted);
+			}
+		}
+		
+		renderQueue.endFrame();
+		cullingMetrics.setCullingNanos(System.nanoTime() - cullingStart);
+	}
+	
+	private void processIfVisible(Entity entity) {
+		if (!entity.isRender()) {
+			renderQueue.updateEntity(entity, false);
+			return;
+		}
+		
+		float radius = entity.getBoundingRadius();
+		Vector3f position = entity.getPosition();
+		
+		boolean visible = radius < 0 || frustum.intersectsSphere(position.x, position.y, position.z, radius);
+		cullingMetrics.addEntities(visible ? 1 : 0, visible ? 0 : 1);
+		
+		renderQueue.updateEntity(entity, visible);
+	}
+	
+	private void processInstance(TexturedModel entityModel, float[] instanceData, int offset) {
+		InstanceBatch batch = instancedEntityMap.get(entityModel);
+		
+		if (batch == null) {
+			batch = new InstanceBatch();
+			instancedEntityMap.put(entityModel, batch);
+		}
+		
+		batch.add(instanceData, offset);
+	}
+	
+	/**
+	 * Drops batches of models no longer in view, and empties the rest for reuse next frame
+	 */
+	public void clearBatches() {
+		instancedEntityMap.values().removeIf(batch -> batch.getInstanceCount() == 0);
+		for (InstanceBatch batch : instancedEntityMap.values())
+			batch.clear();
+	}
+	
+	/**
+	 * @return instance data of the stationary entities in view, batched by model
+	 */
+	public Map<TexturedModel, InstanceBatch> getInstanceBatches() {
+		return instancedEntityMap;
+	}
+	
+	public RenderQueue getRenderQueue() {
+		return renderQueue;
+	}
+	
+	/**
+	 * @return counts of entities and terrains culled and submitted during the last call to prepare
+	 */
+	public CullingMetrics getCullingMetrics() {
+		return cullingMetrics;
+	}
+}
@@ -19,7 +19,7 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.lwjgl.renderengine;
 
-import java.util.TreeSet;
+import java.util.List;
 
 import org.lwjgl.util.vector.Matrix4f;
 import org.lwjgl.util.vector.Vector3f;
@@ -32,10 +32,16 @@ import static org.lwjgl.opengl.GL30.*;
 import com.chrisali.javaflightsim.lwjgl.models.RawModel;
 import com.chrisali.javaflightsim.lwjgl.shaders.TerrainShader;
 import com.chrisali.javaflightsim.lwjgl.terrain.Terrain;
+import com.chrisali.javaflightsim.lwjgl.terrain.TerrainEdge;
+import com.chrisali.javaflightsim.lwjgl.terrain.TerrainLOD;
+import com.chrisali.javaflightsim.lwjgl.terrain.TerrainLODSelector;
+import com.chrisali.javaflightsim.lwjgl.terrain.TerrainMap;
 import com.chrisali.javaflightsim.lwjgl.textures.TerrainTexturePack;
 import com.chrisali.javaflightsim.lwjgl.utilities.RenderingUtilities;
 
 public class TerrainRenderer {
+	private static final TerrainEdge[] EDGES = TerrainEdge.values();
+	
 	private TerrainShader terrainShader;
 
 	public TerrainRenderer(TerrainShader shader, Matrix4f projectionMatrix) {
@@ -46,13 +52,30 @@ public class TerrainRenderer {
 		terrainShader.stop();
 	}
 	
-	public void render(TreeSet<Terrain> terrainTree) {
-		for(Terrain terrain : terrainTree) {
-			// Render only terrain objects that are within a certain distance of ownship
-			if (terrain.getDistanceFromOwnship() < MasterRenderer.getDrawDistance()) {
+	/**
+	 * Renders each terrain at its selected {@link TerrainLOD} level, drawing the level's interior and the strip along each 
+	 * edge that matches the level of the neighbor sharing it 
+	 * 
+	 * @param terrains
+	 * @param terrainMap
+	 */
+	public void render(List<Terrain> terrains, TerrainMap terrainMap) {
+		for(Terrain terrain : terrains) {
+			// Render only terrain objects that are within a certain distance of ownship, and whose meshes have been uploaded
+			if (terrain.getModel() != null && terrain.getDistanceFromOwnship() < MasterRenderer.getDrawDistance()) {
 				prepareTerrain(terrain);
 				loadModelMatrix(terrain);
-				glDrawElements(GL_TRIANGLES, terrain.getModel().getVertexCount(), GL_UNSIGNED_INT, 0);
+				
+				TerrainLOD lod = terrain.getLOD();
+				int level = terrain.getLODLevel();
+				
+				drawIndices(lod.getInteriorOffset(level), lod.getInteriorCount(level));
+				
+				for (TerrainEdge edge : EDGES) {
+					int edgeLevel = TerrainLODSelector.getEdgeLevel(terrainMap, terrain, edge);
+					drawIndices(lod.getEdgeOffset(level, edge, edgeLevel), lod.getEdgeCount(level, edge, edgeLevel));
+				}
+				
 				unbindTexturedModel();
 				//System.out.printf("%5.0f - %5.0f is %5.0f from ownship\n", terrain.getX(), terrain.getZ(), terrain.getDistanceFromOwnship());
 			}
@@ -61,6 +84,11 @@ public class TerrainRenderer {
 		//System.out.printf("Terrain tree has %d items\n", terrainTree.size());
 	}
 	
+	private void drawIndices(int offset, int count) {
+		if (count > 0)
+			glDrawElements(GL_TRIANGLES, count, GL_UNSIGNED_INT, offset * 4L);
+	}
+	
 	private void prepareTerrain(Terrain terrain) {
 		RawModel rawModel = terrain.getModel();
 		
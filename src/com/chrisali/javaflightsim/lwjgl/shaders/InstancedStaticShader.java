@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.shaders;
+
+/**
+ * Variant of {@link StaticShader} that reads each entity's transformation matrix and texture atlas index from 
+ * per-instance vertex attributes rather than from uniforms, so that all instances of a model can be drawn in one call
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class InstancedStaticShader extends StaticShader {
+	
+	private static final String VERTEX_FILE = SHADER_ROOT_PATH + "instancedStaticVertexShader" + SHADER_EXTENSION;
+	private static final String FRAGMENT_FILE = SHADER_ROOT_PATH + "staticFragmentShader" + SHADER_EXTENSION;
+	
+	// The matrix occupies one attribute per column, from TRANSFORMATION_ATTRIBUTE to TRANSFORMATION_ATTRIBUTE + 3
+	public static final int TRANSFORMATION_ATTRIBUTE = 3;
+	public static final int TEXTURE_INDEX_ATTRIBUTE = 7;
+	
+	public InstancedStaticShader() {
+		super(VERTEX_FILE, FRAGMENT_FILE);
+	}
+	
+	@Override
+	protected void bindAttributes() {
+		super.bindAttributes();
+		super.bindAttribute(TRANSFORMATION_ATTRIBUTE, "transformationMatrix");
+		super.bindAttribute(TEXTURE_INDEX_ATTRIBUTE, "textureIndex");
+	}
+}
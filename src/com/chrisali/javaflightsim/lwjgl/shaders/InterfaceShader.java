@@ -19,30 +19,21 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.lwjgl.shaders;
 
-import org.lwjgl.util.vector.Matrix4f;
-
 public class InterfaceShader extends ShaderProgram {
 	
 	private static final String VERTEX_FILE = SHADER_ROOT_PATH + "interfaceVertexShader" + SHADER_EXTENSION;
 	private static final String FRAGMENT_FILE = SHADER_ROOT_PATH + "interfaceFragmentShader" + SHADER_EXTENSION;
-     
-    private int location_transformationMatrix;
- 
+
     public InterfaceShader() {
         super(VERTEX_FILE, FRAGMENT_FILE);
     }
      
-    public void loadTransformation(Matrix4f matrix){
-        super.loadMatrix(location_transformationMatrix, matrix);
-    }
- 
     @Override
-    protected void getAllUniformLocations() {
-        location_transformationMatrix = super.getUniformLocation("transformationMatrix");
-    }
+    protected void getAllUniformLocations() {}
  
     @Override
     protected void bindAttributes() {
         super.bindAttribute(0, "position");
+        super.bindAttribute(1, "textureCoords");
     }
 }
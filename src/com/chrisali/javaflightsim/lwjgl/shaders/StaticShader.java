@@ -52,7 +52,11 @@ public class StaticShader extends ShaderProgram {
 	private int location_clippingPlane;
 	
 	public StaticShader() {
-		super(VERTEX_FILE, FRAGMENT_FILE);
+		this(VERTEX_FILE, FRAGMENT_FILE);
+	}
+	
+	protected StaticShader(String vertexFile, String fragmentFile) {
+		super(vertexFile, fragmentFile);
 	}
 
 	@Override
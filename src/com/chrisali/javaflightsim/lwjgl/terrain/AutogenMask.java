@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.terrain;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.lwjgl.utilities.OTWDirectories;
+import com.chrisali.javaflightsim.lwjgl.utilities.OTWFiles;
+
+/**
+ * Placement index decoded once from an autogen image, which maps what type of object should be generated at a given 
+ * location on every {@link Terrain} tile. The image should be filled in black with the exception of red, green or blue 
+ * pixels, which each determine buildings, trees and airports, respectively. Only every {@link AutogenMask#SPACING}th 
+ * pixel is sampled, and the coordinates of those marking trees are packed into a single array
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class AutogenMask {
+	
+	private static final Logger logger = LogManager.getLogger(AutogenMask.class);
+	
+	// Distance between sampled pixels, and the value a color channel must exceed to mark an object
+	public static final int SPACING = 6;
+	private static final int THRESHOLD = 250;
+	
+	private final int width, height;
+	
+	// Pixel coordinates (x, z) of each tree group, in the order they were sampled
+	private final short[] treeCells;
+	
+	/**
+	 * @param width of the autogen image [pixels]
+	 * @param height of the autogen image [pixels]
+	 * @param treeCells pixel coordinates of each tree group packed as (x, z) pairs
+	 */
+	public AutogenMask(int width, int height, short[] treeCells) {
+		this.width = width;
+		this.height = height;
+		this.treeCells = treeCells;
+	}
+	
+	/**
+	 * Reads an autogen PNG file and indexes its sampled pixels
+	 * 
+	 * @param fileName
+	 * @param directory (usually "Terrain")
+	 * @return autogen mask, or null if the image could not be read
+	 */
+	public static AutogenMask read(String fileName, String directory) {
+		String path = OTWDirectories.RESOURCES.toString() + File.separator + directory + File.separator + fileName + OTWFiles.TEXTURE_EXT.toString();
+		
+		try {
+			BufferedImage image = ImageIO.read(new File(path));
+			
+			if (image != null)
+				return fromImage(image);
+			
+			logger.error("Could not decode autogen file: " + fileName + OTWFiles.TEXTURE_EXT.toString() + "!");
+		} catch (IOException e) {
+			logger.error("Could not load autogen file: " + fileName + OTWFiles.TEXTURE_EXT.toString() + "!", e);
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Indexes every {@link AutogenMask#SPACING}th pixel of an image, sampling along Z for each X. All pixels are fetched 
+	 * in one call rather than pixel by pixel
+	 * 
+	 * @param image
+	 * @return autogen mask
+	 */
+	public static AutogenMask fromImage(BufferedImage image) {
+		int width = image.getWidth(), height = image.getHeight();
+		int[] rgb = image.getRGB(0, 0, width, height, null, 0, width);
+		
+		short[] treeCells = new short[((width + SPACING - 1) / SPACING) * ((height + SPACING - 1) / SPACING) * 2];
+		int treeCount = 0;
+		
+		for (int x = 0; x < width; x += SPACING) {
+			for (int z = 0; z < height; z += SPACING) {
+				int pixel = rgb[z * width + x];
+				int red = (pixel >> 16) & 0xFF, green = (pixel >> 8) & 0xFF, blue = pixel & 0xFF;
+				
+				if (red > THRESHOLD) {
+					// Create buildings here
+				} else if (green > THRESHOLD) {
+					treeCells[treeCount * 2]     = (short) x;
+					treeCells[treeCount * 2 + 1] = (short) z;
+					treeCount++;
+				} else if (blue > THRESHOLD) {
+					// Create airport here
+				}
+			}
+		}
+		
+		return new AutogenMask(width, height, Arrays.copyOf(treeCells, treeCount * 2));
+	}
+	
+	/**
+	 * @return number of tree groups marked on the image
+	 */
+	public int getTreeCount() {
+		return treeCells.length / 2;
+	}
+	
+	/**
+	 * @param tree
+	 * @return pixel X coordinate of a tree group
+	 */
+	public int getTreeX(int tree) {
+		return treeCells[tree * 2];
+	}
+	
+	/**
+	 * @param tree
+	 * @return pixel Z coordinate of a tree group
+	 */
+	public int getTreeZ(int tree) {
+		return treeCells[tree * 2 + 1];
+	}
+	
+	/**
+	 * @return size of one pixel of the image on a {@link Terrain} tile [world units]
+	 */
+	public float getImageScale() {
+		return Terrain.getSize() / height;
+	}
+	
+	public int getWidth() {
+		return width;
+	}
+	
+	public int getHeight() {
+		return height;
+	}
+}
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.terrain;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.lwjgl.utilities.OTWDirectories;
+import com.chrisali.javaflightsim.lwjgl.utilities.OTWFiles;
+
+/**
+ * Height map PNG decoded once into a flat array of terrain heights, which is shared by every {@link Terrain} tile that
+ * uses the same image and by {@link TerrainMeshBuilder} to generate the tile's mesh. Heights are stored row by row
+ * along the z axis; heights[z * vertexCount + x]. No OpenGL calls are made, so height maps can be read and used
+ * from any thread
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class HeightMap {
+	
+	private static final Logger logger = LogManager.getLogger(HeightMap.class);
+	
+	private static final float MAX_PIXEL_COLOR = 256 * 256 * 256;
+	
+	private final int vertexCount;
+	private final float[] heights;
+	
+	/**
+	 * Creates a height map from an existing array of heights
+	 * 
+	 * @param vertexCount number of vertices along each side of the height map
+	 * @param heights heights of each vertex; heights[z * vertexCount + x]
+	 */
+	public HeightMap(int vertexCount, float[] heights) {
+		this.vertexCount = vertexCount;
+		this.heights = heights;
+	}
+	
+	/**
+	 * Reads a height map PNG file and converts its pixels to terrain heights
+	 * 
+	 * @param fileName
+	 * @param directory (usually "Terrain" or can specify sub-directories such as "Terrain\1-1")
+	 * @return height map, or null if the image could not be read
+	 */
+	public static HeightMap read(String fileName, String directory) {
+		String path = OTWDirectories.RESOURCES.toString() + File.separator + directory + File.separator + fileName + OTWFiles.TEXTURE_EXT.toString();
+		
+		try {
+			BufferedImage image = ImageIO.read(new File(path));
+			
+			if (image != null)
+				return fromImage(image);
+			
+			logger.error("Could not decode height map: " + fileName + OTWFiles.TEXTURE_EXT.toString() + "!");
+		} catch (IOException e) {
+			logger.error("Could not load height map: " + fileName + OTWFiles.TEXTURE_EXT.toString() + "!", e);
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Converts the RGB value of each pixel in an image from white/black to +/- {@link Terrain#getMaxHeight()}. All pixels 
+	 * are fetched in one call rather than pixel by pixel; only the largest square in the top left corner of the image is used
+	 * 
+	 * @param image
+	 * @return height map
+	 */
+	public static HeightMap fromImage(BufferedImage image) {
+		int vertexCount = Math.min(image.getWidth(), image.getHeight());
+		int[] pixels = image.getRGB(0, 0, vertexCount, vertexCount, null, 0, vertexCount);
+		float[] heights = new float[pixels.length];
+		
+		for (int i = 0; i < pixels.length; i++) {
+			float height = pixels[i];
+			height += MAX_PIXEL_COLOR/2f;
+			height /= MAX_PIXEL_COLOR/2f;
+			height *= Terrain.getMaxHeight();
+			
+			heights[i] = height;
+		}
+		
+		return new HeightMap(vertexCount, heights);
+	}
+	
+	/**
+	 * @param x
+	 * @param z
+	 * @return height of the vertex at x and z, or 0 if outside of the height map's bounds
+	 */
+	public float getHeight(int x, int z) {
+		if (x < 0 || x >= vertexCount || z < 0 || z >= vertexCount)
+			return 0;
+		
+		return heights[z * vertexCount + x];
+	}
+	
+	/**
+	 * @return number of vertices along each side of the height map
+	 */
+	public int getVertexCount() {
+		return vertexCount;
+	}
+	
+	/**
+	 * @return heights of each vertex; heights[z * vertexCount + x]. This array is shared, and must not be modified
+	 */
+	public float[] getHeights() {
+		return heights;
+	}
+}
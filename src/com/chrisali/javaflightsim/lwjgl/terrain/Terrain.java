@@ -19,30 +19,17 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.lwjgl.terrain;
 
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.TreeMap;
-
-import javax.imageio.ImageIO;
-
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-import org.lwjgl.util.vector.Vector2f;
-import org.lwjgl.util.vector.Vector3f;
 
 import com.chrisali.javaflightsim.lwjgl.entities.Entity;
-import com.chrisali.javaflightsim.lwjgl.entities.EntityCollections;
+import com.chrisali.javaflightsim.lwjgl.entities.EntityQuadtree;
+import com.chrisali.javaflightsim.lwjgl.entities.Forest;
 import com.chrisali.javaflightsim.lwjgl.entities.Ownship;
-import com.chrisali.javaflightsim.lwjgl.loader.Loader;
+import com.chrisali.javaflightsim.lwjgl.loader.AssetPipeline;
 import com.chrisali.javaflightsim.lwjgl.models.RawModel;
 import com.chrisali.javaflightsim.lwjgl.textures.TerrainTexture;
 import com.chrisali.javaflightsim.lwjgl.textures.TerrainTexturePack;
-import com.chrisali.javaflightsim.lwjgl.utilities.OTWDirectories;
-import com.chrisali.javaflightsim.lwjgl.utilities.OTWFiles;
-import com.chrisali.javaflightsim.lwjgl.utilities.RenderingUtilities;
 
 /**
  * Terrain object that contains one ground tile that makes up the world of JavaFlightSimulator.
@@ -54,24 +41,38 @@ import com.chrisali.javaflightsim.lwjgl.utilities.RenderingUtilities;
  */
 public class Terrain implements Comparable<Terrain> {
 
-	private static final Logger logger = LogManager.getLogger(Terrain.class);
-	
 	private static final float SIZE = 1600;
 	private static final float MAX_HEIGHT = 20;
-	private static final float MAX_PIXEL_COLOR = 256 * 256 * 256;
 	
+	// Rough heap sizes of a terrain object and of each entity bound to it, used to estimate the memory each terrain occupies
+	private static final long TERRAIN_BYTES = 256;
+	private static final long ENTITY_BYTES = 96;
+	
+	private int gridX, gridZ;
 	private float x, z;
-	private RawModel model;
+	private volatile RawModel model;
 	private TerrainTexturePack texturePack;
 	private TerrainTexture blendMap;
 	
 	private Ownship ownship;
 	
-	// Stationary entities associated with this terrain
-	private List<Entity> staticEntities = new ArrayList<>();
+	// Stationary entities associated with this terrain; replaced rather than modified once the terrain can be rendered
+	private volatile List<Entity> staticEntities = new ArrayList<>();
 	private List<Entity> litEntities = new ArrayList<>();
 	
-	private float[][] heightArray;
+	// Autogen trees of this terrain, or null if they have not been generated yet
+	private volatile Forest forest;
+	
+	// Spatial index of staticEntities and litEntities used for culling, along with the list of static entities it was built from
+	private EntityQuadtree entityIndex;
+	private List<Entity> indexedStaticEntities;
+	
+	// Heights of each vertex, shared with all other tiles using the same height map image
+	private volatile HeightMap heightMap;
+	
+	// Levels of detail of the mesh, and the level selected to draw this frame
+	private volatile TerrainLOD lod;
+	private int lodLevel = 0;
 	
 	/**
 	 * <p>Constructor for Terrain object; uses {@link TerrainTexturePack} and {@link TerrainTexture} to
@@ -79,206 +80,132 @@ public class Terrain implements Comparable<Terrain> {
 	 * 
 	 * <p>gridX and gridZ correspond to indices in the terrain array that this object resides</p>
 	 * 
-	 * <p>fileName and Directory point to a height map .png file to give the terrain vertical modeling</p>
-	 * 
-	 * <p>Uses {@link EntityCollections#createAutogenImageEntities()} to generate populate this object's lists of entities
-	 * using an autogen image file in Resources/Terrain/</p>
+	 * <p>The terrain's {@link HeightMap} and mesh are shared with all other tiles using the same height map image, and are
+	 * set by {@link TerrainCollection} once they have been loaded by the {@link AssetPipeline}</p>
 	 * 
 	 * <p>Uses a reference to {@link Ownship} to calculate the distance the midpoint of this terrain instance is from 
 	 * the ownship; this is used to compare to other Terrain objects in compareTo()</p>
 	 * 
 	 * @param gridX
 	 * @param gridZ
-	 * @param fileName
-	 * @param directory
-	 * @param loader
 	 * @param texturePack
 	 * @param blendMap
 	 * @param ownship
 	 */
-	public Terrain(int gridX, int gridZ, String fileName, String directory, 
-					Loader loader, TerrainTexturePack texturePack, TerrainTexture blendMap,
-					Ownship ownship) {
+	public Terrain(int gridX, int gridZ, TerrainTexturePack texturePack, TerrainTexture blendMap, Ownship ownship) {
 		this.texturePack = texturePack;
 		this.blendMap = blendMap;
+		this.gridX = gridX;
+		this.gridZ = gridZ;
 		this.x = gridX * SIZE;
 		this.z = gridZ * SIZE;
-		this.model = generateTerrain(fileName, directory, loader);
 		this.ownship = ownship;
-		
-		// Generate all autogen objects and add them to staticEntities and litEntities
-		EntityCollections.createAutogenImageEntities(this, "autogen", directory);
-	}
-
-	/**
-	 * Gererates a terrain model using a BufferedImage height map
-	 * 
-	 * @param fileName
-	 * @param directory (usually "Terrain" or can specify sub-directories such as "Terrain\1-1")
-	 * @param loader
-	 * @return terrain model
-	 */
-	private RawModel generateTerrain(String fileName, String directory, Loader loader){
-		
-		BufferedImage image = null;
-		
-		try {image = ImageIO.read(new File(OTWDirectories.RESOURCES.toString() + File.separator + directory + File.separator + fileName + OTWFiles.TEXTURE_EXT.toString()));} 
-		catch (IOException e) {logger.error("Could not load height map: " + fileName + OTWFiles.TEXTURE_EXT.toString() + "!", e);}
-		
-		int VERTEX_COUNT = image.getHeight();
-		int count = VERTEX_COUNT * VERTEX_COUNT;
-		
-		heightArray = new float[VERTEX_COUNT][VERTEX_COUNT];
-		float[] vertices = new float[count * 3];
-		float[] normals = new float[count * 3];
-		float[] textureCoords = new float[count*2];
-		int[] indices = new int[6*(VERTEX_COUNT-1)*(VERTEX_COUNT-1)];
-		
-		int vertexPointer = 0;
-		for(int i=0;i<VERTEX_COUNT;i++){
-			for(int j=0;j<VERTEX_COUNT;j++){
-				vertices[vertexPointer*3] = (float)j/((float)VERTEX_COUNT - 1) * SIZE;
-				
-				float height = getHeightFromImage(j, i, image);
-				heightArray[j][i] = height;
-				
-				vertices[vertexPointer*3+1] = getHeightFromImage(j, i, image);
-				vertices[vertexPointer*3+2] = (float)i/((float)VERTEX_COUNT - 1) * SIZE;
-				
-				Vector3f normal = calculateNormal(j, i, image);
-				normals[vertexPointer*3]   = normal.x;
-				normals[vertexPointer*3+1] = normal.y;
-				normals[vertexPointer*3+2] = normal.z;
-				
-				textureCoords[vertexPointer*2] = (float)j/((float)VERTEX_COUNT - 1);
-				textureCoords[vertexPointer*2+1] = (float)i/((float)VERTEX_COUNT - 1);
-				
-				vertexPointer++;
-			}
-		}
-		
-		int pointer = 0;
-		for(int gz=0;gz<VERTEX_COUNT-1;gz++){
-			for(int gx=0;gx<VERTEX_COUNT-1;gx++){
-				int topLeft = (gz*VERTEX_COUNT)+gx;
-				int topRight = topLeft + 1;
-				int bottomLeft = ((gz+1)*VERTEX_COUNT)+gx;
-				int bottomRight = bottomLeft + 1;
-				
-				indices[pointer++] = topLeft;
-				indices[pointer++] = bottomLeft;
-				indices[pointer++] = topRight;
-				indices[pointer++] = topRight;
-				indices[pointer++] = bottomLeft;
-				indices[pointer++] = bottomRight;
-			}
-		}
-		
-		return loader.loadToVAO(vertices, textureCoords, normals, indices);
-	}
-	
-	/**
-	 * Calculates normal of a terrain vertex for use with lighting or specular calculations
-	 * 
-	 * @param x
-	 * @param z
-	 * @param image
-	 * @return normal vector
-	 */
-	private Vector3f calculateNormal(int x, int z, BufferedImage image) {
-		float heightL = getHeightFromImage(x-1, z  , image);
-		float heightR = getHeightFromImage(x+1, z  , image);
-		float heightD = getHeightFromImage(x  , z-1, image);
-		float heightU = getHeightFromImage(x  , z+1, image);
-		
-		Vector3f normal = new Vector3f(heightL - heightR, 2f, heightD - heightU);
-		normal.normalise();
-		
-		return normal;
 	}
 	
 	/**
-	 * Calculates the height of a terrain vertex by reading the RGB value pixel of a 
-	 * buffered image and converting it to a height value  
+	 * Uses Barycentric interpolation to calculate the height of terrain for a given X and Z position. No objects are
+	 * allocated, so this is safe to call every frame
 	 * 
-	 * @param x
-	 * @param z
-	 * @param image
-	 * @return height of terrain vertex
+	 * @param worldX
+	 * @param worldZ
+	 * @return terrain height, or 0 if the position is outside of this terrain or its heights have not been loaded yet
 	 */
-	private float getHeightFromImage(int x, int z, BufferedImage image) {
-		// If out of terrain bounds, return 0
-		if (x < 0 || x >= image.getHeight() || z < 0 || z >= image.getWidth())
-			return 0;
-		
-		// Get RGB value and convert from white/black to +/-MAX_HEIGHT
-		float height = image.getRGB(x, z);
-		height += MAX_PIXEL_COLOR/2f;
-		height /= MAX_PIXEL_COLOR/2f;
-		height *= MAX_HEIGHT;
-		
-		return height;
+	public float getTerrainHeight(float worldX, float worldZ) {
+		return getTerrainHeight(heightMap, x, z, worldX, worldZ);
 	}
 	
 	/**
-	 * Uses Barycentric interpolation to calculate the height of terrain for a given X and Z position
+	 * Uses Barycentric interpolation to calculate the height of terrain for a given X and Z position on a terrain whose 
+	 * origin is at originX and originZ, without needing a Terrain object for it. No objects are allocated, so this is safe
+	 * to call every frame
 	 * 
+	 * @param heightMap
+	 * @param originX
+	 * @param originZ
 	 * @param worldX
 	 * @param worldZ
-	 * @return terrain height
+	 * @return terrain height, or 0 if the position is outside of the terrain or heightMap is null
 	 */
-	public float getTerrainHeight(float worldX, float worldZ) {
-		// Convert absolute world position to position relative to terrain square
-		float terrainX = worldX - this.x;
-		float terrainZ = worldZ - this.z;
+	public static float getTerrainHeight(HeightMap heightMap, float originX, float originZ, float worldX, float worldZ) {
+		if (heightMap == null)
+			return 0;
+		
+		float[] heights = heightMap.getHeights();
+		int vertexCount = heightMap.getVertexCount();
 		
 		// Size of each grid square
-		float gridSquareSize = SIZE / ((float)heightArray.length - 1);
+		float gridSquareSize = SIZE / (vertexCount - 1);
+		
+		// Convert absolute world position to position on the grid relative to terrain square
+		float terrainX = (worldX - originX) / gridSquareSize;
+		float terrainZ = (worldZ - originZ) / gridSquareSize;
 		
 		// Grid square that the player is located in
-		int gridX = (int) Math.floor(terrainX/gridSquareSize);
-		int gridZ = (int) Math.floor(terrainZ/gridSquareSize);
+		int gridX = (int) Math.floor(terrainX);
+		int gridZ = (int) Math.floor(terrainZ);
 		
 		// If outside terrain bounds return zero
-		if (gridX >= (heightArray.length - 1) || gridZ >= (heightArray.length - 1) || gridX < 0 || gridZ < 0)
+		if (gridX >= (vertexCount - 1) || gridZ >= (vertexCount - 1) || gridX < 0 || gridZ < 0)
 			return 0;
 		
 		// Location of player on a grid square
-		float xCoord = (terrainX % gridSquareSize) / gridSquareSize;
-		float zCoord = (terrainZ % gridSquareSize) / gridSquareSize;
+		float xCoord = terrainX - gridX;
+		float zCoord = terrainZ - gridZ;
+		
+		int topLeft = gridZ * vertexCount + gridX;
+		float heightTopLeft     = heights[topLeft];
+		float heightTopRight    = heights[topLeft + 1];
+		float heightBottomLeft  = heights[topLeft + vertexCount];
 		
-		// Get terrain height by using barycentric coordinates
-		float terrainHeight;
-		if (xCoord <= (1-zCoord)) {
-			terrainHeight = RenderingUtilities.barycentric(new Vector3f(0, heightArray[gridX][gridZ], 0), 
-														   new Vector3f(1, heightArray[gridX + 1][gridZ], 0), 
-														   new Vector3f(0, heightArray[gridX][gridZ + 1], 1), 
-														   new Vector2f(xCoord, zCoord));
+		// Barycentric interpolation within whichever of the square's two triangles contains the position
+		if (xCoord <= (1 - zCoord)) {
+			return (1 - xCoord - zCoord) * heightTopLeft + xCoord * heightTopRight + zCoord * heightBottomLeft;
 		} else {
-			terrainHeight = RenderingUtilities.barycentric(new Vector3f(1, heightArray[gridX + 1][gridZ], 0), 
-														   new Vector3f(1, heightArray[gridX + 1][gridZ + 1], 1), 
-														   new Vector3f(0, heightArray[gridX][gridZ + 1], 1), 
-														   new Vector2f(xCoord, zCoord));
+			float heightBottomRight = heights[topLeft + vertexCount + 1];
+			
+			return (1 - zCoord) * heightTopRight + (xCoord + zCoord - 1) * heightBottomRight + (1 - xCoord) * heightBottomLeft;
 		}
-		
-		return terrainHeight;			
+	}
+	
+	/**
+	 * Calculates the terrain height for many X and Z positions at once using {@link Terrain#getTerrainHeight(float, float)}
+	 * 
+	 * @param worldX X positions of each point
+	 * @param worldZ Z positions of each point
+	 * @param heights array to store the terrain height of each point in
+	 * @param count number of points
+	 */
+	public void getTerrainHeights(float[] worldX, float[] worldZ, float[] heights, int count) {
+		for (int i = 0; i < count; i++)
+			heights[i] = getTerrainHeight(worldX[i], worldZ[i]);
 	}
 	
 	/**
 	 * Returns the Terrain object from a Terrain map that the player is currently standing on 
 	 * 
-	 * @param terrainTree
+	 * @param terrainMap
 	 * @param worldX
 	 * @param worldZ
-	 * @return terrain object that the player is standing on
+	 * @return terrain object that the player is standing on, or null if there is none
 	 */
-	public static Terrain getCurrentTerrain(TreeMap<String, Terrain> terrainTree, float worldX, float worldZ) {
-		// Floor divide player's absolute (world) x and z coordinates to get the grid indices that this terrain object lies in  
-		int xGrid = Math.floorDiv((int)worldX, (int)Terrain.SIZE);
-		int zGrid = Math.floorDiv((int)worldZ, (int)Terrain.SIZE);
-		
-		// "xGrid-zGrid" comprises each key to the map of terrains
-		return terrainTree.get(xGrid + "-" + zGrid);
+	public static Terrain getCurrentTerrain(TerrainMap terrainMap, float worldX, float worldZ) {
+		return terrainMap.get(getGridIndex(worldX), getGridIndex(worldZ));
+	}
+	
+	/**
+	 * @param worldCoordinate absolute world X or Z coordinate
+	 * @return grid index of the terrain that the coordinate lies in
+	 */
+	public static int getGridIndex(float worldCoordinate) {
+		return (int) Math.floor(worldCoordinate / SIZE);
+	}
+	
+	public int getGridX() {
+		return gridX;
+	}
+
+	public int getGridZ() {
+		return gridZ;
 	}
 	
 	public float getX() {
@@ -292,14 +219,106 @@ public class Terrain implements Comparable<Terrain> {
 	public List<Entity> getStaticEntities() {
 		return staticEntities;
 	}
+	
+	/**
+	 * Replaces this terrain's list of static entities, which should not be modified afterwards, as it may be rendered 
+	 * at any time
+	 * 
+	 * @param staticEntities
+	 */
+	public void setStaticEntities(List<Entity> staticEntities) {
+		this.staticEntities = staticEntities;
+	}
+
+	/**
+	 * @return autogen trees of this terrain, or null if they have not been generated yet
+	 */
+	public Forest getForest() {
+		return forest;
+	}
+	
+	/**
+	 * @param forest autogen trees of this terrain, which should not be modified afterwards, as they may be rendered at any time
+	 */
+	public void setForest(Forest forest) {
+		this.forest = forest;
+	}
 
 	public List<Entity> getLitEntities() {
 		return litEntities;
 	}
+	
+	/**
+	 * Gets a spatial index of this terrain's static and lit entities, rebuilding it first if the entities have changed 
+	 * or the models of some have since been loaded. Only call from the rendering thread
+	 * 
+	 * @return quadtree of this terrain's entities
+	 */
+	public EntityQuadtree getEntityIndex() {
+		List<Entity> staticEntities = this.staticEntities;
+		
+		if (entityIndex == null || indexedStaticEntities != staticEntities 
+				|| entityIndex.size() != staticEntities.size() + litEntities.size() || entityIndex.hasNewBounds()) {
+			List<Entity> entities = new ArrayList<>(staticEntities.size() + litEntities.size());
+			entities.addAll(staticEntities);
+			entities.addAll(litEntities);
+			
+			entityIndex = new EntityQuadtree(entities);
+			indexedStaticEntities = staticEntities;
+		}
+		
+		return entityIndex;
+	}
 
 	public RawModel getModel() {
 		return model;
 	}
+	
+	/**
+	 * @param model mesh of this terrain, which may be shared with other terrains using the same height map
+	 */
+	public void setModel(RawModel model) {
+		this.model = model;
+	}
+	
+	/**
+	 * @return levels of detail of this terrain's mesh, or null if they have not been built yet
+	 */
+	public TerrainLOD getLOD() {
+		return lod;
+	}
+	
+	/**
+	 * @param lod levels of detail of this terrain's mesh, which may be shared with other terrains using the same height map
+	 */
+	public void setLOD(TerrainLOD lod) {
+		this.lod = lod;
+	}
+	
+	/**
+	 * @return {@link TerrainLOD} level selected to draw this terrain with, where 0 is full resolution
+	 */
+	public int getLODLevel() {
+		return lodLevel;
+	}
+	
+	public void setLODLevel(int lodLevel) {
+		this.lodLevel = lodLevel;
+	}
+	
+	/**
+	 * @return heights of this terrain, or null if they have not been loaded yet
+	 */
+	public HeightMap getHeightMap() {
+		return heightMap;
+	}
+	
+	/**
+	 * @param heightMap heights of this terrain, which may be shared with other terrains using the same height map
+	 */
+	public void setHeightMap(HeightMap heightMap) {
+		this.heightMap = heightMap;
+	}
 
 	public TerrainTexturePack getTexturePack() {
 		return texturePack;
@@ -309,6 +328,17 @@ public class Terrain implements Comparable<Terrain> {
 		return blendMap;
 	}
 
+	/**
+	 * @return rough estimate of the heap memory occupied by this terrain and its entities, excluding its height map and
+	 * mesh, which may be shared with other terrains [bytes]
+	 */
+	public long getEstimatedBytes() {
+		Forest forest = this.forest;
+		
+		return TERRAIN_BYTES + (staticEntities.size() + litEntities.size()) * ENTITY_BYTES 
+				+ ((forest == null) ? 0 : forest.getEstimatedBytes());
+	}
+
 	public static float getSize() {
 		return SIZE;
 	}
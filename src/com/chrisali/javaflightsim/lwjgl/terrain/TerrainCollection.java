@@ -19,47 +19,142 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.lwjgl.terrain;
 
-import java.util.TreeMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.lwjgl.util.vector.Vector3f;
+
+import com.chrisali.javaflightsim.lwjgl.entities.EntityCollections;
 import com.chrisali.javaflightsim.lwjgl.entities.Ownship;
+import com.chrisali.javaflightsim.lwjgl.loader.AssetPipeline;
 import com.chrisali.javaflightsim.lwjgl.loader.Loader;
+import com.chrisali.javaflightsim.lwjgl.models.RawModel;
 import com.chrisali.javaflightsim.lwjgl.textures.TerrainTexture;
 import com.chrisali.javaflightsim.lwjgl.textures.TerrainTexturePack;
 import com.chrisali.javaflightsim.lwjgl.utilities.OTWDirectories;
 
-import org.lwjgl.util.vector.Vector3f;
-
 /**
- * An array of {@link Terrain} objects used to model out the world 
+ * Pages {@link Terrain} objects in and out of a {@link TerrainMap} to model out the world around the {@link Ownship}. 
+ * Tiles are loaded asynchronously by the {@link AssetPipeline} in a ring around ownship's position and around a point
+ * ahead of it along its velocity vector. Tiles that have left both rings stay resident until the estimated memory used
+ * by terrain exceeds a budget, at which point the least recently used are evicted
  * 
  * @author Christopher Ali
  *
  */
 public class TerrainCollection {
 	
-	private TreeMap<String, Terrain> terrainTree;
+	private static final Logger logger = LogManager.getLogger(TerrainCollection.class);
+	
+	// How far ahead along ownship's velocity vector terrain is prefetched, and the radius of the ring prefetched there
+	private static final float PREFETCH_SECONDS = 60;
+	private static final int PREFETCH_RADIUS = 1;
+	
+	// Fraction of each new velocity measurement blended into the velocity estimate
+	private static final float VELOCITY_SMOOTHING = 0.1f;
+	
+	// GPU memory occupied by each vertex of a terrain mesh; positions, normals and texture coordinates
+	private static final long MESH_BYTES_PER_VERTEX = (3 + 3 + 2) * 4;
+	
+	private final TerrainMap terrainMap = new TerrainMap();
+	
+	// Resident tiles keyed by packed grid coordinates, ordered from least to most recently used
+	private final LinkedHashMap<Long, Terrain> recentlyUsed = new LinkedHashMap<>(16, 0.75f, true);
+	
+	// Height maps and meshes shared by all tiles using the same height map image, keyed by image file name
+	private final Map<String, SharedTerrain> sharedTerrains = new HashMap<>();
+	
+	// Autogen image decoded once into a placement index used by every tile
+	private final CompletableFuture<AutogenMask> autogenMask;
+	
+	private final int radius;
+	private final long memoryBudgetBytes;
+	private final String directory = OTWDirectories.TERRAIN.toString();
+	
+	private final Loader loader;
+	private final AssetPipeline pipeline;
+	private final Ownship ownship;
+	private final TerrainTexturePack texturePack;
+	private final TerrainTexture blendMap;
+	
+	// Grid coordinates around which tiles were last requested
+	private int centerX, centerZ, prefetchX, prefetchZ;
+	private boolean ringsRequested = false;
+	
+	// Estimate of ownship's horizontal velocity, from its change in position between updates [units/s]
+	private float velocityX, velocityZ;
+	private float lastX, lastZ;
+	private long lastUpdateNanos = 0;
+	
+	// Height map of the tile last queried for heights, which is read without locking while queries stay over that tile
+	private volatile TileHeights lastHeights;
 	
 	/**
-	 * Creates a TreeMao of {@link Terrain} objects, with texture blending and height maps. Each key to the tree map consists of
-	 * the string "xGrid-zGrid", which represents the terrain object's position relative to other terrains in an array fashion
+	 * Decoded height map of the tile at a pair of grid coordinates
+	 */
+	private static class TileHeights {
+		private final int gridX;
+		private final int gridZ;
+		private final HeightMap heightMap;
+		
+		private TileHeights(int gridX, int gridZ, HeightMap heightMap) {
+			this.gridX = gridX;
+			this.gridZ = gridZ;
+			this.heightMap = heightMap;
+		}
+	}
+	
+	/**
+	 * Height map, levels of detail and mesh loaded once for each height map image, and shared by every tile using it
+	 */
+	private static class SharedTerrain {
+		private final CompletableFuture<HeightMap> heightMap;
+		private final CompletableFuture<TerrainLOD> lod;
+		private final CompletableFuture<RawModel> model;
+		
+		private SharedTerrain(CompletableFuture<HeightMap> heightMap, CompletableFuture<TerrainLOD> lod, CompletableFuture<RawModel> model) {
+			this.heightMap = heightMap;
+			this.lod = lod;
+			this.model = model;
+		}
+	}
+	
+	/**
+	 * Creates a collection of {@link Terrain} objects, with texture blending and height maps, paged in around the 
+	 * {@link Ownship}. Each terrain is indexed by its grid coordinates, which represent the terrain object's position
+	 * relative to other terrains in an array fashion
+	 * 
+	 * <p>Textures and terrain meshes are loaded by the {@link AssetPipeline}; the tiles around ownship's initial position
+	 * are requested immediately, and are ready to render once the pipeline has completed. Each height map image is decoded
+	 * and meshed only once, and its heights and mesh are shared by every terrain using it</p>
 	 * 
-	 * @param numTerrains
+	 * @param radius number of tiles around ownship's tile to keep loaded
+	 * @param memoryBudgetBytes estimated memory that tiles outside of the radius may occupy before being evicted [bytes]
 	 * @param loader
+	 * @param pipeline
 	 * @param ownship
 	 */
-	public TerrainCollection(int numTerrains, Loader loader, Ownship ownship) {
-		terrainTree = new TreeMap<>();
-
-		TerrainTexturePack texturePack = createTexturePack("fields", "town", "forest", "water", loader);
-		TerrainTexture blendMap = new TerrainTexture(loader.loadTexture("blendMap", OTWDirectories.TERRAIN.toString()));
-	
-		int median = Math.abs(numTerrains/2);
+	public TerrainCollection(int radius, long memoryBudgetBytes, Loader loader, AssetPipeline pipeline, Ownship ownship) {
+		this.radius = radius;
+		this.memoryBudgetBytes = memoryBudgetBytes;
+		this.loader = loader;
+		this.pipeline = pipeline;
+		this.ownship = ownship;
 		
-		for (int i = -median; i < median; i++) {
-			for (int j = -median; j < median; j++) {
-				terrainTree.put(i + "-" + j, new Terrain(i, j, "heightMap", OTWDirectories.TERRAIN.toString(), loader, texturePack, blendMap, ownship));
-			}
-		}
+		texturePack = createTexturePack("fields", "town", "forest", "water", loader, pipeline);
+		blendMap = loadTerrainTexture("blendMap", loader, pipeline);
+		autogenMask = pipeline.submit("Autogen", () -> AutogenMask.read("autogen", directory));
+		
+		update();
 	}
 	
 	/**
@@ -71,38 +166,351 @@ public class TerrainCollection {
 	 * @param gTextureName
 	 * @param bTextureName
 	 * @param loader
+	 * @param pipeline
 	 * @return
 	 */
-	private TerrainTexturePack createTexturePack(String backgroundTextureName, 
-							String rTextureName, String gTextureName, String bTextureName, Loader loader) {
-		TerrainTexture backgroundTexture = new TerrainTexture(loader.loadTexture(backgroundTextureName, OTWDirectories.TERRAIN.toString()));
-		TerrainTexture rTexture = new TerrainTexture(loader.loadTexture(rTextureName, OTWDirectories.TERRAIN.toString()));
-		TerrainTexture gTexture = new TerrainTexture(loader.loadTexture(gTextureName, OTWDirectories.TERRAIN.toString()));
-		TerrainTexture bTexture = new TerrainTexture(loader.loadTexture(bTextureName, OTWDirectories.TERRAIN.toString()));
+	private TerrainTexturePack createTexturePack(String backgroundTextureName, String rTextureName, String gTextureName, 
+												 String bTextureName, Loader loader, AssetPipeline pipeline) {
+		TerrainTexture backgroundTexture = loadTerrainTexture(backgroundTextureName, loader, pipeline);
+		TerrainTexture rTexture = loadTerrainTexture(rTextureName, loader, pipeline);
+		TerrainTexture gTexture = loadTerrainTexture(gTextureName, loader, pipeline);
+		TerrainTexture bTexture = loadTerrainTexture(bTextureName, loader, pipeline);
 		
 		return new TerrainTexturePack(backgroundTexture, rTexture, gTexture, bTexture); 
 	}
-
+	
+	/**
+	 * Creates a {@link TerrainTexture} whose texture ID is set once the texture has been loaded by the {@link AssetPipeline}
+	 * 
+	 * @param textureName
+	 * @param loader
+	 * @param pipeline
+	 * @return terrain texture
+	 */
+	private TerrainTexture loadTerrainTexture(String textureName, Loader loader, AssetPipeline pipeline) {
+		TerrainTexture texture = new TerrainTexture(0);
+		
+		pipeline.loadTexture("Terrain", textureName, directory, loader).thenAccept(texture::setTextureID);
+		
+		return texture;
+	}
+	
+	//=================================== Paging ===========================================================
+	
+	/**
+	 * Requests any missing tiles around the {@link Ownship}'s position and around its predicted position, and evicts 
+	 * least recently used tiles outside of those if over the memory budget. Tiles are only requested and evicted when 
+	 * either ring moves to a different tile, so this is cheap to call every frame
+	 */
+	public synchronized void update() {
+		Vector3f position = ownship.getPosition();
+		updateVelocity(position.x, position.z, System.nanoTime());
+		
+		// Limit how far ahead terrain is prefetched so that a jump in position does not send the prefetch ring far away
+		float lookAheadX = velocityX * PREFETCH_SECONDS;
+		float lookAheadZ = velocityZ * PREFETCH_SECONDS;
+		float lookAhead = (float) Math.sqrt(lookAheadX * lookAheadX + lookAheadZ * lookAheadZ);
+		float maxLookAhead = (radius + PREFETCH_RADIUS + 1) * Terrain.getSize();
+		
+		if (lookAhead > maxLookAhead) {
+			lookAheadX *= maxLookAhead / lookAhead;
+			lookAheadZ *= maxLookAhead / lookAhead;
+		}
+		
+		int newCenterX = Terrain.getGridIndex(position.x);
+		int newCenterZ = Terrain.getGridIndex(position.z);
+		int newPrefetchX = Terrain.getGridIndex(position.x + lookAheadX);
+		int newPrefetchZ = Terrain.getGridIndex(position.z + lookAheadZ);
+		
+		if (ringsRequested && newCenterX == centerX && newCenterZ == centerZ && newPrefetchX == prefetchX && newPrefetchZ == prefetchZ)
+			return;
+		
+		centerX = newCenterX;
+		centerZ = newCenterZ;
+		prefetchX = newPrefetchX;
+		prefetchZ = newPrefetchZ;
+		ringsRequested = true;
+		
+		requestRing(centerX, centerZ, radius);
+		requestRing(prefetchX, prefetchZ, PREFETCH_RADIUS);
+		evict();
+	}
+	
 	/**
+	 * Blends the velocity measured since the last update into the velocity estimate
 	 * 
-	 * @return TreeMap of terrains as part of this collection
+	 * @param x
+	 * @param z
+	 * @param nanoTime
 	 */
-	public TreeMap<String, Terrain> getTerrainTree() {
-		return terrainTree;
+	private void updateVelocity(float x, float z, long nanoTime) {
+		if (lastUpdateNanos != 0 && nanoTime > lastUpdateNanos) {
+			float dt = (nanoTime - lastUpdateNanos) / 1e9f;
+			
+			velocityX += ((x - lastX) / dt - velocityX) * VELOCITY_SMOOTHING;
+			velocityZ += ((z - lastZ) / dt - velocityZ) * VELOCITY_SMOOTHING;
+		}
+		
+		lastX = x;
+		lastZ = z;
+		lastUpdateNanos = nanoTime;
+	}
+	
+	/**
+	 * Marks all tiles within a radius of a tile as recently used, and requests any that are missing, closest first
+	 * 
+	 * @param ringX
+	 * @param ringZ
+	 * @param ringRadius
+	 */
+	private void requestRing(int ringX, int ringZ, int ringRadius) {
+		List<long[]> missing = new ArrayList<>();
+		
+		for (int gridX = ringX - ringRadius; gridX <= ringX + ringRadius; gridX++) {
+			for (int gridZ = ringZ - ringRadius; gridZ <= ringZ + ringRadius; gridZ++) {
+				long distanceSquared = (long) (gridX - ringX) * (gridX - ringX) + (long) (gridZ - ringZ) * (gridZ - ringZ);
+				
+				if (distanceSquared > (long) ringRadius * ringRadius)
+					continue;
+				
+				if (recentlyUsed.get(TerrainMap.pack(gridX, gridZ)) == null)
+					missing.add(new long[] {distanceSquared, gridX, gridZ});
+			}
+		}
+		
+		missing.sort(Comparator.comparingLong(tile -> tile[0]));
+		
+		for (long[] tile : missing)
+			loadTerrain((int) tile[1], (int) tile[2]);
+	}
+	
+	/**
+	 * Creates a tile and loads its height map, mesh and autogen entities. Tiles using a height map that is already loaded
+	 * receive its heights and mesh immediately
+	 * 
+	 * @param gridX
+	 * @param gridZ
+	 */
+	private void loadTerrain(int gridX, int gridZ) {
+		Terrain terrain = new Terrain(gridX, gridZ, texturePack, blendMap, ownship);
+		
+		terrainMap.put(terrain);
+		recentlyUsed.put(TerrainMap.pack(gridX, gridZ), terrain);
+		
+		SharedTerrain shared = getSharedTerrain(gridX, gridZ);
+		
+		shared.heightMap.thenAccept(heightMap -> {
+			if (heightMap == null)
+				return;
+			
+			terrain.setHeightMap(heightMap);
+			
+			// Generate autogen trees now that heights are known; they are the same each time the tile is paged in
+			autogenMask.thenAccept(mask -> {
+				if (mask == null)
+					return;
+				
+				pipeline.submit("Autogen", () -> {
+					EntityCollections.createAutogenForest(terrain, mask);
+					return null;
+				});
+			});
+		});
+		
+		// Levels of detail are always built before the model is uploaded, and must be set first for the terrain to be drawn
+		shared.model.thenAccept(model -> {
+			terrain.setLOD(shared.lod.join());
+			terrain.setModel(model);
+		});
+	}
+	
+	/**
+	 * Gets the height map, levels of detail and mesh of a tile, starting to load them on the {@link AssetPipeline} if no
+	 * other tile uses them yet. Heights are available as soon as the height map is decoded, before its mesh has been built
+	 * and uploaded
+	 * 
+	 * @param gridX
+	 * @param gridZ
+	 * @return height map and mesh of the tile
+	 */
+	private SharedTerrain getSharedTerrain(int gridX, int gridZ) {
+		return sharedTerrains.computeIfAbsent(getHeightMapName(gridX, gridZ), fileName -> {
+			CompletableFuture<HeightMap> heightMap = pipeline.submit("Terrain", () -> HeightMap.read(fileName, directory));
+			CompletableFuture<TerrainLOD> lod = heightMap.thenCompose(decoded -> (decoded == null) 
+					? CompletableFuture.completedFuture(null)
+					: pipeline.submit("Terrain", () -> new TerrainLOD(decoded)));
+			CompletableFuture<RawModel> model = lod.thenCompose(built -> (built == null) 
+					? CompletableFuture.completedFuture(null)
+					: pipeline.load("Terrain", () -> TerrainMeshBuilder.build(built), loader::loadToVAO));
+			
+			return new SharedTerrain(heightMap, lod, model);
+		});
+	}
+	
+	/**
+	 * @param gridX
+	 * @param gridZ
+	 * @return name of the height map image used by the tile at the grid coordinates; every tile currently uses the same image
+	 */
+	private static String getHeightMapName(int gridX, int gridZ) {
+		return "heightMap";
+	}
+	
+	/**
+	 * Removes least recently used tiles until the estimated memory used by terrain is within budget. Tiles in either ring
+	 * were marked as used by the latest update, so eviction stops at the first of them
+	 */
+	private void evict() {
+		long usedBytes = getEstimatedBytes();
+		int evicted = 0;
+		
+		for (Iterator<Terrain> it = recentlyUsed.values().iterator(); it.hasNext() && usedBytes > memoryBudgetBytes;) {
+			Terrain terrain = it.next();
+			
+			if (isInRing(terrain, centerX, centerZ, radius) || isInRing(terrain, prefetchX, prefetchZ, PREFETCH_RADIUS))
+				break;
+			
+			usedBytes -= terrain.getEstimatedBytes();
+			terrainMap.remove(terrain.getGridX(), terrain.getGridZ());
+			it.remove();
+			evicted++;
+		}
+		
+		if (evicted > 0)
+			logger.debug("Evicted " + evicted + " terrain tiles; " + terrainMap.size() + " remain resident");
+	}
+	
+	private static boolean isInRing(Terrain terrain, int ringX, int ringZ, int ringRadius) {
+		long dx = terrain.getGridX() - ringX;
+		long dz = terrain.getGridZ() - ringZ;
+		
+		return dx * dx + dz * dz <= (long) ringRadius * ringRadius;
+	}
+	
+	/**
+	 * @return estimate of the memory used by all resident tiles, and by the height maps, levels of detail and meshes that 
+	 * they share [bytes]
+	 */
+	public synchronized long getEstimatedBytes() {
+		long bytes = 0;
+		
+		for (Terrain terrain : recentlyUsed.values())
+			bytes += terrain.getEstimatedBytes();
+		
+		for (SharedTerrain shared : sharedTerrains.values()) {
+			HeightMap heightMap = shared.heightMap.getNow(null);
+			TerrainLOD lod = shared.lod.getNow(null);
+			
+			if (heightMap != null)
+				bytes += (long) heightMap.getHeights().length * (4 + MESH_BYTES_PER_VERTEX);
+			
+			// Indices of every level of detail, in both heap and GPU memory
+			if (lod != null)
+				bytes += (long) lod.getIndices().length * 4 * 2;
+		}
+		
+		return bytes;
 	}
 
+	/**
+	 * 
+	 * @return map of terrains currently resident in this collection
+	 */
+	public TerrainMap getTerrainMap() {
+		return terrainMap;
+	}
+	
+	//=================================== Heights ==========================================================
+	
 	/**
 	 * Calculates the height of the terrain in the exaxt spot that the ownship is currently over 
 	 * 
+	 * @param ownship
 	 * @return terrain height [ft]
 	 */
-	public synchronized float getTerrainHeight(Ownship ownship) {
+	public float getTerrainHeight(Ownship ownship) {
 		Vector3f position = ownship.getPosition();
 		
-		// Terrain object ownship is currently on
-		Terrain currentTerrain = Terrain.getCurrentTerrain(terrainTree, position.x, position.z);
+		return getTerrainHeight(position.x, position.z);
+	}
+	
+	/**
+	 * Calculates the height of the terrain at an X and Z position. The height is valid whether or not the tile there is
+	 * resident or its mesh is ready; if its height map has not been decoded yet, this waits until it has been without
+	 * holding this collection's lock, so that {@link TerrainCollection#update()} is not blocked in the meantime. Queries
+	 * over the same tile as the previous one neither lock nor allocate
+	 * 
+	 * @param worldX
+	 * @param worldZ
+	 * @return terrain height [ft]
+	 */
+	public float getTerrainHeight(float worldX, float worldZ) {
+		int gridX = Terrain.getGridIndex(worldX);
+		int gridZ = Terrain.getGridIndex(worldZ);
+		
+		return Terrain.getTerrainHeight(getHeightMap(gridX, gridZ), gridX * Terrain.getSize(), gridZ * Terrain.getSize(), worldX, worldZ);
+	}
+	
+	/**
+	 * Calculates the height of the terrain for many X and Z positions at once (e.g. landing gear contact points), which 
+	 * may lie on different tiles. The height map found for one point is reused for the next while consecutive points
+	 * stay on the same tile, so only a change of tile looks up another height map
+	 * 
+	 * @param worldX X positions of each point
+	 * @param worldZ Z positions of each point
+	 * @param heights array to store the terrain height of each point in
+	 * @param count number of points
+	 */
+	public void getTerrainHeights(float[] worldX, float[] worldZ, float[] heights, int count) {
+		HeightMap heightMap = null;
+		int lastGridX = 0, lastGridZ = 0;
+		
+		for (int i = 0; i < count; i++) {
+			int gridX = Terrain.getGridIndex(worldX[i]);
+			int gridZ = Terrain.getGridIndex(worldZ[i]);
+			
+			if (i == 0 || gridX != lastGridX || gridZ != lastGridZ) {
+				heightMap = getHeightMap(gridX, gridZ);
+				lastGridX = gridX;
+				lastGridZ = gridZ;
+			}
+			
+			heights[i] = Terrain.getTerrainHeight(heightMap, gridX * Terrain.getSize(), gridZ * Terrain.getSize(), worldX[i], worldZ[i]);
+		}
+	}
+	
+	/**
+	 * Gets the height map of the tile at the grid coordinates. The height map of the tile last queried is read from
+	 * {@link TerrainCollection#lastHeights} without locking; otherwise the height map shared between tiles is looked up 
+	 * while holding this collection's lock, starting to decode it if no tile uses it yet, and is waited for after 
+	 * releasing the lock
+	 * 
+	 * @param gridX
+	 * @param gridZ
+	 * @return height map of the tile, or null if it could not be loaded
+	 */
+	private HeightMap getHeightMap(int gridX, int gridZ) {
+		TileHeights last = lastHeights;
+		
+		if (last != null && last.gridX == gridX && last.gridZ == gridZ)
+			return last.heightMap;
 		
-		// If outside world bounds, return 0 as terrain height
-		return (currentTerrain == null) ? 0.0f : currentTerrain.getTerrainHeight(position.x, position.z);
+		CompletableFuture<HeightMap> heightMap;
+		
+		synchronized (this) {
+			heightMap = getSharedTerrain(gridX, gridZ).heightMap;
+		}
+		
+		try {
+			HeightMap decoded = heightMap.join();
+			
+			if (decoded != null)
+				lastHeights = new TileHeights(gridX, gridZ, decoded);
+			
+			return decoded;
+		} catch (CompletionException e) {
+			logger.error("Could not load height map of terrain at: (" + gridX + ", " + gridZ + ")!", e);
+			return null;
+		}
 	}
 }
@@ -0,0 +1,347 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.terrain;
+
+import java.util.Arrays;
+
+/**
+ * <p>Geomipmapped levels of detail of a {@link Terrain} mesh built from a {@link HeightMap}. Every level shares the
+ * mesh's full resolution vertices; level n uses every 2^n th vertex along each side (plus the last one), and is drawn
+ * from index ranges of a single index array, so that all levels can be uploaded once with the mesh.</p>
+ * 
+ * <p>Each level is split into an interior and a strip along each {@link TerrainEdge}. Every edge strip is built once for
+ * each coarser level as well, with its outer vertices spaced as that level's are; drawing the strip matching a coarser
+ * neighbor's level makes the shared edge identical on both tiles, leaving no cracks between them. The geometric error
+ * of each level is also precomputed, so that a level can be selected from the screen space error it would produce.</p>
+ * 
+ * <p>No OpenGL calls are made, so levels can be built and tested from any thread, without an OpenGL context</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TerrainLOD {
+	
+	private final HeightMap heightMap;
+	private final int vertexCount;
+	private final int levelCount;
+	
+	// Largest vertical distance between the full resolution heights and each level's surface
+	private final float[] geometricErrors;
+	
+	private final int[] interiorOffsets;
+	private final int[] interiorCounts;
+	
+	// [level][edge][edge level]
+	private final int[][][] edgeOffsets;
+	private final int[][][] edgeCounts;
+	
+	private int[] indices = new int[1024];
+	private int indexCount = 0;
+	
+	/**
+	 * Builds the index ranges and geometric errors of every level of detail of a height map's mesh
+	 * 
+	 * @param heightMap
+	 */
+	public TerrainLOD(HeightMap heightMap) {
+		this.heightMap = heightMap;
+		this.vertexCount = heightMap.getVertexCount();
+		
+		// Every level needs at least two cells along each side, so that its edge strips have an inner row to meet
+		int levels = 1;
+		while (getColumns(1 << levels).length - 1 >= 2)
+			levels++;
+		levelCount = levels;
+		
+		geometricErrors = new float[levelCount];
+		interiorOffsets = new int[levelCount];
+		interiorCounts = new int[levelCount];
+		edgeOffsets = new int[levelCount][TerrainEdge.values().length][levelCount];
+		edgeCounts = new int[levelCount][TerrainEdge.values().length][levelCount];
+		
+		for (int level = 0; level < levelCount; level++) {
+			int[] columns = getColumns(getStep(level));
+			
+			interiorOffsets[level] = indexCount;
+			addInterior(columns);
+			interiorCounts[level] = indexCount - interiorOffsets[level];
+			
+			for (TerrainEdge edge : TerrainEdge.values()) {
+				for (int edgeLevel = level; edgeLevel < levelCount; edgeLevel++) {
+					edgeOffsets[level][edge.ordinal()][edgeLevel] = indexCount;
+					addEdgeStrip(columns, getColumns(getStep(edgeLevel)), edge);
+					edgeCounts[level][edge.ordinal()][edgeLevel] = indexCount - edgeOffsets[level][edge.ordinal()][edgeLevel];
+				}
+			}
+			
+			// Full resolution has no error, and a coarser level can never be more accurate than a finer one
+			if (level > 0)
+				geometricErrors[level] = Math.max(calculateGeometricError(columns), geometricErrors[level - 1]);
+		}
+		
+		indices = Arrays.copyOf(indices, indexCount);
+	}
+	
+	/**
+	 * @param step
+	 * @return vertex coordinates used along each side of a level whose vertices are step apart; always includes the 
+	 * first and last vertices
+	 */
+	private int[] getColumns(int step) {
+		int last = vertexCount - 1;
+		int count = (last + step - 1) / step + 1;
+		int[] columns = new int[count];
+		
+		for (int i = 0; i < count - 1; i++)
+			columns[i] = i * step;
+		columns[count - 1] = last;
+		
+		return columns;
+	}
+	
+	//================================== Indices ==========================================================
+	
+	/**
+	 * Adds the cells of a level that do not touch any edge of the tile
+	 * 
+	 * @param columns
+	 */
+	private void addInterior(int[] columns) {
+		for (int j = 1; j < columns.length - 2; j++) {
+			for (int i = 1; i < columns.length - 2; i++) {
+				int topLeft = getIndex(columns[i], columns[j]);
+				int topRight = getIndex(columns[i + 1], columns[j]);
+				int bottomLeft = getIndex(columns[i], columns[j + 1]);
+				int bottomRight = getIndex(columns[i + 1], columns[j + 1]);
+				
+				addTriangle(topLeft, bottomLeft, topRight);
+				addTriangle(topRight, bottomLeft, bottomRight);
+			}
+		}
+	}
+	
+	/**
+	 * Adds the strip of triangles between an edge of the tile, whose vertices are spaced as outerColumns, and the 
+	 * outermost row of the interior, whose vertices are columns[1] to columns[length - 2]. The strip runs diagonally
+	 * into each corner, meeting the strips of the two adjacent edges, and is triangulated by zipping its two rows 
+	 * together in order along the edge
+	 * 
+	 * @param columns
+	 * @param outerColumns
+	 * @param edge
+	 */
+	private void addEdgeStrip(int[] columns, int[] outerColumns, TerrainEdge edge) {
+		int last = vertexCount - 1;
+		int outerRow, innerRow;
+		
+		switch (edge) {
+		case MIN_X:
+		case MIN_Z:
+			outerRow = 0;
+			innerRow = columns[1];
+			break;
+		default:
+			outerRow = last;
+			innerRow = columns[columns.length - 2];
+			break;
+		}
+		
+		boolean alongZ = (edge == TerrainEdge.MIN_X || edge == TerrainEdge.MAX_X);
+		
+		int outer = 0, inner = 1;
+		int lastOuter = outerColumns.length - 1, lastInner = columns.length - 2;
+		
+		while (outer < lastOuter || inner < lastInner) {
+			int outerVertex = getEdgeIndex(outerColumns[outer], outerRow, alongZ);
+			int innerVertex = getEdgeIndex(columns[inner], innerRow, alongZ);
+			
+			if (inner == lastInner || (outer < lastOuter && outerColumns[outer + 1] <= columns[inner + 1])) {
+				addTriangle(outerVertex, getEdgeIndex(outerColumns[++outer], outerRow, alongZ), innerVertex);
+			} else {
+				addTriangle(outerVertex, innerVertex, getEdgeIndex(columns[++inner], innerRow, alongZ));
+			}
+		}
+	}
+	
+	private int getEdgeIndex(int along, int across, boolean alongZ) {
+		return alongZ ? getIndex(across, along) : getIndex(along, across);
+	}
+	
+	private int getIndex(int x, int z) {
+		return z * vertexCount + x;
+	}
+	
+	/**
+	 * Adds a triangle, wound in the same direction as those generated by {@link TerrainMeshBuilder}, unless it is degenerate
+	 * 
+	 * @param a
+	 * @param b
+	 * @param c
+	 */
+	private void addTriangle(int a, int b, int c) {
+		int ax = a % vertexCount, az = a / vertexCount;
+		int bx = b % vertexCount, bz = b / vertexCount;
+		int cx = c % vertexCount, cz = c / vertexCount;
+		
+		long cross = (long) (bx - ax) * (cz - az) - (long) (bz - az) * (cx - ax);
+		
+		if (cross == 0)
+			return;
+		
+		if (indexCount + 3 > indices.length)
+			indices = Arrays.copyOf(indices, indices.length * 2);
+		
+		indices[indexCount++] = a;
+		indices[indexCount++] = (cross < 0) ? b : c;
+		indices[indexCount++] = (cross < 0) ? c : b;
+	}
+	
+	//================================== Error ============================================================
+	
+	/**
+	 * Calculates the largest vertical distance between any full resolution vertex and the surface of a level made of
+	 * cells split along the same diagonal as the mesh's. The strips along the edges are triangulated slightly differently,
+	 * so this is an estimate for cells touching an edge
+	 * 
+	 * @param columns
+	 * @return geometric error of the level
+	 */
+	private float calculateGeometricError(int[] columns) {
+		float maxError = 0;
+		
+		for (int j = 0; j < columns.length - 1; j++) {
+			int z0 = columns[j], z1 = columns[j + 1];
+			
+			for (int i = 0; i < columns.length - 1; i++) {
+				int x0 = columns[i], x1 = columns[i + 1];
+				
+				float heightTopLeft     = heightMap.getHeight(x0, z0);
+				float heightTopRight    = heightMap.getHeight(x1, z0);
+				float heightBottomLeft  = heightMap.getHeight(x0, z1);
+				float heightBottomRight = heightMap.getHeight(x1, z1);
+				
+				for (int z = z0; z <= z1; z++) {
+					float v = (float) (z - z0) / (z1 - z0);
+					
+					for (int x = x0; x <= x1; x++) {
+						float u = (float) (x - x0) / (x1 - x0);
+						
+						float height = (u + v <= 1) 
+								? heightTopLeft + u * (heightTopRight - heightTopLeft) + v * (heightBottomLeft - heightTopLeft)
+								: heightBottomRight + (1 - u) * (heightBottomLeft - heightBottomRight) + (1 - v) * (heightTopRight - heightBottomRight);
+						
+						maxError = Math.max(maxError, Math.abs(heightMap.getHeight(x, z) - height));
+					}
+				}
+			}
+		}
+		
+		return maxError;
+	}
+	
+	//================================== Selection ========================================================
+	
+	/**
+	 * Selects the coarsest level whose geometric error, projected onto the screen at a given distance, is within the
+	 * maximum allowed error
+	 * 
+	 * @param distance distance from the camera to the closest point of the tile
+	 * @param perspectiveScale pixels per unit length at a distance of one unit (see {@link TerrainLODSelector#getPerspectiveScale(float, float)})
+	 * @param maxPixelError largest allowed screen space error [pixels]
+	 * @return level of detail, where 0 is full resolution
+	 */
+	public int selectLevel(float distance, float perspectiveScale, float maxPixelError) {
+		for (int level = levelCount - 1; level > 0; level--) {
+			if (geometricErrors[level] * perspectiveScale <= maxPixelError * distance)
+				return level;
+		}
+		
+		return 0;
+	}
+	
+	//================================== Getters ==========================================================
+	
+	/**
+	 * @return indices of every level, interior and edge strip, to be uploaded with the mesh
+	 */
+	public int[] getIndices() {
+		return indices;
+	}
+	
+	public HeightMap getHeightMap() {
+		return heightMap;
+	}
+	
+	public int getLevelCount() {
+		return levelCount;
+	}
+	
+	/**
+	 * @param level
+	 * @return number of vertices skipped between each vertex used at a level
+	 */
+	public static int getStep(int level) {
+		return 1 << level;
+	}
+	
+	/**
+	 * @param level
+	 * @return largest vertical distance between the full resolution heights and the level's surface
+	 */
+	public float getGeometricError(int level) {
+		return geometricErrors[level];
+	}
+	
+	/**
+	 * @param level
+	 * @return offset into {@link TerrainLOD#getIndices()} of the interior of a level
+	 */
+	public int getInteriorOffset(int level) {
+		return interiorOffsets[level];
+	}
+	
+	/**
+	 * @param level
+	 * @return number of indices in the interior of a level
+	 */
+	public int getInteriorCount(int level) {
+		return interiorCounts[level];
+	}
+	
+	/**
+	 * @param level
+	 * @param edge
+	 * @param edgeLevel level of the outer vertices along the edge; the level of the coarser of this tile and its neighbor
+	 * @return offset into {@link TerrainLOD#getIndices()} of the strip along an edge of a level
+	 */
+	public int getEdgeOffset(int level, TerrainEdge edge, int edgeLevel) {
+		return edgeOffsets[level][edge.ordinal()][edgeLevel];
+	}
+	
+	/**
+	 * @param level
+	 * @param edge
+	 * @param edgeLevel level of the outer vertices along the edge; the level of the coarser of this tile and its neighbor
+	 * @return number of indices in the strip along an edge of a level
+	 */
+	public int getEdgeCount(int level, TerrainEdge edge, int edgeLevel) {
+		return edgeCounts[level][edge.ordinal()][edgeLevel];
+	}
+}
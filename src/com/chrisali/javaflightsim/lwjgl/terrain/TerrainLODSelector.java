@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.terrain;
+
+import org.lwjgl.util.vector.Vector3f;
+
+/**
+ * Selects the {@link TerrainLOD} level of each {@link Terrain} tile from its distance to the camera and the screen 
+ * space error each level would produce, and the level that each edge of a tile must match so that there are no cracks
+ * between it and its neighbors. No OpenGL calls are made, so levels can be selected without an OpenGL context
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TerrainLODSelector {
+	
+	private float maxPixelError;
+	
+	/**
+	 * @param maxPixelError largest screen space error allowed of a tile's level [pixels]
+	 */
+	public TerrainLODSelector(float maxPixelError) {
+		this.maxPixelError = maxPixelError;
+	}
+	
+	/**
+	 * Selects the level of detail of every tile whose levels have been built
+	 * 
+	 * @param terrains
+	 * @param cameraPosition
+	 * @param perspectiveScale pixels per unit length at a distance of one unit (see {@link TerrainLODSelector#getPerspectiveScale(float, float)})
+	 */
+	public void selectLevels(Iterable<Terrain> terrains, Vector3f cameraPosition, float perspectiveScale) {
+		for (Terrain terrain : terrains) {
+			TerrainLOD lod = terrain.getLOD();
+			
+			if (lod != null)
+				terrain.setLODLevel(lod.selectLevel(getDistance(terrain, cameraPosition), perspectiveScale, maxPixelError));
+		}
+	}
+	
+	/**
+	 * @param terrain
+	 * @param position
+	 * @return distance from a position to the closest point of the box bounding a tile
+	 */
+	public static float getDistance(Terrain terrain, Vector3f position) {
+		float dx = Math.max(0, Math.max(terrain.getX() - position.x, position.x - (terrain.getX() + Terrain.getSize())));
+		float dy = Math.max(0, Math.abs(position.y) - Terrain.getMaxHeight());
+		float dz = Math.max(0, Math.max(terrain.getZ() - position.z, position.z - (terrain.getZ() + Terrain.getSize())));
+		
+		return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+	}
+	
+	/**
+	 * @param fovDegrees vertical field of view
+	 * @param viewportHeight [pixels]
+	 * @return pixels per unit length of an object one unit away from the camera
+	 */
+	public static float getPerspectiveScale(float fovDegrees, float viewportHeight) {
+		return (float) (viewportHeight / (2 * Math.tan(Math.toRadians(fovDegrees) / 2)));
+	}
+	
+	/**
+	 * Finds the level that the outer vertices along an edge of a tile must use; the coarser of the tile's own level and
+	 * that of the neighbor sharing the edge, if the neighbor is being drawn
+	 * 
+	 * @param terrainMap
+	 * @param terrain
+	 * @param edge
+	 * @return level of the edge strip to draw
+	 */
+	public static int getEdgeLevel(TerrainMap terrainMap, Terrain terrain, TerrainEdge edge) {
+		int level = terrain.getLODLevel();
+		Terrain neighbor = terrainMap.get(terrain.getGridX() + edge.getGridOffsetX(), terrain.getGridZ() + edge.getGridOffsetZ());
+		
+		if (neighbor == null || neighbor.getLOD() == null || neighbor.getModel() == null)
+			return level;
+		
+		return Math.min(Math.max(level, neighbor.getLODLevel()), terrain.getLOD().getLevelCount() - 1);
+	}
+	
+	public float getMaxPixelError() {
+		return maxPixelError;
+	}
+	
+	public void setMaxPixelError(float maxPixelError) {
+		this.maxPixelError = maxPixelError;
+	}
+}
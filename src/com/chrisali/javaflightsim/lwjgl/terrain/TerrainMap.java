@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.terrain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Index of {@link Terrain} tiles by their grid coordinates. Each tile's gridX and gridZ are packed into one long key 
+ * stored in an open addressing hash table, so that looking up the tile under a world position every frame neither 
+ * builds a String key nor boxes a number
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TerrainMap {
+	
+	private long[] keys = new long[16];
+	private Terrain[] tiles = new Terrain[16];
+	
+	private final List<Terrain> values = new ArrayList<>();
+	private final List<Terrain> unmodifiableValues = Collections.unmodifiableList(values);
+	
+	/**
+	 * Packs a pair of grid coordinates into a single key
+	 * 
+	 * @param gridX
+	 * @param gridZ
+	 * @return key of the grid coordinates
+	 */
+	public static long pack(int gridX, int gridZ) {
+		return ((long) gridX << 32) | (gridZ & 0xFFFFFFFFL);
+	}
+	
+	/**
+	 * @param gridX
+	 * @param gridZ
+	 * @return tile at the grid coordinates, or null if there is none
+	 */
+	public Terrain get(int gridX, int gridZ) {
+		long key = pack(gridX, gridZ);
+		int mask = keys.length - 1;
+		
+		for (int slot = hash(key) & mask; tiles[slot] != null; slot = (slot + 1) & mask) {
+			if (keys[slot] == key)
+				return tiles[slot];
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Adds a tile at its grid coordinates, replacing any tile already there
+	 * 
+	 * @param terrain
+	 * @return tile previously at the grid coordinates, or null if there was none
+	 */
+	public Terrain put(Terrain terrain) {
+		long key = pack(terrain.getGridX(), terrain.getGridZ());
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		
+		for (; tiles[slot] != null; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				Terrain previous = tiles[slot];
+				tiles[slot] = terrain;
+				values.set(values.indexOf(previous), terrain);
+				return previous;
+			}
+		}
+		
+		keys[slot] = key;
+		tiles[slot] = terrain;
+		values.add(terrain);
+		
+		// Keep the table at most half full
+		if (values.size() * 2 > keys.length)
+			resize();
+		
+		return null;
+	}
+	
+	/**
+	 * Removes the tile at the grid coordinates
+	 * 
+	 * @param gridX
+	 * @param gridZ
+	 * @return tile that was removed, or null if there was none
+	 */
+	public Terrain remove(int gridX, int gridZ) {
+		long key = pack(gridX, gridZ);
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		
+		for (; tiles[slot] != null; slot = (slot + 1) & mask) {
+			if (keys[slot] == key)
+				break;
+		}
+		
+		Terrain removed = tiles[slot];
+		if (removed == null)
+			return null;
+		
+		tiles[slot] = null;
+		values.remove(removed);
+		
+		// Shift back any following entries that would no longer be reachable through the emptied slot
+		for (int next = (slot + 1) & mask; tiles[next] != null; next = (next + 1) & mask) {
+			int home = hash(keys[next]) & mask;
+			
+			if (((next - home) & mask) >= ((next - slot) & mask)) {
+				keys[slot] = keys[next];
+				tiles[slot] = tiles[next];
+				tiles[next] = null;
+				slot = next;
+			}
+		}
+		
+		return removed;
+	}
+	
+	/**
+	 * @return read-only view of all tiles in the map, in the order they were added
+	 */
+	public List<Terrain> values() {
+		return unmodifiableValues;
+	}
+	
+	public int size() {
+		return values.size();
+	}
+	
+	public boolean isEmpty() {
+		return values.isEmpty();
+	}
+	
+	private void resize() {
+		keys = new long[keys.length * 2];
+		tiles = new Terrain[tiles.length * 2];
+		int mask = keys.length - 1;
+		
+		for (Terrain terrain : values) {
+			long key = pack(terrain.getGridX(), terrain.getGridZ());
+			int slot = hash(key) & mask;
+			
+			while (tiles[slot] != null)
+				slot = (slot + 1) & mask;
+			
+			keys[slot] = key;
+			tiles[slot] = terrain;
+		}
+	}
+	
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
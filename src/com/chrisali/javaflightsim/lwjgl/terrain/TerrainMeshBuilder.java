@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.lwjgl.terrain;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+
+import com.chrisali.javaflightsim.lwjgl.models.MeshData;
+
+/**
+ * Generates the vertices, normals, texture coordinates and indices of a {@link Terrain} mesh from a {@link HeightMap}.
+ * Rows of the mesh are split between the threads of the common {@link ForkJoinPool}, and distinct height maps can be
+ * built in parallel with {@link TerrainMeshBuilder#buildAll(List)}. No OpenGL calls are made, so meshes can be built 
+ * from any thread, including without an OpenGL context
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TerrainMeshBuilder {
+	
+	// Number of rows below which a task generates its rows itself rather than splitting them further
+	private static final int ROWS_PER_TASK = 32;
+	
+	private TerrainMeshBuilder() {}
+	
+	/**
+	 * Builds a full resolution terrain mesh from a height map, splitting its rows between the threads of the common 
+	 * {@link ForkJoinPool}
+	 * 
+	 * @param heightMap
+	 * @return terrain mesh, or null if heightMap is null
+	 */
+	public static MeshData build(HeightMap heightMap) {
+		if (heightMap == null)
+			return null;
+		
+		int vertexCount = heightMap.getVertexCount();
+		
+		return build(heightMap, new int[6 * (vertexCount - 1) * (vertexCount - 1)], true);
+	}
+	
+	/**
+	 * Builds the vertices of a terrain mesh from the height map of its levels of detail, using the levels' indices, 
+	 * splitting its rows between the threads of the common {@link ForkJoinPool}
+	 * 
+	 * @param lod
+	 * @return terrain mesh, or null if lod is null
+	 */
+	public static MeshData build(TerrainLOD lod) {
+		if (lod == null)
+			return null;
+		
+		return build(lod.getHeightMap(), lod.getIndices(), false);
+	}
+	
+	private static MeshData build(HeightMap heightMap, int[] indices, boolean generateIndices) {
+		int vertexCount = heightMap.getVertexCount();
+		int count = vertexCount * vertexCount;
+		
+		float[] vertices = new float[count * 3];
+		float[] normals = new float[count * 3];
+		float[] textureCoords = new float[count * 2];
+		
+		ForkJoinPool.commonPool().invoke(new RowTask(heightMap, 0, vertexCount, vertices, normals, textureCoords, 
+													 generateIndices ? indices : null));
+		
+		return new MeshData(vertices, textureCoords, normals, indices);
+	}
+	
+	/**
+	 * Builds a terrain mesh for each of several distinct height maps in parallel on the common {@link ForkJoinPool}
+	 * 
+	 * @param heightMaps
+	 * @return terrain meshes in the same order as heightMaps; null where a height map is null
+	 */
+	public static List<MeshData> buildAll(List<HeightMap> heightMaps) {
+		return heightMaps.parallelStream()
+						 .map(TerrainMeshBuilder::build)
+						 .collect(Collectors.toList());
+	}
+	
+	/**
+	 * Generates rows [fromRow, toRow) of a terrain mesh, along with the indices of the grid squares whose top left corners
+	 * lie in those rows if indices is not null. Each row writes to its own range of the output arrays, so rows can be generated in any order
+	 */
+	private static class RowTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final HeightMap heightMap;
+		private final int fromRow, toRow;
+		private final float[] vertices, normals, textureCoords;
+		private final int[] indices;
+		
+		private RowTask(HeightMap heightMap, int fromRow, int toRow, 
+						float[] vertices, float[] normals, float[] textureCoords, int[] indices) {
+			this.heightMap = heightMap;
+			this.fromRow = fromRow;
+			this.toRow = toRow;
+			this.vertices = vertices;
+			this.normals = normals;
+			this.textureCoords = textureCoords;
+			this.indices = indices;
+		}
+		
+		@Override
+		protected void compute() {
+			if (toRow - fromRow > ROWS_PER_TASK) {
+				int middleRow = (fromRow + toRow) >>> 1;
+				
+				invokeAll(new RowTask(heightMap, fromRow, middleRow, vertices, normals, textureCoords, indices),
+						  new RowTask(heightMap, middleRow, toRow, vertices, normals, textureCoords, indices));
+			} else {
+				generateVertices();
+				
+				if (indices != null)
+					generateIndices();
+			}
+		}
+		
+		private void generateVertices() {
+			int vertexCount = heightMap.getVertexCount();
+			float[] heights = heightMap.getHeights();
+			float size = Terrain.getSize();
+			float lastVertex = vertexCount - 1;
+			
+			for (int i = fromRow; i < toRow; i++) {
+				int vertexPointer = i * vertexCount;
+				
+				for (int j = 0; j < vertexCount; j++, vertexPointer++) {
+					vertices[vertexPointer*3]   = j / lastVertex * size;
+					vertices[vertexPointer*3+1] = heights[vertexPointer];
+					vertices[vertexPointer*3+2] = i / lastVertex * size;
+					
+					// Normal from the slopes between neighboring vertices, for use with lighting or specular calculations
+					float normalX = heightMap.getHeight(j-1, i) - heightMap.getHeight(j+1, i);
+					float normalZ = heightMap.getHeight(j, i-1) - heightMap.getHeight(j, i+1);
+					float length  = (float) Math.sqrt(normalX * normalX + 4f + normalZ * normalZ);
+					
+					normals[vertexPointer*3]   = normalX / length;
+					normals[vertexPointer*3+1] = 2f / length;
+					normals[vertexPointer*3+2] = normalZ / length;
+					
+					textureCoords[vertexPointer*2]   = j / lastVertex;
+					textureCoords[vertexPointer*2+1] = i / lastVertex;
+				}
+			}
+		}
+		
+		private void generateIndices() {
+			int vertexCount = heightMap.getVertexCount();
+			int lastRow = Math.min(toRow, vertexCount - 1);
+			
+			for (int gz = fromRow; gz < lastRow; gz++) {
+				int pointer = gz * (vertexCount - 1) * 6;
+				
+				for (int gx = 0; gx < vertexCount - 1; gx++) {
+					int topLeft = (gz * vertexCount) + gx;
+					int topRight = topLeft + 1;
+					int bottomLeft = ((gz + 1) * vertexCount) + gx;
+					int bottomRight = bottomLeft + 1;
+					
+					indices[pointer++] = topLeft;
+					indices[pointer++] = bottomLeft;
+					indices[pointer++] = topRight;
+					indices[pointer++] = topRight;
+					indices[pointer++] = bottomLeft;
+					indices[pointer++] = bottomRight;
+				}
+			}
+		}
+	}
+}
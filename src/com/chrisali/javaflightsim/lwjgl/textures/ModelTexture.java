@@ -41,6 +41,10 @@ public class ModelTexture {
 	public int getTextureID() {
 		return textureID;
 	}
+	
+	public void setTextureID(int textureID) {
+		this.textureID = textureID;
+	}
 
 	public float getShineDamper() {
 		return shineDamper;
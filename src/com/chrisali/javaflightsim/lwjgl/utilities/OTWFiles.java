@@ -15,6 +15,7 @@ public enum OTWFiles {
 	// Extensions
 	TEXTURE_EXT     (".png"),
 	MODEL_EXT		(".obj"),
+	MESH_EXT		(".mesh"),
 	SOUND_EXT       (".wav"),
 	FONT_EXT		(".fnt");
 	
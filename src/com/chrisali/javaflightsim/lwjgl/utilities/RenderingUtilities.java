@@ -122,6 +122,31 @@ public class RenderingUtilities {
 		  return viewMatrix;
 	}
 	
+	/**
+	 * Creates a 4D perspective projection matrix
+	 * 
+	 * @param fov field of view [deg]
+	 * @param aspectRatio width of the display divided by its height
+	 * @param nearPlane
+	 * @param farPlane
+	 * @return 4D projection matrix
+	 */
+	public static Matrix4f createProjectionMatrix(float fov, float aspectRatio, float nearPlane, float farPlane) {
+		float y_scale = (float) ((1f / Math.tan(Math.toRadians(fov/2f))) * aspectRatio);
+		float x_scale = y_scale / aspectRatio;
+		float frustum_length = farPlane - nearPlane;
+		
+		Matrix4f projectionMatrix = new Matrix4f();
+		projectionMatrix.m00 = x_scale;
+		projectionMatrix.m11 = y_scale;
+		projectionMatrix.m22 = -((farPlane + nearPlane) / frustum_length);
+		projectionMatrix.m23 = -1;
+		projectionMatrix.m32 = -((2 * nearPlane * farPlane) / frustum_length);
+		projectionMatrix.m33 = 0;
+		
+		return projectionMatrix;
+	}
+	
 	/**
 	 * Generates a barycentric coordinate using the coordinates of each point in a triangle
 	 * 
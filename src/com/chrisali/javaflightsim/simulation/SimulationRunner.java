@@ -32,6 +32,7 @@ import com.chrisali.javaflightsim.interfaces.Steppable;
 import com.chrisali.javaflightsim.lwjgl.LWJGLWorld;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsStateManager;
 import com.chrisali.javaflightsim.simulation.datatransfer.SimulationEventListener;
+import com.chrisali.javaflightsim.simulation.diagnostics.LatencyTracer;
 import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
 import com.chrisali.javaflightsim.simulation.integration.SimOuts;
 import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
@@ -52,6 +53,8 @@ public class SimulationRunner implements Runnable {
 	private FlightControlsStateManager flightControlsManager;
 	private Integrate6DOFEquations simulation;
 	private LWJGLWorld outTheWindow;
+	
+	private LatencyTracer latencyTracer = new LatencyTracer();
 
 	private List<SimulationEventListener> simulationEventListeners = new ArrayList<>();
 	
@@ -78,6 +81,9 @@ public class SimulationRunner implements Runnable {
 		
 		logger.info("Initializing simulation...");
 		simulation = new Integrate6DOFEquations(flightControlsManager.getControlsState(), configuration);
+		
+		flightControlsManager.setLatencyTracer(latencyTracer);
+		simulation.setLatencyTracer(latencyTracer);
 
 		if (options.contains(Options.ANALYSIS_MODE)) {
 			logger.info("Will run simulation in Analysis Mode...");
@@ -87,7 +93,8 @@ public class SimulationRunner implements Runnable {
 			logger.info("Instantiating LWJGL world...");
 			outTheWindow = new LWJGLWorld(configuration);
 			outTheWindow.addEnvironmentDataListener(simulation);
-			outTheWindow.addinputDataListener(flightControlsManager);
+			outTheWindow.setInputEvents(flightControlsManager.getInputEvents());
+			outTheWindow.setLatencyTracer(latencyTracer);
 			
 			simulation.addFlightDataListener(outTheWindow);
 		}
@@ -151,6 +158,9 @@ public class SimulationRunner implements Runnable {
 		}
 		
 		running = false;
+		
+		if (outTheWindow != null)
+			logger.info(latencyTracer);
 
 		simulationEventListeners.forEach(listener -> listener.onStopSimulation());
 	}
@@ -181,6 +191,13 @@ public class SimulationRunner implements Runnable {
 		return (simulation != null) ? simulation.getLogsOut() : null;
 	}
 	
+	/**
+	 * @return tracer of input latency from polling to display, whose histograms are only populated in Normal Mode
+	 */
+	public LatencyTracer getLatencyTracer() {
+		return latencyTracer;
+	}
+	
 	/**
 	 * @return If out sumulation is running
 	 */
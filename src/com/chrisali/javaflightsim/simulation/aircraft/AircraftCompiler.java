@@ -0,0 +1,369 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.aircraft;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.propulsion.Engine;
+import com.chrisali.javaflightsim.simulation.propulsion.FixedPitchPropEngine;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+import com.chrisali.javaflightsim.simulation.utilities.SimDirectories;
+
+/**
+ * Compiles an aircraft's Aircraft.json into a versioned binary sidecar, Aircraft.bin, located in the same
+ * Aircraft/{aircraftName} directory. The sidecar holds mass properties, wing geometry and ground reaction values, each
+ * stability derivative as its breakpoints plus a flattened array of lookup values, and the engine parameters. It is read
+ * back with a single memory mapped read, which avoids JSON parsing when starting the simulation.
+ *
+ * <p>The size and CRC32 checksum of the Aircraft.json used to compile the sidecar are recorded in its header. If Aircraft.json
+ * has changed since, or if the sidecar was written by a different format version, {@link AircraftCompiler#load(String)}
+ * returns null so that the caller falls back to reading the JSON file</p>
+ *
+ * <p>Run this class's main method to compile all aircraft in the Aircraft directory, or only those whose names are
+ * passed as arguments</p>
+ */
+public class AircraftCompiler {
+
+	private static final Logger logger = LogManager.getLogger(AircraftCompiler.class);
+
+	public static final String COMPILED_EXT = ".bin";
+
+	// "JFSA" in ASCII
+	private static final int MAGIC = 0x4A465341;
+
+	// Increment whenever the layout of the sidecar changes
+	private static final int FORMAT_VERSION = 1;
+
+	private static final byte CONSTANT_TABLE = 0;
+	private static final byte INTERPOLATED_TABLE = 1;
+
+	private AircraftCompiler() {}
+
+	/**
+	 * Reads Aircraft/{aircraftName}/Aircraft.json and writes its compiled representation to Aircraft/{aircraftName}/Aircraft.bin
+	 *
+	 * @param aircraftName
+	 * @throws IOException if Aircraft.json could not be read or the sidecar could not be written
+	 */
+	public static void compile(String aircraftName) throws IOException {
+		Path jsonPath = getJsonPath(aircraftName);
+		Path compiledPath = getCompiledPath(aircraftName);
+
+		byte[] json = Files.readAllBytes(jsonPath);
+		Aircraft aircraft = FileUtilities.readAircraftJson(aircraftName);
+
+		if (aircraft == null)
+			throw new IOException("Unable to deserialize " + jsonPath);
+
+		logger.info("Compiling " + jsonPath + " to " + compiledPath + "...");
+
+		// Write to a temporary file first so that a partially written sidecar is never read
+		Path tempPath = compiledPath.resolveSibling(compiledPath.getFileName() + ".tmp");
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeLong(json.length);
+			out.writeLong(checksum(json));
+
+			writeString(out, aircraft.getName());
+
+			writeValues(out, aircraft.getMassProps());
+			writeValues(out, aircraft.getWingGeometry());
+			writeValues(out, aircraft.getGroundReaction());
+
+			Map<StabilityDerivatives, LookupTable> stabDerivs = aircraft.getStabDerivs();
+			out.writeInt(stabDerivs.size());
+			for (Map.Entry<StabilityDerivatives, LookupTable> entry : stabDerivs.entrySet())
+				writeLookupTable(out, entry.getKey(), entry.getValue());
+
+			Set<Engine> engines = aircraft.getEngines();
+			out.writeInt(engines.size());
+			for (Engine engine : engines)
+				writeEngine(out, engine);
+		}
+
+		Files.move(tempPath, compiledPath, StandardCopyOption.REPLACE_EXISTING);
+
+		logger.info("...done!");
+	}
+
+	/**
+	 * Creates an {@link Aircraft} object from Aircraft/{aircraftName}/Aircraft.bin if it exists and is up to date
+	 * with Aircraft.json
+	 *
+	 * @param aircraftName
+	 * @return {@link Aircraft} read from the compiled sidecar, or null if the sidecar is missing, stale or unreadable
+	 */
+	public static Aircraft load(String aircraftName) {
+		Path compiledPath = getCompiledPath(aircraftName);
+
+		if (!Files.exists(compiledPath))
+			return null;
+
+		try (FileChannel channel = FileChannel.open(compiledPath, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+				logger.info(compiledPath + " was compiled by a different version; falling back to JSON");
+				return null;
+			}
+
+			if (!isCurrent(getJsonPath(aircraftName), buffer.getLong(), buffer.getLong())) {
+				logger.info(compiledPath + " is out of date with its JSON file; falling back to JSON");
+				return null;
+			}
+
+			logger.info("Reading compiled aircraft: " + compiledPath + "...");
+
+			Aircraft aircraft = new Aircraft(readString(buffer));
+
+			readValues(buffer, aircraft.getMassProps(), MassProperties.class);
+			readValues(buffer, aircraft.getWingGeometry(), WingGeometry.class);
+			readValues(buffer, aircraft.getGroundReaction(), GroundReaction.class);
+
+			Map<StabilityDerivatives, LookupTable> stabDerivs = aircraft.getStabDerivs();
+			for (int i = buffer.getInt(); i > 0; i--) {
+				StabilityDerivatives stabDer = StabilityDerivatives.valueOf(readString(buffer));
+				stabDerivs.put(stabDer, readLookupTable(buffer));
+			}
+
+			Set<Engine> engines = new LinkedHashSet<>();
+			for (int i = buffer.getInt(); i > 0; i--)
+				engines.add(readEngine(buffer));
+			aircraft.setEngines(engines);
+
+			logger.info("...done!");
+
+			return aircraft;
+		} catch (NoSuchFileException e) {
+			logger.info("Could not find JSON file for " + compiledPath + "; falling back to JSON");
+		} catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+			logger.warn("Unable to read " + compiledPath + "; falling back to JSON", e);
+		}
+
+		return null;
+	}
+
+	/**
+	 * @param jsonPath
+	 * @param compiledSize size of the JSON file when the sidecar was compiled
+	 * @param compiledChecksum checksum of the JSON file when the sidecar was compiled
+	 * @return if the JSON file is unchanged since the sidecar was compiled
+	 * @throws IOException
+	 */
+	private static boolean isCurrent(Path jsonPath, long compiledSize, long compiledChecksum) throws IOException {
+		if (Files.size(jsonPath) != compiledSize)
+			return false;
+
+		return checksum(Files.readAllBytes(jsonPath)) == compiledChecksum;
+	}
+
+	private static long checksum(byte[] bytes) {
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+
+		return crc.getValue();
+	}
+
+	public static Path getJsonPath(String aircraftName) {
+		return Paths.get(FileUtilities.FILE_ROOT + SimDirectories.AIRCRAFT.toString(), aircraftName,
+						 Aircraft.class.getSimpleName() + FileUtilities.CONFIG_EXT);
+	}
+
+	public static Path getCompiledPath(String aircraftName) {
+		return Paths.get(FileUtilities.FILE_ROOT + SimDirectories.AIRCRAFT.toString(), aircraftName,
+						 Aircraft.class.getSimpleName() + COMPILED_EXT);
+	}
+
+	//===================================================================================================
+	//										Writing
+	//===================================================================================================
+
+	private static void writeString(DataOutputStream out, String string) throws IOException {
+		byte[] bytes = (string == null ? "" : string).getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static <E extends Enum<E>> void writeValues(DataOutputStream out, Map<E, Double> values) throws IOException {
+		out.writeInt(values.size());
+
+		for (Map.Entry<E, Double> entry : values.entrySet()) {
+			writeString(out, entry.getKey().name());
+			out.writeDouble(entry.getValue() == null ? Double.NaN : entry.getValue());
+		}
+	}
+
+	private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+		out.writeInt(values.length);
+
+		for (double value : values)
+			out.writeDouble(value);
+	}
+
+	private static void writeLookupTable(DataOutputStream out, StabilityDerivatives stabDer, LookupTable table) throws IOException {
+		writeString(out, stabDer.name());
+		writeString(out, table.getName());
+		out.writeDouble(table.getValue() == null ? Double.NaN : table.getValue());
+
+		double[] breakPointAngle = table.getBreakPointAngle();
+		double[] breakPointFlap = table.getBreakPointFlap();
+		double[][] lookupValues = table.getLookupValues();
+
+		if (breakPointAngle == null || breakPointFlap == null || lookupValues == null) {
+			out.writeByte(CONSTANT_TABLE);
+			return;
+		}
+
+		out.writeByte(INTERPOLATED_TABLE);
+		writeDoubles(out, breakPointAngle);
+		writeDoubles(out, breakPointFlap);
+
+		// Lookup values are flattened row by row, with one row per angle breakpoint
+		for (double[] row : lookupValues) {
+			for (int j = 0; j < breakPointFlap.length; j++)
+				out.writeDouble(row[j]);
+		}
+	}
+
+	private static void writeEngine(DataOutputStream out, Engine engine) throws IOException {
+		writeString(out, engine.getClass().getSimpleName());
+		writeString(out, engine.getEngineName());
+		out.writeInt(engine.getEngineNumber());
+		out.writeDouble(engine.getMaxBHP());
+		out.writeDouble(engine.getMaxRPM());
+		out.writeDouble(engine.getPropDiameter());
+		out.writeDouble(engine.getPropEfficiency());
+		writeDoubles(out, engine.getEnginePosition());
+	}
+
+	//===================================================================================================
+	//										Reading
+	//===================================================================================================
+
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static <E extends Enum<E>> void readValues(ByteBuffer buffer, Map<E, Double> values, Class<E> keyClass) {
+		for (int i = buffer.getInt(); i > 0; i--) {
+			E key = Enum.valueOf(keyClass, readString(buffer));
+			double value = buffer.getDouble();
+
+			values.put(key, Double.isNaN(value) ? null : value);
+		}
+	}
+
+	private static double[] readDoubles(ByteBuffer buffer) {
+		double[] values = new double[buffer.getInt()];
+		buffer.asDoubleBuffer().get(values);
+		buffer.position(buffer.position() + values.length * Double.BYTES);
+
+		return values;
+	}
+
+	private static LookupTable readLookupTable(ByteBuffer buffer) {
+		String name = readString(buffer);
+		double value = buffer.getDouble();
+
+		if (buffer.get() == CONSTANT_TABLE)
+			return new LookupTable(value, name);
+
+		double[] breakPointAngle = readDoubles(buffer);
+		double[] breakPointFlap = readDoubles(buffer);
+
+		double[][] lookupValues = new double[breakPointAngle.length][breakPointFlap.length];
+		for (double[] row : lookupValues) {
+			buffer.asDoubleBuffer().get(row);
+			buffer.position(buffer.position() + row.length * Double.BYTES);
+		}
+
+		return new LookupTable(breakPointAngle, breakPointFlap, lookupValues, value, name);
+	}
+
+	private static Engine readEngine(ByteBuffer buffer) {
+		String engineType = readString(buffer);
+
+		if (!FixedPitchPropEngine.class.getSimpleName().equals(engineType))
+			throw new IllegalArgumentException("Unknown engine type: " + engineType);
+
+		// Populate the engine the same way that JSON deserialization does
+		FixedPitchPropEngine engine = new FixedPitchPropEngine();
+		engine.setEngineName(readString(buffer));
+		engine.setEngineNumber(buffer.getInt());
+		engine.setMaxBHP(buffer.getDouble());
+		engine.setMaxRPM(buffer.getDouble());
+		engine.setPropDiameter(buffer.getDouble());
+		engine.setPropEfficiency(buffer.getDouble());
+		engine.setEnginePosition(readDoubles(buffer));
+
+		return engine;
+	}
+
+	/**
+	 * Compiles the aircraft whose names are passed in as arguments, or all aircraft in the Aircraft directory
+	 * if no arguments are given
+	 *
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		String[] aircraftNames = args;
+
+		if (aircraftNames.length == 0)
+			aircraftNames = new File(FileUtilities.FILE_ROOT + SimDirectories.AIRCRAFT.toString()).list((dir, name) -> new File(dir, name).isDirectory());
+
+		if (aircraftNames == null)
+			return;
+
+		for (String aircraftName : aircraftNames) {
+			try {
+				compile(aircraftName);
+			} catch (IOException e) {
+				logger.error("Unable to compile " + aircraftName + "!", e);
+			}
+		}
+	}
+}
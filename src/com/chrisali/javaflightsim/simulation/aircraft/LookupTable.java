@@ -19,6 +19,11 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.aircraft;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.apache.commons.math3.analysis.interpolation.PiecewiseBicubicSplineInterpolatingFunction;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -56,6 +61,23 @@ public class LookupTable {
 	@JsonIgnore
 	private PiecewiseBicubicSplineInterpolatingFunction pbsif;
 	
+	// Enough interpolating functions for the stability derivatives of several aircraft
+	@JsonIgnore
+	private static final int MAX_CACHED_INTERPOLATORS = 128;
+	
+	// Interpolating functions are immutable once built, so tables with identical data can share them across aircraft reads;
+	// the least recently used are evicted so that switching between many aircraft does not grow the cache without bound
+	@JsonIgnore
+	private static final Map<TableData, PiecewiseBicubicSplineInterpolatingFunction> interpolatorCache = Collections.synchronizedMap(
+		new LinkedHashMap<TableData, PiecewiseBicubicSplineInterpolatingFunction>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<TableData, PiecewiseBicubicSplineInterpolatingFunction> eldest) {
+				return size() > MAX_CACHED_INTERPOLATORS;
+			}
+		});
+	
 	public LookupTable() {}
 
 	/**
@@ -91,8 +113,47 @@ public class LookupTable {
 		this.name = name;
 		
 		if (breakPointAngle != null && breakPointFlap != null && lookupValues != null) {
-			logger.info("Creating an interpolating lookup table for " + name + "...");
-			pbsif = new PiecewiseBicubicSplineInterpolatingFunction(breakPointAngle, breakPointFlap, lookupValues);
+			pbsif = interpolatorCache.computeIfAbsent(new TableData(breakPointAngle, breakPointFlap, lookupValues), data -> {
+				logger.info("Creating an interpolating lookup table for " + name + "...");
+				return new PiecewiseBicubicSplineInterpolatingFunction(data.breakPointAngle, data.breakPointFlap, data.lookupValues);
+			});
+		}
+	}
+	
+	/**
+	 * Copy of a table's breakpoints and values used as a key for {@link LookupTable#interpolatorCache}
+	 */
+	private static class TableData {
+		private final double[] breakPointAngle;
+		private final double[] breakPointFlap;
+		private final double[][] lookupValues;
+		private final int hashCode;
+		
+		private TableData(double[] breakPointAngle, double[] breakPointFlap, double[][] lookupValues) {
+			this.breakPointAngle = breakPointAngle.clone();
+			this.breakPointFlap = breakPointFlap.clone();
+			this.lookupValues = new double[lookupValues.length][];
+			for (int i = 0; i < lookupValues.length; i++)
+				this.lookupValues[i] = lookupValues[i].clone();
+			
+			this.hashCode = 31 * (31 * Arrays.hashCode(breakPointAngle) + Arrays.hashCode(breakPointFlap)) + Arrays.deepHashCode(lookupValues);
+		}
+		
+		@Override
+		public int hashCode() { return hashCode; }
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof TableData))
+				return false;
+			
+			TableData other = (TableData) obj;
+			return hashCode == other.hashCode 
+					&& Arrays.equals(breakPointAngle, other.breakPointAngle)
+					&& Arrays.equals(breakPointFlap, other.breakPointFlap)
+					&& Arrays.deepEquals(lookupValues, other.lookupValues);
 		}
 	}
 
@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.datatransfer;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.chrisali.javaflightsim.lwjgl.input.InputMaster;
+import com.chrisali.javaflightsim.simulation.flightcontrols.ControlParameter;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsStateManager;
+
+/**
+ * Lock-free, single producer/single consumer ring buffer of timestamped input events, published by 
+ * {@link InputMaster} as input devices are polled and drained by {@link FlightControlsStateManager} as the 
+ * simulation steps. Events are stored in preallocated arrays, so neither side allocates or blocks
+ * 
+ * Relative parameters (key commands) are delivered in the order they were published; absolute parameters 
+ * (joystick axes) are coalesced, so only the latest value of each axis is delivered per drain
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class InputEventQueue {
+	
+	/**
+	 * Receives events drained from an {@link InputEventQueue}
+	 * 
+	 * @author Christopher Ali
+	 *
+	 */
+	@FunctionalInterface
+	public interface InputEventHandler {
+		
+		/**
+		 * @param parameter key command or axis of the event
+		 * @param value value of the parameter
+		 * @param timestamp time at which the event was sampled (nanoseconds, {@link System#nanoTime()})
+		 */
+		void onInputEvent(ControlParameter parameter, float value, long timestamp);
+	}
+	
+	private final int capacity;
+	private final int mask;
+	
+	private final long[] timestamps;
+	private final ControlParameter[] parameters;
+	private final float[] values;
+	
+	/**
+	 * Sequence of the next event to be published; only advanced by the producer
+	 */
+	private final AtomicLong tail = new AtomicLong();
+	
+	/**
+	 * Sequence of the next event to be drained; only advanced by the consumer
+	 */
+	private final AtomicLong head = new AtomicLong();
+	
+	/**
+	 * Producer's last view of head, so that the consumer's sequence is only read when the queue appears full
+	 */
+	private long headCache;
+	
+	private final AtomicLong droppedEvents = new AtomicLong();
+	
+	//=========================== Coalesced Axes ======================================
+	
+	private ControlParameter[] coalescedAxes = new ControlParameter[8];
+	private float[] coalescedValues = new float[8];
+	private long[] coalescedTimestamps = new long[8];
+	private int coalescedCount;
+	
+	/**
+	 * @param capacity maximum number of events held before new events are dropped; rounded up to a power of two
+	 */
+	public InputEventQueue(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Input event queue capacity must be positive!");
+		
+		int rounded = 1;
+		while (rounded < capacity)
+			rounded <<= 1;
+		
+		this.capacity = rounded;
+		mask = rounded - 1;
+		
+		timestamps = new long[this.capacity];
+		parameters = new ControlParameter[this.capacity];
+		values = new float[this.capacity];
+	}
+	
+	/**
+	 * Publishes an event to the queue; must only be called from the producer's thread
+	 * 
+	 * @param timestamp time at which the event was sampled (nanoseconds, {@link System#nanoTime()})
+	 * @param parameter
+	 * @param value
+	 * @return if the event was published, or false if the queue was full and the event was dropped
+	 */
+	public boolean offer(long timestamp, ControlParameter parameter, float value) {
+		long sequence = tail.getPlain();
+		
+		if (sequence - headCache >= capacity) {
+			headCache = head.getAcquire();
+			
+			if (sequence - headCache >= capacity) {
+				droppedEvents.incrementAndGet();
+				return false;
+			}
+		}
+		
+		int index = (int) sequence & mask;
+		timestamps[index] = timestamp;
+		parameters[index] = parameter;
+		values[index] = value;
+		
+		tail.setRelease(sequence + 1);
+		
+		return true;
+	}
+	
+	/**
+	 * Delivers all events sampled at or before the time specified to the handler, in the order they were 
+	 * published, followed by the latest value of each axis among them; events sampled afterwards remain queued. 
+	 * Must only be called from the consumer's thread
+	 * 
+	 * @param untilTimestamp latest sample time (nanoseconds, {@link System#nanoTime()}) of events to deliver
+	 * @param handler
+	 * @return number of events drained from the queue
+	 */
+	public int drain(long untilTimestamp, InputEventHandler handler) {
+		long sequence = head.getPlain();
+		long published = tail.getAcquire();
+		int drained = 0;
+		
+		for (; sequence < published; sequence++, drained++) {
+			int index = (int) sequence & mask;
+			
+			if (timestamps[index] - untilTimestamp > 0)
+				break;
+			
+			if (parameters[index].isRelative())
+				handler.onInputEvent(parameters[index], values[index], timestamps[index]);
+			else
+				coalesce(parameters[index], values[index], timestamps[index]);
+		}
+		
+		head.setRelease(sequence);
+		
+		for (int i = 0; i < coalescedCount; i++) {
+			handler.onInputEvent(coalescedAxes[i], coalescedValues[i], coalescedTimestamps[i]);
+			coalescedAxes[i] = null;
+		}
+		coalescedCount = 0;
+		
+		return drained;
+	}
+	
+	/**
+	 * Replaces the pending value of an axis, or adds it if the axis has no pending value
+	 * 
+	 * @param axis
+	 * @param value
+	 * @param timestamp
+	 */
+	private void coalesce(ControlParameter axis, float value, long timestamp) {
+		int i = 0;
+		while (i < coalescedCount && coalescedAxes[i] != axis)
+			i++;
+		
+		if (i == coalescedAxes.length) {
+			coalescedAxes = Arrays.copyOf(coalescedAxes, i * 2);
+			coalescedValues = Arrays.copyOf(coalescedValues, i * 2);
+			coalescedTimestamps = Arrays.copyOf(coalescedTimestamps, i * 2);
+		}
+		
+		if (i == coalescedCount)
+			coalescedCount++;
+		
+		coalescedAxes[i] = axis;
+		coalescedValues[i] = value;
+		coalescedTimestamps[i] = timestamp;
+	}
+	
+	/**
+	 * @return approximate number of events waiting to be drained
+	 */
+	public int size() {
+		return (int) (tail.get() - head.get());
+	}
+	
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	/**
+	 * @return number of events dropped because the queue was full
+	 */
+	public long getDroppedEvents() {
+		return droppedEvents.get();
+	}
+}
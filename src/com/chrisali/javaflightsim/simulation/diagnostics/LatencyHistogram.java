@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.diagnostics;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size histogram of latencies, whose buckets widen logarithmically so that any latency from microseconds
+ * to minutes is recorded with no more than 12.5% error and without allocating
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class LatencyHistogram {
+	
+	/**
+	 * Number of buckets per doubling of latency, as a power of 2
+	 */
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	
+	private final long[] counts = new long[bucketOf(Long.MAX_VALUE / 1000) + 1];
+	
+	private long count;
+	private long totalMicros;
+	private long maxMicros;
+	
+	/**
+	 * @param nanos latency to record [ns]
+	 */
+	public synchronized void record(long nanos) {
+		long micros = Math.max(0, nanos / 1000);
+		
+		counts[bucketOf(micros)]++;
+		count++;
+		totalMicros += micros;
+		maxMicros = Math.max(maxMicros, micros);
+	}
+	
+	/**
+	 * @param percentile between 0 and 100
+	 * @return latency at or below which the percentile specified of recorded latencies fall [ns], or 0 if none have 
+	 * been recorded
+	 */
+	public synchronized long getPercentileNanos(double percentile) {
+		if (count == 0)
+			return 0;
+		
+		long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+		long seen = 0;
+		
+		for (int bucket = 0; bucket < counts.length; bucket++) {
+			seen += counts[bucket];
+			
+			if (seen >= rank)
+				return Math.min(upperBoundOf(bucket), maxMicros) * 1000;
+		}
+		
+		return maxMicros * 1000;
+	}
+	
+	public synchronized long getCount() {
+		return count;
+	}
+	
+	/**
+	 * @return largest latency recorded [ns]
+	 */
+	public synchronized long getMaxNanos() {
+		return maxMicros * 1000;
+	}
+	
+	/**
+	 * @return mean of all latencies recorded [ns]
+	 */
+	public synchronized long getMeanNanos() {
+		return count == 0 ? 0 : (totalMicros / count) * 1000;
+	}
+	
+	public synchronized void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		totalMicros = 0;
+		maxMicros = 0;
+	}
+	
+	/**
+	 * Latencies below {@link LatencyHistogram#SUB_BUCKETS} microseconds each have their own bucket; above that, each 
+	 * doubling of latency is split into {@link LatencyHistogram#SUB_BUCKETS} buckets
+	 * 
+	 * @param micros
+	 * @return index of the bucket that the latency falls in
+	 */
+	static int bucketOf(long micros) {
+		if (micros < SUB_BUCKETS)
+			return (int) micros;
+		
+		int exponent = 63 - Long.numberOfLeadingZeros(micros);
+		int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+	
+	/**
+	 * @param bucket
+	 * @return largest latency that falls in the bucket specified [us]
+	 */
+	static long upperBoundOf(int bucket) {
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+		
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+		
+		return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("p50: %.3f ms, p90: %.3f ms, p99: %.3f ms, max: %.3f ms (%d samples)", 
+							 getPercentileNanos(50) / 1e6, getPercentileNanos(90) / 1e6, 
+							 getPercentileNanos(99) / 1e6, getMaxNanos() / 1e6, getCount());
+	}
+}
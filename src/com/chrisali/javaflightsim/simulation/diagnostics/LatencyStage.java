@@ -17,33 +17,27 @@
  *  If you have any questions about this project, you can visit
  *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
  ******************************************************************************/
-package com.chrisali.javaflightsim.lwjgl.particles;
+package com.chrisali.javaflightsim.simulation.diagnostics;
 
-import java.util.Random;
-
-import org.lwjgl.util.vector.Vector3f;
-
-public class Cloud extends Particle {
+/**
+ * Stages of the path an input event takes from being polled to its result being displayed, each of which
+ * has its own {@link LatencyHistogram} in {@link LatencyTracer}
+ * 
+ * @author Christopher Ali
+ *
+ */
+public enum LatencyStage {
+	INPUT_TO_ACTUATOR      ("Input to Actuator"),
+	ACTUATOR_TO_INTEGRATOR ("Actuator to Integrator"),
+	INTEGRATOR_TO_FRAME    ("Integrator to Frame"),
+	INPUT_TO_FRAME         ("Input to Frame");
 	
-	private int textureIndex;
-	private int textureIndices;
-
-	public Cloud(ParticleTexture texture, Vector3f position, Vector3f velocity, float rotation, float scale) {
-		super(texture, position, velocity, 0, Float.POSITIVE_INFINITY, rotation, scale);
-		
-		Random random = new Random();
-		textureIndices = getTexture().getNumberOfAtlasRows() * getTexture().getNumberOfAtlasRows();
-		textureIndex = random.nextInt(textureIndices - 1);
+	private final String stage;
+	
+	private LatencyStage(String stage) {
+		this.stage = stage;
 	}
-
+	
 	@Override
-	protected void updateTextureCoordinateInfo() {
-		int index1 = textureIndex;
-		int index2 = index1 < textureIndices - 1 ? index1 + 1 : index1;
-		
-		this.textureBlend = 1.0f;
-		
-		setTextureOffset(getTextureOffset1(), index1);
-		setTextureOffset(getTextureOffset2(), index2);
-	}
+	public String toString() { return stage; }
 }
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.diagnostics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import com.chrisali.javaflightsim.lwjgl.LWJGLWorld;
+import com.chrisali.javaflightsim.lwjgl.input.InputMaster;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlActuator;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+
+/**
+ * Traces input events from when they are polled by {@link InputMaster}, through {@link FlightControlActuator}
+ * and the first step of {@link Integrate6DOFEquations} to use the resulting control deflections, to the first 
+ * frame displayed by {@link LWJGLWorld} showing the resulting motion. One event is traced at a time; events
+ * actuated while a trace is in progress are not traced. Latencies of each {@link LatencyStage} are recorded 
+ * into their own {@link LatencyHistogram}
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class LatencyTracer {
+	
+	private enum TraceState {IDLE, ACTUATED, INTEGRATED}
+	
+	private final LongSupplier clock;
+	
+	private final Map<LatencyStage, LatencyHistogram> histograms = new EnumMap<>(LatencyStage.class);
+	
+	private TraceState state = TraceState.IDLE;
+	private long polledNanos;
+	private long actuatedNanos;
+	private long integratedNanos;
+	
+	/**
+	 * Creates a tracer that uses {@link System#nanoTime()}, the same clock used to timestamp input events
+	 */
+	public LatencyTracer() {
+		this(System::nanoTime);
+	}
+	
+	/**
+	 * @param clock source of the current time [ns]
+	 */
+	public LatencyTracer(LongSupplier clock) {
+		this.clock = clock;
+		
+		for (LatencyStage stage : LatencyStage.values())
+			histograms.put(stage, new LatencyHistogram());
+	}
+	
+	/**
+	 * Starts a trace when an input event has been actuated, if no other trace is in progress
+	 * 
+	 * @param polledNanos time at which the event was polled [ns]
+	 */
+	public synchronized void onActuated(long polledNanos) {
+		if (state != TraceState.IDLE)
+			return;
+		
+		this.polledNanos = polledNanos;
+		actuatedNanos = clock.getAsLong();
+		state = TraceState.ACTUATED;
+	}
+	
+	/**
+	 * Advances the trace when an integration step that began after the traced event was actuated has finished
+	 * 
+	 * @param stepStartNanos time at which the integration step began [ns]
+	 */
+	public synchronized void onIntegrated(long stepStartNanos) {
+		if (state != TraceState.ACTUATED || stepStartNanos - actuatedNanos < 0)
+			return;
+		
+		integratedNanos = clock.getAsLong();
+		state = TraceState.INTEGRATED;
+	}
+	
+	/**
+	 * Completes the trace when a frame that began after the traced event was integrated has been displayed, 
+	 * recording the latency of each stage
+	 * 
+	 * @param frameStartNanos time at which the frame began [ns]
+	 */
+	public synchronized void onFrameDisplayed(long frameStartNanos) {
+		if (state != TraceState.INTEGRATED || frameStartNanos - integratedNanos < 0)
+			return;
+		
+		long displayedNanos = clock.getAsLong();
+		
+		histograms.get(LatencyStage.INPUT_TO_ACTUATOR).record(actuatedNanos - polledNanos);
+		histograms.get(LatencyStage.ACTUATOR_TO_INTEGRATOR).record(integratedNanos - actuatedNanos);
+		histograms.get(LatencyStage.INTEGRATOR_TO_FRAME).record(displayedNanos - integratedNanos);
+		histograms.get(LatencyStage.INPUT_TO_FRAME).record(displayedNanos - polledNanos);
+		
+		state = TraceState.IDLE;
+	}
+	
+	/**
+	 * Abandons the trace in progress, such as when the simulation is paused and its latency would not be meaningful
+	 */
+	public synchronized void discard() {
+		state = TraceState.IDLE;
+	}
+	
+	/**
+	 * @param stage
+	 * @return histogram of latencies recorded for the stage specified
+	 */
+	public LatencyHistogram getHistogram(LatencyStage stage) {
+		return histograms.get(stage);
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("Input latency:");
+		
+		for (Map.Entry<LatencyStage, LatencyHistogram> entry : histograms.entrySet())
+			sb.append("\n").append(entry.getKey()).append(": ").append(entry.getValue());
+		
+		return sb.toString();
+	}
+}
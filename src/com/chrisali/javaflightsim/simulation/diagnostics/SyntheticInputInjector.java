@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.diagnostics;
+
+import java.util.function.LongSupplier;
+
+import com.chrisali.javaflightsim.lwjgl.input.InputMaster;
+import com.chrisali.javaflightsim.simulation.datatransfer.InputEventQueue;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+
+/**
+ * Publishes a sinusoidal deflection of a single axis to an {@link InputEventQueue} in place of {@link InputMaster}, 
+ * so that the path of input events through the simulation can be exercised and traced by {@link LatencyTracer} 
+ * without a joystick or display
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class SyntheticInputInjector {
+	
+	private final InputEventQueue inputEvents;
+	private final FlightControl axis;
+	private final double amplitude;
+	private final double periodSec;
+	private final LongSupplier clock;
+	
+	private long startNanos = Long.MIN_VALUE;
+	
+	/**
+	 * @param inputEvents queue to publish the axis' values to
+	 * @param axis axis to deflect
+	 * @param amplitude maximum deflection, between 0 and 1
+	 * @param periodSec period of the sinusoidal deflection [sec]
+	 * @param clock source of the current time [ns], used to timestamp events
+	 */
+	public SyntheticInputInjector(InputEventQueue inputEvents, FlightControl axis, double amplitude, double periodSec, 
+								  LongSupplier clock) {
+		this.inputEvents = inputEvents;
+		this.axis = axis;
+		this.amplitude = amplitude;
+		this.periodSec = periodSec;
+		this.clock = clock;
+	}
+	
+	/**
+	 * Publishes the axis' deflection at the current time, as {@link InputMaster#update()} would after polling a joystick
+	 * 
+	 * @return if the event was published
+	 */
+	public boolean inject() {
+		long nowNanos = clock.getAsLong();
+		
+		if (startNanos == Long.MIN_VALUE)
+			startNanos = nowNanos;
+		
+		double timeSec = (nowNanos - startNanos) / 1e9;
+		
+		return inputEvents.offer(nowNanos, axis, (float) (amplitude * Math.sin(2 * Math.PI * timeSec / periodSec)));
+	}
+}
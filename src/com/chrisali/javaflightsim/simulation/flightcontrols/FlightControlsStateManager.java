@@ -19,42 +19,43 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.flightcontrols;
 
-import java.util.Collections;
 import java.util.EnumSet;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.chrisali.javaflightsim.interfaces.Steppable;
-import com.chrisali.javaflightsim.simulation.datatransfer.InputData;
-import com.chrisali.javaflightsim.simulation.datatransfer.InputDataListener;
+import com.chrisali.javaflightsim.simulation.datatransfer.InputEventQueue;
+import com.chrisali.javaflightsim.simulation.datatransfer.InputEventQueue.InputEventHandler;
+import com.chrisali.javaflightsim.simulation.diagnostics.LatencyTracer;
 import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.AnalysisControlInput;
 import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.AnalysisControls;
-import com.chrisali.javaflightsim.simulation.setup.KeyCommand;
 import com.chrisali.javaflightsim.simulation.setup.Options;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
 import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
 
 /**
- * Handles flight controls actuated by external human interface devices that provide their input values using 
- * {@link InputDataListener}. Also contains {@link AnalysisControlInput} functionality when simulation runs 
+ * Handles flight controls actuated by external human interface devices that publish their input values to an 
+ * {@link InputEventQueue}, which is drained at the start of each step. Also contains {@link AnalysisControlInput} functionality when simulation runs 
  * in Analysis Mode
  * 
  * @author Christopher Ali
  *
  */
-public class FlightControlsStateManager implements Steppable, InputDataListener {
+public class FlightControlsStateManager implements Steppable {
 
 	private static final Logger logger = LogManager.getLogger(FlightControlsStateManager.class);
+	
+	private static final int INPUT_EVENT_CAPACITY = 1024;
 
 	private FlightControlsState controlsState;
 	private AnalysisControls analysisControls;
 	private FlightControlActuator actuator;
+	
+	private InputEventQueue inputEvents = new InputEventQueue(INPUT_EVENT_CAPACITY);
+	private InputEventHandler inputEventHandler;
+	private LatencyTracer latencyTracer;
 
 	private EnumSet<Options> options;
 	private AtomicInteger simTimeMS;
@@ -65,6 +66,12 @@ public class FlightControlsStateManager implements Steppable, InputDataListener
 		options = configuration.getSimulationOptions();
 		controlsState = new FlightControlsState(configuration);
 		actuator = new FlightControlActuator(configuration, controlsState);
+		inputEventHandler = (parameter, value, timestamp) -> {
+			actuator.handleParameterChange(parameter, value);
+			
+			if (latencyTracer != null)
+				latencyTracer.onActuated(timestamp);
+		};
 
 		this.simTimeMS = simTimeMS;
 
@@ -72,12 +79,18 @@ public class FlightControlsStateManager implements Steppable, InputDataListener
 		if (analysisControls != null) {
 			logger.info(analysisControls.getAnalysisInputs().size() + " analysis flight control inputs found:");
 			logger.info(analysisControls.toString());
+			
+			// Compile the schedule now rather than on the first simulation step
+			logger.info(analysisControls.getSchedule().getSegmentCount() + " analysis input segments scheduled");
 		}
 	}
 
 	@Override
 	public void step() {
 		try {
+			// Only events polled before this step began are actuated; any published since wait for the next step
+			inputEvents.drain(System.nanoTime(), inputEventHandler);
+			
 			if (options.contains(Options.ANALYSIS_MODE))
 				analysisControls.updateFlightControls(simTimeMS, actuator);
 
@@ -90,32 +103,6 @@ public class FlightControlsStateManager implements Steppable, InputDataListener
 		}
 	}
 
-	@Override
-	public void onInputDataReceived(InputData inputData) {
-		try {
-			List<KeyCommand> keyCommands = Collections.synchronizedList(inputData.getKeyCommands());
-			Map<FlightControl, Float> joystickInputs = Collections.synchronizedMap(inputData.getJoystickInputs());
-
-			synchronized (keyCommands) {
-				Iterator<KeyCommand> i = keyCommands.iterator();
-				while (i.hasNext()) {
-					actuator.handleParameterChange(i.next(), 1.0f);
-				}
-			}
-
-			Set<FlightControl> s = joystickInputs.keySet();
-			synchronized (joystickInputs) {
-				Iterator<FlightControl> i = s.iterator();
-				while (i.hasNext()) {
-					FlightControl axis = i.next();
-					actuator.handleParameterChange(axis, joystickInputs.get(axis));
-				}
-			}
-		} catch (Exception e) {
-			logger.error("Flight controls encountered an error!", e);
-		}
-	}
-
 	@Override
 	public boolean canStepNow(int timeMS) {
 		return timeMS % 1 == 0;
@@ -136,6 +123,20 @@ public class FlightControlsStateManager implements Steppable, InputDataListener
 	public FlightControlActuator getActuator() {
 		return actuator;
 	}
+	
+	/**
+	 * @param latencyTracer tracer notified when input events are actuated, or null to disable tracing
+	 */
+	public void setLatencyTracer(LatencyTracer latencyTracer) {
+		this.latencyTracer = latencyTracer;
+	}
+	
+	/**
+	 * @return queue that input devices publish their commands and axis values to
+	 */
+	public InputEventQueue getInputEvents() {
+		return inputEvents;
+	}
 
 	/**
 	 * Limit control inputs to sensible deflection values based on the minimum and
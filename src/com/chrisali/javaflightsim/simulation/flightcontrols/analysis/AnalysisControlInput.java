@@ -23,6 +23,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import com.chrisali.javaflightsim.simulation.flightcontrols.ControlParameterActuator;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonSubTypes.Type;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
@@ -39,6 +40,10 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
 @JsonSubTypes({
 	@Type(value = Doublet.class, name = "Doublet"),
 	@Type(value = Singlet.class, name = "Singlet"),
+	@Type(value = ThreeTwoOneOne.class, name = "ThreeTwoOneOne"),
+	@Type(value = FrequencySweep.class, name = "FrequencySweep"),
+	@Type(value = Multisine.class, name = "Multisine"),
+	@Type(value = PseudoRandomBinarySequence.class, name = "PseudoRandomBinarySequence"),
 })
 public abstract class AnalysisControlInput implements Comparable<AnalysisControlInput> {
 
@@ -69,7 +74,40 @@ public abstract class AnalysisControlInput implements Comparable<AnalysisControl
 		this.amplitude = amplitude;
 	}
 
-	public abstract void generate(AtomicInteger timeMS, ControlParameterActuator actuator);
+	/**
+	 * Generates this input at the time specified, returning to trim value if the input is not in progress
+	 * 
+	 * @param timeMS
+	 * @param actuator
+	 */
+	public void generate(AtomicInteger timeMS, ControlParameterActuator actuator) {
+		int time = timeMS.get();
+		
+		actuator.handleParameterChange(controlType, (time >= startTimeMS && time < getEndTimeMS()) ? getValue(time) : 0.0f);
+	}
+	
+	/**
+	 * @param timeMS time in milliseconds, no earlier than the start time and before the end time of this input
+	 * @return value passed to {@link ControlParameterActuator} for this input's flight control at the time specified
+	 */
+	public abstract float getValue(int timeMS);
+	
+	/**
+	 * Precomputes anything needed by {@link AnalysisControlInput#getValue(int)}, so that it is not done while the 
+	 * simulation runs
+	 */
+	public void prepare() { }
+	
+	/**
+	 * @return time in milliseconds at which this input has finished and its flight control returns to trim value
+	 */
+	@JsonIgnore
+	public int getEndTimeMS() { return startTimeMS + durationMS; }
+	
+	/**
+	 * @return amplitude scaled by the maximum deflection of this input's flight control, as used by {@link ControlParameterActuator}
+	 */
+	protected float getScaledAmplitude() { return (float) (amplitude / controlType.getMaximum()); }
 
 	public FlightControl getControlType() { return controlType;	}
 
@@ -44,25 +44,33 @@ public class AnalysisControls implements Saveable {
 	private static final Logger logger = LogManager.getLogger(AnalysisControls.class);
 
 	private List<AnalysisControlInput> analysisInputs;
+	
+	@JsonIgnore
+	private AnalysisSchedule schedule;
 		
 	public AnalysisControls() { }
 	
 	/**
 	 * Given a list of {@link AnalysisControlInput} objects, update the flight controls appropriate with a control input 
-	 * at the appropriate time
+	 * at the appropriate time. The inputs are compiled into an {@link AnalysisSchedule} by {@link AnalysisControls#getSchedule()}, 
+	 * which is called when the inputs are read so that compiling them does not delay the first simulation step
 	 * 
 	 * @param timeMS time in milliseconds
 	 * @param actuator
 	 */
 	public void updateFlightControls(AtomicInteger timeMS, ControlParameterActuator actuator) {
-		for (AnalysisControlInput input : analysisInputs) {
-			// Only consider an input if simulation time is within a time window (from 63/64 of input start time to 65/64 of end time)
-			boolean withinTimeWindow = timeMS.get() > (63 * input.getStartTimeMS() / 64) &&
-									   timeMS.get() < (65 * (2 * input.getDurationMS() + timeMS.get()) / 64);
-			
-			if (withinTimeWindow)
-				input.generate(timeMS, actuator);
-		}
+		getSchedule().update(timeMS.get(), actuator);
+	}
+	
+	/**
+	 * @return schedule compiled from the analysis inputs, compiling it first if the inputs have changed since it was last used
+	 */
+	@JsonIgnore
+	public AnalysisSchedule getSchedule() {
+		if (schedule == null)
+			schedule = new AnalysisSchedule(analysisInputs);
+		
+		return schedule;
 	}
 	
 	@Override
@@ -72,7 +80,10 @@ public class AnalysisControls implements Saveable {
 
 	public List<AnalysisControlInput> getAnalysisInputs() { return analysisInputs; }
 
-	public void setAnalysisInputs(List<AnalysisControlInput> analysisInputs) { this.analysisInputs = analysisInputs; }
+	public void setAnalysisInputs(List<AnalysisControlInput> analysisInputs) { 
+		this.analysisInputs = analysisInputs; 
+		schedule = null;
+	}
 
 	@Override
 	public String toString() {
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.flightcontrols.analysis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.ControlParameterActuator;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+
+/**
+ * {@link AnalysisControlInput} objects compiled into a time-sorted schedule of non-overlapping segments for each flight control, 
+ * so that the input in progress for each control is found in amortized constant time as simulation time advances, and by binary 
+ * search if time is reset. Where inputs on the same control overlap, the one that started last takes precedence; between inputs, 
+ * a control returns to its trim value, and before its first input it is left alone
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class AnalysisSchedule {
+	
+	private final FlightControl[] controls;
+	private final int[][] startTimesMS;
+	private final int[][] endTimesMS;
+	private final AnalysisControlInput[][] inputs;
+	
+	/**
+	 * Index of the segment of each control that most recently started, or -1 if none have
+	 */
+	private final int[] cursors;
+	
+	/**
+	 * Compiles and prepares the inputs provided into a schedule
+	 * 
+	 * @param analysisInputs
+	 */
+	public AnalysisSchedule(List<AnalysisControlInput> analysisInputs) {
+		Map<FlightControl, List<AnalysisControlInput>> inputsByControl = new EnumMap<>(FlightControl.class);
+		
+		for (AnalysisControlInput input : analysisInputs) {
+			input.prepare();
+			inputsByControl.computeIfAbsent(input.getControlType(), control -> new ArrayList<>()).add(input);
+		}
+		
+		int count = inputsByControl.size();
+		controls = new FlightControl[count];
+		startTimesMS = new int[count][];
+		endTimesMS = new int[count][];
+		inputs = new AnalysisControlInput[count][];
+		cursors = new int[count];
+		
+		int i = 0;
+		for (Map.Entry<FlightControl, List<AnalysisControlInput>> entry : inputsByControl.entrySet()) {
+			controls[i] = entry.getKey();
+			compileSegments(i++, entry.getValue());
+		}
+		
+		reset();
+	}
+	
+	/**
+	 * Splits a control's inputs into non-overlapping segments by sweeping through their start and end times; at each time, 
+	 * the input that owns the following segment is the most recently started one that has not yet ended
+	 * 
+	 * @param control index of the control
+	 * @param controlInputs
+	 */
+	private void compileSegments(int control, List<AnalysisControlInput> controlInputs) {
+		// Stable sort, so that inputs starting at the same time take precedence in the order they were listed
+		List<AnalysisControlInput> sorted = new ArrayList<>(controlInputs);
+		sorted.sort(Comparator.comparingInt(AnalysisControlInput::getStartTimeMS));
+		
+		TreeSet<Integer> boundaries = new TreeSet<>();
+		for (AnalysisControlInput input : sorted) {
+			boundaries.add(input.getStartTimeMS());
+			boundaries.add(input.getEndTimeMS());
+		}
+		
+		List<int[]> segments = new ArrayList<>();
+		List<AnalysisControlInput> owners = new ArrayList<>();
+		Deque<AnalysisControlInput> active = new ArrayDeque<>();
+		int next = 0;
+		
+		Integer timeMS = boundaries.isEmpty() ? null : boundaries.first();
+		while (timeMS != null) {
+			Integer nextTimeMS = boundaries.higher(timeMS);
+			
+			while (next < sorted.size() && sorted.get(next).getStartTimeMS() <= timeMS)
+				active.push(sorted.get(next++));
+			
+			while (!active.isEmpty() && active.peek().getEndTimeMS() <= timeMS)
+				active.pop();
+			
+			if (!active.isEmpty() && nextTimeMS != null) {
+				int last = owners.size() - 1;
+				
+				// Merge with the previous segment if the same input continues
+				if (last >= 0 && owners.get(last) == active.peek() && segments.get(last)[1] == timeMS)
+					segments.get(last)[1] = nextTimeMS;
+				else {
+					segments.add(new int[] {timeMS, nextTimeMS});
+					owners.add(active.peek());
+				}
+			}
+			
+			timeMS = nextTimeMS;
+		}
+		
+		startTimesMS[control] = new int[segments.size()];
+		endTimesMS[control] = new int[segments.size()];
+		inputs[control] = owners.toArray(new AnalysisControlInput[owners.size()]);
+		
+		for (int i = 0; i < segments.size(); i++) {
+			startTimesMS[control][i] = segments.get(i)[0];
+			endTimesMS[control][i] = segments.get(i)[1];
+		}
+	}
+	
+	/**
+	 * Sets each scheduled flight control to the value of its input in progress at the time specified, or to its trim value 
+	 * if it is between inputs
+	 * 
+	 * @param timeMS time in milliseconds
+	 * @param actuator
+	 */
+	public void update(int timeMS, ControlParameterActuator actuator) {
+		for (int control = 0; control < controls.length; control++) {
+			int[] starts = startTimesMS[control];
+			int segment = cursors[control];
+			
+			if (segment >= 0 && timeMS < starts[segment])
+				segment = findSegment(starts, timeMS);
+			
+			while (segment + 1 < starts.length && starts[segment + 1] <= timeMS)
+				segment++;
+			
+			cursors[control] = segment;
+			
+			if (segment < 0)
+				continue;
+			
+			float value = timeMS < endTimesMS[control][segment] ? inputs[control][segment].getValue(timeMS) : 0.0f;
+			actuator.handleParameterChange(controls[control], value);
+		}
+	}
+	
+	/**
+	 * @param starts
+	 * @param timeMS
+	 * @return index of the last segment starting at or before the time specified, or -1 if none do
+	 */
+	private static int findSegment(int[] starts, int timeMS) {
+		int low = 0, high = starts.length - 1, found = -1;
+		
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			
+			if (starts[middle] <= timeMS) {
+				found = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		
+		return found;
+	}
+	
+	/**
+	 * Rewinds the schedule to before any inputs have started
+	 */
+	public void reset() {
+		for (int control = 0; control < cursors.length; control++)
+			cursors[control] = -1;
+	}
+	
+	/**
+	 * @return total number of segments scheduled across all flight controls
+	 */
+	public int getSegmentCount() {
+		int count = 0;
+		
+		for (int[] starts : startTimesMS)
+			count += starts.length;
+		
+		return count;
+	}
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.flightcontrols.analysis;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Class that contains time and flight control information to generate a frequency sweep (chirp) control input, a sinusoid whose frequency
+ * rises linearly from a start frequency to an end frequency. The start time defines when the sweep should start, the duration indicates how 
+ * long the sweep lasts, and the amplitude of the deflection (rad) of the sinusoid
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class FrequencySweep extends SampledControlInput {
+	
+	/**
+	 * Frequency in Hz at the start of the sweep
+	 */
+	private double startFrequencyHz;
+	
+	/**
+	 * Frequency in Hz at the end of the sweep
+	 */
+	private double endFrequencyHz;
+
+	@JsonCreator
+	public FrequencySweep(@JsonProperty("controlType") FlightControl controlType, @JsonProperty("startTimeMS") int startTimeMS, 
+						  @JsonProperty("durationMS") int durationMS, @JsonProperty("amplitude") double amplitude,
+						  @JsonProperty("startFrequencyHz") double startFrequencyHz, @JsonProperty("endFrequencyHz") double endFrequencyHz) {
+		super(controlType, startTimeMS, durationMS, amplitude);
+		this.startFrequencyHz = startFrequencyHz;
+		this.endFrequencyHz = endFrequencyHz;
+	}
+
+	/**
+	 * Samples the sweep's phase, which is the integral of its linearly varying frequency
+	 */
+	@Override
+	protected float[] createSamples() {
+		float[] samples = new float[durationMS / SAMPLE_INTERVAL_MS + 1];
+		double durationSec = durationMS / 1000.0;
+		
+		for (int i = 0; i < samples.length; i++) {
+			double timeSec = i * SAMPLE_INTERVAL_MS / 1000.0;
+			double cycles = startFrequencyHz * timeSec + (endFrequencyHz - startFrequencyHz) * timeSec * timeSec / (2 * durationSec);
+			
+			samples[i] = (float) Math.sin(2 * Math.PI * cycles);
+		}
+		
+		return samples;
+	}
+
+	@Override
+	protected int getSampleIntervalMS() {
+		return SAMPLE_INTERVAL_MS;
+	}
+
+	@Override
+	protected boolean isInterpolated() {
+		return true;
+	}
+
+	public double getStartFrequencyHz() { return startFrequencyHz; }
+
+	public void setStartFrequencyHz(double startFrequencyHz) { this.startFrequencyHz = startFrequencyHz; invalidateSamples(); }
+
+	public double getEndFrequencyHz() { return endFrequencyHz; }
+
+	public void setEndFrequencyHz(double endFrequencyHz) { this.endFrequencyHz = endFrequencyHz; invalidateSamples(); }
+	
+	@Override
+	public String toString() {
+		return super.toString() + "[Start Frequency (Hz): " + startFrequencyHz + ", End Frequency (Hz): " + endFrequencyHz + "]";
+	}
+}
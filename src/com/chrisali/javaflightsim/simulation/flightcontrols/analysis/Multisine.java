@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.flightcontrols.analysis;
+
+import java.util.Arrays;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Class that contains time and flight control information to generate a multisine control input, a sum of equal amplitude sinusoids whose 
+ * phases are offset using Schroeder's method to minimize the peak deflection. The start time defines when the input should start, the 
+ * duration indicates how long the input lasts, and the amplitude of the peak deflection (rad) of the summed sinusoids
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class Multisine extends SampledControlInput {
+	
+	/**
+	 * Frequencies in Hz of each sinusoid summed
+	 */
+	private double[] frequenciesHz;
+
+	@JsonCreator
+	public Multisine(@JsonProperty("controlType") FlightControl controlType, @JsonProperty("startTimeMS") int startTimeMS, 
+					 @JsonProperty("durationMS") int durationMS, @JsonProperty("amplitude") double amplitude,
+					 @JsonProperty("frequenciesHz") double[] frequenciesHz) {
+		super(controlType, startTimeMS, durationMS, amplitude);
+		this.frequenciesHz = frequenciesHz;
+	}
+
+	/**
+	 * Sums sinusoids with Schroeder phases (-pi*k*(k-1)/n for the kth of n sinusoids), then scales the sum so that its peak is 1
+	 */
+	@Override
+	protected float[] createSamples() {
+		float[] samples = new float[durationMS / SAMPLE_INTERVAL_MS + 1];
+		int n = frequenciesHz.length;
+		double peak = 0;
+		
+		for (int i = 0; i < samples.length; i++) {
+			double timeSec = i * SAMPLE_INTERVAL_MS / 1000.0;
+			double sum = 0;
+			
+			for (int k = 1; k <= n; k++)
+				sum += Math.sin(2 * Math.PI * frequenciesHz[k - 1] * timeSec - Math.PI * k * (k - 1) / n);
+			
+			samples[i] = (float) sum;
+			peak = Math.max(peak, Math.abs(sum));
+		}
+		
+		for (int i = 0; peak > 0 && i < samples.length; i++)
+			samples[i] /= peak;
+		
+		return samples;
+	}
+
+	@Override
+	protected int getSampleIntervalMS() {
+		return SAMPLE_INTERVAL_MS;
+	}
+
+	@Override
+	protected boolean isInterpolated() {
+		return true;
+	}
+
+	public double[] getFrequenciesHz() { return frequenciesHz; }
+
+	public void setFrequenciesHz(double[] frequenciesHz) { this.frequenciesHz = frequenciesHz; invalidateSamples(); }
+	
+	@Override
+	public String toString() {
+		return super.toString() + "[Frequencies (Hz): " + Arrays.toString(frequenciesHz) + "]";
+	}
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.flightcontrols.analysis;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Class that contains time and flight control information to generate a pseudo-random binary sequence (PRBS) control input, which switches 
+ * between positive and negative deflections following a maximum length sequence of 2^order - 1 bits. The start time defines when the sequence 
+ * should start, the duration indicates how long each bit is held, and the amplitude of the deflection (rad) in either direction
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class PseudoRandomBinarySequence extends SampledControlInput {
+	
+	/**
+	 * Feedback taps of a linear feedback shift register producing a maximum length sequence, indexed by order
+	 */
+	private static final int[][] TAPS = {
+		null, null,
+		{2, 1}, {3, 2}, {4, 3}, {5, 3}, {6, 5}, {7, 6}, {8, 6, 5, 4}, {9, 5},
+		{10, 7}, {11, 9}, {12, 6, 4, 1}, {13, 4, 3, 1}, {14, 5, 3, 1}, {15, 14}, {16, 15, 13, 4}
+	};
+	
+	/**
+	 * Length of the shift register, which determines the length of the sequence
+	 */
+	private int order;
+
+	@JsonCreator
+	public PseudoRandomBinarySequence(@JsonProperty("controlType") FlightControl controlType, @JsonProperty("startTimeMS") int startTimeMS, 
+									  @JsonProperty("durationMS") int durationMS, @JsonProperty("amplitude") double amplitude,
+									  @JsonProperty("order") int order) {
+		super(controlType, startTimeMS, durationMS, amplitude);
+		setOrder(order);
+	}
+
+	/**
+	 * Runs a linear feedback shift register seeded with all ones for one full period
+	 */
+	@Override
+	protected float[] createSamples() {
+		float[] samples = new float[(1 << order) - 1];
+		int register = (1 << order) - 1;
+		
+		for (int i = 0; i < samples.length; i++) {
+			samples[i] = (register & 1) == 1 ? 1 : -1;
+			
+			int feedback = 0;
+			for (int tap : TAPS[order])
+				feedback ^= register >>> (order - tap);
+			
+			register = (register >>> 1) | ((feedback & 1) << (order - 1));
+		}
+		
+		return samples;
+	}
+
+	@Override
+	protected int getSampleIntervalMS() {
+		return durationMS;
+	}
+
+	@Override
+	protected boolean isInterpolated() {
+		return false;
+	}
+	
+	@Override
+	public int getEndTimeMS() { return startTimeMS + ((1 << order) - 1) * durationMS; }
+
+	public int getOrder() { return order; }
+
+	public void setOrder(int order) {
+		if (order < 2 || order >= TAPS.length)
+			throw new IllegalArgumentException("PRBS order must be between 2 and " + (TAPS.length - 1) + "!");
+		
+		this.order = order;
+		invalidateSamples();
+	}
+	
+	@Override
+	public String toString() {
+		return super.toString() + "[Order: " + order + "]";
+	}
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.flightcontrols.analysis;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+
+/**
+ * Abstract class for an analysis control input whose shape is precomputed into a table of samples between -1 and 1, taken 
+ * at a fixed interval from its start time, so that generating the input each step is a table lookup scaled by the amplitude
+ * 
+ * @author Christopher Ali
+ *
+ */
+public abstract class SampledControlInput extends AnalysisControlInput {
+	
+	/**
+	 * Interval in milliseconds between samples of continuously varying inputs
+	 */
+	protected static final int SAMPLE_INTERVAL_MS = 5;
+	
+	private float[] samples;
+
+	public SampledControlInput(FlightControl controlType, int startTimeMS, int durationMS, double amplitude) {
+		super(controlType, startTimeMS, durationMS, amplitude);
+	}
+	
+	/**
+	 * @return samples of this input's shape between -1 and 1, taken every {@link SampledControlInput#getSampleIntervalMS()} 
+	 * milliseconds from its start time
+	 */
+	protected abstract float[] createSamples();
+	
+	/**
+	 * @return interval in milliseconds between the samples returned by {@link SampledControlInput#createSamples()}
+	 */
+	protected abstract int getSampleIntervalMS();
+	
+	/**
+	 * @return if values between samples are linearly interpolated, or false if each sample is held until the next
+	 */
+	protected abstract boolean isInterpolated();
+	
+	@Override
+	public void prepare() {
+		if (samples == null)
+			samples = createSamples();
+	}
+	
+	/**
+	 * Discards the samples of this input, so that they are recreated after its shape has changed
+	 */
+	protected void invalidateSamples() {
+		samples = null;
+	}
+	
+	@Override
+	public float getValue(int timeMS) {
+		prepare();
+		
+		int elapsedMS = timeMS - startTimeMS;
+		int index = elapsedMS / getSampleIntervalMS();
+		
+		if (index >= samples.length - 1)
+			return samples[samples.length - 1] * getScaledAmplitude();
+		
+		if (!isInterpolated())
+			return samples[index] * getScaledAmplitude();
+		
+		float fraction = (elapsedMS - index * getSampleIntervalMS()) / (float) getSampleIntervalMS();
+		
+		return (samples[index] + (samples[index + 1] - samples[index]) * fraction) * getScaledAmplitude();
+	}
+	
+	@Override
+	public void setDurationMS(int durationMS) {
+		super.setDurationMS(durationMS);
+		invalidateSamples();
+	}
+}
@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.flightcontrols.analysis;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Class that contains time and flight control information to generate a 3-2-1-1 control input, which is a sequence of alternating pulses
+ * lasting 3, 2, 1 and 1 times the duration. The start time defines when the input should start, the duration indicates how long the shortest 
+ * pulse lasts, and the amplitude of the deflection (rad) of each pulse 
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class ThreeTwoOneOne extends SampledControlInput {
+	
+	private static final float[] PULSES = {1, 1, 1, -1, -1, 1, -1};
+
+	@JsonCreator
+	public ThreeTwoOneOne(@JsonProperty("controlType") FlightControl controlType, @JsonProperty("startTimeMS") int startTimeMS, 
+						  @JsonProperty("durationMS") int durationMS, @JsonProperty("amplitude") double amplitude) {
+		super(controlType, startTimeMS, durationMS, amplitude);
+	}
+
+	@Override
+	protected float[] createSamples() {
+		return PULSES.clone();
+	}
+
+	@Override
+	protected int getSampleIntervalMS() {
+		return durationMS;
+	}
+
+	@Override
+	protected boolean isInterpolated() {
+		return false;
+	}
+	
+	@Override
+	public int getEndTimeMS() { return startTimeMS + (PULSES.length * durationMS); }
+}
@@ -41,6 +41,7 @@ import com.chrisali.javaflightsim.simulation.datatransfer.EnvironmentDataListene
 import com.chrisali.javaflightsim.simulation.datatransfer.EnvironmentDataType;
 import com.chrisali.javaflightsim.simulation.datatransfer.FlightData;
 import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataListener;
+import com.chrisali.javaflightsim.simulation.diagnostics.LatencyTracer;
 import com.chrisali.javaflightsim.simulation.enviroment.Environment;
 import com.chrisali.javaflightsim.simulation.enviroment.EnvironmentParameters;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
@@ -126,6 +127,9 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 	private List<FlightDataListener> flightDataListeners;
 	private FlightData flightData;
 	
+	// Diagnostics
+	private LatencyTracer latencyTracer;
+	
 	/**
 	 * Creates the {@link Integrate6DOFEquations} object with references to {@link FlightControlsState} and {@link SimulationConfiguration}
 	 * objects
@@ -207,6 +211,8 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 	 */
 	@Override
 	public void step() {
+		long stepStartNanos = System.nanoTime();
+		
 		try {	
 			// If paused and reset selected, reset initialConditions to saved values in configuration
 			if (options.contains(Options.PAUSED) && options.contains(Options.RESET)) {
@@ -237,6 +243,11 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 
 				// Increment time
 				t += integratorConfig[1];
+				
+				if (latencyTracer != null)
+					latencyTracer.onIntegrated(stepStartNanos);
+			} else if (latencyTracer != null) {
+				latencyTracer.discard();
 			}
 		} catch (Exception e) {
 			logger.error("Integration encountered an error!", e);
@@ -525,6 +536,13 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 		}
 	}
 
+	/**
+	 * @param latencyTracer tracer notified when integration steps finish, or null to disable tracing
+	 */
+	public void setLatencyTracer(LatencyTracer latencyTracer) {
+		this.latencyTracer = latencyTracer;
+	}
+
 	/**
 	 * Lets registered listeners know that data has arrived so that they can use it as needed
 	 */
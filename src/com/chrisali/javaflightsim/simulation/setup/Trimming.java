@@ -76,7 +76,7 @@ public class Trimming {
 	 * @param testMode
 	 */
 	public static void trimSim(SimulationConfiguration configuration, boolean testMode) {
-		Aircraft aircraft = FileUtilities.readAircraftConfiguration(configuration.getSelectedAircraft());
+		aircraft = FileUtilities.readAircraftConfiguration(configuration.getSelectedAircraft());
 		aero = new Aerodynamics(aircraft);
 		
 		initialConditions = configuration.getInitialConditions();
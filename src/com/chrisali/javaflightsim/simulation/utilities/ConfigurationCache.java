@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.utilities;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Caches parsed JSON configuration files keyed by their absolute path, last modified time and size, so that files
+ * such as Aircraft.json, which are read by several components on every start of the simulation, are only parsed once.
+ * A single {@link ObjectMapper} is shared by all reads and writes.
+ *
+ * <p>The cache holds each file's parsed JSON tree rather than the deserialized object; every read binds a new object
+ * from the tree, because configuration objects are mutable and are modified by their callers (trimming, engine states,
+ * menus, etc.). Entries are invalidated by a {@link WatchService} monitoring each cached file's directory, and are also
+ * checked against the file's last modified time on every read in case a change event has not yet arrived</p>
+ */
+public class ConfigurationCache {
+
+	private static final Logger logger = LogManager.getLogger(ConfigurationCache.class);
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	private static final ObjectWriter prettyWriter = mapper.writer().with(SerializationFeature.INDENT_OUTPUT);
+
+	private static final Map<Path, CachedFile> cache = new ConcurrentHashMap<>();
+
+	private static final Set<Path> watchedDirectories = ConcurrentHashMap.newKeySet();
+
+	private static WatchService watchService;
+
+	private static boolean watchServiceFailed = false;
+
+	private ConfigurationCache() {}
+
+	/**
+	 * Parsed contents of a file along with the attributes used to determine if the file has changed since it was parsed
+	 */
+	private static class CachedFile {
+		private final FileTime lastModified;
+		private final long size;
+		private final JsonNode tree;
+
+		private CachedFile(BasicFileAttributes attributes, JsonNode tree) {
+			this.lastModified = attributes.lastModifiedTime();
+			this.size = attributes.size();
+			this.tree = tree;
+		}
+
+		private boolean isCurrent(BasicFileAttributes attributes) {
+			return lastModified.equals(attributes.lastModifiedTime()) && size == attributes.size();
+		}
+	}
+
+	/**
+	 * @return {@link ObjectMapper} shared by all configuration reads and writes
+	 */
+	public static ObjectMapper getMapper() { return mapper; }
+
+	/**
+	 * @return {@link ObjectWriter} sharing {@link ConfigurationCache#getMapper()}'s configuration that indents its output
+	 */
+	public static ObjectWriter getPrettyWriter() { return prettyWriter; }
+
+	/**
+	 * Deserializes a JSON file into a new T object, parsing the file only if it has not been cached yet or has
+	 * changed since it was last parsed
+	 *
+	 * @param path
+	 * @param klasse
+	 * @return deserialized POJO
+	 * @throws IOException if the file could not be found, read or parsed
+	 */
+	public static <T> T read(Path path, Class<T> klasse) throws IOException {
+		Path key = path.toAbsolutePath().normalize();
+		BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+
+		CachedFile cached = cache.get(key);
+
+		if (cached == null || !cached.isCurrent(attributes)) {
+			try (BufferedReader br = Files.newBufferedReader(key)) {
+				cached = new CachedFile(attributes, mapper.readTree(br));
+			}
+
+			cache.put(key, cached);
+			watch(key.getParent());
+		} else {
+			logger.debug("Using cached copy of: " + key);
+		}
+
+		return mapper.treeToValue(cached.tree, klasse);
+	}
+
+	/**
+	 * Removes a file from the cache so that it is parsed again on its next read
+	 *
+	 * @param path
+	 */
+	public static void invalidate(Path path) {
+		cache.remove(path.toAbsolutePath().normalize());
+	}
+
+	/**
+	 * Removes all files from the cache
+	 */
+	public static void clear() {
+		cache.clear();
+	}
+
+	/**
+	 * Registers a directory with the {@link WatchService}, starting the watcher thread if needed. If the file system
+	 * does not support watching, the cache falls back to last modified time checks alone
+	 *
+	 * @param directory
+	 */
+	private static synchronized void watch(Path directory) {
+		if (directory == null || watchServiceFailed || watchedDirectories.contains(directory))
+			return;
+
+		try {
+			if (watchService == null) {
+				watchService = FileSystems.getDefault().newWatchService();
+
+				Thread watcherThread = new Thread(ConfigurationCache::processEvents, "Configuration Cache Watcher");
+				watcherThread.setDaemon(true);
+				watcherThread.start();
+			}
+
+			directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+											 StandardWatchEventKinds.ENTRY_MODIFY,
+											 StandardWatchEventKinds.ENTRY_DELETE);
+			watchedDirectories.add(directory);
+		} catch (IOException | UnsupportedOperationException e) {
+			logger.warn("Unable to watch " + directory + " for changes; relying on last modified times instead", e);
+			watchServiceFailed = true;
+		}
+	}
+
+	/**
+	 * Invalidates cached files as change events arrive from the {@link WatchService}
+	 */
+	private static void processEvents() {
+		try {
+			while (true) {
+				WatchKey watchKey = watchService.take();
+				Path directory = (Path) watchKey.watchable();
+
+				for (WatchEvent<?> event : watchKey.pollEvents()) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						cache.keySet().removeIf(cachedPath -> directory.equals(cachedPath.getParent()));
+					} else {
+						Path changed = directory.resolve((Path) event.context());
+
+						if (cache.remove(changed) != null)
+							logger.debug("Invalidated cached copy of: " + changed);
+					}
+				}
+
+				if (!watchKey.reset())
+					watchedDirectories.remove(directory);
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			logger.debug("Configuration cache watcher stopped");
+		}
+	}
+}
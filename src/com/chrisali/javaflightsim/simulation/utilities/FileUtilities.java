@@ -19,13 +19,13 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.utilities;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 
@@ -34,13 +34,12 @@ import org.apache.logging.log4j.Logger;
 
 import com.chrisali.javaflightsim.lwjgl.interfaces.gauges.InstrumentPanel;
 import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.aircraft.AircraftCompiler;
 import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.AnalysisControls;
 import com.chrisali.javaflightsim.simulation.integration.SimOuts;
 import com.chrisali.javaflightsim.simulation.setup.ControlsConfiguration;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
 import com.chrisali.javaflightsim.swing.plotting.PlotConfiguration;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 
 /**
  * Contains various static methods for reading and parsing text configuration files
@@ -58,13 +57,27 @@ public class FileUtilities {
 	//===================================================================================================
 	
 	/**
-	 * Creates an {@link Aircraft} object by deserializing a JSON file in the Aircraft/{aircraftName} directory 
+	 * Creates an {@link Aircraft} object from the compiled Aircraft.bin sidecar in the Aircraft/{aircraftName} directory
+	 * if it is up to date (see {@link AircraftCompiler}), otherwise by deserializing the JSON file in that directory 
 	 * called Aircraft.json 
 	 * 
 	 * @param aircraftName
 	 * @return desrialized {@link Aircraft}
 	 */
 	public static Aircraft readAircraftConfiguration(String aircraftName) {
+		Aircraft aircraft = AircraftCompiler.load(aircraftName);
+		
+		return (aircraft != null) ? aircraft : readAircraftJson(aircraftName);
+	}
+	
+	/**
+	 * Creates an {@link Aircraft} object by deserializing a JSON file in the Aircraft/{aircraftName} directory 
+	 * called Aircraft.json, ignoring any compiled sidecar 
+	 * 
+	 * @param aircraftName
+	 * @return desrialized {@link Aircraft}
+	 */
+	public static Aircraft readAircraftJson(String aircraftName) {
 		Aircraft aircraft = deserializeJson(Aircraft.class.getSimpleName(), 
 											SimDirectories.AIRCRAFT.toString() + File.separator + aircraftName, 
 											Aircraft.class);
@@ -148,7 +161,8 @@ public class FileUtilities {
 	}
 	
 	/**
-	 * Deserializes an JSON file into a T object based on the file name, file path and class provided
+	 * Deserializes an JSON file into a T object based on the file name, file path and class provided. Files are parsed
+	 * through {@link ConfigurationCache}, so repeated reads of an unchanged file skip parsing
 	 * 
 	 * @param filename
 	 * @param filepath
@@ -162,12 +176,11 @@ public class FileUtilities {
 		logger.info("Reading file: " + sb.toString() + "...");
 		
 		T objToDeserialize = null;
-		ObjectMapper mapper = new ObjectMapper();
 		
-		try (BufferedReader br = new BufferedReader(new FileReader(sb.toString()))) {
-			objToDeserialize = mapper.readValue(br, klasse);
+		try {
+			objToDeserialize = ConfigurationCache.read(Paths.get(sb.toString()), klasse);
 			
-		} catch (FileNotFoundException e) {logger.error("Could not find: " + filename + CONFIG_EXT + "!", e);}
+		} catch (NoSuchFileException e) {logger.error("Could not find: " + filename + CONFIG_EXT + "!", e);}
 		catch (IOException e) {logger.error("Could not read: " + filename + CONFIG_EXT + "!", e);}
 		catch (NullPointerException e) {logger.error("Bad reference when reading: " + filename + CONFIG_EXT + "!", e);}
 		catch (NumberFormatException e) {logger.error("Error parsing data from " + filename + CONFIG_EXT + "!", e);}
@@ -210,15 +223,13 @@ public class FileUtilities {
 		
 		logger.info("Saving configuration file to: " + sb.toString());
 		
-		ObjectMapper mapper = new ObjectMapper();	
-		mapper.enable(SerializationFeature.INDENT_OUTPUT);
-		
 		try (BufferedWriter bw = new BufferedWriter(new FileWriter(sb.toString()))) {
-			mapper.writeValue(bw, objToSerialize);
+			ConfigurationCache.getPrettyWriter().writeValue(bw, objToSerialize);
 			
 		} catch (FileNotFoundException e) {logger.error("Could not find: " + filename + CONFIG_EXT + "!", e);}
 		catch (IOException e) {logger.error("Could not read: " + filename + CONFIG_EXT + "!", e);}
 		catch (NullPointerException e) {logger.error("Bad reference to: " + filename + CONFIG_EXT + "!", e);}
+		finally {ConfigurationCache.invalidate(Paths.get(sb.toString()));}
 		
 		logger.info(filename + CONFIG_EXT + " saved successfully!");
 	}
@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.swing.consoletable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+
+/**
+ * Primitive mirror of the simulation's logsOut list used by {@link ConsoleTableModel}. Rows are copied once
+ * out of their {@link SimOuts} EnumMaps into fixed size chunks of doubles, so that the table can be queried without
+ * locking or unboxing. Each row is identified by an ever increasing sequence number, which allows rows dropped from the
+ * head of logsOut (UNLIMITED_FLIGHT) to be released a chunk at a time while historical rows keep their identity
+ */
+public class ConsoleLogView {
+
+	private static final int CHUNK_ROWS = 4096;
+
+	private final SimOuts[] columns = SimOuts.values();
+	private final int columnCount = columns.length;
+
+	// Chunks of CHUNK_ROWS * columnCount doubles; the first chunk holds sequence number firstChunkSeq
+	private List<double[]> chunks = new ArrayList<>();
+	private long firstChunkSeq = 0;
+
+	// Sequence numbers of the first row in the view and one past the last row in the view
+	private long headSeq = 0;
+	private long tailSeq = 0;
+
+	// Time of the newest row in the view, and of the first row in logsOut when it was last synced
+	private double lastTime = Double.NEGATIVE_INFINITY;
+	private double firstTime = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * Result of a {@link ConsoleLogView#sync(List)}; the number of rows removed from the head of the view and
+	 * the number of rows appended to its tail
+	 */
+	public static class Delta {
+		private final int removed;
+		private final int inserted;
+
+		private Delta(int removed, int inserted) {
+			this.removed = removed;
+			this.inserted = inserted;
+		}
+
+		public int getRemoved() { return removed; }
+
+		public int getInserted() { return inserted; }
+	}
+
+	/**
+	 * Brings this view up to date with logsOut. Rows are matched using {@link SimOuts#TIME}, which increases
+	 * monotonically over a run, so only rows newer than the last mirrored row are copied, and rows that logsOut has
+	 * dropped from its head are dropped from this view. The new rows are snapshotted while holding logsOut's lock, so
+	 * that the simulation thread cannot trim its head part way through a sync. If logsOut is cleared, or its time 
+	 * has gone backwards since the previous sync (the simulation was restarted), the view is cleared first
+	 *
+	 * @param logsOut
+	 * @return {@link Delta} describing how the view changed
+	 */
+	public Delta sync(List<Map<SimOuts, Double>> logsOut) {
+		if (logsOut == null)
+			return new Delta(0, 0);
+
+		int size, firstNew, removed = 0;
+		List<Map<SimOuts, Double>> newRows;
+
+		synchronized (logsOut) {
+			size = logsOut.size();
+			
+			double headTime = (size > 0) ? timeOf(logsOut.get(0)) : Double.NEGATIVE_INFINITY;
+			double tailTime = (size > 0) ? timeOf(logsOut.get(size - 1)) : Double.NEGATIVE_INFINITY;
+			
+			if (size == 0 || headTime < firstTime || tailTime < lastTime)
+				removed = clear();
+			
+			firstTime = headTime;
+			
+			firstNew = firstIndexAfter(logsOut, lastTime, size);
+			newRows = new ArrayList<>(logsOut.subList(firstNew, size));
+		}
+
+		// Source rows before firstNew are the newest rows already in this view; anything older has left logsOut
+		int dropped = Math.max(0, getRowCount() - firstNew);
+		dropHead(dropped);
+		removed += dropped;
+
+		int inserted = 0;
+		for (Map<SimOuts, Double> simOut : newRows) {
+			double time = timeOf(simOut);
+
+			if (!(time > lastTime))
+				continue;
+
+			append(simOut);
+			lastTime = time;
+			inserted++;
+		}
+
+		return new Delta(removed, inserted);
+	}
+
+	/**
+	 * Removes every row from the view and forgets the last time mirrored, so that the next rows synced are
+	 * copied regardless of their time
+	 *
+	 * @return number of rows removed
+	 */
+	private int clear() {
+		int removed = getRowCount();
+		dropHead(removed);
+		
+		lastTime = Double.NEGATIVE_INFINITY;
+		firstTime = Double.NEGATIVE_INFINITY;
+		
+		return removed;
+	}
+
+	/**
+	 * @param simOut
+	 * @return time of the row, or NaN if it has no time logged, which compares as neither newer nor older than any row
+	 */
+	private static double timeOf(Map<SimOuts, Double> simOut) {
+		Double time = simOut.get(SimOuts.TIME);
+		
+		return (time == null) ? Double.NaN : time;
+	}
+
+	/**
+	 * Binary searches logsOut for the first row whose time is greater than the time specified. Must be called 
+	 * while holding logsOut's lock
+	 *
+	 * @param logsOut
+	 * @param time
+	 * @param size
+	 * @return index of the first row newer than time, or size if none are
+	 */
+	private static int firstIndexAfter(List<Map<SimOuts, Double>> logsOut, double time, int size) {
+		int low = 0, high = size;
+
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+
+			if (timeOf(logsOut.get(mid)) > time)
+				high = mid;
+			else
+				low = mid + 1;
+		}
+
+		return low;
+	}
+
+	private void append(Map<SimOuts, Double> simOut) {
+		int offset = (int) ((tailSeq - firstChunkSeq) % CHUNK_ROWS) * columnCount;
+
+		if (offset == 0 && tailSeq - firstChunkSeq == (long) chunks.size() * CHUNK_ROWS)
+			chunks.add(new double[CHUNK_ROWS * columnCount]);
+
+		double[] chunk = chunks.get(chunks.size() - 1);
+		for (int col = 0; col < columnCount; col++) {
+			Double value = simOut.get(columns[col]);
+			chunk[offset + col] = (value == null) ? Double.NaN : value;
+		}
+
+		tailSeq++;
+	}
+
+	private void dropHead(int rows) {
+		headSeq += rows;
+
+		// Release whole chunks once every row in them has been dropped
+		while (!chunks.isEmpty() && headSeq - firstChunkSeq >= CHUNK_ROWS) {
+			chunks.remove(0);
+			firstChunkSeq += CHUNK_ROWS;
+		}
+
+		if (headSeq == tailSeq) {
+			chunks.clear();
+			firstChunkSeq = headSeq;
+		}
+	}
+
+	/**
+	 * @return number of rows currently in the view
+	 */
+	public int getRowCount() { return (int) (tailSeq - headSeq); }
+
+	/**
+	 * @return number of columns in the view; one per {@link SimOuts} value
+	 */
+	public int getColumnCount() { return columnCount; }
+
+	/**
+	 * @param row
+	 * @return sequence number of the specified row, which does not change for as long as the row remains in the view
+	 */
+	public long getSequence(int row) { return headSeq + row; }
+
+	/**
+	 * @param row
+	 * @param col
+	 * @return value at the specified row and column, or NaN if the simulation did not log a value there
+	 */
+	public double getValue(int row, int col) {
+		long chunkRow = headSeq + row - firstChunkSeq;
+
+		double[] chunk = chunks.get((int) (chunkRow / CHUNK_ROWS));
+
+		return chunk[(int) (chunkRow % CHUNK_ROWS) * columnCount + col];
+	}
+}
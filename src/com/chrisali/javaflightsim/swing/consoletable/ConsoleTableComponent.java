@@ -27,7 +27,7 @@ import java.util.Map;
 import javax.swing.JComponent;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
-import javax.swing.SwingWorker;
+import javax.swing.Timer;
 
 import com.chrisali.javaflightsim.simulation.integration.SimOuts;
 
@@ -37,7 +37,7 @@ public class ConsoleTableComponent extends JComponent {
 
     private JTable table;
     private ConsoleTableModel consoleTableModel;
-    private SwingWorker<Void, Integer> tableRefreshWorker;
+    private Timer tableRefreshTimer;
 
     public ConsoleTableComponent(List<Map<SimOuts, Double>> logsOut) {
         consoleTableModel = new ConsoleTableModel();
@@ -50,18 +50,9 @@ public class ConsoleTableComponent extends JComponent {
 		table.setColumnSelectionAllowed(true);
         table.setRowSelectionAllowed(true);
 
-        tableRefreshWorker = new SwingWorker<Void, Integer>() {
-			@Override
-			protected void done() {}
-
-			@Override
-			protected Void doInBackground() throws Exception {
-				while (true) {
-					consoleTableModel.fireTableDataChanged();
-					Thread.sleep(100);
-				}
-			}
-		};
+        // Refresh on the Event Dispatch Thread, only notifying the table of rows added or removed since the last tick
+        tableRefreshTimer = new Timer(100, ev -> consoleTableModel.refresh());
+        tableRefreshTimer.setCoalesce(true);
         
         setPreferredSize(getToolkit().getScreenSize());
     
@@ -69,10 +60,10 @@ public class ConsoleTableComponent extends JComponent {
     }
 
     public void startTableRefresh() {
-		tableRefreshWorker.execute();
+		tableRefreshTimer.start();
 	}
 
 	public void stopTableRefresh() {
-		tableRefreshWorker.cancel(true);
+		tableRefreshTimer.stop();
 	}
 }
\ No newline at end of file
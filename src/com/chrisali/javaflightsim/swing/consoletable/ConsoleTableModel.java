@@ -19,6 +19,7 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.swing.consoletable;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -26,15 +27,47 @@ import javax.swing.table.AbstractTableModel;
 
 import com.chrisali.javaflightsim.simulation.integration.SimOuts;
 
+/**
+ * Table model for the raw data console. Instead of reading the synchronized logsOut list on every repaint, the model
+ * reads from a {@link ConsoleLogView} that is synced by {@link ConsoleTableModel#refresh()}, firing row inserted/deleted events
+ * only for the rows that changed. Rows never change once logged, so formatted cell strings are cached per row
+ */
 public class ConsoleTableModel extends AbstractTableModel {
 
 	private static final long serialVersionUID = 4210192628630933689L;
 	
+	// Number of formatted rows kept in cache; must be a power of two 
+	private static final int CACHE_ROWS = 1024;
+	
 	private List<Map<SimOuts, Double>> logsOut;
 	private SimOuts[] columnNames = SimOuts.values();
 	
+	private transient ConsoleLogView logView = new ConsoleLogView();
+	
+	// Direct mapped cache of formatted rows, tagged by the row's sequence number in logView
+	private transient String[][] formattedRows = new String[CACHE_ROWS][];
+	private transient long[] formattedRowSeqs = new long[CACHE_ROWS];
+	
 	protected void setData(List<Map<SimOuts, Double>> list) {
 		this.logsOut = list;
+		
+		Arrays.fill(formattedRowSeqs, -1);
+	}
+	
+	/**
+	 * Syncs the model's {@link ConsoleLogView} with logsOut and notifies the table of any rows dropped from the head
+	 * or appended to the tail since the last refresh. Must be called on the Event Dispatch Thread
+	 */
+	protected void refresh() {
+		ConsoleLogView.Delta delta = logView.sync(logsOut);
+		
+		if (delta.getRemoved() > 0)
+			fireTableRowsDeleted(0, delta.getRemoved() - 1);
+		
+		if (delta.getInserted() > 0) {
+			int rowCount = logView.getRowCount();
+			fireTableRowsInserted(rowCount - delta.getInserted(), rowCount - 1);
+		}
 	}
 
 	@Override
@@ -44,19 +77,30 @@ public class ConsoleTableModel extends AbstractTableModel {
 
 	@Override
 	public int getRowCount() {
-		return (logsOut == null) ? 0 : logsOut.size();
+		return logView.getRowCount();
 	}
 
 	@Override
 	public Object getValueAt(int row, int col) {
-		try {
-			Map<SimOuts, Double> simOutMap = logsOut.get(row);
-			SimOuts simOut = SimOuts.getByIndex(col);
-			
-			return simOut.getFormat().format(simOutMap.get(simOut));
-		} catch (IllegalArgumentException e) {
+		if (row < 0 || row >= logView.getRowCount())
 			return "-";
+		
+		long seq = logView.getSequence(row);
+		int slot = (int) (seq & (CACHE_ROWS - 1));
+		
+		String[] formattedRow = formattedRows[slot];
+		if (formattedRowSeqs[slot] != seq || formattedRow == null) {
+			formattedRow = new String[columnNames.length];
+			formattedRows[slot] = formattedRow;
+			formattedRowSeqs[slot] = seq;
+		}
+		
+		if (formattedRow[col] == null) {
+			double value = logView.getValue(row, col);
+			formattedRow[col] = Double.isNaN(value) ? "-" : columnNames[col].getFormat().format(value);
 		}
+		
+		return formattedRow[col];
 	}
 	
 	@Override
@@ -0,0 +1,46 @@
+package com.chrisali.javaflightsim.lwjgl.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+public class EngineSoundLayerTest {
+
+	private static final float DELTA = 1e-5f;
+
+	@Test
+	public void CurvesMatchBlendingFormulasTest() {
+		for (double rpm = 0; rpm <= 3200; rpm += 12.5) {
+			assertEquals((float) ((rpm > 300 && rpm < 1800) ? Math.cos((rpm-600)/500) : 0), EngineSoundLayer.LOW.getGain(rpm), DELTA);
+			assertEquals((float) ((rpm > 600 && rpm < 2000) ? ((1.5-0.75)*(rpm-600))/(2000-600) + 0.75 : 0), EngineSoundLayer.MED.getPitch(rpm), DELTA);
+			assertEquals((float) ((rpm > 1500 && rpm < 2500) ? Math.cos((rpm-2000)/300) : 0), EngineSoundLayer.HIGH.getGain(rpm), DELTA);
+			assertEquals((float) ((rpm > 1900 && rpm < 3000) ? Math.cos((rpm-2600)/400)*2 : 0), EngineSoundLayer.MAX.getGain(rpm), DELTA);
+			assertEquals((float) ((rpm > 1900 && rpm < 3000) ? ((1.25-0.95)*(rpm-1900))/(3000-1900) + 0.95 : 0), EngineSoundLayer.MAX.getPitch(rpm), DELTA);
+		}
+	}
+
+	@Test
+	public void LayersSilentOutsideRangeTest() {
+		for (EngineSoundLayer layer : EngineSoundLayer.values()) {
+			assertFalse(layer.isAudible(Double.NaN));
+			assertEquals(0, layer.getGain(Double.NaN), 0);
+			assertEquals(0, layer.getGain(5000), 0);
+			assertEquals(0, layer.getPitch(0), 0);
+		}
+
+		// Engine off and idle
+		assertEquals(0, EngineSoundLayer.LOW.getGain(0), 0);
+		assertEquals(1, EngineSoundLayer.LOW.getGain(600), DELTA);
+		assertEquals(0, EngineSoundLayer.MAX.getGain(600), 0);
+	}
+
+	@Test
+	public void WindGainTest() {
+		assertEquals(0, SoundCollection.getWindGain(Double.NaN), 0);
+		assertEquals(0, SoundCollection.getWindGain(40), 0);
+		assertEquals(0.5f, SoundCollection.getWindGain(50.0001), DELTA);
+		assertEquals(1.25f, SoundCollection.getWindGain(175), DELTA);
+		assertEquals(0, SoundCollection.getWindGain(300), 0);
+	}
+}
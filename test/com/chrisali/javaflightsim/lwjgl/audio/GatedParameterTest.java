@@ -0,0 +1,53 @@
+package com.chrisali.javaflightsim.lwjgl.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class GatedParameterTest {
+
+	@Test
+	public void SmallChangesNotAppliedTest() {
+		GatedParameter gain = new GatedParameter(0.01f);
+
+		assertTrue("First value should always be applied", gain.update(0.5f));
+		assertFalse(gain.update(0.505f));
+		assertFalse(gain.update(0.495f));
+		assertEquals(0.5f, gain.getApplied(), 0);
+
+		// Slow drift is applied once it accumulates past the threshold
+		int applied = 0;
+		for (float target = 0.5f; target < 0.6f; target += 0.001f) {
+			if (gain.update(target))
+				applied++;
+		}
+		assertTrue(applied > 5 && applied < 15);
+		assertEquals(0.6f, gain.getApplied(), 0.011f);
+	}
+
+	@Test
+	public void SilenceAlwaysAppliedTest() {
+		GatedParameter gain = new GatedParameter(0.01f);
+
+		gain.update(0.004f);
+		assertTrue("Fading to silence should be applied", gain.update(0));
+		assertEquals(0, gain.getApplied(), 0);
+		assertFalse(gain.update(0));
+	}
+
+	@Test
+	public void StallHornHysteresisTest() {
+		double threshold = Math.PI/17;
+
+		assertFalse(SoundCollection.isStallHornOn(false, Double.NaN));
+		assertFalse(SoundCollection.isStallHornOn(false, threshold - 0.001));
+		assertTrue(SoundCollection.isStallHornOn(false, threshold + 0.001));
+
+		// Once sounding, small fluctuations about the threshold do not stop the horn
+		assertTrue(SoundCollection.isStallHornOn(true, threshold - 0.001));
+		assertTrue(SoundCollection.isStallHornOn(true, threshold - Math.toRadians(0.4)));
+		assertFalse(SoundCollection.isStallHornOn(true, threshold - Math.toRadians(0.6)));
+	}
+}
@@ -0,0 +1,171 @@
+package com.chrisali.javaflightsim.lwjgl.entities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.lwjgl.util.vector.Matrix4f;
+import org.lwjgl.util.vector.Vector3f;
+
+import com.chrisali.javaflightsim.lwjgl.models.BoundingSphere;
+import com.chrisali.javaflightsim.lwjgl.models.RawModel;
+import com.chrisali.javaflightsim.lwjgl.models.TexturedModel;
+import com.chrisali.javaflightsim.lwjgl.renderengine.Frustum;
+import com.chrisali.javaflightsim.lwjgl.renderengine.InstanceBatch;
+import com.chrisali.javaflightsim.lwjgl.terrain.AutogenMask;
+import com.chrisali.javaflightsim.lwjgl.terrain.HeightMap;
+import com.chrisali.javaflightsim.lwjgl.terrain.Terrain;
+import com.chrisali.javaflightsim.lwjgl.utilities.RenderingUtilities;
+
+public class ForestTest {
+	
+	private static final int IMAGE_SIZE = 128;
+	private static final long SEED = 42;
+	
+	private static AutogenMask createMask(boolean allTrees) {
+		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_RGB);
+		Random random = new Random(5);
+		
+		for (int x = 0; x < IMAGE_SIZE; x++) {
+			for (int z = 0; z < IMAGE_SIZE; z++)
+				image.setRGB(x, z, (allTrees || random.nextInt(3) == 0) ? 0x00FF00 : (random.nextBoolean() ? 0xFF0000 : 0));
+		}
+		
+		return AutogenMask.fromImage(image);
+	}
+	
+	private static Terrain createTerrain(int gridX, int gridZ) {
+		int vertexCount = 32;
+		float[] heights = new float[vertexCount * vertexCount];
+		
+		for (int i = 0; i < heights.length; i++)
+			heights[i] = (i % 7) - 3;
+		
+		Terrain terrain = new Terrain(gridX, gridZ, null, null, null);
+		terrain.setHeightMap(new HeightMap(vertexCount, heights));
+		
+		return terrain;
+	}
+	
+	private static TexturedModel[] createSpecies(boolean loaded) {
+		TexturedModel[] species = new TexturedModel[3];
+		
+		for (int s = 0; s < species.length; s++)
+			species[s] = new TexturedModel(loaded ? new RawModel(0, 0, new BoundingSphere(0, 2, 0, 3 + s)) : null, null);
+		
+		return species;
+	}
+	
+	@Test
+	public void MaskIndexesSampledTreePixelsTest() {
+		AutogenMask mask = createMask(true);
+		int sampledPerSide = (IMAGE_SIZE + AutogenMask.SPACING - 1) / AutogenMask.SPACING;
+		
+		assertEquals(sampledPerSide * sampledPerSide, mask.getTreeCount());
+		assertEquals(Terrain.getSize() / IMAGE_SIZE, mask.getImageScale(), 0);
+		
+		for (int i = 0; i < mask.getTreeCount(); i++) {
+			assertEquals(0, mask.getTreeX(i) % AutogenMask.SPACING);
+			assertEquals(0, mask.getTreeZ(i) % AutogenMask.SPACING);
+		}
+	}
+	
+	@Test
+	public void RegeneratedTileHasSameTreesTest() {
+		AutogenMask mask = createMask(false);
+		TexturedModel[] species = createSpecies(true);
+		
+		Forest forest = Forest.generate(mask, createTerrain(3, -2), SEED, species);
+		Forest regenerated = Forest.generate(mask, createTerrain(3, -2), SEED, species);
+		Forest neighbor = Forest.generate(mask, createTerrain(4, -2), SEED, species);
+		
+		assertTrue("Some tree groups should be generated", forest.size() > 0);
+		assertEquals(forest.size(), regenerated.size());
+		
+		Vector3f position = new Vector3f(), other = new Vector3f();
+		Terrain terrain = createTerrain(3, -2);
+		
+		for (int i = 0; i < forest.size(); i++) {
+			assertEquals(forest.getPosition(i, position), regenerated.getPosition(i, other));
+			assertEquals(forest.getRotation(i), regenerated.getRotation(i), 0);
+			assertEquals(forest.getScale(i), regenerated.getScale(i), 0);
+			assertEquals(forest.getModel(i), regenerated.getModel(i));
+			
+			assertTrue(forest.getScale(i) >= 6 && forest.getScale(i) < 7);
+			assertTrue(forest.getRotation(i) >= 0 && forest.getRotation(i) < 360);
+			assertEquals("Trees should be sunk into the terrain", terrain.getTerrainHeight(position.x, position.z) - 2, position.y, 1e-4f);
+		}
+		
+		boolean differs = neighbor.size() != forest.size();
+		for (int i = 0; i < Math.min(forest.size(), neighbor.size()) && !differs; i++)
+			differs = forest.getRotation(i) != neighbor.getRotation(i);
+		
+		assertTrue("Neighboring tiles should not repeat the same trees", differs);
+	}
+	
+	@Test
+	public void SpeciesFollowAutogenOddsTest() {
+		AutogenMask mask = createMask(true);
+		TexturedModel[] species = createSpecies(true);
+		int[] counts = new int[species.length];
+		int cells = 0;
+		
+		for (int gridX = -5; gridX < 5; gridX++) {
+			for (int gridZ = -5; gridZ < 5; gridZ++) {
+				Forest forest = Forest.generate(mask, createTerrain(gridX, gridZ), SEED, species);
+				cells += mask.getTreeCount();
+				
+				for (int i = 0; i < forest.size(); i++) {
+					for (int s = 0; s < species.length; s++) {
+						if (forest.getModel(i) == species[s])
+							counts[s]++;
+					}
+				}
+			}
+		}
+		
+		// 34 in 100 are a multiple of 3, then 12 in 100 a multiple of 9, then 10 in 100 a multiple of 10
+		assertEquals(0.34, counts[0] / (double) cells, 0.02);
+		assertEquals(0.66 * 0.12, counts[1] / (double) cells, 0.02);
+		assertEquals(0.66 * 0.88 * 0.10, counts[2] / (double) cells, 0.02);
+		assertNotEquals(Forest.hash(SEED, 0, 1, 6, 12), Forest.hash(SEED, 1, 0, 6, 12));
+	}
+	
+	@Test
+	public void CullingMatchesBruteForceTest() {
+		AutogenMask mask = createMask(false);
+		TexturedModel[] species = createSpecies(true);
+		Forest forest = Forest.generate(mask, createTerrain(0, 0), SEED, species);
+		
+		Matrix4f viewMatrix = new Matrix4f();
+		Matrix4f.translate(new Vector3f(-800, -10, -1400), viewMatrix, viewMatrix);
+		
+		Frustum frustum = new Frustum();
+		frustum.update(RenderingUtilities.createProjectionMatrix(90, 1, 0.1f, 1000), viewMatrix);
+		
+		Set<Integer> culled = new HashSet<>();
+		int submitted = forest.cull(frustum, (model, instanceData, offset) -> culled.add(offset));
+		
+		assertEquals(culled.size(), submitted);
+		assertTrue("Some trees should be culled", submitted > 0 && submitted < forest.size());
+		
+		Vector3f position = new Vector3f();
+		for (int i = 0; i < forest.size(); i++) {
+			forest.getPosition(i, position);
+			float radius = forest.getModel(i).getRawModel().getBoundingSphere().getRadiusFromOrigin() * forest.getScale(i);
+			
+			assertEquals("Forest culling should match a brute force test", frustum.intersectsSphere(position.x, position.y, position.z, radius), 
+						 culled.contains(i * InstanceBatch.INSTANCE_DATA_LENGTH));
+		}
+		
+		// Trees whose models have not been loaded yet are always submitted
+		Forest unloaded = Forest.generate(mask, createTerrain(0, 0), SEED, createSpecies(false));
+		assertEquals(unloaded.size(), unloaded.cull(frustum, (model, instanceData, offset) -> {}));
+	}
+}
@@ -0,0 +1,75 @@
+package com.chrisali.javaflightsim.lwjgl.interfaces.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.text.DecimalFormat;
+
+import org.junit.Test;
+import org.lwjgl.util.vector.Vector2f;
+
+public class HudTextTest {
+
+	@Test
+	public void FixedPointFormatTest() {
+		HudText text = new HudText();
+		text.append("ROLL: ");
+		int roll = text.appendField(9, 4);
+		text.append(" DEG | G: ");
+		int gForce = text.appendField(5, 2);
+
+		assertEquals("ROLL: ----.---- DEG | G: --.--", text.toString());
+
+		text.setValue(roll, -12.345678);
+		text.setValue(gForce, 1.005);
+		assertEquals("ROLL:  -12.3457 DEG | G:  1.00", text.toString());
+
+		text.setValue(roll, -0.00001);
+		assertEquals("ROLL:    0.0000 DEG | G:  1.00", text.toString());
+
+		text.setValue(gForce, 123.4);
+		assertEquals("ROLL:    0.0000 DEG | G: #####", text.toString());
+
+		text.setValue(gForce, Double.NaN);
+		assertEquals("ROLL:    0.0000 DEG | G: --.--", text.toString());
+	}
+
+	@Test
+	public void MatchesDecimalFormatTest() {
+		HudText text = new HudText();
+		int field = text.appendField(12, 4);
+		DecimalFormat df4 = new DecimalFormat("0.0000");
+
+		double[] values = {0, 1, -1, 0.12345, 359.99999, -179.123456, 12345.6789, -98765.4321};
+		for (double value : values) {
+			text.setValue(field, value);
+			assertEquals(df4.format(value), text.toString().trim());
+		}
+	}
+
+	@Test
+	public void UnchangedValuesNotReappliedTest() {
+		GUIText guiText = new GUIText("", 0.5f, null, new Vector2f(0, 0), 1f, false, true);
+		HudText text = new HudText();
+		text.append("AIRSPEED: ");
+		int ias = text.appendField(4, 0);
+		text.append(" KIAS");
+
+		text.setValue(ias, 100.2);
+		assertTrue(text.applyTo(guiText));
+		assertSame(text.getChars(), guiText.getTextChars());
+		assertEquals("AIRSPEED:  100 KIAS", guiText.getTextString());
+
+		guiText.setMeshStale(false);
+		text.setValue(ias, 99.8);
+		assertFalse("Same digits should not change the text", text.applyTo(guiText));
+		assertFalse(guiText.isMeshStale());
+
+		text.setValue(ias, 101);
+		assertTrue(text.applyTo(guiText));
+		assertTrue(guiText.isMeshStale());
+		assertEquals("AIRSPEED:  101 KIAS", guiText.getTextString());
+	}
+}
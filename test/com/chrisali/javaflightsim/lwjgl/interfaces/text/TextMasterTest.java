@@ -0,0 +1,98 @@
+package com.chrisali.javaflightsim.lwjgl.interfaces.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.lwjgl.util.vector.Vector2f;
+
+import com.chrisali.javaflightsim.lwjgl.utilities.OTWDirectories;
+import com.chrisali.javaflightsim.lwjgl.utilities.OTWFiles;
+
+public class TextMasterTest {
+
+	private List<GUIText> laidOut = new ArrayList<>();
+
+	private Map<String, GUIText> textMap = new HashMap<>();
+
+	private FontType font;
+
+	@Before
+	public void setUp() {
+		font = new FontType(new File(OTWDirectories.RESOURCES.toString() + File.separator + OTWDirectories.FONTS.toString()
+								 + File.separator + "arial" + OTWFiles.FONT_EXT.toString()));
+
+		TextMaster.setMeshStore((text, data) -> {
+			laidOut.add(text);
+			text.setMeshInfo(laidOut.size(), data.getVertexCount());
+		});
+	}
+
+	@After
+	public void tearDown() {
+		for (GUIText text : textMap.values())
+			text.remove();
+	}
+
+	@Test
+	public void UnchangedStringSkipsLayoutTest() {
+		GUIText flightData = new GUIText("AIRSPEED: 100 KIAS", 0.5f, font, new Vector2f(0.01f, 0.01f), 1f, false, true);
+		textMap.put("FlightData", flightData);
+
+		TextMaster.prepare(textMap);
+		assertEquals(1, laidOut.size());
+		assertEquals(6 * "AIRSPEED:100KIAS".length(), flightData.getVertexCount());
+
+		for (int i = 0; i < 100; i++) {
+			flightData.setTextString("AIRSPEED: " + 100 + " KIAS");
+			TextMaster.prepare(textMap);
+		}
+
+		assertEquals("Unchanged string should not be laid out again", 1, laidOut.size());
+		assertEquals(1, flightData.getMesh());
+	}
+
+	@Test
+	public void ChangedStringLaidOutOnceTest() {
+		GUIText flightData = new GUIText("ALTITUDE: 1000 FT", 0.5f, font, new Vector2f(0.01f, 0.01f), 1f, false, true);
+		textMap.put("FlightData", flightData);
+
+		TextMaster.prepare(textMap);
+
+		flightData.setTextString("ALTITUDE: 10000 FT");
+		TextMaster.prepare(textMap);
+		TextMaster.prepare(textMap);
+
+		assertEquals(2, laidOut.size());
+		assertEquals(6 * "ALTITUDE:10000FT".length(), flightData.getVertexCount());
+	}
+
+	@Test
+	public void HiddenTextNotLaidOutTest() {
+		GUIText paused = new GUIText("PAUSED", 1.15f, font, new Vector2f(0.5f, 0.5f), 1f, false, false);
+		GUIText camera = new GUIText("X: 0 Y: 0 Z: 0", 0.5f, font, new Vector2f(0.01f, 0.05f), 1f, false, true);
+		textMap.put("Paused", paused);
+		textMap.put("Camera", camera);
+
+		TextMaster.prepare(textMap);
+		assertEquals(1, laidOut.size());
+		assertTrue(laidOut.contains(camera));
+
+		// Text changed while hidden is laid out once when it is shown
+		paused.setTextString("PAUSED ");
+		paused.setVisible(true);
+		TextMaster.prepare(textMap);
+		TextMaster.prepare(textMap);
+
+		assertEquals(2, laidOut.size());
+		assertTrue(laidOut.contains(paused));
+	}
+}
@@ -0,0 +1,118 @@
+package com.chrisali.javaflightsim.lwjgl.interfaces.ui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.lwjgl.loader.Loader;
+import com.chrisali.javaflightsim.lwjgl.loader.TextureData;
+import com.chrisali.javaflightsim.lwjgl.utilities.OTWDirectories;
+import com.chrisali.javaflightsim.lwjgl.utilities.OTWFiles;
+
+public class TextureAtlasTest {
+	
+	private static final int PADDING = TextureAtlas.DEFAULT_PADDING;
+	
+	/**
+	 * Creates an image whose every pixel is a unique value derived from seed, so that its copy in an atlas can be verified
+	 */
+	private static TextureData createImage(int width, int height, int seed) {
+		ByteBuffer pixels = ByteBuffer.allocateDirect(width * height * 4);
+		
+		for (int i = 0; i < width * height; i++)
+			pixels.putInt(seed * 1000003 + i);
+		
+		pixels.flip();
+		
+		return new TextureData(width, height, pixels);
+	}
+	
+	private static void assertImageInAtlas(TextureAtlas atlas, AtlasRegion region, TextureData image) {
+		int x = Math.round(region.getU0() * atlas.getWidth());
+		int y = Math.round(region.getV0() * atlas.getHeight());
+		
+		assertEquals(image.getWidth(), Math.round(region.getU1() * atlas.getWidth()) - x);
+		assertEquals(image.getHeight(), Math.round(region.getV1() * atlas.getHeight()) - y);
+		
+		ByteBuffer pixels = atlas.getTextureData().getPixels();
+		for (int row = 0; row < image.getHeight(); row++) {
+			for (int col = 0; col < image.getWidth(); col++) {
+				assertEquals(image.getPixels().getInt((row * image.getWidth() + col) * 4),
+							 pixels.getInt(((y + row) * atlas.getWidth() + x + col) * 4));
+			}
+		}
+	}
+	
+	@Test
+	public void PackedImagesDoNotOverlapTest() {
+		Random random = new Random(43);
+		Map<String, TextureData> images = new LinkedHashMap<>();
+		
+		for (int i = 0; i < 40; i++)
+			images.put("Image" + i, createImage(8 + random.nextInt(120), 8 + random.nextInt(120), i));
+		images.put("Missing", null);
+		
+		TextureAtlas atlas = TextureAtlas.pack(images, PADDING);
+		
+		assertEquals(0, atlas.getWidth() & (atlas.getWidth() - 1));
+		assertEquals(0, atlas.getHeight() & (atlas.getHeight() - 1));
+		assertEquals(null, atlas.getRegion("Missing"));
+		
+		List<int[]> rects = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			AtlasRegion region = atlas.getRegion("Image" + i);
+			assertNotNull(region);
+			
+			assertTrue(region.getU0() >= 0 && region.getU1() <= 1 && region.getU0() < region.getU1());
+			assertTrue(region.getV0() >= 0 && region.getV1() <= 1 && region.getV0() < region.getV1());
+			assertImageInAtlas(atlas, region, images.get("Image" + i));
+			
+			int[] rect = {Math.round(region.getU0() * atlas.getWidth()), Math.round(region.getV0() * atlas.getHeight()),
+						  Math.round(region.getU1() * atlas.getWidth()), Math.round(region.getV1() * atlas.getHeight())};
+			
+			for (int[] other : rects) {
+				boolean separated = rect[0] >= other[2] + PADDING || other[0] >= rect[2] + PADDING
+								 || rect[1] >= other[3] + PADDING || other[1] >= rect[3] + PADDING;
+				assertTrue("Images should be separated by padding", separated);
+			}
+			
+			rects.add(rect);
+		}
+	}
+	
+	@Test
+	public void InstrumentPanelAtlasTest() {
+		Map<String, TextureData> images = new LinkedHashMap<>();
+		
+		images.put("InstrumentPanel", Loader.decodeTexture("Aircraft", "InstrumentPanel", "Navion"));
+		
+		File[] gaugeFiles = new File(OTWDirectories.RESOURCES.toString(), OTWDirectories.GAUGES.toString()).listFiles();
+		assertNotNull(gaugeFiles);
+		
+		for (File file : gaugeFiles) {
+			String name = file.getName().replace(OTWFiles.TEXTURE_EXT.toString(), "");
+			images.put(name, Loader.decodeTexture(OTWDirectories.RESOURCES.toString(), name, OTWDirectories.GAUGES.toString()));
+		}
+		
+		TextureAtlas atlas = TextureAtlas.pack(images, PADDING);
+		
+		assertTrue(atlas.getWidth() <= 2048 && atlas.getHeight() <= 2048);
+		
+		for (Map.Entry<String, TextureData> entry : images.entrySet()) {
+			assertNotNull(entry.getKey(), entry.getValue());
+			assertImageInAtlas(atlas, atlas.getRegion(entry.getKey()), entry.getValue());
+		}
+		
+		assertEquals(0, atlas.getTextureData().getPixels().position());
+	}
+}
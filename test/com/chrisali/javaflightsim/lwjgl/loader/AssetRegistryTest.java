@@ -0,0 +1,144 @@
+package com.chrisali.javaflightsim.lwjgl.loader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.lwjgl.models.RawModel;
+import com.chrisali.javaflightsim.lwjgl.models.TexturedModel;
+import com.chrisali.javaflightsim.lwjgl.utilities.OTWFiles;
+
+public class AssetRegistryTest {
+	
+	private static final String DIRECTORY = "Entities";
+	
+	/**
+	 * Loader that hands out sequential IDs and records what it loads and deletes, without any OpenGL calls
+	 */
+	private static class MockLoader extends Loader {
+		private int nextID = 1;
+		private List<String> loaded = new ArrayList<>();
+		private List<Integer> deletedVAOs = new ArrayList<>();
+		private List<Integer> deletedTextures = new ArrayList<>();
+		
+		@Override
+		public RawModel loadObjModel(String fileName, String directory) {
+			loaded.add(fileName + OTWFiles.MODEL_EXT.toString());
+			return new RawModel(nextID++, 3);
+		}
+		
+		@Override
+		public int loadTexture(String fileName, String directory) {
+			loaded.add(fileName + OTWFiles.TEXTURE_EXT.toString());
+			return nextID++;
+		}
+		
+		@Override
+		public void deleteVAO(int vao) { deletedVAOs.add(vao); }
+		
+		@Override
+		public void deleteTexture(int textureID) { deletedTextures.add(textureID); }
+	}
+	
+	private MockLoader loader;
+	private AssetRegistry registry;
+	
+	@Before
+	public void setUp() {
+		loader = new MockLoader();
+		registry = new AssetRegistry(loader);
+	}
+	
+	@Test
+	public void SharedModelLoadedOnceTest() {
+		AssetRegistry.Handle<RawModel> first = registry.acquireModel("lamp", DIRECTORY);
+		AssetRegistry.Handle<RawModel> second = registry.acquireModel("lamp", DIRECTORY);
+		
+		// Equivalent paths refer to the same asset
+		AssetRegistry.Handle<RawModel> third = registry.acquireModel("lamp", DIRECTORY + "/../" + DIRECTORY);
+		
+		assertEquals(1, loader.loaded.size());
+		assertSame(first.get(), second.get());
+		assertSame(first.get(), third.get());
+		
+		String key = AssetRegistry.canonicalPath("lamp" + OTWFiles.MODEL_EXT.toString(), DIRECTORY);
+		assertEquals(3, registry.getReferenceCount(key));
+		
+		first.release();
+		first.release();
+		second.release();
+		
+		assertEquals(1, registry.getReferenceCount(key));
+		assertTrue(loader.deletedVAOs.isEmpty());
+		
+		third.release();
+		
+		assertEquals(0, registry.getReferenceCount(key));
+		assertEquals(0, registry.size());
+		assertEquals(1, loader.deletedVAOs.size());
+		assertEquals(first.get().getVaoID(), (int) loader.deletedVAOs.get(0));
+	}
+	
+	@Test
+	public void ReleasedAssetReloadedTest() {
+		AssetRegistry.Handle<Integer> texture = registry.acquireTexture("pine", DIRECTORY);
+		int firstID = texture.get();
+		texture.release();
+		
+		texture = registry.acquireTexture("pine", DIRECTORY);
+		
+		assertEquals(2, loader.loaded.size());
+		assertEquals(firstID, (int) loader.deletedTextures.get(0));
+		assertTrue(firstID != texture.get());
+	}
+	
+	@Test
+	public void TexturedModelSharesComponentsTest() {
+		AssetRegistry.Handle<RawModel> grass = registry.acquireModel("grassModel", DIRECTORY);
+		
+		AssetRegistry.Handle<TexturedModel> pine = registry.acquireTexturedModel("grassModel", "pineforest", DIRECTORY);
+		AssetRegistry.Handle<TexturedModel> oak = registry.acquireTexturedModel("grassModel", "oakforest", DIRECTORY);
+		AssetRegistry.Handle<TexturedModel> pineAgain = registry.acquireTexturedModel("grassModel", "pineforest", DIRECTORY);
+		
+		// One model and two textures, rather than a model and texture for each
+		assertEquals(3, loader.loaded.size());
+		assertSame(pine.get(), pineAgain.get());
+		assertSame(grass.get(), pine.get().getRawModel());
+		assertSame(grass.get(), oak.get().getRawModel());
+		
+		pine.release();
+		oak.release();
+		assertEquals(1, loader.deletedTextures.size());
+		
+		pineAgain.release();
+		assertEquals(2, loader.deletedTextures.size());
+		assertTrue("Model still in use should not be deleted", loader.deletedVAOs.isEmpty());
+		
+		grass.release();
+		assertEquals(1, loader.deletedVAOs.size());
+		assertEquals(0, registry.size());
+	}
+	
+	@Test
+	public void MissingModelTest() {
+		MockLoader missing = new MockLoader() {
+			@Override
+			public RawModel loadObjModel(String fileName, String directory) { return null; }
+		};
+		registry = new AssetRegistry(missing);
+		
+		AssetRegistry.Handle<RawModel> model = registry.acquireModel("missing", DIRECTORY);
+		assertNull(model.get());
+		
+		model.release();
+		assertTrue(missing.deletedVAOs.isEmpty());
+		assertEquals(0, registry.size());
+	}
+}
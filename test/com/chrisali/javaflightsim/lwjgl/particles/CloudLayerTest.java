@@ -0,0 +1,86 @@
+package com.chrisali.javaflightsim.lwjgl.particles;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CloudLayerTest {
+	
+	private static final int NEAR_RADIUS = 1;
+	private static final int FAR_RADIUS = 4;
+	
+	private static List<String> getClouds(ParticlePool pool) {
+		List<String> clouds = new ArrayList<>();
+		
+		for (int i = 0; i < pool.getCount(); i++) {
+			clouds.add(String.format("%.3f %.3f %.3f %.3f %d", pool.getPositionX(i), pool.getPositionY(i), pool.getPositionZ(i), 
+									 pool.getScale(i), pool.getTextureIndex1(i)));
+		}
+		
+		clouds.sort(null);
+		
+		return clouds;
+	}
+	
+	@Test
+	public void CellsAreDeterministicTest() {
+		ParticlePool direct = new ParticlePool(4);
+		ParticlePool travelled = new ParticlePool(4);
+		
+		CloudLayer directLayer = new CloudLayer(direct, 42, 300, 0.6f, NEAR_RADIUS, FAR_RADIUS);
+		CloudLayer travelledLayer = new CloudLayer(travelled, 42, 300, 0.6f, NEAR_RADIUS, FAR_RADIUS);
+		
+		// One layer flies out and back, paging cells out and in again, while the other stays put
+		float cellSize = CloudLayer.getCellSize();
+		for (int i = 0; i <= 20; i++)
+			travelledLayer.update(i * cellSize, 0);
+		for (int i = 20; i >= 0; i--)
+			travelledLayer.update(i * cellSize, 0);
+		
+		directLayer.update(0, 0);
+		
+		assertEquals("Cells should look the same however they were paged", getClouds(direct), getClouds(travelled));
+		assertFalse("Cloud layer should not be empty", direct.isEmpty());
+		
+		ParticlePool otherSeed = new ParticlePool(4);
+		new CloudLayer(otherSeed, 43, 300, 0.6f, NEAR_RADIUS, FAR_RADIUS).update(0, 0);
+		
+		assertFalse("Different seeds should give different clouds", getClouds(direct).equals(getClouds(otherSeed)));
+	}
+	
+	@Test
+	public void PagesOnlyOnCellChangesTest() {
+		CloudLayer layer = new CloudLayer(new ParticlePool(4), 1, 300, 0.5f, NEAR_RADIUS, FAR_RADIUS);
+		float cellSize = CloudLayer.getCellSize();
+		
+		assertTrue(layer.update(cellSize * 0.5f, cellSize * 0.5f));
+		assertFalse("Moving within a cell should not page", layer.update(cellSize * 0.9f, cellSize * 0.1f));
+		assertTrue("Moving into another cell should page", layer.update(cellSize * 1.1f, cellSize * 0.1f));
+		assertTrue("Negative coordinates should page into their own cell", layer.update(-cellSize * 0.1f, cellSize * 0.1f));
+	}
+	
+	@Test
+	public void CostIndependentOfDistanceTravelledTest() {
+		ParticlePool pool = new ParticlePool(4);
+		CloudLayer layer = new CloudLayer(pool, 7, 300, 1.0f, NEAR_RADIUS, FAR_RADIUS);
+		
+		int farCells = (2 * FAR_RADIUS + 1) * (2 * FAR_RADIUS + 1);
+		int nearCells = (2 * NEAR_RADIUS + 1) * (2 * NEAR_RADIUS + 1);
+		
+		// Full coverage, so every cell has 4 clusters of at most 16 puffs
+		int maxClouds = nearCells * 4 * 16 + (farCells - nearCells) * 4;
+		
+		for (int i = 0; i < 500; i++) {
+			layer.update(i * CloudLayer.getCellSize() * 3, i * CloudLayer.getCellSize());
+			
+			assertEquals("Only cells within the far radius should be kept", farCells, layer.getCellCount());
+			assertTrue("Clouds should be bounded by the paging radii", layer.getCloudCount() <= maxClouds);
+			assertTrue("Far cells should contribute impostors", layer.getCloudCount() >= (farCells - nearCells) * 4);
+		}
+	}
+}
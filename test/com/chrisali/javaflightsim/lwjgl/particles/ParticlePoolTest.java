@@ -0,0 +1,109 @@
+package com.chrisali.javaflightsim.lwjgl.particles;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class ParticlePoolTest {
+	
+	private static final float DELTA = 1 / 60f;
+	
+	private static ParticlePool createPool(int count, long seed) {
+		ParticlePool pool = new ParticlePool(4);
+		Random random = new Random(seed);
+		
+		for (int i = 0; i < count; i++) {
+			pool.add(random.nextFloat() * 1000 - 500, random.nextFloat() * 100, random.nextFloat() * 1000 - 500,
+					 random.nextFloat() * 10 - 5, random.nextFloat() * 10, random.nextFloat() * 10 - 5,
+					 random.nextFloat(), 0.5f + random.nextFloat() * 2, i, 1 + random.nextFloat(), -1);
+		}
+		
+		return pool;
+	}
+	
+	@Test
+	public void MotionAndLifeTest() {
+		ParticlePool pool = new ParticlePool(4);
+		pool.add(0, 0, 0, 1, 2, 3, 1, 1.0f, 0, 1, -1);
+		pool.add(0, 0, 0, 0, 0, 0, 0, 0.05f, 0, 1, -1);
+		
+		pool.update(0.1f, 0, 0, 0);
+		
+		assertEquals("Particle past its life length should be removed", 1, pool.getCount());
+		assertEquals(0.1f, pool.getPositionX(0), 1e-6);
+		assertEquals((2 - 50 * 0.1f) * 0.1f, pool.getPositionY(0), 1e-6);
+		assertEquals(0.3f, pool.getPositionZ(0), 1e-6);
+		
+		float x = pool.getPositionX(0), y = pool.getPositionY(0), z = pool.getPositionZ(0);
+		assertEquals(x * x + y * y + z * z, pool.getDistanceFromCamera(0), 1e-6);
+	}
+	
+	@Test
+	public void TextureStagesAdvanceOverLifeTest() {
+		ParticlePool pool = new ParticlePool(2);
+		pool.add(0, 0, 0, 0, 0, 0, 0, 1.0f, 0, 1, -1);
+		pool.add(0, 0, 0, 0, 0, 0, 0, Float.POSITIVE_INFINITY, 0, 1, 3);
+		
+		pool.update(0.375f, 0, 0, 0);
+		pool.update(0.25f, 0, 0, 0);
+		
+		// Three eighths of the way through four stages
+		assertEquals(1, pool.getTextureIndex1(0));
+		assertEquals(2, pool.getTextureIndex2(0));
+		assertEquals(0.5f, pool.getTextureBlend(0), 1e-6);
+		
+		assertEquals("Fixed stage should not advance", 3, pool.getTextureIndex1(1));
+		assertEquals("Last stage should not blend past the atlas", 3, pool.getTextureIndex2(1));
+	}
+	
+	@Test
+	public void SwapRemoveKeepsLiveParticlesTest() {
+		ParticlePool pool = createPool(5000, 1);
+		
+		Set<Float> expected = new HashSet<>();
+		for (int i = 0; i < pool.getCount(); i++)
+			expected.add(pool.getRotation(i));
+		
+		for (int frame = 0; frame < 120; frame++) {
+			pool.update(DELTA, 0, 50, 0);
+			
+			Set<Float> live = new HashSet<>();
+			for (int i = 0; i < pool.getCount(); i++)
+				live.add(pool.getRotation(i));
+			
+			assertEquals("Particles should not be duplicated", pool.getCount(), live.size());
+			assertTrue("Only particles that were added should remain", expected.containsAll(live));
+		}
+		
+		assertTrue("Some particles should have died", pool.getCount() < 5000);
+	}
+	
+	@Test
+	public void RadixSortFarthestFirstTest() {
+		// Large enough to be updated in parallel
+		ParticlePool pool = createPool(50_000, 2);
+		pool.update(DELTA, 10, 20, 30);
+		pool.sortBackToFront();
+		
+		Set<Integer> drawn = new HashSet<>();
+		for (int i = 0; i < pool.getCount(); i++) {
+			drawn.add(pool.getDrawIndex(i));
+			
+			// Sort keys only distinguish distances differing by more than about one part in 65,000
+			if (i > 0)
+				assertTrue("Particles should be drawn farthest first", 
+						   pool.getDistanceFromCamera(pool.getDrawIndex(i - 1)) >= pool.getDistanceFromCamera(pool.getDrawIndex(i)) * (1 - 2e-5f));
+		}
+		
+		assertEquals("Every particle should be drawn once", pool.getCount(), drawn.size());
+		
+		pool.update(DELTA, 10, 20, 30);
+		for (int i = 0; i < pool.getCount(); i++)
+			assertEquals("Draw order should revert to storage order once the pool changes", i, pool.getDrawIndex(i));
+	}
+}
@@ -0,0 +1,123 @@
+package com.chrisali.javaflightsim.lwjgl.renderengine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.lwjgl.util.vector.Matrix4f;
+import org.lwjgl.util.vector.Vector3f;
+
+import com.chrisali.javaflightsim.lwjgl.entities.Entity;
+import com.chrisali.javaflightsim.lwjgl.entities.EntityQuadtree;
+import com.chrisali.javaflightsim.lwjgl.models.BoundingSphere;
+import com.chrisali.javaflightsim.lwjgl.models.RawModel;
+import com.chrisali.javaflightsim.lwjgl.models.TexturedModel;
+import com.chrisali.javaflightsim.lwjgl.utilities.RenderingUtilities;
+
+public class FrustumTest {
+	
+	private static final float NEAR_PLANE = 0.1f;
+	private static final float FAR_PLANE = 1000;
+	
+	// 90 degree field of view with a square display, so that the side planes are at 45 degrees
+	private static Frustum createFrustum(Vector3f cameraPosition) {
+		Matrix4f projectionMatrix = RenderingUtilities.createProjectionMatrix(90, 1, NEAR_PLANE, FAR_PLANE);
+		
+		Matrix4f viewMatrix = new Matrix4f();
+		Matrix4f.translate(new Vector3f(-cameraPosition.x, -cameraPosition.y, -cameraPosition.z), viewMatrix, viewMatrix);
+		
+		Frustum frustum = new Frustum();
+		frustum.update(projectionMatrix, viewMatrix);
+		
+		return frustum;
+	}
+	
+	@Test
+	public void SphereClassificationTest() {
+		Frustum frustum = createFrustum(new Vector3f(0, 0, 0));
+		
+		assertTrue("Sphere ahead of the camera should be visible", frustum.intersectsSphere(0, 0, -100, 1));
+		assertFalse("Sphere behind the camera should be culled", frustum.intersectsSphere(0, 0, 100, 1));
+		assertFalse("Sphere beyond the far plane should be culled", frustum.intersectsSphere(0, 0, -FAR_PLANE - 10, 1));
+		assertFalse("Sphere left of the frustum should be culled", frustum.intersectsSphere(-120, 0, -100, 5));
+		assertTrue("Sphere straddling the left plane should be visible", frustum.intersectsSphere(-102, 0, -100, 5));
+		assertFalse("Sphere above the frustum should be culled", frustum.intersectsSphere(0, 120, -100, 5));
+		
+		Frustum moved = createFrustum(new Vector3f(500, 20, 500));
+		assertTrue("Sphere ahead of a moved camera should be visible", moved.intersectsSphere(500, 20, 400, 1));
+		assertFalse("Sphere behind a moved camera should be culled", moved.intersectsSphere(500, 20, 600, 1));
+	}
+	
+	@Test
+	public void BoxClassificationTest() {
+		Frustum frustum = createFrustum(new Vector3f(0, 0, 0));
+		
+		assertEquals(Frustum.INSIDE, frustum.classifyBox(-10, -10, -110, 10, 10, -90));
+		assertEquals(Frustum.INTERSECTING, frustum.classifyBox(-200, -10, -110, 10, 10, -90));
+		assertEquals(Frustum.INTERSECTING, frustum.classifyBox(-10, -10, -10, 10, 10, 10));
+		assertEquals(Frustum.OUTSIDE, frustum.classifyBox(-10, -10, 10, 10, 10, 30));
+		assertEquals(Frustum.OUTSIDE, frustum.classifyBox(200, -10, -110, 300, 10, -90));
+	}
+	
+	@Test
+	public void BoundingSphereEnclosesPositionsTest() {
+		float[] positions = {-1, 0, 2,  3, 4, 2,  1, -2, 6};
+		BoundingSphere sphere = BoundingSphere.fromPositions(positions);
+		
+		for (int i = 0; i < positions.length; i += 3) {
+			float dx = positions[i] - sphere.getCenterX(), dy = positions[i+1] - sphere.getCenterY(), dz = positions[i+2] - sphere.getCenterZ();
+			assertTrue("Vertex should lie within sphere", Math.sqrt(dx*dx + dy*dy + dz*dz) <= sphere.getRadius() + 1e-5);
+			assertTrue("Vertex should lie within radius from origin", 
+					   Math.sqrt(positions[i]*positions[i] + positions[i+1]*positions[i+1] + positions[i+2]*positions[i+2]) <= sphere.getRadiusFromOrigin() + 1e-5);
+		}
+	}
+	
+	@Test
+	public void QuadtreeMatchesBruteForceTest() {
+		TexturedModel model = new TexturedModel(new RawModel(0, 0, new BoundingSphere(0, 1, 0, 2)), null);
+		Random random = new Random(42);
+		
+		List<Entity> entities = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			Vector3f position = new Vector3f(random.nextFloat() * 1600 - 800, random.nextFloat() * 20, random.nextFloat() * 1600 - 800);
+			entities.add(new Entity(model, position, 0, random.nextFloat() * 360, 0, 0.5f + random.nextFloat() * 3));
+		}
+		
+		// Entity whose model has not been loaded yet should always be submitted
+		Entity unloaded = new Entity(new TexturedModel(null, null), new Vector3f(0, 0, 5000), 0, 0, 0, 1);
+		entities.add(unloaded);
+		
+		EntityQuadtree quadtree = new EntityQuadtree(entities);
+		assertEquals(entities.size(), quadtree.size());
+		
+		Vector3f[] cameraPositions = {new Vector3f(0, 10, 0), new Vector3f(-500, 50, 700), new Vector3f(900, 5, -900)};
+		
+		for (Vector3f cameraPosition : cameraPositions) {
+			Frustum frustum = createFrustum(cameraPosition);
+			
+			Set<Entity> culled = new HashSet<>();
+			int submitted = quadtree.cull(frustum, culled::add);
+			
+			assertEquals("Count returned should match entities submitted", culled.size(), submitted);
+			assertTrue("Entity without bounds should be submitted", culled.contains(unloaded));
+			
+			for (Entity entity : entities) {
+				if (entity == unloaded)
+					continue;
+				
+				Vector3f position = entity.getPosition();
+				boolean visible = frustum.intersectsSphere(position.x, position.y, position.z, entity.getBoundingRadius());
+				
+				// Entities in nodes wholly inside the frustum are submitted without testing, but must still be visible
+				assertEquals("Quadtree should match a brute force test", visible, culled.contains(entity));
+			}
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package com.chrisali.javaflightsim.lwjgl.renderengine;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.lwjgl.util.vector.Matrix4f;
+import org.lwjgl.util.vector.Vector3f;
+import org.lwjgl.util.vector.Vector4f;
+
+import com.chrisali.javaflightsim.lwjgl.entities.Entity;
+import com.chrisali.javaflightsim.lwjgl.entities.EntityQuadtree;
+import com.chrisali.javaflightsim.lwjgl.models.BoundingSphere;
+import com.chrisali.javaflightsim.lwjgl.models.RawModel;
+import com.chrisali.javaflightsim.lwjgl.models.TexturedModel;
+import com.chrisali.javaflightsim.lwjgl.utilities.RenderingUtilities;
+
+public class InstanceBatchTest {
+	
+	private static final float TOLERANCE = 1e-4f;
+	
+	private static Entity createEntity(TexturedModel model, Random random) {
+		Vector3f position = new Vector3f(random.nextFloat() * 800 - 400, random.nextFloat() * 20, random.nextFloat() * 800 - 400);
+		
+		return new Entity(model, random.nextInt(4), position, random.nextFloat() * 30, random.nextFloat() * 360, 
+						  random.nextFloat() * 30, 0.5f + random.nextFloat() * 3);
+	}
+	
+	/**
+	 * Transforms a point using a column major matrix as the instanced shader would
+	 */
+	private static Vector3f transform(float[] data, int offset, Vector3f point) {
+		float[] result = new float[3];
+		
+		for (int row = 0; row < 3; row++) {
+			result[row] = data[offset + row] * point.x + data[offset + 4 + row] * point.y 
+						+ data[offset + 8 + row] * point.z + data[offset + 12 + row];
+		}
+		
+		return new Vector3f(result[0], result[1], result[2]);
+	}
+	
+	private static void assertInstanceData(Entity entity, float[] data, int offset) {
+		Matrix4f matrix = RenderingUtilities.createTransformationMatrix(entity.getPosition(), entity.getRotX(), 
+																	   entity.getRotY(), entity.getRotZ(), entity.getScale());
+		Vector3f point = new Vector3f(1.5f, -2, 0.75f);
+		Vector4f expected = Matrix4f.transform(matrix, new Vector4f(point.x, point.y, point.z, 1), null);
+		Vector3f actual = transform(data, offset, point);
+		
+		assertEquals(expected.x, actual.x, TOLERANCE);
+		assertEquals(expected.y, actual.y, TOLERANCE);
+		assertEquals(expected.z, actual.z, TOLERANCE);
+		assertEquals(entity.getTextureIndex(), data[offset + 16], 0);
+	}
+	
+	@Test
+	public void InstanceDataMatchesTransformationMatrixTest() {
+		Random random = new Random(7);
+		float[] data = new float[InstanceBatch.INSTANCE_DATA_LENGTH * 2];
+		
+		for (int i = 0; i < 50; i++) {
+			Entity entity = createEntity(null, random);
+			InstanceBatch.storeInstanceData(entity, data, InstanceBatch.INSTANCE_DATA_LENGTH);
+			assertInstanceData(entity, data, InstanceBatch.INSTANCE_DATA_LENGTH);
+		}
+	}
+	
+	@Test
+	public void BatchGrowsAndClearsTest() {
+		Random random = new Random(11);
+		InstanceBatch batch = new InstanceBatch();
+		float[] data = new float[InstanceBatch.INSTANCE_DATA_LENGTH];
+		
+		List<Entity> entities = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			Entity entity = createEntity(null, random);
+			entities.add(entity);
+			
+			InstanceBatch.storeInstanceData(entity, data, 0);
+			batch.add(data, 0);
+		}
+		
+		assertEquals(entities.size(), batch.getInstanceCount());
+		assertEquals(entities.size() * InstanceBatch.INSTANCE_DATA_LENGTH, batch.getFloatCount());
+		
+		for (int i = 0; i < entities.size(); i++)
+			assertInstanceData(entities.get(i), batch.getData(), i * InstanceBatch.INSTANCE_DATA_LENGTH);
+		
+		batch.clear();
+		assertEquals(0, batch.getInstanceCount());
+	}
+	
+	@Test
+	public void QuadtreeSubmitsPrecomputedInstanceDataTest() {
+		TexturedModel model = new TexturedModel(new RawModel(0, 0, new BoundingSphere(0, 1, 0, 2)), null);
+		Random random = new Random(13);
+		
+		List<Entity> entities = new ArrayList<>();
+		for (int i = 0; i < 1000; i++)
+			entities.add(createEntity(model, random));
+		
+		EntityQuadtree quadtree = new EntityQuadtree(entities);
+		
+		// Camera at the origin looking down -z, with everything else culled
+		Frustum frustum = new Frustum();
+		frustum.update(RenderingUtilities.createProjectionMatrix(90, 1, 0.1f, 1000), new Matrix4f());
+		
+		InstanceBatch batch = new InstanceBatch();
+		List<Entity> submitted = new ArrayList<>();
+		
+		quadtree.cull(frustum, (entity, instanceData, offset) -> {
+			submitted.add(entity);
+			batch.add(instanceData, offset);
+		});
+		
+		assertEquals(submitted.size(), batch.getInstanceCount());
+		
+		for (int i = 0; i < submitted.size(); i++)
+			assertInstanceData(submitted.get(i), batch.getData(), i * InstanceBatch.INSTANCE_DATA_LENGTH);
+	}
+}
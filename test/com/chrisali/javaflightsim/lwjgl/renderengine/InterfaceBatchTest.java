@@ -0,0 +1,70 @@
+package com.chrisali.javaflightsim.lwjgl.renderengine;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.lwjgl.util.vector.Matrix4f;
+import org.lwjgl.util.vector.Vector2f;
+import org.lwjgl.util.vector.Vector4f;
+
+import com.chrisali.javaflightsim.lwjgl.interfaces.ui.AtlasRegion;
+import com.chrisali.javaflightsim.lwjgl.interfaces.ui.InterfaceTexture;
+import com.chrisali.javaflightsim.lwjgl.utilities.RenderingUtilities;
+
+public class InterfaceBatchTest {
+	
+	private static final float TOLERANCE = 1e-5f;
+	
+	@Test
+	public void QuadMatchesTransformationMatrixTest() {
+		InterfaceBatch batch = new InterfaceBatch();
+		float aspectRatio = DisplayManager.getAspectRatio();
+		
+		InterfaceTexture[] textures = new InterfaceTexture[50];
+		for (int i = 0; i < textures.length; i++) {
+			textures[i] = new InterfaceTexture(i % 3 + 1, new Vector2f(-0.9f + i * 0.03f, 0.25f - i * 0.01f), i * 37.5f, 
+											   new Vector2f(0.125f, 0.1f + i * 0.002f));
+			batch.add(textures[i], aspectRatio);
+		}
+		
+		assertEquals(textures.length, batch.getQuadCount());
+		
+		float[] positions = batch.getPositions();
+		for (int i = 0; i < textures.length; i++) {
+			Matrix4f matrix = RenderingUtilities.createTransformationMatrix(textures[i].getPosition(), textures[i].getRotation(),
+																			 textures[i].getScale());
+			assertEquals(textures[i].getTexture(), batch.getTexture(i));
+			
+			for (int v = 0; v < InterfaceBatch.VERTICES_PER_QUAD; v++) {
+				int offset = i * InterfaceBatch.FLOATS_PER_QUAD + v * 2;
+				
+				// Corner of the unit quad is recovered from the texture coordinates of the default, full region
+				float cornerX = batch.getTextureCoords()[offset] * 2 - 1;
+				float cornerY = 1 - batch.getTextureCoords()[offset + 1] * 2;
+				
+				Vector4f expected = Matrix4f.transform(matrix, new Vector4f(cornerX, cornerY, 0, 1), null);
+				assertEquals(expected.x, positions[offset], TOLERANCE);
+				assertEquals(expected.y, positions[offset + 1], TOLERANCE);
+			}
+		}
+	}
+	
+	@Test
+	public void RegionTextureCoordsTest() {
+		InterfaceBatch batch = new InterfaceBatch();
+		InterfaceTexture texture = new InterfaceTexture(1, new Vector2f(0, 0), 0, new Vector2f(1, 1));
+		texture.setRegion(new AtlasRegion(0.25f, 0.5f, 0.375f, 0.625f));
+		
+		batch.add(texture, 1);
+		batch.clear();
+		batch.add(texture, 1);
+		
+		assertEquals(1, batch.getQuadCount());
+		
+		float[] positions = batch.getPositions(), textureCoords = batch.getTextureCoords();
+		for (int v = 0; v < InterfaceBatch.VERTICES_PER_QUAD; v++) {
+			assertEquals(positions[v * 2] < 0 ? 0.25f : 0.375f, textureCoords[v * 2], 0);
+			assertEquals(positions[v * 2 + 1] > 0 ? 0.5f : 0.625f, textureCoords[v * 2 + 1], 0);
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package com.chrisali.javaflightsim.lwjgl.renderengine;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+import org.lwjgl.util.vector.Matrix4f;
+import org.lwjgl.util.vector.Vector3f;
+
+import com.chrisali.javaflightsim.lwjgl.particles.ParticlePool;
+
+public class ParticleInstanceWriterTest {
+	
+	private static final float TOLERANCE = 1e-3f;
+	
+	/**
+	 * Rotates and translates a view matrix the same way as RenderingUtilities.createViewMatrix()
+	 */
+	private static Matrix4f createViewMatrix(Vector3f position, float pitch, float yaw, float roll) {
+		Matrix4f viewMatrix = new Matrix4f();
+		
+		Matrix4f.rotate((float) Math.toRadians(pitch), new Vector3f(1, 0, 0), viewMatrix, viewMatrix);
+		Matrix4f.rotate((float) Math.toRadians(yaw),   new Vector3f(0, 1, 0), viewMatrix, viewMatrix);
+		Matrix4f.rotate((float) Math.toRadians(roll),  new Vector3f((float) Math.sin(Math.toRadians(yaw)), 0, (float) -Math.cos(Math.toRadians(yaw))), 
+						viewMatrix, viewMatrix);
+		Matrix4f.translate(new Vector3f(-position.x, -position.y, -position.z), viewMatrix, viewMatrix);
+		
+		return viewMatrix;
+	}
+	
+	/**
+	 * Model view matrix as calculated with Matrix4f operations before ParticleInstanceWriter was written 
+	 */
+	private static Matrix4f createModelViewMatrix(Vector3f position, float rotation, float scale, Matrix4f viewMatrix) {
+		Matrix4f modelMatrix = new Matrix4f();
+		Matrix4f.translate(position, modelMatrix, modelMatrix);
+		
+		modelMatrix.m00 = viewMatrix.m00;
+		modelMatrix.m01 = viewMatrix.m10;
+		modelMatrix.m02 = viewMatrix.m20;
+		modelMatrix.m10 = viewMatrix.m01;
+		modelMatrix.m11 = viewMatrix.m11;
+		modelMatrix.m12 = viewMatrix.m21;
+		modelMatrix.m20 = viewMatrix.m02;
+		modelMatrix.m21 = viewMatrix.m12;
+		modelMatrix.m22 = viewMatrix.m22;
+		
+		Matrix4f.rotate((float) Math.toRadians(rotation), new Vector3f(0, 0, 1), modelMatrix, modelMatrix);
+		Matrix4f.scale(new Vector3f(scale, scale, scale), modelMatrix, modelMatrix);
+		
+		return Matrix4f.mul(viewMatrix, modelMatrix, null);
+	}
+	
+	@Test
+	public void MatchesMatrixOperationsTest() {
+		Random random = new Random(17);
+		ParticlePool pool = new ParticlePool(4);
+		
+		for (int i = 0; i < 200; i++) {
+			pool.add(random.nextFloat() * 2000 - 1000, random.nextFloat() * 300, random.nextFloat() * 2000 - 1000, 0, 0, 0, 0, 
+					 10, random.nextFloat() * 360, 1 + random.nextFloat() * 200, (i % 3 == 0) ? random.nextInt(15) : -1);
+		}
+		
+		pool.update(1.7f, 0, 0, 0);
+		pool.sortBackToFront();
+		
+		float cameraRoll = 12;
+		Matrix4f viewMatrix = createViewMatrix(new Vector3f(100, 50, -20), 15, 230, cameraRoll);
+		
+		FloatBuffer buffer = FloatBuffer.allocate(pool.getCount() * ParticleInstanceWriter.INSTANCE_DATA_LENGTH);
+		int count = ParticleInstanceWriter.write(pool, viewMatrix, cameraRoll, buffer, Integer.MAX_VALUE);
+		
+		assertEquals(pool.getCount(), count);
+		assertEquals(0, buffer.remaining());
+		
+		for (int i = 0; i < count; i++) {
+			int particle = pool.getDrawIndex(i);
+			int offset = i * ParticleInstanceWriter.INSTANCE_DATA_LENGTH;
+			
+			Vector3f position = new Vector3f(pool.getPositionX(particle), pool.getPositionY(particle), pool.getPositionZ(particle));
+			Matrix4f expected = createModelViewMatrix(position, pool.getRotation(particle) - cameraRoll, pool.getScale(particle), viewMatrix);
+			
+			float[] expectedData = {expected.m00, expected.m01, expected.m02, expected.m03,
+									expected.m10, expected.m11, expected.m12, expected.m13,
+									expected.m20, expected.m21, expected.m22, expected.m23,
+									expected.m30, expected.m31, expected.m32, expected.m33};
+			
+			for (int j = 0; j < expectedData.length; j++)
+				assertEquals(expectedData[j], buffer.get(offset + j), TOLERANCE * Math.max(1, Math.abs(expectedData[j])));
+			
+			int index1 = pool.getTextureIndex1(particle), index2 = pool.getTextureIndex2(particle);
+			
+			assertEquals((index1 % 4) / 4f, buffer.get(offset + 16), 0);
+			assertEquals((index1 / 4) / 4f, buffer.get(offset + 17), 0);
+			assertEquals((index2 % 4) / 4f, buffer.get(offset + 18), 0);
+			assertEquals((index2 / 4) / 4f, buffer.get(offset + 19), 0);
+			assertEquals(pool.getTextureBlend(particle), buffer.get(offset + 20), 0);
+		}
+	}
+	
+	@Test
+	public void StopsAtLimitsTest() {
+		ParticlePool pool = new ParticlePool(2);
+		for (int i = 0; i < 10; i++)
+			pool.add(i, 0, 0, 0, 0, 0, 0, 10, 0, 1, -1);
+		
+		FloatBuffer buffer = FloatBuffer.allocate(6 * ParticleInstanceWriter.INSTANCE_DATA_LENGTH + 5);
+		
+		assertEquals("Should stop at the maximum instance count", 4, ParticleInstanceWriter.write(pool, new Matrix4f(), 0, buffer, 4));
+		
+		buffer.clear();
+		assertEquals("Should stop when the buffer is full", 6, ParticleInstanceWriter.write(pool, new Matrix4f(), 0, buffer, 100));
+	}
+}
@@ -0,0 +1,121 @@
+package com.chrisali.javaflightsim.lwjgl.renderengine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.lwjgl.util.vector.Vector3f;
+
+import com.chrisali.javaflightsim.lwjgl.entities.Entity;
+import com.chrisali.javaflightsim.lwjgl.models.TexturedModel;
+import com.chrisali.javaflightsim.lwjgl.terrain.Terrain;
+
+public class RenderQueueTest {
+	
+	private static List<Entity> createEntities(List<TexturedModel> models, int count) {
+		List<Entity> entities = new ArrayList<>();
+		
+		for (int i = 0; i < count; i++)
+			entities.add(new Entity(models.get(i % models.size()), new Vector3f(i, 0, 0), 0, 0, 0, 1));
+		
+		return entities;
+	}
+	
+	private static void assertGroups(RenderQueue queue, Set<Entity> expected) {
+		int total = 0;
+		
+		for (Map.Entry<TexturedModel, List<Entity>> entry : queue.getEntityGroups().entrySet()) {
+			assertFalse("Empty groups should be removed", entry.getValue().isEmpty());
+			
+			for (Entity entity : entry.getValue()) {
+				assertTrue("Entity should be visible", expected.contains(entity));
+				assertEquals("Entity should be grouped by its model", entry.getKey(), entity.getModel());
+				total++;
+			}
+		}
+		
+		assertEquals("Each visible entity should be queued once", expected.size(), total);
+	}
+	
+	@Test
+	public void EntitiesRegroupOnlyOnVisibilityChangesTest() {
+		List<TexturedModel> models = new ArrayList<>();
+		for (int i = 0; i < 5; i++)
+			models.add(new TexturedModel(null, null));
+		
+		List<Entity> entities = createEntities(models, 200);
+		RenderQueue queue = new RenderQueue();
+		Random random = new Random(3);
+		
+		Set<Entity> visible = new HashSet<>();
+		
+		for (int frame = 0; frame < 50; frame++) {
+			// Toggle a few entities each frame, and leave the rest as they were
+			Set<Entity> previous = new HashSet<>(visible);
+			for (int i = 0; i < 5; i++) {
+				Entity entity = entities.get(random.nextInt(entities.size()));
+				if (!visible.remove(entity))
+					visible.add(entity);
+			}
+			
+			queue.beginFrame();
+			for (Entity entity : entities)
+				queue.updateEntity(entity, visible.contains(entity));
+			queue.endFrame();
+			
+			Set<Entity> changed = new HashSet<>(visible);
+			changed.addAll(previous);
+			changed.removeIf(entity -> visible.contains(entity) && previous.contains(entity));
+			
+			assertEquals("Only entities whose visibility changed should modify the queue", changed.size(), queue.getChanges());
+			assertGroups(queue, visible);
+		}
+		
+		queue.beginFrame();
+		queue.endFrame();
+		
+		assertTrue("Entities no longer reported should be removed", queue.getEntityGroups().isEmpty());
+	}
+	
+	@Test
+	public void TerrainsSortedNearestFirstTest() {
+		List<Terrain> terrains = new ArrayList<>();
+		for (int i = 0; i < 40; i++)
+			terrains.add(new Terrain(i % 8, i / 8, null, null, null));
+		
+		RenderQueue queue = new RenderQueue();
+		Random random = new Random(5);
+		float[] distances = new float[terrains.size()];
+		
+		for (int frame = 0; frame < 30; frame++) {
+			queue.beginFrame();
+			
+			int visibleCount = 0;
+			for (int i = 0; i < terrains.size(); i++) {
+				// Drift distances a little each frame, with some tiles sharing a distance
+				distances[i] = (frame == 0 || i % 10 == 0) ? 100 : distances[i] + random.nextFloat() * 20 - 10;
+				boolean visible = random.nextFloat() < 0.8f;
+				
+				queue.updateTerrain(terrains.get(i), distances[i], visible);
+				visibleCount += visible ? 1 : 0;
+			}
+			
+			queue.endFrame();
+			
+			List<Terrain> sorted = queue.getTerrains();
+			assertEquals("Tiles at equal distances should not be dropped", visibleCount, sorted.size());
+			assertEquals("Each tile should be queued once", visibleCount, new HashSet<>(sorted).size());
+			
+			for (int i = 1; i < sorted.size(); i++)
+				assertTrue("Tiles should be nearest first", distances[terrains.indexOf(sorted.get(i - 1))] <= distances[terrains.indexOf(sorted.get(i))]);
+		}
+	}
+}
@@ -0,0 +1,239 @@
+package com.chrisali.javaflightsim.lwjgl.terrain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.junit.Test;
+import org.lwjgl.util.vector.Vector3f;
+
+import com.chrisali.javaflightsim.lwjgl.models.RawModel;
+
+public class TerrainLODTest {
+	
+	// One fewer than a power of two cells along each side, so that the last column of most levels is narrower than the rest
+	private static final int VERTEX_COUNT = 38;
+	
+	private static HeightMap createHeightMap(boolean flat) {
+		float[] heights = new float[VERTEX_COUNT * VERTEX_COUNT];
+		
+		for (int z = 0; z < VERTEX_COUNT; z++) {
+			for (int x = 0; x < VERTEX_COUNT; x++)
+				heights[z * VERTEX_COUNT + x] = flat ? 5 : (float) (10 * Math.sin(x * 0.4) * Math.cos(z * 0.3));
+		}
+		
+		return new HeightMap(VERTEX_COUNT, heights);
+	}
+	
+	@Test
+	public void LevelsTileWithoutGapsOrOverlapsTest() {
+		TerrainLOD lod = new TerrainLOD(createHeightMap(false));
+		int levelCount = lod.getLevelCount();
+		
+		assertTrue("There should be more than one level", levelCount > 1);
+		
+		for (int level = 0; level < levelCount; level++) {
+			for (int minX = level; minX < levelCount; minX++) {
+				for (int maxX = level; maxX < levelCount; maxX++) {
+					for (int minZ = level; minZ < levelCount; minZ++) {
+						for (int maxZ = level; maxZ < levelCount; maxZ++) {
+							assertTiling(lod, level, new int[] {minX, maxX, minZ, maxZ});
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void StitchedEdgeMatchesCoarserNeighborTest() {
+		TerrainLOD lod = new TerrainLOD(createHeightMap(false));
+		int levelCount = lod.getLevelCount();
+		
+		for (int level = 0; level < levelCount; level++) {
+			for (int neighborLevel = level; neighborLevel < levelCount; neighborLevel++) {
+				// This tile's MAX_X edge stitched to the neighbor's level, and the neighbor's own MIN_X edge
+				TreeSet<Integer> stitched = getEdgeVertices(lod, level, TerrainEdge.MAX_X, neighborLevel, VERTEX_COUNT - 1);
+				TreeSet<Integer> neighbor = getEdgeVertices(lod, neighborLevel, TerrainEdge.MIN_X, neighborLevel, 0);
+				
+				assertEquals("Shared edge should use the same vertices on both tiles", neighbor, stitched);
+			}
+		}
+	}
+	
+	@Test
+	public void GeometricErrorTest() {
+		TerrainLOD flat = new TerrainLOD(createHeightMap(true));
+		
+		for (int level = 0; level < flat.getLevelCount(); level++)
+			assertEquals("Flat terrain should have no error", 0, flat.getGeometricError(level), 0);
+		
+		assertEquals("Flat terrain should use the coarsest level", flat.getLevelCount() - 1, flat.selectLevel(1, 1000, 1));
+		
+		TerrainLOD hilly = new TerrainLOD(createHeightMap(false));
+		
+		assertEquals("Full resolution should have no error", 0, hilly.getGeometricError(0), 0);
+		
+		for (int level = 1; level < hilly.getLevelCount(); level++)
+			assertTrue("Error should not decrease with level", hilly.getGeometricError(level) >= hilly.getGeometricError(level - 1));
+		
+		assertEquals("Terrain at the camera should use full resolution", 0, hilly.selectLevel(0, 1000, 1));
+		
+		int previous = 0;
+		for (float distance = 1; distance < 1e6; distance *= 2) {
+			int level = hilly.selectLevel(distance, 1000, 1);
+			
+			assertTrue("Level should not get finer with distance", level >= previous);
+			assertTrue("Level should be within the projected error", level == 0 || hilly.getGeometricError(level) * 1000 / distance <= 1);
+			previous = level;
+		}
+		
+		assertEquals("Distant terrain should use the coarsest level", hilly.getLevelCount() - 1, previous);
+	}
+	
+	@Test
+	public void SelectorTest() {
+		TerrainLOD lod = new TerrainLOD(createHeightMap(false));
+		TerrainMap terrainMap = new TerrainMap();
+		
+		for (int gridX = 0; gridX < 8; gridX++) {
+			Terrain terrain = new Terrain(gridX, 0, null, null, null);
+			terrain.setLOD(lod);
+			terrain.setModel(new RawModel(1, lod.getIndices().length));
+			terrainMap.put(terrain);
+		}
+		
+		TerrainLODSelector selector = new TerrainLODSelector(1);
+		selector.selectLevels(terrainMap.values(), new Vector3f(10, 50, 10), TerrainLODSelector.getPerspectiveScale(60, 1080));
+		
+		int previous = 0;
+		for (Terrain terrain : terrainMap.values()) {
+			assertTrue("Farther terrain should not be finer", terrain.getLODLevel() >= previous);
+			previous = terrain.getLODLevel();
+		}
+		
+		assertTrue("Nearest and farthest terrain should differ", terrainMap.get(7, 0).getLODLevel() > terrainMap.get(0, 0).getLODLevel());
+		
+		for (Terrain terrain : terrainMap.values()) {
+			Terrain next = terrainMap.get(terrain.getGridX() + 1, 0);
+			int edgeLevel = TerrainLODSelector.getEdgeLevel(terrainMap, terrain, TerrainEdge.MAX_X);
+			
+			assertEquals("Edge should match the coarser tile", (next == null) ? terrain.getLODLevel() : next.getLODLevel(), edgeLevel);
+			assertEquals("Finer neighbor should stitch to this tile instead", terrain.getLODLevel(), 
+						 TerrainLODSelector.getEdgeLevel(terrainMap, terrain, TerrainEdge.MIN_X));
+		}
+	}
+	
+	/**
+	 * Checks that the triangles of a level, drawn with the specified edge levels, are all wound the same way, cover the
+	 * tile exactly, and share every edge inside the tile with exactly one other triangle (no T-junctions), and that the 
+	 * vertices along each edge of the tile are those of the edge's level
+	 */
+	private static void assertTiling(TerrainLOD lod, int level, int[] edgeLevels) {
+		int last = VERTEX_COUNT - 1;
+		int[] indices = lod.getIndices();
+		Map<Long, Integer> edgeUses = new HashMap<>();
+		long doubleArea = 0;
+		
+		for (int range = 0; range <= 4; range++) {
+			TerrainEdge edge = (range < 4) ? TerrainEdge.values()[range] : null;
+			int offset = (edge == null) ? lod.getInteriorOffset(level) : lod.getEdgeOffset(level, edge, edgeLevels[range]);
+			int count = (edge == null) ? lod.getInteriorCount(level) : lod.getEdgeCount(level, edge, edgeLevels[range]);
+			
+			for (int i = offset; i < offset + count; i += 3) {
+				int a = indices[i], b = indices[i + 1], c = indices[i + 2];
+				long cross = (long) (x(b) - x(a)) * (z(c) - z(a)) - (long) (z(b) - z(a)) * (x(c) - x(a));
+				
+				assertTrue("Triangles should be wound the same way as the mesh's", cross < 0);
+				doubleArea -= cross;
+				
+				countEdge(edgeUses, a, b);
+				countEdge(edgeUses, b, c);
+				countEdge(edgeUses, c, a);
+			}
+		}
+		
+		assertEquals("Triangles should cover the tile exactly", 2L * last * last, doubleArea);
+		
+		Map<TerrainEdge, TreeSet<Integer>> boundaryVertices = createBoundarySets();
+		
+		for (Map.Entry<Long, Integer> entry : edgeUses.entrySet()) {
+			int a = (int) (entry.getKey() >> 32), b = (int) (long) entry.getKey();
+			
+			assertTrue("Edges should be used by at most two triangles", entry.getValue() <= 2);
+			
+			if (entry.getValue() == 1) {
+				boolean onBoundary = (x(a) == x(b) && (x(a) == 0 || x(a) == last)) || (z(a) == z(b) && (z(a) == 0 || z(a) == last));
+				assertTrue("Only edges on the tile's boundary should be used by one triangle", onBoundary);
+				
+				addBoundaryVertex(boundaryVertices, a);
+				addBoundaryVertex(boundaryVertices, b);
+			}
+		}
+		
+		for (TerrainEdge edge : TerrainEdge.values()) {
+			TreeSet<Integer> expected = new TreeSet<>();
+			for (int column : getColumns(TerrainLOD.getStep(edgeLevels[edge.ordinal()])))
+				expected.add(column);
+			
+			assertEquals("Vertices along " + edge + " should be those of its level", expected, boundaryVertices.get(edge));
+		}
+	}
+	
+	/**
+	 * @return positions along an edge of the vertices on the boundary of the tile, drawn from one level and edge strip
+	 */
+	private static TreeSet<Integer> getEdgeVertices(TerrainLOD lod, int level, TerrainEdge edge, int edgeLevel, int x) {
+		int[] indices = lod.getIndices();
+		TreeSet<Integer> vertices = new TreeSet<>();
+		int offset = lod.getEdgeOffset(level, edge, edgeLevel);
+		
+		for (int i = offset; i < offset + lod.getEdgeCount(level, edge, edgeLevel); i++) {
+			if (x(indices[i]) == x)
+				vertices.add(z(indices[i]));
+		}
+		
+		return vertices;
+	}
+	
+	private static Map<TerrainEdge, TreeSet<Integer>> createBoundarySets() {
+		Map<TerrainEdge, TreeSet<Integer>> sets = new EnumMap<>(TerrainEdge.class);
+		for (TerrainEdge edge : TerrainEdge.values())
+			sets.put(edge, new TreeSet<>());
+		return sets;
+	}
+	
+	private static void addBoundaryVertex(Map<TerrainEdge, TreeSet<Integer>> boundaryVertices, int vertex) {
+		int last = VERTEX_COUNT - 1;
+		
+		if (x(vertex) == 0)    boundaryVertices.get(TerrainEdge.MIN_X).add(z(vertex));
+		if (x(vertex) == last) boundaryVertices.get(TerrainEdge.MAX_X).add(z(vertex));
+		if (z(vertex) == 0)    boundaryVertices.get(TerrainEdge.MIN_Z).add(x(vertex));
+		if (z(vertex) == last) boundaryVertices.get(TerrainEdge.MAX_Z).add(x(vertex));
+	}
+	
+	private static void countEdge(Map<Long, Integer> edgeUses, int a, int b) {
+		long key = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+		edgeUses.merge(key, 1, Integer::sum);
+	}
+	
+	private static int[] getColumns(int step) {
+		int last = VERTEX_COUNT - 1;
+		int count = (last + step - 1) / step + 1;
+		int[] columns = new int[count];
+		
+		for (int i = 0; i < count - 1; i++)
+			columns[i] = i * step;
+		columns[count - 1] = last;
+		
+		return columns;
+	}
+	
+	private static int x(int index) { return index % VERTEX_COUNT; }
+	
+	private static int z(int index) { return index / VERTEX_COUNT; }
+}
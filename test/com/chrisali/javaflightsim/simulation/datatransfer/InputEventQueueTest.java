@@ -0,0 +1,136 @@
+package com.chrisali.javaflightsim.simulation.datatransfer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.ControlParameter;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.setup.KeyCommand;
+
+public class InputEventQueueTest {
+
+	private List<ControlParameter> parameters = new ArrayList<>();
+
+	private List<Float> values = new ArrayList<>();
+
+	private void record(ControlParameter parameter, float value, long timestamp) {
+		parameters.add(parameter);
+		values.add(value);
+	}
+
+	@Test
+	public void LaterEventsWaitForNextStepTest() {
+		InputEventQueue queue = new InputEventQueue(16);
+
+		for (int i = 1; i <= 5; i++)
+			assertTrue(queue.offer(i * 10, KeyCommand.ELEVATOR_UP, i));
+
+		assertEquals(3, queue.drain(30, this::record));
+		assertEquals(3, parameters.size());
+		assertEquals(3f, values.get(2), 0);
+		assertEquals(2, queue.size());
+
+		assertEquals(2, queue.drain(50, this::record));
+		assertEquals(5f, values.get(4), 0);
+		assertEquals(0, queue.drain(Long.MAX_VALUE, this::record));
+	}
+
+	@Test
+	public void AxesCoalescedTest() {
+		InputEventQueue queue = new InputEventQueue(16);
+
+		queue.offer(1, FlightControl.ELEVATOR, 0.1f);
+		queue.offer(1, FlightControl.AILERON, -0.5f);
+		queue.offer(1, KeyCommand.INCREASE_FLAPS, 1.0f);
+		queue.offer(2, FlightControl.ELEVATOR, 0.2f);
+		queue.offer(2, KeyCommand.INCREASE_FLAPS, 1.0f);
+		queue.offer(3, FlightControl.ELEVATOR, 0.3f);
+
+		assertEquals(6, queue.drain(3, this::record));
+
+		// Key commands are delivered in order, followed by the latest value of each axis
+		assertEquals(4, parameters.size());
+		assertEquals(KeyCommand.INCREASE_FLAPS, parameters.get(0));
+		assertEquals(KeyCommand.INCREASE_FLAPS, parameters.get(1));
+		assertEquals(FlightControl.ELEVATOR, parameters.get(2));
+		assertEquals(0.3f, values.get(2), 0);
+		assertEquals(FlightControl.AILERON, parameters.get(3));
+		assertEquals(-0.5f, values.get(3), 0);
+	}
+
+	@Test
+	public void FullQueueDropsEventsTest() {
+		InputEventQueue queue = new InputEventQueue(3);
+		assertEquals(4, queue.getCapacity());
+
+		for (int i = 0; i < 4; i++)
+			assertTrue(queue.offer(i, KeyCommand.BRAKES, 1.0f));
+
+		assertFalse(queue.offer(4, KeyCommand.BRAKES, 1.0f));
+		assertEquals(1, queue.getDroppedEvents());
+
+		queue.drain(0, this::record);
+		assertTrue("Drained slot should be reused", queue.offer(5, KeyCommand.BRAKES, 1.0f));
+	}
+
+	@Test
+	public void ConcurrentProducerConsumerTest() throws InterruptedException {
+		final int events = 50_000;
+		InputEventQueue queue = new InputEventQueue(64);
+		AtomicReference<String> failure = new AtomicReference<>();
+
+		Thread producer = new Thread(() -> {
+			for (int i = 0; i < events; i++) {
+				ControlParameter parameter = (i % 4 == 0) ? KeyCommand.ELEVATOR_UP : FlightControl.ELEVATOR;
+
+				while (!queue.offer(i, parameter, i) && failure.get() == null)
+					Thread.yield();
+			}
+		}, "Input Producer");
+
+		Thread consumer = new Thread(() -> {
+			long[] received = new long[3];    // count, last key command value, last axis value
+			received[1] = -4;
+			received[2] = -1;
+
+			while (received[0] < events && failure.get() == null) {
+				int drained = queue.drain(Long.MAX_VALUE, (parameter, value, timestamp) -> {
+					if (value != timestamp) {
+						failure.set("Event value " + value + " does not match its timestamp " + timestamp);
+					} else if (parameter == KeyCommand.ELEVATOR_UP) {
+						if (value != received[1] + 4)
+							failure.set("Key command " + value + " received out of order after " + received[1]);
+						received[1] = (long) value;
+					} else {
+						if (value <= received[2])
+							failure.set("Axis value " + value + " received out of order after " + received[2]);
+						received[2] = (long) value;
+					}
+				});
+
+				received[0] += drained;
+				if (drained == 0)
+					Thread.yield();
+			}
+
+			if (failure.get() == null && received[2] != events - 1)
+				failure.set("Latest axis value " + received[2] + " was not delivered");
+		}, "Input Consumer");
+
+		producer.start();
+		consumer.start();
+		producer.join(30_000);
+		consumer.join(30_000);
+
+		assertNull(failure.get(), failure.get());
+		assertEquals(0, queue.size());
+	}
+}
@@ -0,0 +1,130 @@
+package com.chrisali.javaflightsim.simulation.diagnostics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsStateManager;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+public class LatencyTracerTest {
+
+	private static final long MS = 1_000_000;
+
+	@Test
+	public void StageLatenciesTest() {
+		AtomicLong clock = new AtomicLong(0);
+		LatencyTracer tracer = new LatencyTracer(clock::get);
+
+		// Polled at 0 ms, actuated at 10 ms, integrated by a step starting at 12 ms and finishing at 15 ms,
+		// displayed by a frame starting at 20 ms and finishing at 36 ms
+		clock.set(10 * MS);
+		tracer.onActuated(0);
+
+		clock.set(15 * MS);
+		tracer.onIntegrated(12 * MS);
+
+		clock.set(36 * MS);
+		tracer.onFrameDisplayed(20 * MS);
+
+		assertEquals(10 * MS, tracer.getHistogram(LatencyStage.INPUT_TO_ACTUATOR).getMaxNanos());
+		assertEquals(5 * MS, tracer.getHistogram(LatencyStage.ACTUATOR_TO_INTEGRATOR).getMaxNanos());
+		assertEquals(21 * MS, tracer.getHistogram(LatencyStage.INTEGRATOR_TO_FRAME).getMaxNanos());
+		assertEquals(36 * MS, tracer.getHistogram(LatencyStage.INPUT_TO_FRAME).getMaxNanos());
+	}
+
+	@Test
+	public void EarlierStepsDoNotAdvanceTraceTest() {
+		AtomicLong clock = new AtomicLong(0);
+		LatencyTracer tracer = new LatencyTracer(clock::get);
+
+		clock.set(10 * MS);
+		tracer.onActuated(5 * MS);
+		tracer.onActuated(8 * MS);    // ignored while a trace is in progress
+
+		// Frame and integration step that began before the event was actuated or integrated
+		clock.set(11 * MS);
+		tracer.onFrameDisplayed(9 * MS);
+		tracer.onIntegrated(9 * MS);
+
+		clock.set(20 * MS);
+		tracer.onIntegrated(10 * MS);
+		tracer.onFrameDisplayed(19 * MS);
+		assertEquals(0, tracer.getHistogram(LatencyStage.INPUT_TO_FRAME).getCount());
+
+		clock.set(30 * MS);
+		tracer.onFrameDisplayed(20 * MS);
+
+		assertEquals(1, tracer.getHistogram(LatencyStage.INPUT_TO_FRAME).getCount());
+		assertEquals(25 * MS, tracer.getHistogram(LatencyStage.INPUT_TO_FRAME).getMaxNanos());
+		assertEquals(10 * MS, tracer.getHistogram(LatencyStage.ACTUATOR_TO_INTEGRATOR).getMaxNanos());
+
+		// Paused simulation abandons the trace
+		tracer.onActuated(30 * MS);
+		tracer.discard();
+		tracer.onIntegrated(40 * MS);
+		tracer.onFrameDisplayed(50 * MS);
+		assertEquals(1, tracer.getHistogram(LatencyStage.INPUT_TO_FRAME).getCount());
+	}
+
+	@Test
+	public void HistogramPercentilesTest() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getPercentileNanos(99));
+
+		for (int ms = 1; ms <= 1000; ms++)
+			histogram.record(ms * MS);
+
+		assertEquals(1000, histogram.getCount());
+		assertEquals(1000 * MS, histogram.getMaxNanos());
+		assertEquals(500 * MS, histogram.getPercentileNanos(50), 500 * MS * 0.125);
+		assertEquals(990 * MS, histogram.getPercentileNanos(99), 990 * MS * 0.125);
+		assertEquals(1000 * MS, histogram.getPercentileNanos(100));
+
+		for (long micros = 0; micros < 1_000_000; micros += 7) {
+			int bucket = LatencyHistogram.bucketOf(micros);
+			assertTrue(micros <= LatencyHistogram.upperBoundOf(bucket));
+			assertTrue(bucket == 0 || micros > LatencyHistogram.upperBoundOf(bucket - 1));
+		}
+	}
+
+	@Test
+	public void SyntheticInputTracedToFrameTest() {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		configuration.getSimulationOptions().clear();
+
+		LatencyTracer tracer = new LatencyTracer();
+		FlightControlsStateManager controls = new FlightControlsStateManager(configuration, new AtomicInteger(0));
+		Integrate6DOFEquations simulation = new Integrate6DOFEquations(controls.getControlsState(), configuration);
+		controls.setLatencyTracer(tracer);
+		simulation.setLatencyTracer(tracer);
+
+		SyntheticInputInjector injector = new SyntheticInputInjector(controls.getInputEvents(), FlightControl.ELEVATOR,
+																	 0.5, 2.0, System::nanoTime);
+
+		// Same order as the simulation runner: controls, integration, then a frame that polls input
+		for (int step = 0; step < 200; step++) {
+			controls.step();
+			simulation.step();
+
+			long frameStartNanos = System.nanoTime();
+			assertTrue(injector.inject());
+			tracer.onFrameDisplayed(frameStartNanos);
+		}
+
+		LatencyHistogram inputToFrame = tracer.getHistogram(LatencyStage.INPUT_TO_FRAME);
+		assertTrue(inputToFrame.getCount() > 50);
+
+		for (LatencyStage stage : LatencyStage.values()) {
+			assertEquals(inputToFrame.getCount(), tracer.getHistogram(stage).getCount());
+			assertTrue(inputToFrame.getMaxNanos() >= tracer.getHistogram(stage).getMaxNanos());
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package com.chrisali.javaflightsim.simulation.flightcontrols.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.ControlParameter;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+
+public class AnalysisScheduleTest {
+
+	private Map<FlightControl, Float> controls = new EnumMap<>(FlightControl.class);
+
+	private void actuate(ControlParameter parameter, float value) {
+		controls.put((FlightControl) parameter, value);
+	}
+
+	@Test
+	public void MatchesInputsGeneratedDirectlyTest() {
+		List<AnalysisControlInput> inputs = Arrays.asList(
+			new Doublet(FlightControl.AILERON, 1000, 500, 0.035),
+			new Doublet(FlightControl.RUDDER, 1400, 500, 0.035),
+			new Singlet(FlightControl.ELEVATOR, 2000, 500, 0.035),
+			new ThreeTwoOneOne(FlightControl.ELEVATOR, 3000, 200, -0.02),
+			new FrequencySweep(FlightControl.ELEVATOR, 5000, 2000, 0.01, 0.1, 2.0));
+
+		AnalysisSchedule schedule = new AnalysisSchedule(inputs);
+		assertEquals(5, schedule.getSegmentCount());
+
+		Map<FlightControl, Float> expected = new EnumMap<>(FlightControl.class);
+		for (int timeMS = 0; timeMS < 8000; timeMS += 10) {
+			controls.clear();
+			schedule.update(timeMS, this::actuate);
+
+			// Inputs are not overlapping, so the input in progress (or the last one started) sets each control
+			expected.clear();
+			for (AnalysisControlInput input : inputs) {
+				if (timeMS >= input.getStartTimeMS())
+					input.generate(new AtomicInteger(timeMS), (parameter, value) -> expected.put((FlightControl) parameter, value));
+			}
+
+			assertEquals("Controls differ at " + timeMS + " ms", expected, controls);
+		}
+	}
+
+	@Test
+	public void LatestStartedInputTakesPrecedenceTest() {
+		Singlet longSinglet = new Singlet(FlightControl.ELEVATOR, 1000, 3000, 0.02);
+		Doublet doublet = new Doublet(FlightControl.ELEVATOR, 2000, 250, 0.01);
+		AnalysisSchedule schedule = new AnalysisSchedule(Arrays.asList(doublet, longSinglet));
+
+		// Singlet, doublet, then the rest of the singlet
+		assertEquals(3, schedule.getSegmentCount());
+
+		schedule.update(500, this::actuate);
+		assertNull("Controls are left alone before their first input", controls.get(FlightControl.ELEVATOR));
+
+		schedule.update(1500, this::actuate);
+		assertEquals(longSinglet.getValue(1500), controls.get(FlightControl.ELEVATOR), 0);
+
+		schedule.update(2100, this::actuate);
+		assertEquals(doublet.getValue(2100), controls.get(FlightControl.ELEVATOR), 0);
+
+		schedule.update(2400, this::actuate);
+		assertEquals(-doublet.getValue(2100), controls.get(FlightControl.ELEVATOR), 0);
+
+		schedule.update(3000, this::actuate);
+		assertEquals(longSinglet.getValue(3000), controls.get(FlightControl.ELEVATOR), 0);
+
+		schedule.update(4000, this::actuate);
+		assertEquals(0, controls.get(FlightControl.ELEVATOR), 0);
+
+		// Simulation reset rewinds time
+		controls.clear();
+		schedule.update(2100, this::actuate);
+		assertEquals(doublet.getValue(2100), controls.get(FlightControl.ELEVATOR), 0);
+		controls.clear();
+		schedule.update(0, this::actuate);
+		assertNull("Controls are left alone before their first input after a reset", controls.get(FlightControl.ELEVATOR));
+	}
+
+	@Test
+	public void ThousandsOfSegmentsTest() {
+		List<AnalysisControlInput> inputs = new ArrayList<>();
+		for (int i = 0; i < 5000; i++)
+			inputs.add(new Doublet((i % 2 == 0) ? FlightControl.ELEVATOR : FlightControl.AILERON, i * 100, 25, (i % 7) * 0.001));
+
+		AnalysisControls analysisControls = new AnalysisControls();
+		analysisControls.setAnalysisInputs(inputs);
+		assertEquals(5000, analysisControls.getSchedule().getSegmentCount());
+
+		AtomicInteger timeMS = new AtomicInteger(0);
+		for (; timeMS.get() < 500_000; timeMS.addAndGet(5)) {
+			analysisControls.updateFlightControls(timeMS, this::actuate);
+
+			int i = timeMS.get() / 100;
+			FlightControl control = (i % 2 == 0) ? FlightControl.ELEVATOR : FlightControl.AILERON;
+			float expected = (timeMS.get() % 100 < 50) ? inputs.get(i).getValue(timeMS.get()) : 0;
+
+			assertEquals(expected, controls.get(control), 0);
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package com.chrisali.javaflightsim.simulation.flightcontrols.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.utilities.ConfigurationCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class SystemIdentificationInputsTest {
+
+	private static final float DELTA = 1e-4f;
+
+	@Test
+	public void ThreeTwoOneOnePulsesTest() {
+		ThreeTwoOneOne input = new ThreeTwoOneOne(FlightControl.ELEVATOR, 1000, 100, 0.01);
+		float amplitude = (float) (0.01 / FlightControl.ELEVATOR.getMaximum());
+		float[] expected = {1, 1, 1, -1, -1, 1, -1};
+
+		assertEquals(1700, input.getEndTimeMS());
+
+		for (int timeMS = 1000; timeMS < 1700; timeMS++)
+			assertEquals(expected[(timeMS - 1000) / 100] * amplitude, input.getValue(timeMS), 0);
+	}
+
+	@Test
+	public void FrequencySweepTest() {
+		FrequencySweep input = new FrequencySweep(FlightControl.AILERON, 0, 10_000, FlightControl.AILERON.getMaximum(), 0.2, 3.0);
+
+		for (int timeMS = 0; timeMS < 10_000; timeMS += 7) {
+			double timeSec = timeMS / 1000.0;
+			double expected = Math.sin(2 * Math.PI * (0.2 * timeSec + (3.0 - 0.2) * timeSec * timeSec / 20.0));
+
+			// Linear interpolation between samples 5 ms apart at up to 3 Hz
+			assertEquals(expected, input.getValue(timeMS), 0.005);
+		}
+	}
+
+	@Test
+	public void MultisinePeakNormalizedTest() {
+		Multisine input = new Multisine(FlightControl.RUDDER, 0, 20_000, FlightControl.RUDDER.getMaximum(),
+										new double[] {0.1, 0.3, 0.5, 0.7, 0.9, 1.1});
+		float peak = 0;
+
+		for (int timeMS = 0; timeMS < 20_000; timeMS += 5)
+			peak = Math.max(peak, Math.abs(input.getValue(timeMS)));
+
+		assertEquals(1, peak, DELTA);
+	}
+
+	@Test
+	public void PseudoRandomBinarySequenceMaximumLengthTest() {
+		for (int order = 2; order <= 16; order++) {
+			PseudoRandomBinarySequence input = new PseudoRandomBinarySequence(FlightControl.ELEVATOR, 0, 1, FlightControl.ELEVATOR.getMaximum(), order);
+			int length = (1 << order) - 1;
+			assertEquals(length, input.getEndTimeMS());
+
+			int ones = 0;
+			Set<Integer> windows = new HashSet<>();
+
+			for (int bit = 0; bit < length; bit++) {
+				if (input.getValue(bit) > 0)
+					ones++;
+
+				// Every window of order bits, wrapping around, appears once in a maximum length sequence
+				int window = 0;
+				for (int i = 0; i < order; i++)
+					window = (window << 1) | (input.getValue((bit + i) % length) > 0 ? 1 : 0);
+				windows.add(window);
+			}
+
+			assertEquals("Order " + order + " should have one more 1 than -1", 1 << (order - 1), ones);
+			assertEquals("Order " + order + " is not a maximum length sequence", length, windows.size());
+		}
+	}
+
+	@Test
+	public void WriteThenReadJsonInputsTest() throws Exception {
+		AnalysisControls controls = new AnalysisControls();
+		controls.setAnalysisInputs(Arrays.asList(
+			new Doublet(FlightControl.AILERON, 1000, 500, 0.035),
+			new ThreeTwoOneOne(FlightControl.ELEVATOR, 2000, 300, 0.02),
+			new FrequencySweep(FlightControl.ELEVATOR, 5000, 20_000, 0.02, 0.1, 2.5),
+			new Multisine(FlightControl.RUDDER, 30_000, 20_000, 0.02, new double[] {0.2, 0.6, 1.0}),
+			new PseudoRandomBinarySequence(FlightControl.AILERON, 60_000, 100, 0.01, 7)));
+
+		ObjectMapper mapper = ConfigurationCache.getMapper();
+		String json = mapper.writeValueAsString(controls);
+		AnalysisControls read = mapper.readValue(json, AnalysisControls.class);
+
+		assertEquals(controls.toString(), read.toString());
+		assertTrue(json.contains("\"type\":\"PseudoRandomBinarySequence\""));
+
+		for (int i = 0; i < controls.getAnalysisInputs().size(); i++) {
+			AnalysisControlInput input = controls.getAnalysisInputs().get(i);
+			AnalysisControlInput readInput = read.getAnalysisInputs().get(i);
+
+			assertEquals(input.getEndTimeMS(), readInput.getEndTimeMS());
+			assertEquals(input.getValue(input.getStartTimeMS() + 123), readInput.getValue(input.getStartTimeMS() + 123), 0);
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.tests;
+
+import java.io.IOException;
+
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.aircraft.AircraftCompiler;
+import com.chrisali.javaflightsim.simulation.aircraft.StabilityDerivatives;
+import com.chrisali.javaflightsim.simulation.utilities.ConfigurationCache;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Compiles an aircraft with {@link AircraftCompiler}, checks that the compiled sidecar produces the same aerodynamic
+ * values as Aircraft.json, then compares the time taken to load the aircraft from each. The first load of each path
+ * includes class loading, so it is reported separately from the average of subsequent loads
+ *
+ * @author Christopher Ali
+ *
+ */
+public class TestCompiledAircraft {
+
+	private static final int LOADS = 50;
+
+	public TestCompiledAircraft(String aircraftName) throws IOException {
+		AircraftCompiler.compile(aircraftName);
+
+		Aircraft jsonAircraft = FileUtilities.readAircraftJson(aircraftName);
+		Aircraft compiledAircraft = AircraftCompiler.load(aircraftName);
+
+		for (StabilityDerivatives stabDer : StabilityDerivatives.values()) {
+			for (double alpha = -0.25; alpha <= 0.25; alpha += 0.01) {
+				double jsonValue = jsonAircraft.getStabilityDerivative(stabDer).interpolate(alpha, 0.1);
+				double compiledValue = compiledAircraft.getStabilityDerivative(stabDer).interpolate(alpha, 0.1);
+
+				if (jsonValue != compiledValue)
+					System.err.printf("Mismatch in %s at alpha %.2f: %f (JSON) vs %f (compiled)%n", stabDer, alpha, jsonValue, compiledValue);
+			}
+		}
+
+		System.out.printf("%s JSON:     first %.3f ms, average %.3f ms%n", aircraftName, timeJson(aircraftName), averageJson(aircraftName));
+		System.out.printf("%s compiled: first %.3f ms, average %.3f ms%n", aircraftName, timeCompiled(aircraftName), averageCompiled(aircraftName));
+	}
+
+	private double timeJson(String aircraftName) {
+		// Make sure the JSON file is parsed every time
+		ConfigurationCache.clear();
+
+		long start = System.nanoTime();
+		FileUtilities.readAircraftJson(aircraftName);
+
+		return (System.nanoTime() - start) / 1e6;
+	}
+
+	private double averageJson(String aircraftName) {
+		double total = 0;
+		for (int i = 0; i < LOADS; i++)
+			total += timeJson(aircraftName);
+
+		return total / LOADS;
+	}
+
+	private double timeCompiled(String aircraftName) {
+		long start = System.nanoTime();
+		AircraftCompiler.load(aircraftName);
+
+		return (System.nanoTime() - start) / 1e6;
+	}
+
+	private double averageCompiled(String aircraftName) {
+		double total = 0;
+		for (int i = 0; i < LOADS; i++)
+			total += timeCompiled(aircraftName);
+
+		return total / LOADS;
+	}
+
+	public static void main(String[] args) throws IOException {
+		new TestCompiledAircraft("Navion");
+		new TestCompiledAircraft("TwinNavion");
+	}
+}
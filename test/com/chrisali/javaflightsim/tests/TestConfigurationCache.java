@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.tests;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.setup.Trimming;
+import com.chrisali.javaflightsim.simulation.utilities.ConfigurationCache;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Times the configuration reading portion of restarting the simulation (reading the simulation configuration,
+ * trimming the aircraft and initializing {@link Integrate6DOFEquations}) with an empty {@link ConfigurationCache},
+ * and then again for several restarts with the cache populated
+ *
+ * @author Christopher Ali
+ *
+ */
+public class TestConfigurationCache {
+
+	private static final int RESTARTS = 10;
+
+	public TestConfigurationCache() {
+		ConfigurationCache.clear();
+		System.out.printf("Cold start: %.2f ms%n", restart());
+
+		double total = 0;
+		for (int i = 0; i < RESTARTS; i++)
+			total += restart();
+
+		System.out.printf("Average of %d cached restarts: %.2f ms%n", RESTARTS, total / RESTARTS);
+	}
+
+	private double restart() {
+		long start = System.nanoTime();
+
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		Trimming.trimSim(configuration, true);
+		new Integrate6DOFEquations(new FlightControlsState(configuration), configuration);
+
+		return (System.nanoTime() - start) / 1e6;
+	}
+
+	public static void main(String[] args) {new TestConfigurationCache();}
+}
@@ -44,7 +44,7 @@ public class TestFlightControls implements Runnable {
 		flightControls = new FlightControlsStateManager(FileUtilities.readSimulationConfiguration(), new AtomicInteger(0));
 		
 		try {
-			InputMaster.init();
+			InputMaster.init(flightControls.getInputEvents());
 			Display.create();
 			Display.setDisplayMode(new DisplayMode(320, 240));
 		} catch (LWJGLException e) {
@@ -59,7 +59,7 @@ public class TestFlightControls implements Runnable {
 			
 			while (!Display.isCloseRequested()) {
 				InputMaster.update();
-				flightControls.onInputDataReceived(InputMaster.getInputData());
+				flightControls.step();
 				System.out.println(flightControls.getControlsState().toString());
 				System.out.println();
 				Thread.sleep((long) (1000));
@@ -0,0 +1,435 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.tests;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.lwjgl.util.vector.Vector3f;
+
+import com.chrisali.javaflightsim.lwjgl.LWJGLWorld;
+import com.chrisali.javaflightsim.lwjgl.entities.Camera;
+import com.chrisali.javaflightsim.lwjgl.entities.EntityCollections;
+import com.chrisali.javaflightsim.lwjgl.entities.Light;
+import com.chrisali.javaflightsim.lwjgl.entities.Ownship;
+import com.chrisali.javaflightsim.lwjgl.interfaces.gauges.InstrumentPanel;
+import com.chrisali.javaflightsim.lwjgl.interfaces.text.FontType;
+import com.chrisali.javaflightsim.lwjgl.interfaces.text.SimulationTexts;
+import com.chrisali.javaflightsim.lwjgl.interfaces.text.TextMaster;
+import com.chrisali.javaflightsim.lwjgl.interfaces.ui.InterfaceTexture;
+import com.chrisali.javaflightsim.lwjgl.loader.AssetPipeline;
+import com.chrisali.javaflightsim.lwjgl.loader.Loader;
+import com.chrisali.javaflightsim.lwjgl.loader.TextureData;
+import com.chrisali.javaflightsim.lwjgl.models.BoundingSphere;
+import com.chrisali.javaflightsim.lwjgl.models.RawModel;
+import com.chrisali.javaflightsim.lwjgl.models.TexturedModel;
+import com.chrisali.javaflightsim.lwjgl.particles.CloudLayer;
+import com.chrisali.javaflightsim.lwjgl.particles.ParticleMaster;
+import com.chrisali.javaflightsim.lwjgl.particles.ParticlePool;
+import com.chrisali.javaflightsim.lwjgl.particles.ParticleTexture;
+import com.chrisali.javaflightsim.lwjgl.renderengine.CullingMetrics;
+import com.chrisali.javaflightsim.lwjgl.renderengine.EntityRenderer;
+import com.chrisali.javaflightsim.lwjgl.renderengine.InstanceBatch;
+import com.chrisali.javaflightsim.lwjgl.renderengine.InterfaceBatch;
+import com.chrisali.javaflightsim.lwjgl.renderengine.InterfaceRenderer;
+import com.chrisali.javaflightsim.lwjgl.renderengine.MasterRenderer;
+import com.chrisali.javaflightsim.lwjgl.renderengine.ParticleRenderer;
+import com.chrisali.javaflightsim.lwjgl.renderengine.ScenePreparer;
+import com.chrisali.javaflightsim.lwjgl.terrain.TerrainCollection;
+import com.chrisali.javaflightsim.lwjgl.utilities.OTWDirectories;
+import com.chrisali.javaflightsim.lwjgl.utilities.RenderingUtilities;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightData;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataType;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Measures the CPU cost of preparing each frame of the out the window display without a display or GPU. A flight path
+ * is replayed through the same steps as LWJGLWorld (terrain paging, cloud and particle updates, entity culling and
+ * batching, instrument panel and text updates), while a {@link RecordingLoader} stands in for every OpenGL call made 
+ * through {@link Loader}, counting calls and bytes uploaded instead. Per frame CPU time percentiles and allocation 
+ * rates of the frame thread are printed at the end
+ * 
+ * <p>Arguments, all optional: a CSV file of simulation output saved from the console table to replay, which otherwise 
+ * is a synthesized climbing turn; and a 99th percentile frame time budget in milliseconds, which if exceeded exits 
+ * with a status of 1 so that the harness can be used as a regression test</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TestFramePreparation {
+	
+	private static final int WARMUP_FRAMES = 300;
+	private static final int FRAMES = 3000;
+	
+	// Time step of each frame, and of the synthesized flight path [sec]
+	private static final float FRAME_SECONDS = 1 / 60f;
+	
+	/**
+	 * Stands in for OpenGL calls made through {@link Loader}, returning made up IDs and recording the number of calls
+	 * and bytes that would have been uploaded to the GPU
+	 */
+	private static class RecordingLoader extends Loader {
+		private int nextID = 1;
+		private long uploadCalls;
+		private long uploadBytes;
+		
+		private int record(long bytes) {
+			uploadCalls++;
+			uploadBytes += bytes;
+			return nextID++;
+		}
+		
+		@Override
+		public RawModel loadToVAO(float[] positions, float[] textureCoords, float[] normals, int[] indices) {
+			long bytes = (positions.length + textureCoords.length + normals.length + indices.length) * 4L;
+			return new RawModel(record(bytes), indices.length, BoundingSphere.fromPositions(positions));
+		}
+		
+		@Override
+		public RawModel loadToVAO(float[] positions, int dimensions) {
+			return new RawModel(record(positions.length * 4L), positions.length / dimensions);
+		}
+		
+		@Override
+		public RawModel loadToVAO(float[] positions) {
+			return loadToVAO(positions, 2);
+		}
+		
+		@Override
+		public int loadToVAO(float[] positions, float[] textureCoords) {
+			return record((positions.length + textureCoords.length) * 4L);
+		}
+		
+		@Override
+		public int[] loadToDynamicVAO(int... coordinateSizes) {
+			int[] ids = new int[coordinateSizes.length + 1];
+			for (int i = 0; i < ids.length; i++)
+				ids[i] = record(0);
+			
+			return ids;
+		}
+		
+		@Override
+		public int createEmptyVBO(int floatCount) {
+			return record(floatCount * 4L);
+		}
+		
+		@Override
+		public void updateVBO(int vbo, float[] data, FloatBuffer buffer) {
+			record(data.length * 4L);
+		}
+		
+		@Override
+		public void updateVBO(int vbo, float[] data, int length, FloatBuffer buffer) {
+			record(length * 4L);
+		}
+		
+		@Override
+		public void updateVBO(int vbo, FloatBuffer buffer) {
+			record(buffer.remaining() * 4L);
+		}
+		
+		@Override
+		public void addInstancedAttribute(int vao, int vbo, int attribute, int dataSize, int instancedDataLength, int offset) {}
+		
+		@Override
+		public int loadTexture(TextureData textureData) {
+			return record(textureData.getWidth() * textureData.getHeight() * 4L);
+		}
+		
+		@Override
+		public void deleteVAO(int vao) {}
+		
+		@Override
+		public void deleteTexture(int textureID) {}
+		
+		@Override
+		public void cleanUp() {}
+	}
+	
+	private final RecordingLoader loader = new RecordingLoader();
+	private final AssetPipeline pipeline = new AssetPipeline();
+	
+	private EntityCollections entities;
+	private Ownship ownship;
+	private Camera camera;
+	private TerrainCollection terrainCollection;
+	private ParticlePool cloudPool;
+	private CloudLayer cloudLayer;
+	private SimulationTexts simTexts;
+	private InstrumentPanel panel;
+	private Map<String, List<InterfaceTexture>> interfaceTextures = new HashMap<>();
+	private ScenePreparer scenePreparer;
+	
+	// Batch and buffers that the renderers upload each frame's data from
+	private InterfaceBatch interfaceBatch = new InterfaceBatch();
+	private FloatBuffer instanceBuffer = FloatBuffer.allocate(0);
+	private FloatBuffer particleBuffer = ParticleRenderer.createInstanceBuffer();
+	private FloatBuffer interfaceBuffer;
+
+	public TestFramePreparation(String flightPathFile, double budgetMillis) throws IOException {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		List<Map<FlightDataType, Double>> flightPath = (flightPathFile == null) ? synthesizeFlightPath() : readFlightPath(flightPathFile);
+		
+		loadAssets(configuration);
+		
+		long[] frameNanos = new long[FRAMES];
+		long uploadCallsStart = 0, uploadBytesStart = 0, allocatedStart = 0, start = 0;
+		long cullingNanos = 0, entitiesSubmitted = 0, entitiesCulled = 0;
+		
+		for (int frame = 0; frame < WARMUP_FRAMES + FRAMES; frame++) {
+			if (frame == WARMUP_FRAMES) {
+				uploadCallsStart = loader.uploadCalls;
+				uploadBytesStart = loader.uploadBytes;
+				allocatedStart = getAllocatedBytes();
+				start = System.nanoTime();
+			}
+			
+			long frameStart = System.nanoTime();
+			prepareFrame(flightPath.get(frame % flightPath.size()), configuration);
+			
+			if (frame >= WARMUP_FRAMES) {
+				frameNanos[frame - WARMUP_FRAMES] = System.nanoTime() - frameStart;
+				
+				CullingMetrics metrics = scenePreparer.getCullingMetrics();
+				cullingNanos += metrics.getCullingNanos();
+				entitiesSubmitted += metrics.getEntitiesSubmitted();
+				entitiesCulled += metrics.getEntitiesCulled();
+			}
+		}
+		
+		double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+		long allocatedBytes = getAllocatedBytes() - allocatedStart;
+		
+		pipeline.shutdown();
+		
+		Arrays.sort(frameNanos);
+		double p99 = percentile(frameNanos, 0.99);
+		
+		System.out.printf("%d frames replayed from %s (%d samples)%n", FRAMES, (flightPathFile == null) ? "a synthesized climbing turn" : flightPathFile, flightPath.size());
+		System.out.printf("Frame CPU time [ms]: p50 %.3f, p90 %.3f, p99 %.3f, max %.3f%n", 
+						  percentile(frameNanos, 0.5), percentile(frameNanos, 0.9), p99, frameNanos[FRAMES - 1] / 1e6);
+		System.out.printf("Culling: %.3f ms per frame, %d entities submitted and %d culled per frame%n", 
+						  cullingNanos / 1e6 / FRAMES, entitiesSubmitted / FRAMES, entitiesCulled / FRAMES);
+		System.out.printf("Allocation: %.1f KB per frame, %.2f MB/s%n", allocatedBytes / 1024.0 / FRAMES, allocatedBytes / 1e6 / elapsedSeconds);
+		System.out.printf("Recorded GPU uploads: %.1f calls and %.1f KB per frame%n", 
+						  (loader.uploadCalls - uploadCallsStart) / (double) FRAMES, (loader.uploadBytes - uploadBytesStart) / 1024.0 / FRAMES);
+		
+		if (budgetMillis > 0 && p99 > budgetMillis) {
+			System.out.printf("99th percentile frame time of %.3f ms exceeds budget of %.3f ms%n", p99, budgetMillis);
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * Creates the same assets as LWJGLWorld, and waits for the pipeline to finish loading them with the recording loader
+	 */
+	private void loadAssets(SimulationConfiguration configuration) {
+		List<Light> lights = new ArrayList<>();
+		lights.add(new Light(new Vector3f(20000, 40000, 20000), new Vector3f(0.95f, 0.95f, 0.95f)));
+		
+		entities = new EntityCollections(lights, loader, pipeline);
+		
+		TexturedModel airplane = pipeline.loadTexturedModel("Ownship", "airplane", "airplane", OTWDirectories.ENTITIES.toString(), loader);
+		ownship = new Ownship(airplane, configuration.getInitialConditions(), 1.25f);
+		entities.addToStaticEntities(ownship);
+		
+		camera = new Camera(ownship, configuration.getCameraConfiguration());
+		
+		terrainCollection = new TerrainCollection(LWJGLWorld.getTerrainRadius(), LWJGLWorld.TERRAIN_MEMORY_BUDGET_BYTES, loader, pipeline, ownship);
+		entities.setTerrainCollection(terrainCollection);
+		
+		ParticleTexture clouds = new ParticleTexture(0, 4, true);
+		pipeline.loadTexture("Particles", "clouds", OTWDirectories.PARTICLES.toString(), loader).thenAccept(clouds::setTextureID);
+		cloudPool = ParticleMaster.getPool(clouds);
+		cloudLayer = new CloudLayer(cloudPool, LWJGLWorld.CLOUD_SEED, LWJGLWorld.CLOUD_ALTITUDE, LWJGLWorld.CLOUD_COVERAGE, 
+									LWJGLWorld.CLOUD_NEAR_RADIUS, LWJGLWorld.CLOUD_FAR_RADIUS);
+		
+		TextMaster.initLayout(loader);
+		simTexts = new SimulationTexts(new FontType(loader, pipeline, "ubuntu"), configuration);
+		
+		panel = FileUtilities.readInstrumentPanelConfiguration(configuration.getSelectedAircraft());
+		interfaceTextures.put(InstrumentPanel.class.getSimpleName(), panel.loadAndGetTextures(loader, pipeline, configuration.getSelectedAircraft()));
+		
+		scenePreparer = new ScenePreparer(MasterRenderer.createProjectionMatrix());
+		
+		pipeline.awaitCompletion(LWJGLWorld.STARTUP_UPLOAD_BUDGET_NANOS, () -> {});
+	}
+	
+	/**
+	 * Runs the CPU side of one frame, in the order of LWJGLWorld's flight data listener and main loop, uploading each 
+	 * frame's data with the same methods that the renderers use
+	 * 
+	 * @param flightData
+	 * @param configuration
+	 */
+	private void prepareFrame(Map<FlightDataType, Double> flightData, SimulationConfiguration configuration) {
+		ownship.move(flightData);
+		camera.move();
+		simTexts.update(flightData, camera, ownship);
+		panel.update(flightData);
+		
+		pipeline.processUploads(LWJGLWorld.FRAME_UPLOAD_BUDGET_NANOS);
+		terrainCollection.update();
+		
+		cloudLayer.update(camera.getPosition().x, camera.getPosition().z);
+		ParticleMaster.update(camera, FRAME_SECONDS);
+		
+		// Entities and terrain
+		scenePreparer.prepare(entities, terrainCollection.getTerrainMap(), camera);
+		
+		for (Map.Entry<TexturedModel, InstanceBatch> entry : scenePreparer.getInstanceBatches().entrySet()) {
+			if (entry.getValue().getInstanceCount() > 0 && entry.getKey().getRawModel() != null)
+				instanceBuffer = EntityRenderer.uploadInstances(loader, 0, entry.getValue(), instanceBuffer);
+		}
+		
+		scenePreparer.clearBatches();
+		
+		// Particles
+		if (!cloudPool.isEmpty())
+			ParticleRenderer.uploadInstances(loader, 0, cloudPool, RenderingUtilities.createViewMatrix(camera), camera.getRoll(), particleBuffer);
+		
+		// Instrument panel
+		InterfaceRenderer.batchTextures(interfaceBatch, configuration, interfaceTextures);
+		
+		if (interfaceBatch.getQuadCount() > 0)
+			interfaceBuffer = InterfaceRenderer.uploadBatch(loader, interfaceBatch, 0, 0, interfaceBuffer);
+		
+		// Text
+		TextMaster.prepare(simTexts.getTexts());
+	}
+	
+	/**
+	 * Reads simulation output saved from the console table as CSV, whose first line holds the name of each 
+	 * {@link SimOuts} column, and converts each line to the flight data sent to the display
+	 * 
+	 * @param fileName
+	 * @return flight data of each line
+	 * @throws IOException
+	 */
+	private static List<Map<FlightDataType, Double>> readFlightPath(String fileName) throws IOException {
+		Map<String, SimOuts> simOutNames = new HashMap<>();
+		for (SimOuts simOut : SimOuts.values())
+			simOutNames.put(simOut.toString(), simOut);
+		
+		List<Map<FlightDataType, Double>> flightPath = new ArrayList<>();
+		
+		try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
+			String[] header = reader.readLine().split(",");
+			String line;
+			
+			while ((line = reader.readLine()) != null) {
+				String[] values = line.split(",");
+				Map<SimOuts, Double> simOut = new EnumMap<>(SimOuts.class);
+				
+				for (SimOuts column : SimOuts.values())
+					simOut.put(column, 0.0);
+				
+				for (int i = 0; i < Math.min(header.length, values.length); i++) {
+					SimOuts column = simOutNames.get(header[i].trim());
+					if (column != null && !values[i].trim().isEmpty())
+						simOut.put(column, Double.parseDouble(values[i].trim()));
+				}
+				
+				flightPath.add(toFlightData(simOut));
+			}
+		}
+		
+		return flightPath;
+	}
+	
+	/**
+	 * @return flight data of a steady climbing turn at 100 knots, one sample per frame
+	 */
+	private static List<Map<FlightDataType, Double>> synthesizeFlightPath() {
+		final double tas = 169, climbRate = 8, turnRate = Math.toRadians(3), bank = Math.toRadians(25);
+		
+		List<Map<FlightDataType, Double>> flightPath = new ArrayList<>();
+		Map<SimOuts, Double> simOut = new EnumMap<>(SimOuts.class);
+		
+		for (SimOuts column : SimOuts.values())
+			simOut.put(column, 0.0);
+		
+		double north = 0, east = 0;
+		
+		for (int frame = 0; frame < WARMUP_FRAMES + FRAMES; frame++) {
+			double time = frame * FRAME_SECONDS, heading = turnRate * time;
+			
+			north += tas * Math.cos(heading) * FRAME_SECONDS;
+			east  += tas * Math.sin(heading) * FRAME_SECONDS;
+			
+			simOut.put(SimOuts.TIME, time);
+			simOut.put(SimOuts.NORTH, north);
+			simOut.put(SimOuts.EAST, east);
+			simOut.put(SimOuts.ALT, 1000 + climbRate * time);
+			simOut.put(SimOuts.ALT_DOT, climbRate * 60);
+			simOut.put(SimOuts.TAS, tas);
+			simOut.put(SimOuts.PHI, bank);
+			simOut.put(SimOuts.THETA, Math.toRadians(3));
+			simOut.put(SimOuts.PSI, heading % (2 * Math.PI));
+			simOut.put(SimOuts.PSI_DOT, turnRate);
+			simOut.put(SimOuts.AN_Z, 1 / Math.cos(bank));
+			simOut.put(SimOuts.RPM_1, 2500.0);
+			simOut.put(SimOuts.ALPHA, Math.toRadians(4));
+			
+			flightPath.add(toFlightData(simOut));
+		}
+		
+		return flightPath;
+	}
+	
+	private static Map<FlightDataType, Double> toFlightData(Map<SimOuts, Double> simOut) {
+		FlightData flightData = new FlightData();
+		flightData.updateData(simOut);
+		
+		return new EnumMap<>(flightData.getFlightData());
+	}
+	
+	/**
+	 * @return bytes allocated by this thread so far, or 0 if the JVM does not measure them
+	 */
+	private static long getAllocatedBytes() {
+		java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		
+		if (threadBean instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		
+		return 0;
+	}
+	
+	private static double percentile(long[] sortedNanos, double fraction) {
+		return sortedNanos[(int) Math.min(sortedNanos.length - 1, Math.round(fraction * (sortedNanos.length - 1)))] / 1e6;
+	}
+
+	public static void main(String[] args) throws IOException {
+		new TestFramePreparation(args.length > 0 ? args[0] : null, args.length > 1 ? Double.parseDouble(args[1]) : 0);
+	}
+}
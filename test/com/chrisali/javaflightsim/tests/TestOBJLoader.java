@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.tests;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+import com.chrisali.javaflightsim.lwjgl.loader.MeshCache;
+import com.chrisali.javaflightsim.lwjgl.loader.OBJLoader;
+import com.chrisali.javaflightsim.lwjgl.models.MeshData;
+
+/**
+ * Generates a grid OBJ model with just over one million triangular faces, and times parsing it with {@link OBJLoader}
+ * against reading it back from its {@link MeshCache}. No OpenGL context is needed
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TestOBJLoader {
+	
+	// Squares per side of the grid; two faces per square
+	private static final int GRID_SIZE = 708;
+	
+	private static final int RUNS = 5;
+
+	public TestOBJLoader() throws IOException {
+		Path directory = Files.createTempDirectory("objloader");
+		Path objPath = directory.resolve("grid.obj");
+		
+		writeGrid(objPath);
+		System.out.printf("Wrote %s (%.1f MB)%n", objPath, Files.size(objPath) / 1e6);
+		
+		MeshData parsed = null;
+		double parseTotal = 0;
+		for (int i = 0; i < RUNS; i++) {
+			long start = System.nanoTime();
+			parsed = OBJLoader.parse(Files.readAllBytes(objPath));
+			parseTotal += (System.nanoTime() - start) / 1e6;
+		}
+		
+		int gridVertices = (GRID_SIZE + 1) * (GRID_SIZE + 1);
+		System.out.printf("Parsed %d faces, %d vertices (expected %d) in %.2f ms on average%n", 
+				parsed.getTriangleCount(), parsed.getVertexCount(), gridVertices, parseTotal / RUNS);
+		
+		// Populates the cache
+		OBJLoader.loadMeshData(objPath);
+		
+		MeshData cached = null;
+		double cachedTotal = 0;
+		for (int i = 0; i < RUNS; i++) {
+			long start = System.nanoTime();
+			cached = MeshCache.load(objPath);
+			cachedTotal += (System.nanoTime() - start) / 1e6;
+		}
+		
+		System.out.printf("Read %d faces from %s in %.2f ms on average%n", 
+				cached.getTriangleCount(), MeshCache.getCachePath(objPath).getFileName(), cachedTotal / RUNS);
+		
+		Files.delete(MeshCache.getCachePath(objPath));
+		Files.delete(objPath);
+		Files.delete(directory);
+	}
+	
+	private void writeGrid(Path objPath) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(objPath)) {
+			for (int z = 0; z <= GRID_SIZE; z++) {
+				for (int x = 0; x <= GRID_SIZE; x++) {
+					float height = (float) (Math.sin(x * 0.05) * Math.cos(z * 0.05));
+					writer.write(String.format(Locale.US, "v %.6f %.6f %.6f%n", (float) x, height, (float) z));
+					writer.write(String.format(Locale.US, "vt %.6f %.6f%n", x / (float) GRID_SIZE, z / (float) GRID_SIZE));
+					writer.write(String.format(Locale.US, "vn %.6f %.6f %.6f%n", 0f, 1f, 0f));
+				}
+			}
+			
+			for (int z = 0; z < GRID_SIZE; z++) {
+				for (int x = 0; x < GRID_SIZE; x++) {
+					int topLeft = z * (GRID_SIZE + 1) + x + 1;
+					int bottomLeft = topLeft + GRID_SIZE + 1;
+					
+					writer.write(face(topLeft, bottomLeft, topLeft + 1));
+					writer.write(face(topLeft + 1, bottomLeft, bottomLeft + 1));
+				}
+			}
+		}
+	}
+	
+	private static String face(int a, int b, int c) {
+		return "f " + a + "/" + a + "/" + a + " " + b + "/" + b + "/" + b + " " + c + "/" + c + "/" + c + "\n";
+	}
+
+	public static void main(String[] args) throws IOException {new TestOBJLoader();}
+}
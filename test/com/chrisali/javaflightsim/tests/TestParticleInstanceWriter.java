@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.tests;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.util.vector.Matrix4f;
+import org.lwjgl.util.vector.Vector3f;
+
+import com.chrisali.javaflightsim.lwjgl.particles.ParticlePool;
+import com.chrisali.javaflightsim.lwjgl.renderengine.ParticleInstanceWriter;
+
+/**
+ * Times writing the instance data of 10,000 particles, the most that ParticleRenderer draws in one call, with 
+ * {@link ParticleInstanceWriter}
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TestParticleInstanceWriter {
+	
+	private static final int PARTICLES = 10_000;
+	private static final int WARMUP_FRAMES = 500;
+	private static final int FRAMES = 2000;
+	
+	public TestParticleInstanceWriter() {
+		ParticlePool pool = new ParticlePool(4);
+		Random random = new Random(1);
+		
+		for (int i = 0; i < PARTICLES; i++)
+			pool.add(random.nextFloat() * 8000, 300, random.nextFloat() * 8000, 0, 0, 0, 0, 1e6f, random.nextFloat() * 360, 200, -1);
+		
+		pool.update(0, 4000, 320, 4000);
+		pool.sortBackToFront();
+		
+		Matrix4f viewMatrix = new Matrix4f();
+		Matrix4f.rotate((float) Math.toRadians(10), new Vector3f(1, 0, 0), viewMatrix, viewMatrix);
+		Matrix4f.translate(new Vector3f(-4000, -320, -4000), viewMatrix, viewMatrix);
+		
+		FloatBuffer buffer = BufferUtils.createFloatBuffer(PARTICLES * ParticleInstanceWriter.INSTANCE_DATA_LENGTH);
+		
+		for (int i = 0; i < WARMUP_FRAMES; i++)
+			write(pool, viewMatrix, buffer);
+		
+		long start = System.nanoTime();
+		for (int i = 0; i < FRAMES; i++)
+			write(pool, viewMatrix, buffer);
+		
+		System.out.printf("%d particles: %.3f ms per frame to write instance data%n", PARTICLES, (System.nanoTime() - start) / 1e6 / FRAMES);
+	}
+	
+	private void write(ParticlePool pool, Matrix4f viewMatrix, FloatBuffer buffer) {
+		buffer.clear();
+		ParticleInstanceWriter.write(pool, viewMatrix, 0, buffer, PARTICLES);
+		buffer.flip();
+	}
+	
+	public static void main(String[] args) {new TestParticleInstanceWriter();}
+}
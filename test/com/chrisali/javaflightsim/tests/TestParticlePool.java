@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.tests;
+
+import java.util.Random;
+
+import com.chrisali.javaflightsim.lwjgl.particles.ParticlePool;
+
+/**
+ * Times updating and depth sorting a {@link ParticlePool} of 100,000 particles, which should take less than 2 ms
+ * per frame once warmed up
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TestParticlePool {
+	
+	private static final int PARTICLES = 100_000;
+	private static final int WARMUP_FRAMES = 200;
+	private static final int FRAMES = 500;
+	private static final float DELTA = 1 / 60f;
+	
+	public TestParticlePool() {
+		ParticlePool pool = new ParticlePool(4);
+		Random random = new Random(1);
+		
+		for (int i = 0; i < PARTICLES; i++) {
+			// Long lived particles, so that the pool stays the same size throughout
+			pool.add(random.nextFloat() * 8000, 300 + random.nextFloat() * 50, random.nextFloat() * 8000 - 4000, 
+					 random.nextFloat() - 0.5f, 0, random.nextFloat() - 0.5f, 0, 1e6f, random.nextFloat() * 360, 200, -1);
+		}
+		
+		for (int i = 0; i < WARMUP_FRAMES; i++)
+			step(pool, i);
+		
+		long start = System.nanoTime();
+		for (int i = 0; i < FRAMES; i++)
+			step(pool, i);
+		
+		System.out.printf("%d particles: %.3f ms per frame to update and sort%n", pool.getCount(), 
+						  (System.nanoTime() - start) / 1e6 / FRAMES);
+	}
+	
+	private void step(ParticlePool pool, int frame) {
+		pool.update(DELTA, 4000 + frame, 320, 0);
+		pool.sortBackToFront();
+	}
+	
+	public static void main(String[] args) {new TestParticlePool();}
+}
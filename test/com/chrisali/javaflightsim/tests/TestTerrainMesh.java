@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.chrisali.javaflightsim.lwjgl.models.MeshData;
+import com.chrisali.javaflightsim.lwjgl.terrain.HeightMap;
+import com.chrisali.javaflightsim.lwjgl.terrain.TerrainMeshBuilder;
+import com.chrisali.javaflightsim.lwjgl.utilities.OTWDirectories;
+
+/**
+ * Times decoding the terrain's height map and building its mesh with {@link TerrainMeshBuilder}, and then building meshes
+ * for a set of distinct generated height maps one after another versus in parallel with {@link TerrainMeshBuilder#buildAll(List)}.
+ * No OpenGL context is needed
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TestTerrainMesh {
+	
+	private static final int RUNS = 10;
+	
+	private static final int DISTINCT_TILES = 100;
+	
+	private static final int VERTEX_COUNT = 256;
+
+	public TestTerrainMesh() {
+		double decodeTotal = 0, buildTotal = 0;
+		MeshData mesh = null;
+		
+		for (int i = 0; i < RUNS; i++) {
+			long start = System.nanoTime();
+			HeightMap heightMap = HeightMap.read("heightMap", OTWDirectories.TERRAIN.toString());
+			decodeTotal += (System.nanoTime() - start) / 1e6;
+			
+			start = System.nanoTime();
+			mesh = TerrainMeshBuilder.build(heightMap);
+			buildTotal += (System.nanoTime() - start) / 1e6;
+		}
+		
+		System.out.printf("Decoded height map in %.2f ms and built its %d vertex mesh in %.2f ms on average%n", 
+				decodeTotal / RUNS, mesh.getVertexCount(), buildTotal / RUNS);
+		
+		List<HeightMap> heightMaps = new ArrayList<>();
+		for (int i = 0; i < DISTINCT_TILES; i++)
+			heightMaps.add(generateHeightMap(i));
+		
+		double sequentialTotal = 0, parallelTotal = 0;
+		for (int i = 0; i < RUNS; i++) {
+			long start = System.nanoTime();
+			for (HeightMap heightMap : heightMaps)
+				TerrainMeshBuilder.build(heightMap);
+			sequentialTotal += (System.nanoTime() - start) / 1e6;
+			
+			start = System.nanoTime();
+			TerrainMeshBuilder.buildAll(heightMaps);
+			parallelTotal += (System.nanoTime() - start) / 1e6;
+		}
+		
+		System.out.printf("Built %d distinct meshes one after another in %.2f ms, and in parallel in %.2f ms on average (%d processors)%n", 
+				DISTINCT_TILES, sequentialTotal / RUNS, parallelTotal / RUNS, Runtime.getRuntime().availableProcessors());
+	}
+	
+	private static HeightMap generateHeightMap(int seed) {
+		float[] heights = new float[VERTEX_COUNT * VERTEX_COUNT];
+		
+		for (int z = 0; z < VERTEX_COUNT; z++) {
+			for (int x = 0; x < VERTEX_COUNT; x++)
+				heights[z * VERTEX_COUNT + x] = (float) (Math.sin((x + seed) * 0.05) * Math.cos((z - seed) * 0.05));
+		}
+		
+		return new HeightMap(VERTEX_COUNT, heights);
+	}
+
+	public static void main(String[] args) {new TestTerrainMesh();}
+}
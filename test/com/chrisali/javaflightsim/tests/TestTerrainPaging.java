@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2020 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.tests;
+
+import org.lwjgl.util.vector.Vector3f;
+
+import com.chrisali.javaflightsim.lwjgl.entities.Ownship;
+import com.chrisali.javaflightsim.lwjgl.loader.AssetPipeline;
+import com.chrisali.javaflightsim.lwjgl.loader.Loader;
+import com.chrisali.javaflightsim.lwjgl.terrain.Terrain;
+import com.chrisali.javaflightsim.lwjgl.terrain.TerrainCollection;
+import com.chrisali.javaflightsim.lwjgl.terrain.TerrainMap;
+
+/**
+ * Flies an {@link Ownship} in a straight line over a {@link TerrainCollection}, printing the terrain height below it,
+ * the number of resident tiles and their estimated memory use as tiles are paged in and evicted. Uploads to the GPU are
+ * never processed, so no OpenGL context is needed, and no terrain mesh is ever ready; terrain heights should be valid 
+ * regardless
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TestTerrainPaging {
+	
+	private static final int RADIUS = 4;
+	
+	private static final long MEMORY_BUDGET_BYTES = 4_500_000;
+	
+	private static final int STEPS = 600;
+	
+	private static final long STEP_MILLIS = 10;
+	
+	// Distance flown each step, which is much faster than ownship can fly, so that many tiles are crossed [units]
+	private static final float STEP_DISTANCE = 40;
+
+	public TestTerrainPaging() throws InterruptedException {
+		AssetPipeline pipeline = new AssetPipeline();
+		Ownship ownship = new Ownship(null, new Vector3f(800, 0, 800), 0, 0, 0, 1);
+		
+		TerrainCollection terrainCollection = new TerrainCollection(RADIUS, MEMORY_BUDGET_BYTES, new Loader(), pipeline, ownship);
+		
+		System.out.printf("Terrain height before any tile was loaded: %.3f%n", terrainCollection.getTerrainHeight(ownship));
+		
+		for (int step = 0; step <= STEPS; step++) {
+			ownship.getPosition().x += STEP_DISTANCE;
+			terrainCollection.update();
+			
+			if (step % 50 == 0) {
+				Vector3f position = ownship.getPosition();
+				TerrainMap terrainMap = terrainCollection.getTerrainMap();
+				Terrain current = Terrain.getCurrentTerrain(terrainMap, position.x, position.z);
+				
+				int meshesReady = 0;
+				for (Terrain terrain : terrainMap.values()) {
+					if (terrain.getModel() != null)
+						meshesReady++;
+				}
+				
+				System.out.printf("x: %8.0f, tile: (%3d, %3d), height: %7.3f, resident tiles: %3d, meshes ready: %d, estimated memory: %.2f MB%n",
+						position.x, current.getGridX(), current.getGridZ(), terrainCollection.getTerrainHeight(ownship),
+						terrainMap.size(), meshesReady, terrainCollection.getEstimatedBytes() / 1e6);
+			}
+			
+			Thread.sleep(STEP_MILLIS);
+		}
+		
+		// Points straddling the boundary between ownship's tile and the next, as landing gear contact points might
+		float boundaryX = (Terrain.getGridIndex(ownship.getPosition().x) + 1) * Terrain.getSize();
+		float[] pointX = {boundaryX - 2, boundaryX - 1, boundaryX + 1, boundaryX + 2};
+		float[] pointZ = {800, 810, 800, 810};
+		float[] heights = new float[pointX.length];
+		
+		terrainCollection.getTerrainHeights(pointX, pointZ, heights, pointX.length);
+		
+		for (int i = 0; i < pointX.length; i++) {
+			System.out.printf("x: %8.0f, z: %4.0f, batch height: %7.3f, single height: %7.3f%n", pointX[i], pointZ[i], 
+					heights[i], terrainCollection.getTerrainHeight(pointX[i], pointZ[i]));
+		}
+		
+		pipeline.shutdown();
+	}
+
+	public static void main(String[] args) throws InterruptedException {new TestTerrainPaging();}
+}